@@ -27,9 +27,12 @@ import android.widget.Filter;
 import android.widget.Filterable;
 
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * <p>A custom abstract {@link BaseAdapter} that is backed by an {@link ArrayList} of arbitrary
@@ -45,6 +48,28 @@ import java.util.Comparator;
  * internally synchronized. This ensures a thread safe environment for internal write operations. If
  * filtering is not required, it's strongly recommended to use the {@link NFArrayAdapter}
  * instead.</p>
+ *
+ * <p>The items shown are held within an immutable list, published through a single volatile
+ * reference. Writers build a new list and swap it in, so methods reading the shown items, such as
+ * {@link #getItem(int)} or {@link #getCount()}, never lock and always see a consistent list.
+ * Outside a batch every change copies the shown items, so even a single item change takes time
+ * proportional to the number of items. Prefer the bulk methods such as {@link
+ * #addAll(Collection)} over repeated single item changes.</p>
+ *
+ * <p>Background threads producing many changes should post them instead, through methods such as
+ * {@link #postAdd(Object)} or {@link #postRemove(Object)}. Posting never blocks. Every change
+ * posted before the main thread gets to them is applied at once on the main thread, copying the
+ * shown items a single time and notifying only once.</p>
+ *
+ * <p>Threads already holding many changes may instead wrap them within {@link #beginBatch()} and
+ * {@link #commitBatch()}. The shown items are then copied once for the whole batch, and the changes
+ * shown once it commits. The last filtering request is also repeated once and a single
+ * notification sent for the whole batch.</p>
+ *
+ * <p>Finding an item, through {@link #contains(Object)}, {@link #getPosition(Object)} or {@link
+ * #remove(Object)}, is a linear search by default. Enable an index from item to positions with
+ * {@link #setItemIndex(ItemIndex)} or {@link #setItemIndex(KeyExtractor)} to make it a hash
+ * look-up instead.</p>
  */
 public abstract class AbsArrayAdapter<T> extends BaseAdapter implements Filterable {
 	/**
@@ -61,14 +86,20 @@ public abstract class AbsArrayAdapter<T> extends BaseAdapter implements Filterab
 	/**
 	 * Contains the list of objects that represent the visible data of the adapter. It's contents
 	 * will change as filtering occurs. All methods retrieving data about the adapter will always do
-	 * so from this list.
+	 * so from this list. A list is never modified once assigned here. Changes are made to a copy,
+	 * which then replaces it.
 	 */
-	private ArrayList<T> mObjects;
+	private volatile ArrayList<T> mObjects;
 	/**
 	 * Indicates whether or not {@link #notifyDataSetChanged()} must be called whenever {@link
 	 * #mObjects} is modified.
 	 */
 	private boolean mNotifyOnChange = true;
+	/**
+	 * Incremented under {@link #mLock} whenever the items are modified. Lets read-only views detect
+	 * they're no longer consistent with the adapter.
+	 */
+	private final AtomicInteger mModCount = new AtomicInteger();
 	/**
 	 * A copy of the original mObjects array, is not initialized until a filtering processing
 	 * occurs. Once initialized, it'll track the entire unfiltered data. Once the filter process
@@ -82,6 +113,40 @@ public abstract class AbsArrayAdapter<T> extends BaseAdapter implements Filterab
 	 * following changes to the array of data
 	 */
 	private CharSequence mLastConstraint;
+	/** Number of batches currently begun and not yet committed. See {@link #beginBatch()} */
+	private int mBatchDepth;
+	/** Whether a change made during the current batch requires the filter to be repeated */
+	private boolean mIsRefilterPending;
+	/** Whether a notification was deferred during the current batch */
+	private boolean mIsNotifyPending;
+	private ItemIndex mItemIndexType = ItemIndex.NONE;
+	/**
+	 * Index over the positions of {@link #mObjects}, or null if not enabled. Only accessed while
+	 * holding {@link #mLock}.
+	 */
+	private PositionIndex<T> mItemIndex;
+	/**
+	 * Index over the positions of {@link #mOriginalValues}, or null if not enabled or not filtered.
+	 * Only accessed while holding {@link #mLock}.
+	 */
+	private PositionIndex<T> mOriginalIndex;
+	/**
+	 * The current batch's private copy of {@link #mObjects}, changed in place and only shown once
+	 * the outermost batch commits. Null until first changed within a batch.
+	 */
+	private ArrayList<T> mBatchObjects;
+	/**
+	 * Index over the positions of {@link #mBatchObjects}, or null if not enabled or not changed
+	 * within a batch. Only accessed while holding {@link #mLock}.
+	 */
+	private PositionIndex<T> mBatchIndex;
+	/** Changes posted from any thread, waiting to be applied on the main thread */
+	private final MutationQueue<T> mPending = new MutationQueue<>(new MutationQueue.Target<T>() {
+		@Override
+		public void apply(@NonNull List<MutationQueue.Mutation<T>> mutations) {
+			applyMutations(mutations);
+		}
+	});
 
 	/**
 	 * Constructor
@@ -122,11 +187,21 @@ public abstract class AbsArrayAdapter<T> extends BaseAdapter implements Filterab
 	 */
 	public void add(@Nullable T items) {
 		synchronized (mLock) {
+			mModCount.incrementAndGet();
 			if (mOriginalValues != null) {
 				mOriginalValues.add(items);
-				getFilter().filter(mLastConstraint);
+				if (mOriginalIndex != null) {
+					mOriginalIndex.append(mOriginalValues, mOriginalValues.size() - 1);
+				}
+				refilter();
 			} else {
-				mObjects.add(items);
+				ArrayList<T> objects = editObjects();
+				objects.add(items);
+				publishObjects(objects);
+				PositionIndex<T> index = getNewestIndex();
+				if (index != null) {
+					index.append(objects, objects.size() - 1);
+				}
 			}
 		}
 		if (mNotifyOnChange) {
@@ -144,13 +219,25 @@ public abstract class AbsArrayAdapter<T> extends BaseAdapter implements Filterab
 		boolean isModified;
 
 		synchronized (mLock) {
+			mModCount.incrementAndGet();
 			if (mOriginalValues != null) {
+				int from = mOriginalValues.size();
 				isModified = mOriginalValues.addAll(items);
 				if (isModified) {
-					getFilter().filter(mLastConstraint);
+					if (mOriginalIndex != null) {
+						mOriginalIndex.append(mOriginalValues, from);
+					}
+					refilter();
 				}
 			} else {
-				isModified = mObjects.addAll(items);
+				ArrayList<T> objects = editObjects();
+				int from = objects.size();
+				isModified = objects.addAll(items);
+				publishObjects(objects);
+				PositionIndex<T> index = getNewestIndex();
+				if (index != null) {
+					index.append(objects, from);
+				}
 			}
 		}
 		if (isModified && mNotifyOnChange) {
@@ -169,13 +256,25 @@ public abstract class AbsArrayAdapter<T> extends BaseAdapter implements Filterab
 		boolean isModified;
 
 		synchronized (mLock) {
+			mModCount.incrementAndGet();
 			if (mOriginalValues != null) {
+				int from = mOriginalValues.size();
 				isModified = Collections.addAll(mOriginalValues, items);
 				if (isModified) {
-					getFilter().filter(mLastConstraint);
+					if (mOriginalIndex != null) {
+						mOriginalIndex.append(mOriginalValues, from);
+					}
+					refilter();
 				}
 			} else {
-				isModified = Collections.addAll(mObjects, items);
+				ArrayList<T> objects = editObjects();
+				int from = objects.size();
+				isModified = Collections.addAll(objects, items);
+				publishObjects(objects);
+				PositionIndex<T> index = getNewestIndex();
+				if (index != null) {
+					index.append(objects, from);
+				}
 			}
 		}
 		if (isModified && mNotifyOnChange) {
@@ -183,36 +282,227 @@ public abstract class AbsArrayAdapter<T> extends BaseAdapter implements Filterab
 		}
 	}
 
+	/**
+	 * Applies a batch of posted changes under a single lock. The shown items are copied once for
+	 * the whole batch, unless already copied within a batch begun with {@link #beginBatch()}.
+	 * Removals are only marked as they're applied, then dropped all at once in a single pass.
+	 * Positions which are no longer valid by the time they're applied are ignored.
+	 */
+	@SuppressWarnings("unchecked")
+	private void applyMutations(@NonNull List<MutationQueue.Mutation<T>> mutations) {
+		boolean isModified = false;
+
+		synchronized (mLock) {
+			mModCount.incrementAndGet();
+			ArrayList<T> objects = editObjects();
+			PositionIndex<T> itemIndex = getNewestIndex();
+			if (itemIndex != null) {
+				itemIndex.moveTo(objects);
+			}
+			boolean isFiltered = (mOriginalValues != null);
+			boolean isRefilterNeeded = false;
+			BitSet removed = new BitSet();
+			BitSet originalRemoved = new BitSet();
+			for (MutationQueue.Mutation<T> mutation : mutations) {
+				switch (mutation.op) {
+				case MutationQueue.Mutation.ADD:
+					if (isFiltered) {
+						mOriginalValues.add(mutation.item);
+						if (mOriginalIndex != null) {
+							mOriginalIndex.append(mOriginalValues, mOriginalValues.size() - 1);
+						}
+						isRefilterNeeded = true;
+					} else {
+						objects.add(mutation.item);
+						if (itemIndex != null) {
+							itemIndex.append(objects, objects.size() - 1);
+						}
+					}
+					isModified = true;
+					break;
+				case MutationQueue.Mutation.ADD_ALL:
+					Collection<? extends T> items = (Collection<? extends T>) mutation.items;
+					if (isFiltered) {
+						int from = mOriginalValues.size();
+						isRefilterNeeded |= mOriginalValues.addAll(items);
+						if (mOriginalIndex != null) {
+							mOriginalIndex.append(mOriginalValues, from);
+						}
+						isModified |= !items.isEmpty();
+					} else {
+						int from = objects.size();
+						isModified |= objects.addAll(items);
+						if (itemIndex != null) {
+							itemIndex.append(objects, from);
+						}
+					}
+					break;
+				case MutationQueue.Mutation.REMOVE:
+					if (isFiltered) {
+						isModified |= markFirst(mOriginalValues, mOriginalIndex, originalRemoved,
+												mutation.item);
+					}
+					isModified |= markFirst(objects, itemIndex, removed, mutation.item);
+					break;
+				case MutationQueue.Mutation.REMOVE_ALL:
+					if (isFiltered) {
+						isModified |= markAll(mOriginalValues, mOriginalIndex, originalRemoved,
+											  mutation.items);
+					}
+					isModified |= markAll(objects, itemIndex, removed, mutation.items);
+					break;
+				case MutationQueue.Mutation.UPDATE:
+					compact(objects, itemIndex, removed);    //Positions count earlier removals
+					if (mutation.position < 0 || mutation.position >= objects.size()) {
+						break;
+					}
+					if (isFiltered) {
+						compact(mOriginalValues, mOriginalIndex, originalRemoved);
+						int newPosition = indexOf(mOriginalValues, mOriginalIndex, null,
+												  objects.get(mutation.position));
+						if (newPosition < 0) {
+							break;
+						}
+						T oldItem = mOriginalValues.set(newPosition, mutation.item);
+						if (mOriginalIndex != null) {
+							mOriginalIndex.replace(mOriginalValues, newPosition, oldItem);
+						}
+						isRefilterNeeded = true;
+					} else {
+						T oldItem = objects.set(mutation.position, mutation.item);
+						if (itemIndex != null) {
+							itemIndex.replace(objects, mutation.position, oldItem);
+						}
+					}
+					isModified = true;
+					break;
+				}
+			}
+			compact(objects, itemIndex, removed);
+			if (isFiltered) {
+				compact(mOriginalValues, mOriginalIndex, originalRemoved);
+			}
+			publishObjects(objects);
+			if (isRefilterNeeded) {
+				refilter();
+			}
+		}
+		if (isModified && mNotifyOnChange) {
+			notifyDataSetChanged();
+		}
+	}
+
+	/**
+	 * <p>Begins a batch of changes. Until the matching {@link #commitBatch()}, changes made to the
+	 * adapter neither repeat the last filtering request nor notify. Instead the filter is repeated
+	 * once and a single notification is sent when the batch commits.</p>
+	 *
+	 * <p>Changes are made to a single private copy of the shown items, which is only shown once the
+	 * batch commits. Until then, the adapter keeps showing the items as they were. Positions given
+	 * within a batch, such as to {@link #update(int, Object)}, are of the items shown.</p>
+	 *
+	 * <p>Batches may be nested, only committing the outermost batch applies the deferred work.
+	 * Always begin and commit a batch on the same thread, ideally committing within a finally
+	 * block.</p>
+	 */
+	public void beginBatch() {
+		synchronized (mLock) {
+			++mBatchDepth;
+		}
+	}
+
 	/**
 	 * Remove all elements from the adapter.
 	 */
 	public void clear() {
 		synchronized (mLock) {
+			mModCount.incrementAndGet();
 			if (mOriginalValues != null) {
 				mOriginalValues.clear();
 			}
-			mObjects.clear();
+			publishObjects(new ArrayList<T>());
+			reindexItems();
 		}
 		if (mNotifyOnChange) {
 			notifyDataSetChanged();
 		}
 	}
 
+	/**
+	 * Commits the batch begun by the matching {@link #beginBatch()}. Once the outermost batch
+	 * commits, the changes made within it are shown. The last filtering request is then repeated
+	 * if any change required it and {@link #notifyDataSetChanged()} is invoked if any change
+	 * would have invoked it.
+	 *
+	 * @throws IllegalStateException If no batch has begun
+	 */
+	public void commitBatch() {
+		boolean isNotifyPending;
+
+		synchronized (mLock) {
+			if (mBatchDepth == 0) {
+				throw new IllegalStateException("No batch has begun");
+			} else if (--mBatchDepth > 0) {
+				return;
+			}
+			if (mBatchObjects != null) {
+				mModCount.incrementAndGet();
+				mObjects = mBatchObjects;
+				mItemIndex = mBatchIndex;
+				mBatchObjects = null;
+				mBatchIndex = null;
+			}
+			if (mIsRefilterPending) {
+				mIsRefilterPending = false;
+				FilterExecutor.refilter(this, mLastConstraint);
+			}
+			isNotifyPending = mIsNotifyPending;
+			mIsNotifyPending = false;
+		}
+		if (isNotifyPending) {
+			notifyDataSetChanged();
+		}
+	}
+
+	/**
+	 * Drops the marked positions from the list in a single pass, keeping the index in step if
+	 * enabled. The marks are cleared afterwards.
+	 */
+	private static <T> void compact(@NonNull List<T> list, @Nullable PositionIndex<T> index,
+									@NonNull BitSet removed) {
+		if (removed.isEmpty()) {
+			return;
+		}
+		int size = 0;
+		for (int position = 0; position < list.size(); ++position) {
+			if (!removed.get(position)) {
+				list.set(size++, list.get(position));
+			}
+		}
+		list.subList(size, list.size()).clear();
+		if (index != null) {
+			index.removeAll(list, removed);
+		}
+		removed.clear();
+	}
+
 	/**
 	 * Tests whether this adapter contains the specified item. Be aware that this is a linear
-	 * search.
+	 * search, unless an item index is enabled. See {@link #setItemIndex(ItemIndex)}.
 	 *
 	 * @param item The item to search for
 	 *
 	 * @return {@code true} if the item is an element of this adapter. {@code false} otherwise
 	 */
 	public boolean contains(@Nullable T item) {
-		return mObjects.contains(item);
+		return getPosition(item) >= 0;
 	}
 
 	/**
 	 * Tests whether this adapter contains all items contained in the specified collection.  Be
-	 * aware that this performs a nested for loop search...eg O(n*m) complexity.
+	 * aware that this performs a nested for loop search...eg O(n*m) complexity. Unless an item
+	 * index is enabled, which makes it a hash look-up per item. See {@link
+	 * #setItemIndex(ItemIndex)}.
 	 *
 	 * @param items The collection of items
 	 *
@@ -220,9 +510,35 @@ public abstract class AbsArrayAdapter<T> extends BaseAdapter implements Filterab
 	 * {@code false} otherwise
 	 */
 	public boolean containsAll(@NonNull Collection<?> items) {
+		synchronized (mLock) {
+			if (mItemIndex != null) {
+				for (Object item : items) {
+					if (mItemIndex.indexOf(item, null) < 0) {
+						return false;
+					}
+				}
+				return true;
+			}
+		}
 		return mObjects.containsAll(items);
 	}
 
+	/**
+	 * Gets the shown items to change, then handed to {@link #publishObjects(ArrayList)}. Outside a
+	 * batch, that's a new copy of {@link #mObjects}. Within a batch, that's the batch's private
+	 * copy, only made on it's first change. Must be invoked while holding {@link #mLock}.
+	 */
+	@NonNull
+	private ArrayList<T> editObjects() {
+		if (mBatchDepth == 0) {
+			return new ArrayList<>(mObjects);
+		} else if (mBatchObjects == null) {
+			mBatchObjects = new ArrayList<>(mObjects);
+			mBatchIndex = (mItemIndex != null) ? mItemIndex.over(mBatchObjects) : null;
+		}
+		return mBatchObjects;
+	}
+
 	/**
 	 * @return The Context associated with this adapter.
 	 */
@@ -271,7 +587,8 @@ public abstract class AbsArrayAdapter<T> extends BaseAdapter implements Filterab
 	}
 
 	/**
-	 * @return The shown filtered list. If no filter is applied, then the original list is returned.
+	 * @return A detached copy of the shown filtered list. If no filter is applied, then the
+	 * original list is returned. See {@link #getFilteredListView()} to read without copying.
 	 */
 	@NonNull
 	public ArrayList<T> getFilteredList() {
@@ -282,6 +599,22 @@ public abstract class AbsArrayAdapter<T> extends BaseAdapter implements Filterab
 		return objects;
 	}
 
+	/**
+	 * Gets a read-only view of the shown filtered list, without copying it. The view is fail-fast,
+	 * reading from it throws a {@link java.util.ConcurrentModificationException} once the items of
+	 * the adapter are modified. Any read which succeeds is consistent with the items as they were
+	 * when the view was retrieved.
+	 *
+	 * @return A read-only view of the shown filtered list. If no filter is applied, then of the
+	 * original list.
+	 */
+	@NonNull
+	public List<T> getFilteredListView() {
+		synchronized (mLock) {
+			return ReadOnlyListView.of(mModCount, mObjects);
+		}
+	}
+
 	@Override
 	public T getItem(int position) {
 		return mObjects.get(position);
@@ -293,7 +626,19 @@ public abstract class AbsArrayAdapter<T> extends BaseAdapter implements Filterab
 	}
 
 	/**
-	 * @return The original (unfiltered) list of items stored within the Adapter
+	 * @return How items are indexed for {@link #contains(Object)}, {@link #getPosition(Object)}
+	 * and {@link #remove(Object)}. See {@link #setItemIndex(ItemIndex)}.
+	 */
+	@NonNull
+	public ItemIndex getItemIndex() {
+		synchronized (mLock) {
+			return mItemIndexType;
+		}
+	}
+
+	/**
+	 * @return A detached copy of the original (unfiltered) list of items stored within the Adapter.
+	 * See {@link #getListView()} to read without copying.
 	 */
 	@NonNull
 	public ArrayList<T> getList() {
@@ -308,6 +653,22 @@ public abstract class AbsArrayAdapter<T> extends BaseAdapter implements Filterab
 		return objects;
 	}
 
+	/**
+	 * Gets a read-only view of the original (unfiltered) list of items, without copying it. The
+	 * view is fail-fast, reading from it throws a {@link java.util.ConcurrentModificationException}
+	 * once the items of the adapter are modified. Any read which succeeds is consistent with the
+	 * items as they were when the view was retrieved.
+	 *
+	 * @return A read-only view of the original list of items stored within the Adapter
+	 */
+	@NonNull
+	public List<T> getListView() {
+		synchronized (mLock) {
+			return ReadOnlyListView.of(mModCount,
+									   (mOriginalValues != null) ? mOriginalValues : mObjects);
+		}
+	}
+
 	/**
 	 * Resets the adapter to store a new list of items. Convenient way of calling {@link #clear()},
 	 * then {@link #addAll(java.util.Collection)} without having to worry about an extra {@link
@@ -318,29 +679,53 @@ public abstract class AbsArrayAdapter<T> extends BaseAdapter implements Filterab
 	 */
 	public void setList(@NonNull Collection<? extends T> items) {
 		synchronized (mLock) {
+			mModCount.incrementAndGet();
 			if (mOriginalValues != null) {
 				mOriginalValues.clear();
 				mOriginalValues.addAll(items);
-				getFilter().filter(mLastConstraint);
+				refilter();
 			} else {
-				mObjects.clear();
-				mObjects.addAll(items);
+				publishObjects(new ArrayList<T>(items));
 			}
+			reindexItems();
 		}
 		if (mNotifyOnChange) {
 			notifyDataSetChanged();
 		}
 	}
 
+	/**
+	 * @return The index over {@link #getNewestObjects()}, or null if not enabled. Must be invoked
+	 * while holding {@link #mLock}.
+	 */
+	@Nullable
+	private PositionIndex<T> getNewestIndex() {
+		return (mBatchObjects != null) ? mBatchIndex : mItemIndex;
+	}
+
+	/**
+	 * @return The shown items including any change made within the current batch. Must be invoked
+	 * while holding {@link #mLock}.
+	 */
+	@NonNull
+	private ArrayList<T> getNewestObjects() {
+		return (mBatchObjects != null) ? mBatchObjects : mObjects;
+	}
+
 	/**
 	 * Returns the position of the specified item in the array.  Be aware that this performs a
-	 * linear search.
+	 * linear search, unless an item index is enabled. See {@link #setItemIndex(ItemIndex)}.
 	 *
 	 * @param item The item to retrieve the position of.
 	 *
 	 * @return The position of the specified item.
 	 */
 	public int getPosition(@Nullable T item) {
+		synchronized (mLock) {
+			if (mItemIndex != null) {
+				return mItemIndex.indexOf(item, null);
+			}
+		}
 		return mObjects.indexOf(item);
 	}
 
@@ -372,6 +757,33 @@ public abstract class AbsArrayAdapter<T> extends BaseAdapter implements Filterab
 		return this.getView(mInflater, position, convertView, parent);
 	}
 
+	/**
+	 * Finds the first occurrence of the item within the list, through the index if enabled.
+	 *
+	 * @param list    The list to search
+	 * @param index   Index over the list, or null to search linearly
+	 * @param skipped Positions to pass over, or null
+	 * @param item    The item to find
+	 *
+	 * @return The position of the item, or -1 if not found.
+	 */
+	private static int indexOf(@NonNull List<?> list, @Nullable PositionIndex<?> index,
+							   @Nullable BitSet skipped, @Nullable Object item) {
+		if (index != null) {
+			return index.indexOf(item, skipped);
+		} else if (skipped == null) {
+			return list.indexOf(item);
+		}
+		for (int position = skipped.nextClearBit(0); position < list.size();
+			 position = skipped.nextClearBit(position + 1)) {
+			Object current = list.get(position);
+			if (item == null ? current == null : item.equals(current)) {
+				return position;
+			}
+		}
+		return -1;
+	}
+
 	private void init(@NonNull Context context, @NonNull ArrayList<T> objects) {
 		mInflater = LayoutInflater.from(context);
 		mContext = context;
@@ -392,14 +804,160 @@ public abstract class AbsArrayAdapter<T> extends BaseAdapter implements Filterab
 	 */
 	protected abstract boolean isFilteredOut(T item, @NonNull CharSequence constraint);
 
+	/**
+	 * Marks every occurrence within the list of each of the items, through the index if enabled.
+	 *
+	 * @return Whether any new position was marked.
+	 */
+	private static boolean markAll(@NonNull List<?> list, @Nullable PositionIndex<?> index,
+								   @NonNull BitSet marked, @NonNull Collection<?> items) {
+		int count = marked.cardinality();
+		if (index != null) {
+			for (Object item : items) {
+				index.markAll(item, marked);
+			}
+		} else {
+			for (int position = 0; position < list.size(); ++position) {
+				if (!marked.get(position) && items.contains(list.get(position))) {
+					marked.set(position);
+				}
+			}
+		}
+		return marked.cardinality() != count;
+	}
+
+	/**
+	 * Marks the first occurrence within the list of the item which isn't already marked, through
+	 * the index if enabled.
+	 *
+	 * @return Whether a position was marked.
+	 */
+	private static boolean markFirst(@NonNull List<?> list, @Nullable PositionIndex<?> index,
+									 @NonNull BitSet marked, @Nullable Object item) {
+		int position = indexOf(list, index, marked, item);
+		if (position < 0) {
+			return false;
+		}
+		marked.set(position);
+		return true;
+	}
+
 	@Override
 	public void notifyDataSetChanged() {
+		synchronized (mLock) {
+			if (mBatchDepth > 0) {
+				mIsNotifyPending = true;    //Sent once the batch commits
+				return;
+			}
+		}
 		super.notifyDataSetChanged();
 		mNotifyOnChange = true;
 	}
 
 	/**
-	 * Removes the first occurrence of the specified item from the adapter.
+	 * Posts the specified item to be added at the end of the adapter. May be called from any thread
+	 * and never blocks. The item is added on the main thread along with every other posted change.
+	 *
+	 * @param item The item to add at the end of the adapter.
+	 */
+	public void postAdd(@Nullable T item) {
+		mPending.post(new MutationQueue.Mutation<>(MutationQueue.Mutation.ADD, item, null, -1, -1));
+	}
+
+	/**
+	 * Posts the specified Collection to be added at the end of the adapter. May be called from any
+	 * thread and never blocks. The items are added on the main thread along with every other posted
+	 * change.
+	 *
+	 * @param items The Collection to add at the end of the adapter. Copied before this returns.
+	 */
+	public void postAddAll(@NonNull Collection<? extends T> items) {
+		mPending.post(new MutationQueue.Mutation<T>(MutationQueue.Mutation.ADD_ALL, null,
+													new ArrayList<>(items), -1, -1));
+	}
+
+	/**
+	 * Posts the first occurrence of the specified item to be removed from the adapter. May be
+	 * called from any thread and never blocks. The item is removed on the main thread along with
+	 * every other posted change.
+	 *
+	 * @param item The item to remove.
+	 */
+	public void postRemove(@Nullable T item) {
+		mPending.post(new MutationQueue.Mutation<>(MutationQueue.Mutation.REMOVE, item, null, -1,
+												   -1));
+	}
+
+	/**
+	 * Posts all occurrences of each item in the specified collection to be removed from the
+	 * adapter. May be called from any thread and never blocks. The items are removed on the main
+	 * thread along with every other posted change.
+	 *
+	 * @param items The collection of items to remove. Copied before this returns.
+	 */
+	public void postRemoveAll(@NonNull Collection<?> items) {
+		mPending.post(new MutationQueue.Mutation<T>(MutationQueue.Mutation.REMOVE_ALL, null,
+													new ArrayList<>(items), -1, -1));
+	}
+
+	/**
+	 * Posts the item at the specified position to be updated with the specified item. May be
+	 * called from any thread and never blocks. The position is only resolved once applied on the
+	 * main thread, after any change posted before it. It's ignored if no longer valid by then.
+	 *
+	 * @param position The location at which to put the specified item
+	 * @param item     The new item to replace with the old
+	 */
+	public void postUpdate(int position, @Nullable T item) {
+		mPending.post(new MutationQueue.Mutation<>(MutationQueue.Mutation.UPDATE, item, null,
+												   position, -1));
+	}
+
+	/**
+	 * Shows the changed items, or holds them as the batch's private copy until the outermost batch
+	 * commits. Must be invoked while holding {@link #mLock}.
+	 */
+	private void publishObjects(@NonNull ArrayList<T> objects) {
+		if (mBatchDepth == 0) {
+			mObjects = objects;
+		} else if (objects != mBatchObjects) {
+			mBatchObjects = objects;
+			mBatchIndex = (mItemIndex != null) ? mItemIndex.over(objects) : null;
+		}
+	}
+
+	/**
+	 * Rebuilds the item indexes, if enabled, on their next look-up. Must be invoked while holding
+	 * {@link #mLock}, after the items are changed other than by appending, replacing or removing
+	 * them.
+	 */
+	private void reindexItems() {
+		if (mItemIndex != null) {
+			mItemIndex = mItemIndex.over(mObjects);
+		}
+		if (mOriginalIndex != null) {
+			mOriginalIndex = mOriginalIndex.over(mOriginalValues);
+		}
+		if (mBatchIndex != null) {
+			mBatchIndex = mBatchIndex.over(mBatchObjects);
+		}
+	}
+
+	/**
+	 * Repeats the last filtering request, or defers it until the current batch commits. Must be
+	 * invoked while holding {@link #mLock}.
+	 */
+	private void refilter() {
+		if (mBatchDepth > 0) {
+			mIsRefilterPending = true;
+		} else {
+			FilterExecutor.refilter(this, mLastConstraint);
+		}
+	}
+
+	/**
+	 * Removes the first occurrence of the specified item from the adapter. The item is found with
+	 * a linear search, unless an item index is enabled. See {@link #setItemIndex(ItemIndex)}.
 	 *
 	 * @param item The item to remove.
 	 */
@@ -407,10 +965,28 @@ public abstract class AbsArrayAdapter<T> extends BaseAdapter implements Filterab
 		boolean isModified = false;
 
 		synchronized (mLock) {
+			mModCount.incrementAndGet();
 			if (mOriginalValues != null) {
-				isModified = mOriginalValues.remove(item);
+				int position = indexOf(mOriginalValues, mOriginalIndex, null, item);
+				if (position >= 0) {
+					mOriginalValues.remove(position);
+					if (mOriginalIndex != null) {
+						mOriginalIndex.remove(mOriginalValues, position);
+					}
+					isModified = true;
+				}
+			}
+			int position = indexOf(getNewestObjects(), getNewestIndex(), null, item);
+			if (position >= 0) {
+				ArrayList<T> objects = editObjects();
+				objects.remove(position);
+				publishObjects(objects);
+				PositionIndex<T> index = getNewestIndex();
+				if (index != null) {
+					index.remove(objects, position);
+				}
+				isModified = true;
 			}
-			isModified |= mObjects.remove(item);
 		}
 		if (isModified && mNotifyOnChange) {
 			notifyDataSetChanged();
@@ -418,17 +994,29 @@ public abstract class AbsArrayAdapter<T> extends BaseAdapter implements Filterab
 	}
 
 	/**
-	 * Removes all occurrences in the adapter of each item in the specified collection.
+	 * Removes all occurrences in the adapter of each item in the specified collection. The items
+	 * are marked first, then dropped in a single pass. With an item index enabled, marking is a
+	 * hash look-up per item rather than a search of the collection per item held. See {@link
+	 * #setItemIndex(ItemIndex)}.
 	 *
 	 * @param items The collection of items to remove
 	 */
 	public void removeAll(@NonNull Collection<?> items) {
 		boolean isModified = false;
 		synchronized (mLock) {
-			if (mOriginalValues != null) {
-				isModified = mOriginalValues.removeAll(items);
+			mModCount.incrementAndGet();
+			BitSet removed = new BitSet();
+			if (mOriginalValues != null &&
+				markAll(mOriginalValues, mOriginalIndex, removed, items)) {
+				compact(mOriginalValues, mOriginalIndex, removed);
+				isModified = true;
+			}
+			if (markAll(getNewestObjects(), getNewestIndex(), removed, items)) {
+				ArrayList<T> objects = editObjects();
+				compact(objects, getNewestIndex(), removed);
+				publishObjects(objects);
+				isModified = true;
 			}
-			isModified |= mObjects.removeAll(items);
 		}
 		if (isModified && mNotifyOnChange) {
 			notifyDataSetChanged();
@@ -444,16 +1032,76 @@ public abstract class AbsArrayAdapter<T> extends BaseAdapter implements Filterab
 		boolean isModified = false;
 
 		synchronized (mLock) {
+			mModCount.incrementAndGet();
 			if (mOriginalValues != null) {
 				isModified = mOriginalValues.retainAll(items);
 			}
-			isModified |= mObjects.retainAll(items);
+			ArrayList<T> objects = editObjects();
+			if (objects.retainAll(items)) {
+				publishObjects(objects);
+				isModified = true;
+			}
+			if (isModified) {
+				reindexItems();
+			}
 		}
 		if (isModified && mNotifyOnChange) {
 			notifyDataSetChanged();
 		}
 	}
 
+	/**
+	 * <p>Sets how items are indexed for {@link #contains(Object)}, {@link #getPosition(Object)},
+	 * {@link #remove(Object)} and {@link #removeAll(Collection)}. By default nothing is indexed
+	 * and each performs a linear search comparing with equals.</p>
+	 *
+	 * <p>Once enabled, an index from each item to it's positions is kept in step with every change,
+	 * sort and filtering. Each look-up then becomes a hash look-up. A batch of removals only looks
+	 * up the items removed, and shifts the remaining positions in a single pass. While filtered, a
+	 * second index over the unfiltered items makes {@link #update(int, Object)} a hash look-up as
+	 * well. With {@link ItemIndex#EQUALITY}, equals and hashCode must not change while the item is
+	 * held by the adapter. The index costs memory in proportion to the number of items.</p>
+	 *
+	 * @param type How to index the items. {@link ItemIndex#NONE} drops the index.
+	 *
+	 * @throws IllegalArgumentException If type is {@link ItemIndex#KEY}, see {@link
+	 *                                  #setItemIndex(KeyExtractor)} instead.
+	 */
+	public void setItemIndex(@NonNull ItemIndex type) {
+		if (type == ItemIndex.KEY) {
+			throw new IllegalArgumentException("Set a KeyExtractor to index items by key");
+		}
+		setItemIndex(type, null);
+	}
+
+	/**
+	 * Indexes items by the key extracted from each of them. Items with equal keys are then
+	 * considered the same item by {@link #contains(Object)}, {@link #getPosition(Object)}, {@link
+	 * #remove(Object)} and {@link #removeAll(Collection)}. Finds the current position of a newer
+	 * copy of an item, such as one received from a push notification, with a hash look-up. See
+	 * {@link #setItemIndex(ItemIndex)}.
+	 *
+	 * @param extractor Extracts the key of each item. Keys must not change while the item is held
+	 *                  by the adapter.
+	 */
+	public void setItemIndex(@NonNull KeyExtractor<? super T> extractor) {
+		setItemIndex(ItemIndex.KEY, extractor);
+	}
+
+	private void setItemIndex(@NonNull ItemIndex type,
+							  @Nullable KeyExtractor<? super T> extractor) {
+		synchronized (mLock) {
+			mItemIndexType = type;
+			mItemIndex = (type != ItemIndex.NONE) ?
+						 new PositionIndex<>(mObjects, type == ItemIndex.IDENTITY, extractor) :
+						 null;
+			mOriginalIndex = (mItemIndex != null && mOriginalValues != null) ?
+							 mItemIndex.over(mOriginalValues) : null;
+			mBatchIndex = (mItemIndex != null && mBatchObjects != null) ?
+						  mItemIndex.over(mBatchObjects) : null;
+		}
+	}
+
 	/**
 	 * <p>Control whether methods that change the list ({@link #add}, {@link #retainAll}, {@link
 	 * #remove}, {@link #clear}) automatically call {@link #notifyDataSetChanged}.  If set to false,
@@ -494,10 +1142,14 @@ public abstract class AbsArrayAdapter<T> extends BaseAdapter implements Filterab
 	 */
 	public void sort(@Nullable Comparator<? super T> comparator) {
 		synchronized (mLock) {
+			mModCount.incrementAndGet();
 			if (mOriginalValues != null) {
 				Collections.sort(mOriginalValues, comparator);
 			}
-			Collections.sort(mObjects, comparator);
+			ArrayList<T> objects = editObjects();
+			Collections.sort(objects, comparator);
+			publishObjects(objects);
+			reindexItems();
 		}
 		if (mNotifyOnChange) {
 			notifyDataSetChanged();
@@ -509,19 +1161,38 @@ public abstract class AbsArrayAdapter<T> extends BaseAdapter implements Filterab
 	 * operation does not change the size of the adapter. Will repeat the last filtering request if
 	 * invoked while filtered results are being displayed. Be-aware this method is only a constant
 	 * time operation when the list is not filtered. Otherwise, the position must be converted to a
-	 * unfiltered position; which requires traversing the original unfiltered list.
+	 * unfiltered position; which requires traversing the original unfiltered list, unless an item
+	 * index is enabled. See {@link #setItemIndex(ItemIndex)}. The same holds within a batch, where
+	 * the item is not updated if removed earlier within the batch.
 	 *
 	 * @param position The location at which to put the specified item
 	 * @param item     The new item to replace with the old
 	 */
 	public void update(int position, @Nullable T item) {
 		synchronized (mLock) {
+			mModCount.incrementAndGet();
 			if (mOriginalValues != null) {
-				int newPosition = mOriginalValues.indexOf(mObjects.get(position));
-				mOriginalValues.set(newPosition, item);
-				getFilter().filter(mLastConstraint);
+				int newPosition = indexOf(mOriginalValues, mOriginalIndex, null,
+										  mObjects.get(position));
+				T oldItem = mOriginalValues.set(newPosition, item);
+				if (mOriginalIndex != null) {
+					mOriginalIndex.replace(mOriginalValues, newPosition, oldItem);
+				}
+				refilter();
 			} else {
-				mObjects.set(position, item);
+				int newPosition = position;
+				if (mBatchObjects != null) {    //Positions are of the items shown
+					newPosition = indexOf(mBatchObjects, mBatchIndex, null, mObjects.get(position));
+				}
+				if (newPosition >= 0) {
+					ArrayList<T> objects = editObjects();
+					PositionIndex<T> index = getNewestIndex();
+					T oldItem = objects.set(newPosition, item);
+					publishObjects(objects);
+					if (index != null) {
+						index.replace(objects, newPosition, oldItem);
+					}
+				}
 			}
 		}
 		if (mNotifyOnChange) {
@@ -529,31 +1200,72 @@ public abstract class AbsArrayAdapter<T> extends BaseAdapter implements Filterab
 		}
 	}
 
+	/**
+	 * How items are indexed for {@link #contains(Object)}, {@link #getPosition(Object)} and {@link
+	 * #remove(Object)}. See {@link #setItemIndex(ItemIndex)}.
+	 */
+	public enum ItemIndex {
+		/** Items aren't indexed. Look-ups by item are a linear search comparing with equals */
+		NONE,
+		/** Items are indexed by identity. Look-ups by item compare with == */
+		IDENTITY,
+		/** Items are indexed by equality. Look-ups by item compare with equals */
+		EQUALITY,
+		/** Items are indexed by key. See {@link #setItemIndex(KeyExtractor)} */
+		KEY
+	}
+
+	/**
+	 * Extracts the key items are indexed by. See {@link #setItemIndex(KeyExtractor)}.
+	 */
+	public interface KeyExtractor<T> {
+		/**
+		 * @param item The item to extract the key of
+		 *
+		 * @return The key of the item. Compared using equals and hashCode.
+		 */
+		@Nullable
+		Object getKey(@Nullable T item);
+	}
+
 	/**
 	 * An array filter constrains the content of the array adapter. Whether an item is constrained
 	 * or not is delegated to subclasses through {@link AbsArrayAdapter#isFilteredOut(Object,
 	 * CharSequence)}
 	 */
-	private class ArrayFilter extends Filter {
+	private class ArrayFilter extends PooledFilter {
 		@Override
-		protected FilterResults performFiltering(CharSequence constraint) {
+		protected FilterResults performPooledFiltering(CharSequence constraint) {
 			FilterResults results = new FilterResults();
 			final ArrayList<T> values;
+			final PositionIndex<T> index;
 
 			synchronized (mLock) {
 				if (TextUtils.isEmpty(constraint)) {    //Clearing out filtered results
 					if (mOriginalValues != null) {
 						mObjects = new ArrayList<>(mOriginalValues);
 						mOriginalValues = null;
+						mBatchObjects = null;    //Unfiltered items hold the batch's changes
+						mBatchIndex = null;
+						if (mOriginalIndex != null) {    //Same positions, kept as is
+							mOriginalIndex.moveTo(mObjects);
+							mItemIndex = mOriginalIndex;
+							mOriginalIndex = null;
+						}
 					}
-					results.values = mObjects;
+					results.values = (mItemIndex != null) ? mItemIndex : mObjects;
 					results.count = mObjects.size();
 					return results;
 				} else {    //Ready for filtering
 					if (mOriginalValues == null) {
-						mOriginalValues = new ArrayList<>(mObjects);
+						mOriginalValues = new ArrayList<>(getNewestObjects());
+						mOriginalIndex = (mItemIndex != null) ?
+										 mItemIndex.over(mOriginalValues) : null;
 					}
+					mBatchObjects = null;    //Unfiltered items now hold the batch's changes
+					mBatchIndex = null;
 					values = new ArrayList<>(mOriginalValues);
+					index = mItemIndex;
 				}
 			}
 
@@ -564,7 +1276,13 @@ public abstract class AbsArrayAdapter<T> extends BaseAdapter implements Filterab
 				}
 			}
 
-			results.values = newValues;
+			if (index != null) {    //Indexed here rather than on the main thread once published
+				PositionIndex<T> newIndex = index.over(newValues);
+				newIndex.build();
+				results.values = newIndex;
+			} else {
+				results.values = newValues;
+			}
 			results.count = newValues.size();
 
 			return results;
@@ -572,10 +1290,21 @@ public abstract class AbsArrayAdapter<T> extends BaseAdapter implements Filterab
 
 		@SuppressWarnings("unchecked")
 		@Override
-		protected void publishResults(CharSequence constraint, FilterResults results) {
+		protected void publishPooledResults(CharSequence constraint, FilterResults results) {
 			mLastConstraint = constraint;
 			synchronized (mLock) {
-				mObjects = (ArrayList<T>) results.values;
+				if (results.values instanceof PositionIndex) {
+					PositionIndex<T> index = (PositionIndex<T>) results.values;
+					mObjects = (ArrayList<T>) index.getItems();
+					if (mItemIndex != null) {    //Unless changed meanwhile, taken as is
+						mItemIndex = index.isLike(mItemIndex) ? index : mItemIndex.over(mObjects);
+					}
+				} else {
+					mObjects = (ArrayList<T>) results.values;
+					if (mItemIndex != null) {
+						mItemIndex = mItemIndex.over(mObjects);
+					}
+				}
 			}
 			if (results.count > 0) {
 				notifyDataSetChanged();
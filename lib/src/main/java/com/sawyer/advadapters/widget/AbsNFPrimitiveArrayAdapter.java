@@ -0,0 +1,264 @@
+/*
+ * Copyright 2014 Jay Soyer
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sawyer.advadapters.widget;
+
+import android.content.Context;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.BaseAdapter;
+
+/**
+ * Base class of the non-filterable adapters backed by a growable array of primitive values, such
+ * as the {@link NFIntArrayAdapter}. Holds everything which doesn't depend upon the type of value,
+ * such as notifying. Subclasses only add the typed getters and mutators, and the conversion of
+ * their list to the primitive array they hand values out as.
+ *
+ * @param <L> The list holding the values
+ * @param <P> The primitive array values are handed out as
+ */
+abstract class AbsNFPrimitiveArrayAdapter<L extends AbsPrimitiveList<L>, P> extends BaseAdapter {
+	/** LayoutInflater created from the constructing context */
+	private LayoutInflater mInflater;
+	/** Activity Context used to construct this adapter * */
+	private Context mContext;
+	/**
+	 * Contains the list of values that represent the data of the adapter.
+	 */
+	private L mObjects;
+	/**
+	 * Indicates whether or not {@link #notifyDataSetChanged()} must be called whenever {@link
+	 * #mObjects} is modified.
+	 */
+	private boolean mNotifyOnChange = true;
+
+	/**
+	 * Constructor
+	 *
+	 * @param activity Context used for inflating views
+	 * @param objects  The list of values to represent within the adapter.
+	 */
+	AbsNFPrimitiveArrayAdapter(@NonNull Context activity, @NonNull L objects) {
+		mInflater = LayoutInflater.from(activity);
+		mContext = activity;
+		mObjects = objects;
+	}
+
+	/**
+	 * Adds the specified items at the end of the adapter.
+	 */
+	final void addItems(@NonNull L items) {
+		insertItems(mObjects.size(), items);
+	}
+
+	/**
+	 * Remove all elements from the adapter.
+	 */
+	public void clear() {
+		mObjects.clear();
+		if (mNotifyOnChange) {
+			notifyDataSetChanged();
+		}
+	}
+
+	/**
+	 * @return The Context associated with this adapter.
+	 */
+	@NonNull
+	public Context getContext() {
+		return mContext;
+	}
+
+	@Override
+	public int getCount() {
+		return mObjects.size();
+	}
+
+	/**
+	 * <p>Get a {@link android.view.View} that displays in the drop down popup the data at the
+	 * specified position in the data set.</p>
+	 *
+	 * @param inflater    the LayoutInflater object that can be used to inflate each view.
+	 * @param position    index of the item whose view we want.
+	 * @param convertView the old view to reuse, if possible. Note: You should check that this view
+	 *                    is non-null and of an appropriate type before using. If it is not possible
+	 *                    to convert this view to display the correct data, this method can create a
+	 *                    new view.
+	 * @param parent      the parent that this view will eventually be attached to
+	 *
+	 * @return a {@link android.view.View} corresponding to the data at the specified position.
+	 */
+	@NonNull
+	public View getDropDownView(@NonNull LayoutInflater inflater, int position,
+								@Nullable View convertView, @NonNull ViewGroup parent) {
+		return getView(inflater, position, convertView, parent);
+	}
+
+	@Override
+	public final View getDropDownView(int position, View convertView, ViewGroup parent) {
+		return getDropDownView(mInflater, position, convertView, parent);
+	}
+
+	@Override
+	public long getItemId(int position) {
+		return position;
+	}
+
+	/**
+	 * @return A copy of the values stored within the Adapter
+	 */
+	@NonNull
+	final P getItems() {
+		return toPublic(mObjects);
+	}
+
+	/**
+	 * @return The list of values stored within the adapter. It must only be modified through the
+	 * methods of this class.
+	 */
+	@NonNull
+	final L getValues() {
+		return mObjects;
+	}
+
+	/**
+	 * Get a View that displays the data at the specified position in the data set. You can either
+	 * create a View manually or inflate it from an XML layout file. When the View is inflated, the
+	 * parent View (GridView, ListView...) will apply default layout parameters unless you use
+	 * {@link android.view.LayoutInflater#inflate(int, android.view.ViewGroup, boolean)} to specify
+	 * a root view and to prevent attachment to the root.
+	 *
+	 * @param inflater    the LayoutInflater object that can be used to inflate each view.
+	 * @param position    The position of the item within the adapter's data set of the item whose
+	 *                    view we want.
+	 * @param convertView The old view to reuse, if possible. Note: You should check that this view
+	 *                    is non-null and of an appropriate type before using. If it is not possible
+	 *                    to convert this view to display the correct data, this method can create a
+	 *                    new view. Heterogeneous lists can specify their number of view types, so
+	 *                    that this View is always of the right type (see {@link
+	 *                    #getViewTypeCount()} and {@link #getItemViewType(int)}).
+	 * @param parent      The parent that this view will eventually be attached to
+	 *
+	 * @return A View corresponding to the data at the specified position.
+	 */
+	public abstract View getView(@NonNull LayoutInflater inflater, int position,
+								 @Nullable View convertView, @NonNull ViewGroup parent);
+
+	@Override
+	public final View getView(int position, View convertView, ViewGroup parent) {
+		return this.getView(mInflater, position, convertView, parent);
+	}
+
+	/**
+	 * Inserts the specified items at the specified location in this adapter, in the order given.
+	 */
+	final void insertItems(int index, @NonNull L items) {
+		mObjects.addAll(index, items);
+		if (items.size() > 0 && mNotifyOnChange) {
+			notifyDataSetChanged();
+		}
+	}
+
+	@Override
+	public void notifyDataSetChanged() {
+		super.notifyDataSetChanged();
+		mNotifyOnChange = true;
+	}
+
+	/**
+	 * Removes the first occurrence of the only value of item from the adapter.
+	 */
+	final void removeItem(@NonNull L item) {
+		boolean isModified = mObjects.remove(item, 0);
+		if (isModified && mNotifyOnChange) {
+			notifyDataSetChanged();
+		}
+	}
+
+	/**
+	 * Removes all occurrences in the adapter of each of the specified items.
+	 */
+	final void removeItems(@NonNull L items) {
+		boolean isModified = mObjects.removeAll(items);
+		if (isModified && mNotifyOnChange) {
+			notifyDataSetChanged();
+		}
+	}
+
+	/**
+	 * Removes all items from this adapter that are not among the specified items.
+	 */
+	final void retainItems(@NonNull L items) {
+		boolean isModified = mObjects.retainAll(items);
+		if (isModified && mNotifyOnChange) {
+			notifyDataSetChanged();
+		}
+	}
+
+	/**
+	 * Resets the adapter to store the specified list of items, which it takes ownership of.
+	 */
+	final void setItems(@NonNull L items) {
+		mObjects = items;
+		if (mNotifyOnChange) {
+			notifyDataSetChanged();
+		}
+	}
+
+	/**
+	 * <p>Control whether methods that change the list ({@code add}, {@code insert}, {@code
+	 * remove}, {@link #clear}) automatically call {@link #notifyDataSetChanged}.  If set to false,
+	 * caller must manually call notifyDataSetChanged() to have the changes reflected in the
+	 * attached view.</p>
+	 *
+	 * <p>The default is true, and calling notifyDataSetChanged() resets the flag to true.</p>
+	 *
+	 * @param notifyOnChange if true, modifications to the list will automatically call {@link
+	 *                       #notifyDataSetChanged}
+	 */
+	public void setNotifyOnChange(boolean notifyOnChange) {
+		mNotifyOnChange = notifyOnChange;
+	}
+
+	/**
+	 * Sorts the content of this adapter into ascending numerical order.
+	 */
+	public void sort() {
+		mObjects.sort();
+		if (mNotifyOnChange) {
+			notifyDataSetChanged();
+		}
+	}
+
+	/**
+	 * @return A primitive array holding a copy of the values.
+	 */
+	@NonNull
+	abstract P toPublic(@NonNull L values);
+
+	/**
+	 * Updates the item at the specified position in the adapter with the only value of item. This
+	 * operation does not change the size of the adapter.
+	 */
+	final void updateAt(int position, @NonNull L item) {
+		mObjects.set(position, item, 0);
+		if (mNotifyOnChange) {
+			notifyDataSetChanged();
+		}
+	}
+}
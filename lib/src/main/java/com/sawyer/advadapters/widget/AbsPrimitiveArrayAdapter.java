@@ -0,0 +1,576 @@
+/*
+ * Copyright 2014 Jay Soyer
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sawyer.advadapters.widget;
+
+import android.content.Context;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.text.TextUtils;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.BaseAdapter;
+import android.widget.Filter;
+import android.widget.Filterable;
+
+/**
+ * <p>Base class of the filterable adapters backed by a growable array of primitive values, such as
+ * the {@link IntArrayAdapter}. Holds everything which doesn't depend upon the type of value: the
+ * lock, filtering, batching and notifying. Subclasses only add the typed getters and mutators, and
+ * the conversion of their list to the primitive array they hand values out as.</p>
+ *
+ * <p>The values shown are held within an immutable list, published through a single volatile
+ * reference. Writers build a new list and swap it in, so methods reading the shown values never
+ * lock. Within a batch, writers change a single private copy instead, which is only swapped in
+ * once the batch commits.</p>
+ *
+ * @param <L> The list holding the values
+ * @param <P> The primitive array values are handed out as
+ */
+abstract class AbsPrimitiveArrayAdapter<L extends AbsPrimitiveList<L>, P> extends BaseAdapter
+		implements Filterable {
+	/**
+	 * Lock used to modify the content of {@link #mObjects}. Any write operation performed on the
+	 * array should be synchronized on this lock. This lock is also used by the filter (see {@link
+	 * #getFilter()} to make a synchronized copy of the original array of data.
+	 */
+	private final Object mLock = new Object();
+
+	/** LayoutInflater created from the constructing context */
+	private LayoutInflater mInflater;
+	/** Activity Context used to construct this adapter * */
+	private Context mContext;
+	/**
+	 * Contains the list of values that represent the visible data of the adapter. It's contents
+	 * will change as filtering occurs. All methods retrieving data about the adapter will always do
+	 * so from this list. A list is never modified once assigned here. Changes are made to a copy,
+	 * which then replaces it.
+	 */
+	private volatile L mObjects;
+	/**
+	 * Indicates whether or not {@link #notifyDataSetChanged()} must be called whenever {@link
+	 * #mObjects} is modified.
+	 */
+	private boolean mNotifyOnChange = true;
+	/**
+	 * A copy of the original mObjects array, is not initialized until a filtering processing
+	 * occurs. Once initialized, it'll track the entire unfiltered data. Once the filter process
+	 * completes, it's contents are copied back over to mObjects and is set to null.
+	 */
+	private L mOriginalValues;
+	private PrimitiveArrayFilter mFilter;
+
+	/**
+	 * Saves the constraint used during the last filtering operation. Used to re-filter the list
+	 * following changes to the array of data
+	 */
+	private CharSequence mLastConstraint;
+	/** Number of batches currently begun and not yet committed. See {@link #beginBatch()} */
+	private int mBatchDepth;
+	/** Whether a change made during the current batch requires the filter to be repeated */
+	private boolean mIsRefilterPending;
+	/** Whether a notification was deferred during the current batch */
+	private boolean mIsNotifyPending;
+	/**
+	 * The current batch's private copy of {@link #mObjects}, changed in place and only shown once
+	 * the outermost batch commits. Null until first changed within a batch.
+	 */
+	private L mBatchObjects;
+
+	/**
+	 * Constructor
+	 *
+	 * @param activity Context used for inflating views
+	 * @param objects  The list of values to represent within the adapter.
+	 */
+	AbsPrimitiveArrayAdapter(@NonNull Context activity, @NonNull L objects) {
+		mInflater = LayoutInflater.from(activity);
+		mContext = activity;
+		mObjects = objects;
+	}
+
+	/**
+	 * Adds the specified items at the end of the adapter. Will repeat the last filtering request if
+	 * invoked while filtered results are being displayed.
+	 */
+	final void addItems(@NonNull L items) {
+		if (items.size() == 0) {
+			return;
+		}
+		synchronized (mLock) {
+			if (mOriginalValues != null) {
+				mOriginalValues.addAll(items);
+				refilter();
+			} else {
+				L objects = editObjects();
+				objects.addAll(items);
+				publishObjects(objects);
+			}
+		}
+		if (mNotifyOnChange) {
+			notifyDataSetChanged();
+		}
+	}
+
+	/**
+	 * <p>Begins a batch of changes. Until the matching {@link #commitBatch()}, changes made to the
+	 * adapter neither repeat the last filtering request nor notify. Instead the filter is repeated
+	 * once and a single notification is sent when the batch commits.</p>
+	 *
+	 * <p>Changes are made to a single private copy of the values shown, which is only shown once
+	 * the batch commits. Until then, the adapter keeps showing the values as they were. Positions
+	 * given within a batch are of the values shown.</p>
+	 *
+	 * <p>Batches may be nested, only committing the outermost batch applies the deferred work.
+	 * Always begin and commit a batch on the same thread, ideally committing within a finally
+	 * block.</p>
+	 */
+	public void beginBatch() {
+		synchronized (mLock) {
+			++mBatchDepth;
+		}
+	}
+
+	/**
+	 * Remove all elements from the adapter.
+	 */
+	public void clear() {
+		synchronized (mLock) {
+			if (mOriginalValues != null) {
+				mOriginalValues.clear();
+			}
+			publishObjects(mObjects.create());
+		}
+		if (mNotifyOnChange) {
+			notifyDataSetChanged();
+		}
+	}
+
+	/**
+	 * Commits the batch begun by the matching {@link #beginBatch()}. Once the outermost batch
+	 * commits, the changes made within it are shown. The last filtering request is then repeated
+	 * if any change required it and {@link #notifyDataSetChanged()} is invoked if any change
+	 * would have invoked it.
+	 *
+	 * @throws IllegalStateException If no batch has begun
+	 */
+	public void commitBatch() {
+		boolean isNotifyPending;
+
+		synchronized (mLock) {
+			if (mBatchDepth == 0) {
+				throw new IllegalStateException("No batch has begun");
+			} else if (--mBatchDepth > 0) {
+				return;
+			}
+			if (mBatchObjects != null) {
+				mObjects = mBatchObjects;
+				mBatchObjects = null;
+			}
+			if (mIsRefilterPending) {
+				mIsRefilterPending = false;
+				FilterExecutor.refilter(this, mLastConstraint);
+			}
+			isNotifyPending = mIsNotifyPending;
+			mIsNotifyPending = false;
+		}
+		if (isNotifyPending) {
+			notifyDataSetChanged();
+		}
+	}
+
+	/**
+	 * Gets the values shown to change, then handed to {@link #publishObjects}. Outside a batch,
+	 * that's a new copy of {@link #mObjects}. Within a batch, that's the batch's private copy, only
+	 * made on it's first change. Must be invoked while holding {@link #mLock}.
+	 */
+	@NonNull
+	private L editObjects() {
+		if (mBatchDepth == 0) {
+			return mObjects.copy();
+		} else if (mBatchObjects == null) {
+			mBatchObjects = mObjects.copy();
+		}
+		return mBatchObjects;
+	}
+
+	/**
+	 * @return The Context associated with this adapter.
+	 */
+	@NonNull
+	public Context getContext() {
+		return mContext;
+	}
+
+	@Override
+	public int getCount() {
+		return mObjects.size();
+	}
+
+	/**
+	 * <p>Get a {@link android.view.View} that displays in the drop down popup the data at the
+	 * specified position in the data set.</p>
+	 *
+	 * @param inflater    the LayoutInflater object that can be used to inflate each view.
+	 * @param position    index of the item whose view we want.
+	 * @param convertView the old view to reuse, if possible. Note: You should check that this view
+	 *                    is non-null and of an appropriate type before using. If it is not possible
+	 *                    to convert this view to display the correct data, this method can create a
+	 *                    new view.
+	 * @param parent      the parent that this view will eventually be attached to
+	 *
+	 * @return a {@link android.view.View} corresponding to the data at the specified position.
+	 */
+	@NonNull
+	public View getDropDownView(@NonNull LayoutInflater inflater, int position,
+								@Nullable View convertView, @NonNull ViewGroup parent) {
+		return getView(inflater, position, convertView, parent);
+	}
+
+	@Override
+	public final View getDropDownView(int position, View convertView, ViewGroup parent) {
+		return getDropDownView(mInflater, position, convertView, parent);
+	}
+
+	@NonNull
+	@Override
+	public Filter getFilter() {
+		if (mFilter == null) {
+			mFilter = new PrimitiveArrayFilter();
+		}
+		return mFilter;
+	}
+
+	/**
+	 * @return A copy of the shown filtered values. If no filter is applied, then the original
+	 * values are returned.
+	 */
+	@NonNull
+	final P getFilteredItems() {
+		return toPublic(mObjects);
+	}
+
+	@Override
+	public long getItemId(int position) {
+		return position;
+	}
+
+	/**
+	 * @return A copy of the original (unfiltered) values stored within the Adapter
+	 */
+	@NonNull
+	final P getItems() {
+		synchronized (mLock) {
+			return toPublic((mOriginalValues != null) ? mOriginalValues : mObjects);
+		}
+	}
+
+	/**
+	 * @return The values shown including any change made within the current batch. Must be invoked
+	 * while holding {@link #mLock}.
+	 */
+	@NonNull
+	private L getNewestObjects() {
+		return (mBatchObjects != null) ? mBatchObjects : mObjects;
+	}
+
+	/**
+	 * @return The list of values currently shown. It must never be modified.
+	 */
+	@NonNull
+	final L getShownValues() {
+		return mObjects;
+	}
+
+	/**
+	 * Get a View that displays the data at the specified position in the data set. You can either
+	 * create a View manually or inflate it from an XML layout file. When the View is inflated, the
+	 * parent View (GridView, ListView...) will apply default layout parameters unless you use
+	 * {@link android.view.LayoutInflater#inflate(int, android.view.ViewGroup, boolean)} to specify
+	 * a root view and to prevent attachment to the root.
+	 *
+	 * @param inflater    The LayoutInflater object that can be used to inflate each view.
+	 * @param position    The position of the item within the adapter's data set of the item whose
+	 *                    view we want.
+	 * @param convertView The old view to reuse, if possible. Note: You should check that this view
+	 *                    is non-null and of an appropriate type before using. If it is not possible
+	 *                    to convert this view to display the correct data, this method can create a
+	 *                    new view. Heterogeneous lists can specify their number of view types, so
+	 *                    that this View is always of the right type (see {@link
+	 *                    #getViewTypeCount()} and {@link #getItemViewType(int)}).
+	 * @param parent      The parent that this view will eventually be attached to
+	 *
+	 * @return A View corresponding to the data at the specified position.
+	 */
+	public abstract View getView(@NonNull LayoutInflater inflater, int position,
+								 @Nullable View convertView, @NonNull ViewGroup parent);
+
+	@Override
+	public final View getView(int position, View convertView, ViewGroup parent) {
+		return this.getView(mInflater, position, convertView, parent);
+	}
+
+	/**
+	 * Determines whether the provided constraint filters out the index-th value of values.
+	 * Subclasses hand the typed value over to their own isFilteredOut method. Internally, this
+	 * method is only ever invoked from a background thread.
+	 */
+	abstract boolean isFilteredOutAt(@NonNull L values, int index,
+									 @NonNull CharSequence constraint);
+
+	@Override
+	public void notifyDataSetChanged() {
+		synchronized (mLock) {
+			if (mBatchDepth > 0) {
+				mIsNotifyPending = true;    //Sent once the batch commits
+				return;
+			}
+		}
+		super.notifyDataSetChanged();
+		mNotifyOnChange = true;
+	}
+
+	/**
+	 * Shows the changed values, or holds them as the batch's private copy until the outermost batch
+	 * commits. Must be invoked while holding {@link #mLock}.
+	 */
+	private void publishObjects(@NonNull L objects) {
+		if (mBatchDepth == 0) {
+			mObjects = objects;
+		} else {
+			mBatchObjects = objects;
+		}
+	}
+
+	/**
+	 * Repeats the last filtering request, or defers it until the current batch commits. Must be
+	 * invoked while holding {@link #mLock}.
+	 */
+	private void refilter() {
+		if (mBatchDepth > 0) {
+			mIsRefilterPending = true;
+		} else {
+			FilterExecutor.refilter(this, mLastConstraint);
+		}
+	}
+
+	/**
+	 * Removes the first occurrence of the only value of item from the adapter.
+	 */
+	final void removeItem(@NonNull L item) {
+		boolean isModified = false;
+
+		synchronized (mLock) {
+			if (mOriginalValues != null) {
+				isModified = mOriginalValues.remove(item, 0);
+			}
+			L objects = editObjects();
+			if (objects.remove(item, 0)) {
+				publishObjects(objects);
+				isModified = true;
+			}
+		}
+		if (isModified && mNotifyOnChange) {
+			notifyDataSetChanged();
+		}
+	}
+
+	/**
+	 * Removes all occurrences in the adapter of each of the specified items.
+	 */
+	final void removeItems(@NonNull L items) {
+		boolean isModified = false;
+
+		synchronized (mLock) {
+			if (mOriginalValues != null) {
+				isModified = mOriginalValues.removeAll(items);
+			}
+			L objects = editObjects();
+			if (objects.removeAll(items)) {
+				publishObjects(objects);
+				isModified = true;
+			}
+		}
+		if (isModified && mNotifyOnChange) {
+			notifyDataSetChanged();
+		}
+	}
+
+	/**
+	 * Removes all items from this adapter that are not among the specified items.
+	 */
+	final void retainItems(@NonNull L items) {
+		boolean isModified = false;
+
+		synchronized (mLock) {
+			if (mOriginalValues != null) {
+				isModified = mOriginalValues.retainAll(items);
+			}
+			L objects = editObjects();
+			if (objects.retainAll(items)) {
+				publishObjects(objects);
+				isModified = true;
+			}
+		}
+		if (isModified && mNotifyOnChange) {
+			notifyDataSetChanged();
+		}
+	}
+
+	/**
+	 * Resets the adapter to store the specified list of items, which it takes ownership of. Will
+	 * repeat the last filtering request if invoked while filtered results are being displayed.
+	 */
+	final void setItems(@NonNull L items) {
+		synchronized (mLock) {
+			if (mOriginalValues != null) {
+				mOriginalValues = items;
+				refilter();
+			} else {
+				publishObjects(items);
+			}
+		}
+		if (mNotifyOnChange) {
+			notifyDataSetChanged();
+		}
+	}
+
+	/**
+	 * <p>Control whether methods that change the list ({@code add}, {@code retainAll}, {@code
+	 * remove}, {@link #clear}) automatically call {@link #notifyDataSetChanged}.  If set to false,
+	 * caller must manually call notifyDataSetChanged() to have the changes reflected in the
+	 * attached view.</p>
+	 *
+	 * <p>The default is true, and calling notifyDataSetChanged() resets the flag to true.</p>
+	 *
+	 * @param notifyOnChange if true, modifications to the list will automatically call {@link
+	 *                       #notifyDataSetChanged}
+	 */
+	public void setNotifyOnChange(boolean notifyOnChange) {
+		mNotifyOnChange = notifyOnChange;
+	}
+
+	/**
+	 * Sorts the content of this adapter into ascending numerical order.
+	 */
+	public void sort() {
+		synchronized (mLock) {
+			if (mOriginalValues != null) {
+				mOriginalValues.sort();
+			}
+			L objects = editObjects();
+			objects.sort();
+			publishObjects(objects);
+		}
+		if (mNotifyOnChange) {
+			notifyDataSetChanged();
+		}
+	}
+
+	/**
+	 * @return A primitive array holding a copy of the values.
+	 */
+	@NonNull
+	abstract P toPublic(@NonNull L values);
+
+	/**
+	 * Updates the item at the specified position in the adapter with the only value of item. Be
+	 * aware this method is only a constant time operation when the list is not filtered.
+	 * Otherwise, the position must be converted to a unfiltered position; which requires
+	 * traversing the original unfiltered list. The same holds within a batch, where the value is
+	 * not updated if removed earlier within the batch.
+	 */
+	final void updateAt(int position, @NonNull L item) {
+		synchronized (mLock) {
+			if (mOriginalValues != null) {
+				int newPosition = mOriginalValues.indexOf(mObjects, position);
+				mOriginalValues.set(newPosition, item, 0);
+				refilter();
+			} else {
+				int newPosition = position;
+				if (mBatchObjects != null) {    //Positions are of the values shown
+					newPosition = mBatchObjects.indexOf(mObjects, position);
+				}
+				if (newPosition >= 0) {
+					L objects = editObjects();
+					objects.set(newPosition, item, 0);
+					publishObjects(objects);
+				}
+			}
+		}
+		if (mNotifyOnChange) {
+			notifyDataSetChanged();
+		}
+	}
+
+	/**
+	 * A primitive array filter constrains the content of the adapter. Whether a value is
+	 * constrained or not is delegated to subclasses through {@link
+	 * AbsPrimitiveArrayAdapter#isFilteredOutAt}
+	 */
+	private class PrimitiveArrayFilter extends PooledFilter {
+		@Override
+		protected FilterResults performPooledFiltering(CharSequence constraint) {
+			FilterResults results = new FilterResults();
+			final L values;
+
+			synchronized (mLock) {
+				if (TextUtils.isEmpty(constraint)) {    //Clearing out filtered results
+					if (mOriginalValues != null) {
+						mObjects = mOriginalValues.copy();
+						mOriginalValues = null;
+						mBatchObjects = null;    //Unfiltered values hold the batch's changes
+					}
+					results.values = mObjects;
+					results.count = mObjects.size();
+					return results;
+				} else {    //Ready for filtering
+					if (mOriginalValues == null) {
+						mOriginalValues = getNewestObjects().copy();
+					}
+					mBatchObjects = null;    //Unfiltered values now hold the batch's changes
+					values = mOriginalValues.copy();
+				}
+			}
+
+			final L newValues = values.create();
+			for (int index = 0; index < values.size(); ++index) {
+				if (!isFilteredOutAt(values, index, constraint)) {
+					newValues.add(values, index);
+				}
+			}
+
+			results.values = newValues;
+			results.count = newValues.size();
+
+			return results;
+		}
+
+		@Override
+		@SuppressWarnings("unchecked")
+		protected void publishPooledResults(CharSequence constraint, FilterResults results) {
+			mLastConstraint = constraint;
+			synchronized (mLock) {
+				mObjects = (L) results.values;
+			}
+			if (results.count > 0) {
+				notifyDataSetChanged();
+			} else {
+				notifyDataSetInvalidated();
+			}
+		}
+	}
+}
@@ -0,0 +1,174 @@
+/*
+ * Copyright 2014 Jay Soyer
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sawyer.advadapters.widget;
+
+import android.support.annotation.NonNull;
+
+/**
+ * <p>Base class of the growable lists of primitive values backing the primitive array adapters,
+ * such as the {@link IntList}. The values are held within a single primitive array by the
+ * subclass. Everything which only moves values around is implemented here, copying them with
+ * {@link System#arraycopy} so none is ever boxed.</p>
+ *
+ * <p>Subclasses only add the methods which read, write or compare a value.</p>
+ *
+ * @param <L> The type of the subclass
+ */
+abstract class AbsPrimitiveList<L extends AbsPrimitiveList<L>> implements Cloneable {
+	int mSize;
+
+	/**
+	 * Adds the index-th value of source at the end of this list.
+	 */
+	final void add(@NonNull L source, int sourceIndex) {
+		source.checkIndex(sourceIndex);
+		ensureCapacity(mSize + 1);
+		System.arraycopy(source.getValues(), sourceIndex, getValues(), mSize++, 1);
+	}
+
+	final void addAll(@NonNull L values) {
+		addAll(mSize, values);
+	}
+
+	final void addAll(int index, @NonNull L values) {
+		checkInsertIndex(index);
+		ensureCapacity(mSize + values.mSize);
+		Object array = getValues();
+		System.arraycopy(array, index, array, index + values.mSize, mSize - index);
+		System.arraycopy(values.getValues(), 0, array, index, values.mSize);
+		mSize += values.mSize;
+	}
+
+	final void checkIndex(int index) {
+		if (index < 0 || index >= mSize) {
+			throw new IndexOutOfBoundsException("Invalid index " + index + ", size is " + mSize);
+		}
+	}
+
+	final void checkInsertIndex(int index) {
+		if (index < 0 || index > mSize) {
+			throw new IndexOutOfBoundsException("Invalid index " + index + ", size is " + mSize);
+		}
+	}
+
+	final void clear() {
+		mSize = 0;
+	}
+
+	/**
+	 * @return A new list holding a copy of the values of this one.
+	 */
+	@NonNull
+	@SuppressWarnings("unchecked")
+	final L copy() {
+		L copy;
+		try {
+			copy = (L) super.clone();
+		} catch (CloneNotSupportedException e) {
+			throw new AssertionError(e);    //Cloneable is implemented
+		}
+		copy.resizeValues(mSize);
+		return copy;
+	}
+
+	/**
+	 * @return A new empty list of the same type.
+	 */
+	@NonNull
+	abstract L create();
+
+	final void ensureCapacity(int capacity) {
+		if (capacity > getCapacity()) {
+			resizeValues(Math.max(capacity, mSize + (mSize >> 1) + 8));
+		}
+	}
+
+	/**
+	 * @return The length of the primitive array of values held by the subclass.
+	 */
+	abstract int getCapacity();
+
+	/**
+	 * @return The primitive array of values held by the subclass.
+	 */
+	@NonNull
+	abstract Object getValues();
+
+	/**
+	 * @return The index of the first value equal to the index-th value of source, or -1 if there
+	 * is none.
+	 */
+	abstract int indexOf(@NonNull L source, int sourceIndex);
+
+	/**
+	 * Removes the first occurrence of the index-th value of source.
+	 *
+	 * @return True if the value was found.
+	 */
+	final boolean remove(@NonNull L source, int sourceIndex) {
+		int index = indexOf(source, sourceIndex);
+		if (index < 0) {
+			return false;
+		}
+		removeAt(index);
+		return true;
+	}
+
+	/**
+	 * Removes every occurrence of each of the values. Runs in O((n + m) log m) time.
+	 *
+	 * @return True if any value was removed.
+	 */
+	abstract boolean removeAll(@NonNull L values);
+
+	final void removeAt(int index) {
+		checkIndex(index);
+		Object array = getValues();
+		System.arraycopy(array, index + 1, array, index, mSize - index - 1);
+		--mSize;
+	}
+
+	/**
+	 * Replaces the primitive array of values with a copy of the specified length.
+	 */
+	abstract void resizeValues(int length);
+
+	/**
+	 * Removes every value not found among the given values. Runs in O((n + m) log m) time.
+	 *
+	 * @return True if any value was removed.
+	 */
+	abstract boolean retainAll(@NonNull L values);
+
+	/**
+	 * Sets the index-th value of source as the index-th value of this list. Allows moving a value
+	 * without knowing its type.
+	 */
+	final void set(int index, @NonNull L source, int sourceIndex) {
+		checkIndex(index);
+		source.checkIndex(sourceIndex);
+		System.arraycopy(source.getValues(), sourceIndex, getValues(), index, 1);
+	}
+
+	final int size() {
+		return mSize;
+	}
+
+	/**
+	 * Sorts the values in ascending order.
+	 */
+	abstract void sort();
+}
@@ -0,0 +1,284 @@
+/*
+ * Copyright 2014 Jay Soyer
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sawyer.advadapters.widget;
+
+import android.support.annotation.NonNull;
+
+import java.lang.reflect.Array;
+import java.util.Arrays;
+
+/**
+ * <p>Base class of the sparse stores backing the primitive sparse adapters, such as the {@link
+ * SparseIntStore}. Maps ints to primitive values within a sorted int[] of keys, alongside a
+ * primitive array of values held by the subclass. Everything which only moves mappings around is
+ * implemented here, copying values with {@link System#arraycopy} so none is ever boxed.</p>
+ *
+ * <p>Subclasses only add the methods which read or write a value. Not synchronized. The methods
+ * mirroring the platform sparse arrays are public, for subclasses which are exchanged by their
+ * adapter such as the {@link SparseLongStore}.</p>
+ *
+ * @param <S> The type of the subclass
+ */
+abstract class AbsSparseStore<S extends AbsSparseStore<S>> implements Cloneable {
+	static final int[] EMPTY_KEYS = new int[0];
+
+	int[] mKeys;
+	int mSize;
+
+	/**
+	 * Creates a new store containing no mappings that will not require any additional memory
+	 * allocation to store the specified number of mappings.
+	 */
+	AbsSparseStore(int initialCapacity) {
+		mKeys = (initialCapacity > 0) ? new int[initialCapacity] : EMPTY_KEYS;
+	}
+
+	/**
+	 * Appends the index-th mapping of source, optimizing for the case where its key is greater than
+	 * all existing keys in the store.
+	 */
+	final void append(@NonNull S source, int sourceIndex) {
+		source.checkIndex(sourceIndex);
+		if (mSize != 0 && source.mKeys[sourceIndex] <= mKeys[mSize - 1]) {
+			put(source, sourceIndex);
+			return;
+		}
+		ensureCapacity(mSize + 1);
+		appendUnchecked(source, sourceIndex, 1);
+	}
+
+	/**
+	 * Appends count mappings of source, starting at index, within capacity. The mappings must
+	 * have greater keys than all others.
+	 */
+	final void appendUnchecked(@NonNull S source, int index, int count) {
+		System.arraycopy(source.mKeys, index, mKeys, mSize, count);
+		System.arraycopy(source.getValues(), index, getValues(), mSize, count);
+		mSize += count;
+	}
+
+	final void checkIndex(int index) {
+		if (index < 0 || index >= mSize) {
+			throw new ArrayIndexOutOfBoundsException(index);
+		}
+	}
+
+	/**
+	 * Removes all key-value mappings from this store.
+	 */
+	public final void clear() {
+		mSize = 0;
+	}
+
+	@Override
+	@NonNull
+	@SuppressWarnings("unchecked")
+	public S clone() {
+		S clone;
+		try {
+			clone = (S) super.clone();
+		} catch (CloneNotSupportedException e) {
+			throw new AssertionError(e);    //Cloneable is implemented
+		}
+		clone.mKeys = Arrays.copyOf(mKeys, mSize);
+		clone.resizeValues(mSize);
+		return clone;
+	}
+
+	/**
+	 * @return A new store of the same type, which will not require any additional memory
+	 * allocation to store the specified number of mappings.
+	 */
+	@NonNull
+	abstract S create(int initialCapacity);
+
+	/**
+	 * Removes the mapping from the specified key, if there was any.
+	 */
+	public final void delete(int key) {
+		int index = indexOfKey(key);
+		if (index >= 0) {
+			removeAt(index);
+		}
+	}
+
+	final void ensureCapacity(int capacity) {
+		if (capacity > mKeys.length) {
+			int newCapacity = Math.max(capacity, mKeys.length + (mKeys.length >> 1) + 4);
+			mKeys = Arrays.copyOf(mKeys, newCapacity);
+			resizeValues(newCapacity);
+		}
+	}
+
+	/**
+	 * @return The primitive array of values held by the subclass.
+	 */
+	@NonNull
+	abstract Object getValues();
+
+	/**
+	 * Returns the index for which {@link #keyAt} would return the specified key, or a negative
+	 * number if the specified key is not mapped. The negative number is the bitwise complement of
+	 * the index the key would be inserted at.
+	 */
+	public final int indexOfKey(int key) {
+		return Arrays.binarySearch(mKeys, 0, mSize, key);
+	}
+
+	/**
+	 * Makes room for the specified key at the specified index, as returned by {@link #indexOfKey}
+	 * for a key not yet mapped. The subclass must then set the value at that index.
+	 */
+	final void insertKeyAt(int index, int key) {
+		ensureCapacity(mSize + 1);
+		Object values = getValues();
+		System.arraycopy(mKeys, index, mKeys, index + 1, mSize - index);
+		System.arraycopy(values, index, values, index + 1, mSize - index);
+		mKeys[index] = key;
+		++mSize;
+	}
+
+	/**
+	 * Given an index in the range 0...{@link #size()}-1, returns the key from the index-th
+	 * key-value mapping that this store stores. Keys are in ascending order.
+	 */
+	public final int keyAt(int index) {
+		checkIndex(index);
+		return mKeys[index];
+	}
+
+	/**
+	 * Merges items into a copy of this store, in one pass over both. Items replace any mappings
+	 * with the same keys. Runs of mappings falling between two keys of the items are copied
+	 * whole, so the merge is linear.
+	 *
+	 * @return A new store holding the merged mappings.
+	 */
+	@NonNull
+	@SuppressWarnings("unchecked")
+	final S merge(@NonNull S items) {
+		S merged = create(mSize + items.mSize);
+		int index = 0;
+		int itemsIndex = 0;
+		while (index < mSize && itemsIndex < items.mSize) {
+			int itemKey = items.mKeys[itemsIndex];
+			int end = index;
+			while (end < mSize && mKeys[end] < itemKey) {
+				++end;
+			}
+			merged.appendUnchecked((S) this, index, end - index);
+			if (end < mSize && mKeys[end] == itemKey) {    //Replaced by the item
+				++end;
+			}
+			index = end;
+			merged.appendUnchecked(items, itemsIndex++, 1);
+		}
+		merged.appendUnchecked((S) this, index, mSize - index);
+		merged.appendUnchecked(items, itemsIndex, items.mSize - itemsIndex);
+		return merged;
+	}
+
+	/**
+	 * Puts the index-th mapping of source, replacing the previous mapping from its key if there
+	 * was one.
+	 */
+	final void put(@NonNull S source, int sourceIndex) {
+		int key = source.keyAt(sourceIndex);
+		int index = indexOfKey(key);
+		if (index < 0) {
+			index = ~index;
+			insertKeyAt(index, key);
+		}
+		setValueAt(index, source, sourceIndex);
+	}
+
+	/**
+	 * Removes the mappings whose keys are found within items from a copy of this store, in one
+	 * pass over both.
+	 *
+	 * @return A new store holding the remaining mappings.
+	 */
+	@NonNull
+	@SuppressWarnings("unchecked")
+	final S removeAll(@NonNull S items) {
+		S remaining = create(mSize);
+		int start = 0;
+		int itemsIndex = 0;
+		for (int index = 0; index < mSize; ++index) {
+			int key = mKeys[index];
+			while (itemsIndex < items.mSize && items.mKeys[itemsIndex] < key) {
+				++itemsIndex;
+			}
+			if (itemsIndex < items.mSize && items.mKeys[itemsIndex] == key) {
+				remaining.appendUnchecked((S) this, start, index - start);
+				start = index + 1;
+			}
+		}
+		remaining.appendUnchecked((S) this, start, mSize - start);
+		return remaining;
+	}
+
+	/**
+	 * Removes the mapping at the specified index.
+	 */
+	public final void removeAt(int index) {
+		checkIndex(index);
+		Object values = getValues();
+		System.arraycopy(mKeys, index + 1, mKeys, index, mSize - index - 1);
+		System.arraycopy(values, index + 1, values, index, mSize - index - 1);
+		--mSize;
+	}
+
+	/**
+	 * Replaces the primitive array of values with a copy of the specified length.
+	 */
+	abstract void resizeValues(int length);
+
+	/**
+	 * Given an index of source, sets the value of the index-th mapping of source as the value of
+	 * the index-th mapping of this store. Allows moving a value without knowing its type.
+	 */
+	final void setValueAt(int index, @NonNull S source, int sourceIndex) {
+		checkIndex(index);
+		source.checkIndex(sourceIndex);
+		System.arraycopy(source.getValues(), sourceIndex, getValues(), index, 1);
+	}
+
+	/**
+	 * Returns the number of key-value mappings that this store currently stores.
+	 */
+	public final int size() {
+		return mSize;
+	}
+
+	@Override
+	public String toString() {
+		if (mSize == 0) {
+			return "{}";
+		}
+		Object values = getValues();
+		StringBuilder buffer = new StringBuilder(mSize * 28);
+		buffer.append('{');
+		for (int index = 0; index < mSize; ++index) {
+			if (index > 0) {
+				buffer.append(", ");
+			}
+			buffer.append(mKeys[index]).append('=').append(Array.get(values, index));
+		}
+		buffer.append('}');
+		return buffer.toString();
+	}
+}
@@ -0,0 +1,632 @@
+/*
+ * Copyright 2014 Jay Soyer
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sawyer.advadapters.widget;
+
+import android.content.Context;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.text.TextUtils;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.BaseAdapter;
+import android.widget.Filter;
+import android.widget.Filterable;
+
+/**
+ * <p>Base class of the adapters mapping int keys to primitive values, such as the {@link
+ * SparseIntAdapter}. Holds everything which doesn't depend upon the type of value: the lock,
+ * filtering, batching and notifying. Subclasses only add the typed getters and mutators, and the
+ * conversions between their store and the sparse array they exchange mappings as.</p>
+ *
+ * <p>The values shown are held within an immutable store, published through a single volatile
+ * reference. Writers build a new store and swap it in, so methods reading the shown values never
+ * lock. Within a batch, writers change a single private copy instead, which is only swapped in
+ * once the batch commits.</p>
+ *
+ * @param <S> The store holding the values
+ * @param <P> The sparse array mappings are exchanged as
+ */
+abstract class AbsSparseStoreAdapter<S extends AbsSparseStore<S>, P> extends BaseAdapter
+		implements Filterable {
+	/**
+	 * Lock used to modify the content of {@link #mObjects}. Any write operation performed on the
+	 * store should be synchronized on this lock. This lock is also used by the filter (see {@link
+	 * #getFilter()} to make a synchronized copy of the original store of data.
+	 */
+	private final Object mLock = new Object();
+
+	/** LayoutInflater created from the constructing context */
+	private LayoutInflater mInflater;
+	/** Activity Context used to construct this adapter * */
+	private Context mContext;
+	/**
+	 * Contains the store of values that represent the visible data of the adapter. It's contents
+	 * will change as filtering occurs. All methods retrieving data about the adapter will always do
+	 * so from this store. A store is never modified once assigned here. Changes are made to a copy,
+	 * which then replaces it.
+	 */
+	private volatile S mObjects;
+	/**
+	 * Indicates whether or not {@link #notifyDataSetChanged()} must be called whenever {@link
+	 * #mObjects} is modified.
+	 */
+	private boolean mNotifyOnChange = true;
+	/**
+	 * A copy of the original mObjects store, is not initialized until a filtering processing
+	 * occurs. Once initialized, it'll track the entire unfiltered data. Once the filter process
+	 * completes, it's contents are copied back over to mObjects and is set to null.
+	 */
+	private S mOriginalValues;
+	private SparseStoreFilter mFilter;
+
+	/**
+	 * Saves the constraint used during the last filtering operation. Used to re-filter the store
+	 * following changes to the data
+	 */
+	private CharSequence mLastConstraint;
+	/** Number of batches currently begun and not yet committed. See {@link #beginBatch()} */
+	private int mBatchDepth;
+	/** Whether a change made during the current batch requires the filter to be repeated */
+	private boolean mIsRefilterPending;
+	/** Whether a notification was deferred during the current batch */
+	private boolean mIsNotifyPending;
+	/**
+	 * The current batch's private copy of {@link #mObjects}, changed in place and only shown once
+	 * the outermost batch commits. Null until first changed within a batch.
+	 */
+	private S mBatchObjects;
+
+	/**
+	 * Constructor
+	 *
+	 * @param activity Context used for inflating views
+	 * @param objects  The store of values to represent within the adapter.
+	 */
+	AbsSparseStoreAdapter(@NonNull Context activity, @NonNull S objects) {
+		mInflater = LayoutInflater.from(activity);
+		mContext = activity;
+		mObjects = objects;
+	}
+
+	/**
+	 * Appends the only mapping of entry to the end of the adapter, optimizing for the case where
+	 * its key is greater then all existing keys in the adapter. Will repeat the last filtering
+	 * request if invoked while filtered results are being displayed.
+	 */
+	final void appendEntry(@NonNull S entry) {
+		synchronized (mLock) {
+			if (mOriginalValues != null) {
+				mOriginalValues.append(entry, 0);
+				refilter();
+			} else {
+				S objects = editObjects();
+				objects.append(entry, 0);
+				publishObjects(objects);
+			}
+		}
+		if (mNotifyOnChange) {
+			notifyDataSetChanged();
+		}
+	}
+
+	/**
+	 * <p>Begins a batch of changes. Until the matching {@link #commitBatch()}, changes made to the
+	 * adapter neither repeat the last filtering request nor notify. Instead the filter is repeated
+	 * once and a single notification is sent when the batch commits.</p>
+	 *
+	 * <p>Changes are made to a single private copy of the values shown, which is only shown once
+	 * the batch commits. Until then, the adapter keeps showing the values as they were. Positions
+	 * given within a batch are of the values shown.</p>
+	 *
+	 * <p>Batches may be nested, only committing the outermost batch applies the deferred work.
+	 * Always begin and commit a batch on the same thread, ideally committing within a finally
+	 * block.</p>
+	 */
+	public void beginBatch() {
+		synchronized (mLock) {
+			++mBatchDepth;
+		}
+	}
+
+	/**
+	 * Removes all items from the adapter.
+	 */
+	public void clear() {
+		synchronized (mLock) {
+			if (mOriginalValues != null) {
+				mOriginalValues.clear();
+			}
+			publishObjects(mObjects.create(0));
+		}
+		if (mNotifyOnChange) {
+			notifyDataSetChanged();
+		}
+	}
+
+	/**
+	 * Commits the batch begun by the matching {@link #beginBatch()}. Once the outermost batch
+	 * commits, the changes made within it are shown. The last filtering request is then repeated
+	 * if any change required it and {@link #notifyDataSetChanged()} is invoked if any change
+	 * would have invoked it.
+	 *
+	 * @throws IllegalStateException If no batch has begun
+	 */
+	public void commitBatch() {
+		boolean isNotifyPending;
+
+		synchronized (mLock) {
+			if (mBatchDepth == 0) {
+				throw new IllegalStateException("No batch has begun");
+			} else if (--mBatchDepth > 0) {
+				return;
+			}
+			if (mBatchObjects != null) {
+				mObjects = mBatchObjects;
+				mBatchObjects = null;
+			}
+			if (mIsRefilterPending) {
+				mIsRefilterPending = false;
+				FilterExecutor.refilter(this, mLastConstraint);
+			}
+			isNotifyPending = mIsNotifyPending;
+			mIsNotifyPending = false;
+		}
+		if (isNotifyPending) {
+			notifyDataSetChanged();
+		}
+	}
+
+	/**
+	 * Determines if the specified keyId exists within the adapter.
+	 *
+	 * @param keyId The keyId to search for
+	 *
+	 * @return {@code true} if the keyId is found within the adapter. {@code false} otherwise.
+	 */
+	public boolean containsId(int keyId) {
+		return mObjects.indexOfKey(keyId) >= 0;
+	}
+
+	/**
+	 * Gets the values shown to change, then handed to {@link #publishObjects}. Outside a batch,
+	 * that's a new copy of {@link #mObjects}. Within a batch, that's the batch's private copy, only
+	 * made on it's first change. Must be invoked while holding {@link #mLock}.
+	 */
+	@NonNull
+	private S editObjects() {
+		if (mBatchDepth == 0) {
+			return mObjects.clone();
+		} else if (mBatchObjects == null) {
+			mBatchObjects = mObjects.clone();
+		}
+		return mBatchObjects;
+	}
+
+	/**
+	 * @return The Context associated with this adapter.
+	 */
+	@NonNull
+	public Context getContext() {
+		return mContext;
+	}
+
+	@Override
+	public int getCount() {
+		return mObjects.size();
+	}
+
+	/**
+	 * <p>Get a {@link android.view.View} that displays in the drop down popup the data at the
+	 * specified position in the data set.</p>
+	 *
+	 * @param inflater    the LayoutInflater object that can be used to inflate each view.
+	 * @param position    index of the item whose view we want.
+	 * @param convertView the old view to reuse, if possible. Note: You should check that this view
+	 *                    is non-null and of an appropriate type before using. If it is not possible
+	 *                    to convert this view to display the correct data, this method can create a
+	 *                    new view.
+	 * @param parent      the parent that this view will eventually be attached to
+	 *
+	 * @return a {@link android.view.View} corresponding to the data at the specified position.
+	 */
+	@NonNull
+	public View getDropDownView(@NonNull LayoutInflater inflater, int position,
+								@Nullable View convertView, @NonNull ViewGroup parent) {
+		return getView(inflater, position, convertView, parent);
+	}
+
+	@Override
+	public final View getDropDownView(int position, View convertView, ViewGroup parent) {
+		return getDropDownView(mInflater, position, convertView, parent);
+	}
+
+	@Override
+	@NonNull
+	public Filter getFilter() {
+		if (mFilter == null) {
+			mFilter = new SparseStoreFilter();
+		}
+		return mFilter;
+	}
+
+	/**
+	 * @return The shown filtered data as a platform sparse array. If no filter is applied, then the
+	 * original (unfiltered) data is returned instead.
+	 */
+	@NonNull
+	final P getFilteredItems() {
+		return toPublic(mObjects);
+	}
+
+	@Override
+	public long getItemId(int position) {
+		return mObjects.keyAt(position);
+	}
+
+	/**
+	 * @return The original (unfiltered) data as a platform sparse array.
+	 */
+	@NonNull
+	final P getItems() {
+		synchronized (mLock) {
+			return toPublic((mOriginalValues != null) ? mOriginalValues : mObjects);
+		}
+	}
+
+	/**
+	 * @return The values shown including any change made within the current batch. Must be invoked
+	 * while holding {@link #mLock}.
+	 */
+	@NonNull
+	private S getNewestObjects() {
+		return (mBatchObjects != null) ? mBatchObjects : mObjects;
+	}
+
+	/**
+	 * @param keyId The keyId to search for
+	 *
+	 * @return the position for which a keyId is found, or a negative number if not found.
+	 */
+	public int getPosition(int keyId) {
+		return mObjects.indexOfKey(keyId);
+	}
+
+	/**
+	 * @return The store of values currently shown. It must never be modified.
+	 */
+	@NonNull
+	final S getShownValues() {
+		return mObjects;
+	}
+
+	/**
+	 * Get a View that displays the data at the specified position in the data set.  You can either
+	 * create a View manually or inflate it from an XML layout file.  When the View is inflated, the
+	 * parent View (GridView, ListView...) will apply default layout parameters unless you {@link
+	 * android.view.LayoutInflater#inflate(int, android.view.ViewGroup, boolean) to specifiy a root
+	 * view and to prevent attachment to the root.}
+	 *
+	 * @param inflater    the LayoutInflater object that can be used to inflate each view.
+	 * @param position    The position of the item within the adapter's data set of the item whose
+	 *                    view we want
+	 * @param convertView the old view to reuse, if possible. Note: You should check that this view
+	 *                    is non-null and of an appropriate type before using. If it is not possible
+	 *                    to convert this view to display the correct data, this method can create a
+	 *                    new view.
+	 * @param parent      the parent that this view will eventually be attached to
+	 *
+	 * @return A View corresponding to the data at the specified position
+	 */
+	@NonNull
+	public abstract View getView(@NonNull LayoutInflater inflater, int position,
+								 @Nullable View convertView, @NonNull ViewGroup parent);
+
+	@Override
+	public final View getView(int position, View convertView, ViewGroup parent) {
+		return this.getView(mInflater, position, convertView, parent);
+	}
+
+	/**
+	 * Determines whether the provided constraint filters out the index-th mapping of values.
+	 * Subclasses hand the typed key and value over to their own isFilteredOut method. Internally,
+	 * this method is only ever invoked from a background thread.
+	 */
+	abstract boolean isFilteredOutAt(@NonNull S values, int index,
+									 @NonNull CharSequence constraint);
+
+	@Override
+	public void notifyDataSetChanged() {
+		synchronized (mLock) {
+			if (mBatchDepth > 0) {
+				mIsNotifyPending = true;    //Sent once the batch commits
+				return;
+			}
+		}
+		super.notifyDataSetChanged();
+		mNotifyOnChange = true;
+	}
+
+	/**
+	 * Adds the only mapping of entry to the adapter, replacing the previous mapping from its key
+	 * if there was one. Will repeat the last filtering request if invoked while filtered results
+	 * are being displayed.
+	 */
+	final void putEntry(@NonNull S entry) {
+		synchronized (mLock) {
+			if (mOriginalValues != null) {
+				mOriginalValues.put(entry, 0);
+				refilter();
+			} else {
+				S objects = editObjects();
+				objects.put(entry, 0);
+				publishObjects(objects);
+			}
+		}
+		if (mNotifyOnChange) {
+			notifyDataSetChanged();
+		}
+	}
+
+	/**
+	 * Adds the specified items to the adapter, replacing any existing mappings from the specified
+	 * keys if there were any.  Will repeat the last filtering request if invoked while filtered
+	 * results are being displayed. The keys of both are merged in a single linear pass.
+	 */
+	final void putItems(@NonNull P items) {
+		S values = toStore(items);
+		synchronized (mLock) {
+			if (mOriginalValues != null) {
+				mOriginalValues = mOriginalValues.merge(values);
+				refilter();
+			} else {
+				publishObjects(getNewestObjects().merge(values));
+			}
+		}
+		if (mNotifyOnChange) {
+			notifyDataSetChanged();
+		}
+	}
+
+	/**
+	 * Given a position in the range of 0...{@link #getCount()} - 1, sets the value of the only
+	 * mapping of entry as the value stored at that position. Be aware this method is only a
+	 * constant amortised time operation when the adapter is not filtered. Otherwise, the position
+	 * must be converted to a unfiltered position; which requires a binary search on the original
+	 * unfiltered data. The same holds within a batch, where the value is not set if removed
+	 * earlier within the batch.
+	 */
+	final void putValueAt(int position, @NonNull S entry) {
+		synchronized (mLock) {
+			if (mOriginalValues != null) {
+				int newPosition = mOriginalValues.indexOfKey(mObjects.keyAt(position));
+				mOriginalValues.setValueAt(newPosition, entry, 0);
+				refilter();
+			} else {
+				int newPosition = toNewestPosition(position);
+				if (newPosition >= 0) {
+					S objects = editObjects();
+					objects.setValueAt(newPosition, entry, 0);
+					publishObjects(objects);
+				}
+			}
+		}
+		if (mNotifyOnChange) {
+			notifyDataSetChanged();
+		}
+	}
+
+	/**
+	 * Shows the changed values, or holds them as the batch's private copy until the outermost batch
+	 * commits. Must be invoked while holding {@link #mLock}.
+	 */
+	private void publishObjects(@NonNull S objects) {
+		if (mBatchDepth == 0) {
+			mObjects = objects;
+		} else {
+			mBatchObjects = objects;
+		}
+	}
+
+	/**
+	 * Repeats the last filtering request, or defers it until the current batch commits. Must be
+	 * invoked while holding {@link #mLock}.
+	 */
+	private void refilter() {
+		if (mBatchDepth > 0) {
+			mIsRefilterPending = true;
+		} else {
+			FilterExecutor.refilter(this, mLastConstraint);
+		}
+	}
+
+	/**
+	 * Removes the mapping at the specified position in the adapter.  Be aware this method is only a
+	 * constant amortised time operation when the adapter is not filtered. Otherwise, the position
+	 * must be converted to a unfiltered position; which requires a binary search on the original
+	 * unfiltered store.
+	 *
+	 * @param position The position of the value to remove
+	 */
+	public void remove(int position) {
+		synchronized (mLock) {
+			if (mOriginalValues != null) {
+				mOriginalValues.delete(mObjects.keyAt(position));
+			}
+			int newPosition = toNewestPosition(position);
+			if (newPosition >= 0) {
+				S objects = editObjects();
+				objects.removeAt(newPosition);
+				publishObjects(objects);
+			}
+		}
+		if (mNotifyOnChange) {
+			notifyDataSetChanged();
+		}
+	}
+
+	/**
+	 * Removes all values from the adapter whose keys are found within the specified items. The
+	 * keys of both are compared in a single linear pass, rather than deleting each key in turn.
+	 */
+	final void removeItems(@NonNull P items) {
+		S values = toStore(items);
+		synchronized (mLock) {
+			if (mOriginalValues != null) {
+				mOriginalValues = mOriginalValues.removeAll(values);
+			}
+			publishObjects(getNewestObjects().removeAll(values));
+		}
+		if (mNotifyOnChange) {
+			notifyDataSetChanged();
+		}
+	}
+
+	/**
+	 * Removes the mapping with the specified keyId from the adapter.
+	 *
+	 * @param keyId The keyId to remove.
+	 */
+	public void removeWithId(int keyId) {
+		synchronized (mLock) {
+			if (mOriginalValues != null) {
+				mOriginalValues.delete(keyId);
+			}
+			S objects = editObjects();
+			objects.delete(keyId);
+			publishObjects(objects);
+		}
+		if (mNotifyOnChange) {
+			notifyDataSetChanged();
+		}
+	}
+
+	/**
+	 * Resets the adapter to store a copy of the specified items. Will repeat the last filtering
+	 * request if invoked while filtered results are being displayed.
+	 */
+	final void setItems(@NonNull P items) {
+		S objects = toStore(items);
+		synchronized (mLock) {
+			if (mOriginalValues != null) {
+				mOriginalValues = objects;
+				refilter();
+			} else {
+				publishObjects(objects);
+			}
+		}
+		if (mNotifyOnChange) {
+			notifyDataSetChanged();
+		}
+	}
+
+	/**
+	 * <p>Controls whether methods that change the list ({@code appendWithId}, {@code putWithId},
+	 * {@link #remove}, {@link #clear}) automatically call {@link #notifyDataSetChanged}.  If set to
+	 * false, caller must manually call notifyDataSetChanged() to have the changes reflected in the
+	 * attached view.</p>
+	 *
+	 * <p>The default is true, and calling notifyDataSetChanged() resets the flag to true.</p>
+	 *
+	 * @param notifyOnChange if true, modifications to the list will automatically call {@link
+	 *                       #notifyDataSetChanged}
+	 */
+	public void setNotifyOnChange(boolean notifyOnChange) {
+		mNotifyOnChange = notifyOnChange;
+	}
+
+	/**
+	 * Converts a position shown into one within {@link #getNewestObjects()}. Only requires a binary
+	 * search once changed within the current batch. Must be invoked while holding {@link #mLock}.
+	 *
+	 * @return The position, or a negative number if the value has since been removed.
+	 */
+	private int toNewestPosition(int position) {
+		if (mBatchObjects == null) {
+			return position;
+		}
+		return mBatchObjects.indexOfKey(mObjects.keyAt(position));
+	}
+
+	/**
+	 * @return A sparse array holding a copy of the mappings of values.
+	 */
+	@NonNull
+	abstract P toPublic(@NonNull S values);
+
+	/**
+	 * @return A store holding a copy of the mappings of items.
+	 */
+	@NonNull
+	abstract S toStore(@NonNull P items);
+
+	/**
+	 * A store filter constrains the content of the adapter. Whether a value is constrained or not
+	 * is delegated to subclasses through {@link AbsSparseStoreAdapter#isFilteredOutAt}
+	 */
+	private class SparseStoreFilter extends PooledFilter {
+		@Override
+		protected FilterResults performPooledFiltering(CharSequence constraint) {
+			FilterResults results = new FilterResults();
+			final S values;
+
+			synchronized (mLock) {
+				if (TextUtils.isEmpty(constraint)) {    //Clearing out filtered results
+					if (mOriginalValues != null) {
+						mObjects = mOriginalValues.clone();
+						mOriginalValues = null;
+						mBatchObjects = null;    //Unfiltered values hold the batch's changes
+					}
+					results.values = mObjects;
+					results.count = mObjects.size();
+					return results;
+				} else {    //Ready for filtering
+					if (mOriginalValues == null) {
+						mOriginalValues = getNewestObjects().clone();
+					}
+					mBatchObjects = null;    //Unfiltered values now hold the batch's changes
+					values = mOriginalValues.clone();
+				}
+			}
+
+			final S newValues = values.create(0);
+			for (int index = 0; index < values.size(); ++index) {
+				if (!isFilteredOutAt(values, index, constraint)) {
+					newValues.append(values, index);
+				}
+			}
+
+			results.values = newValues;
+			results.count = newValues.size();
+
+			return results;
+		}
+
+		@Override
+		@SuppressWarnings("unchecked")
+		protected void publishPooledResults(CharSequence constraint, FilterResults results) {
+			mLastConstraint = constraint;
+			synchronized (mLock) {
+				mObjects = (S) results.values;
+			}
+			if (results.count > 0) {
+				notifyDataSetChanged();
+			} else {
+				notifyDataSetInvalidated();
+			}
+		}
+	}
+}
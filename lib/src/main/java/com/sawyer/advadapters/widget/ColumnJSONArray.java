@@ -0,0 +1,630 @@
+/*
+ * Copyright 2014 Jay Soyer
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sawyer.advadapters.widget;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import com.sawyer.advadapters.widget.JSONAdapter.PrimitiveType;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+
+import java.util.Arrays;
+
+/**
+ * <p>A {@link JSONArrayStore} which keeps homogeneous primitive values within a single primitive
+ * array, or column, instead of boxing every element. The typed getters read straight from the
+ * column. Values are only boxed when read through {@link #opt(int)} or {@link #get(int)}.</p>
+ *
+ * <p>Any value which can be stored without loss is coerced to the column's type. Storing a value
+ * which doesn't fit, such as a String or a fractional number within an INT column, permanently
+ * converts the store into boxed storage. At that point {@link #getType()} returns null and the
+ * store behaves like any other JSONArray.</p>
+ */
+final class ColumnJSONArray extends JSONArrayStore {
+	/** Column type, or null once the store has fallen back to boxed values */
+	private PrimitiveType mType;
+	private boolean[] mBooleans;
+	private double[] mDoubles;
+	private int[] mInts;
+	private long[] mLongs;
+	/** Only initialized once the store falls back to boxed values */
+	private Object[] mBoxed;
+	private int mSize;
+
+	/**
+	 * Creates an empty column.
+	 *
+	 * @param type     Primitive type of the column
+	 * @param capacity Initial capacity of the column
+	 */
+	ColumnJSONArray(@NonNull PrimitiveType type, int capacity) {
+		mType = type;
+		capacity = Math.max(capacity, 8);
+		switch (type) {
+		case BOOLEAN:
+			mBooleans = new boolean[capacity];
+			break;
+		case DOUBLE:
+			mDoubles = new double[capacity];
+			break;
+		case INT:
+			mInts = new int[capacity];
+			break;
+		case LONG:
+			mLongs = new long[capacity];
+			break;
+		}
+	}
+
+	/**
+	 * Determines whether every element of the array is of the same boxed primitive class.
+	 *
+	 * @return The matching primitive type, or null if the array is empty or not homogeneous.
+	 */
+	@Nullable
+	static PrimitiveType detect(@NonNull JSONArray array) {
+		if (array instanceof ColumnJSONArray) {
+			return ((ColumnJSONArray) array).mType;
+		}
+		if (array.length() == 0) {
+			return null;
+		}
+		Object first = JSONArrayStore.scan(array, 0);
+		if (first == null) {
+			return null;
+		}
+		Class<?> c = first.getClass();
+		for (int i = 1; i < array.length(); ++i) {
+			Object value = JSONArrayStore.scan(array, i);
+			if (value == null || value.getClass() != c) {
+				return null;
+			}
+		}
+		if (c == Boolean.class) {
+			return PrimitiveType.BOOLEAN;
+		} else if (c == Double.class) {
+			return PrimitiveType.DOUBLE;
+		} else if (c == Integer.class) {
+			return PrimitiveType.INT;
+		} else if (c == Long.class) {
+			return PrimitiveType.LONG;
+		}
+		return null;
+	}
+
+	/**
+	 * Determines whether the value can be stored within a column of the given type without loss.
+	 */
+	static boolean fits(@NonNull PrimitiveType type, @Nullable Object value) {
+		switch (type) {
+		case BOOLEAN:
+			return value instanceof Boolean;
+		case DOUBLE:
+			if (value instanceof Long) {
+				long l = (Long) value;
+				return (long) (double) l == l;
+			}
+			return value instanceof Double || value instanceof Integer ||
+				   value instanceof Float || value instanceof Short || value instanceof Byte;
+		case INT:
+			if (value instanceof Integer || value instanceof Short || value instanceof Byte) {
+				return true;
+			} else if (value instanceof Long) {
+				long l = (Long) value;
+				return (int) l == l;
+			} else if (value instanceof Double || value instanceof Float) {
+				double d = ((Number) value).doubleValue();
+				return (int) d == d;
+			}
+			return false;
+		case LONG:
+			if (value instanceof Integer || value instanceof Long || value instanceof Short ||
+				value instanceof Byte) {
+				return true;
+			} else if (value instanceof Double || value instanceof Float) {
+				double d = ((Number) value).doubleValue();
+				return Math.abs(d) < 9.2E18 && (long) d == d;
+			}
+			return false;
+		default:
+			return false;
+		}
+	}
+
+	/**
+	 * Creates a column holding every element of the array. Elements which don't fit within the
+	 * column cause the returned store to fall back to boxed values.
+	 */
+	@NonNull
+	static ColumnJSONArray from(@NonNull JSONArray array, @NonNull PrimitiveType type) {
+		int length = array.length();
+		ColumnJSONArray column = new ColumnJSONArray(type, length);
+		for (int i = 0; i < length; ++i) {
+			column.append(JSONArrayStore.scan(array, i));
+		}
+		return column;
+	}
+
+	/**
+	 * Same as {@link #from(JSONArray, PrimitiveType)}, but refuses to fall back to boxed values.
+	 *
+	 * @throws JSONException If any element of the array does not fit within the column
+	 */
+	@NonNull
+	static ColumnJSONArray fromStrict(@NonNull JSONArray array, @NonNull PrimitiveType type)
+			throws JSONException {
+		for (int i = 0; i < array.length(); ++i) {
+			Object value = JSONArrayStore.scan(array, i);
+			if (!fits(type, value)) {
+				throw new JSONException("Value " + value + " at " + i + " cannot be stored as " +
+										type);
+			}
+		}
+		return from(array, type);
+	}
+
+	@Override
+	void append(@Nullable Object value) {
+		if (mType != null && !fits(mType, value)) {
+			box();
+		}
+		ensureCapacity(mSize + 1);
+		store(mSize++, value);
+	}
+
+	/**
+	 * Converts the store into boxed storage. Can't be undone.
+	 */
+	private void box() {
+		Object[] boxed = new Object[Math.max(capacity(), 8)];
+		for (int i = 0; i < mSize; ++i) {
+			boxed[i] = opt(i);
+		}
+		mBoxed = boxed;
+		mBooleans = null;
+		mDoubles = null;
+		mInts = null;
+		mLongs = null;
+		mType = null;
+	}
+
+	/**
+	 * @return The primitive boolean at index. Only valid for a BOOLEAN column.
+	 */
+	boolean booleanAt(int index) {
+		return mBooleans[index];
+	}
+
+	private int capacity() {
+		if (mType == null) {
+			return mBoxed.length;
+		}
+		switch (mType) {
+		case BOOLEAN:
+			return mBooleans.length;
+		case DOUBLE:
+			return mDoubles.length;
+		case INT:
+			return mInts.length;
+		default:
+			return mLongs.length;
+		}
+	}
+
+	@NonNull
+	@Override
+	JSONArrayStore copy() {
+		int[] positions = new int[mSize];
+		for (int i = 0; i < mSize; ++i) {
+			positions[i] = i;
+		}
+		return selectPositions(positions, mSize, null);
+	}
+
+	/**
+	 * @return The primitive double at index. Only valid for a DOUBLE column.
+	 */
+	double doubleAt(int index) {
+		return mDoubles[index];
+	}
+
+	private void ensureCapacity(int minCapacity) {
+		int capacity = capacity();
+		if (minCapacity <= capacity) {
+			return;
+		}
+		int newCapacity = Math.max(minCapacity, capacity + (capacity >> 1));
+		if (mType == null) {
+			mBoxed = Arrays.copyOf(mBoxed, newCapacity);
+			return;
+		}
+		switch (mType) {
+		case BOOLEAN:
+			mBooleans = Arrays.copyOf(mBooleans, newCapacity);
+			break;
+		case DOUBLE:
+			mDoubles = Arrays.copyOf(mDoubles, newCapacity);
+			break;
+		case INT:
+			mInts = Arrays.copyOf(mInts, newCapacity);
+			break;
+		case LONG:
+			mLongs = Arrays.copyOf(mLongs, newCapacity);
+			break;
+		}
+	}
+
+	@Override
+	public boolean getBoolean(int index) throws JSONException {
+		if (mType == PrimitiveType.BOOLEAN && index >= 0 && index < mSize) {
+			return mBooleans[index];
+		}
+		return super.getBoolean(index);
+	}
+
+	@Override
+	public double getDouble(int index) throws JSONException {
+		if (isNumeric() && index >= 0 && index < mSize) {
+			return numberAt(index);
+		}
+		return super.getDouble(index);
+	}
+
+	@Override
+	public int getInt(int index) throws JSONException {
+		if (isNumeric() && index >= 0 && index < mSize) {
+			return intValueAt(index);
+		}
+		return super.getInt(index);
+	}
+
+	@Override
+	public long getLong(int index) throws JSONException {
+		if (isNumeric() && index >= 0 && index < mSize) {
+			return longValueAt(index);
+		}
+		return super.getLong(index);
+	}
+
+	/**
+	 * @return The column type, or null if the store has fallen back to boxed values.
+	 */
+	@Nullable
+	PrimitiveType getType() {
+		return mType;
+	}
+
+	/**
+	 * @return The primitive int at index. Only valid for an INT column.
+	 */
+	int intAt(int index) {
+		return mInts[index];
+	}
+
+	private int intValueAt(int index) {
+		switch (mType) {
+		case DOUBLE:
+			return (int) mDoubles[index];
+		case INT:
+			return mInts[index];
+		default:
+			return (int) mLongs[index];
+		}
+	}
+
+	@Override
+	public boolean isNull(int index) {
+		if (mType != null) {
+			return index < 0 || index >= mSize;
+		}
+		return super.isNull(index);
+	}
+
+	private boolean isNumeric() {
+		return mType != null && mType != PrimitiveType.BOOLEAN;
+	}
+
+	@Override
+	public int length() {
+		return mSize;
+	}
+
+	/**
+	 * @return The primitive long at index. Only valid for a LONG column.
+	 */
+	long longAt(int index) {
+		return mLongs[index];
+	}
+
+	private long longValueAt(int index) {
+		switch (mType) {
+		case DOUBLE:
+			return (long) mDoubles[index];
+		case INT:
+			return mInts[index];
+		default:
+			return mLongs[index];
+		}
+	}
+
+	private double numberAt(int index) {
+		switch (mType) {
+		case DOUBLE:
+			return mDoubles[index];
+		case INT:
+			return mInts[index];
+		default:
+			return mLongs[index];
+		}
+	}
+
+	@Override
+	public Object opt(int index) {
+		if (index < 0 || index >= mSize) {
+			return null;
+		}
+		if (mType == null) {
+			return mBoxed[index];
+		}
+		switch (mType) {
+		case BOOLEAN:
+			return mBooleans[index];
+		case DOUBLE:
+			return mDoubles[index];
+		case INT:
+			return mInts[index];
+		default:
+			return mLongs[index];
+		}
+	}
+
+	@Override
+	public boolean optBoolean(int index) {
+		return optBoolean(index, false);
+	}
+
+	@Override
+	public boolean optBoolean(int index, boolean fallback) {
+		if (mType == PrimitiveType.BOOLEAN) {
+			return (index >= 0 && index < mSize) ? mBooleans[index] : fallback;
+		}
+		return super.optBoolean(index, fallback);
+	}
+
+	@Override
+	public double optDouble(int index) {
+		return optDouble(index, Double.NaN);
+	}
+
+	@Override
+	public double optDouble(int index, double fallback) {
+		if (isNumeric()) {
+			return (index >= 0 && index < mSize) ? numberAt(index) : fallback;
+		}
+		return super.optDouble(index, fallback);
+	}
+
+	@Override
+	public int optInt(int index) {
+		return optInt(index, 0);
+	}
+
+	@Override
+	public int optInt(int index, int fallback) {
+		if (isNumeric()) {
+			return (index >= 0 && index < mSize) ? intValueAt(index) : fallback;
+		}
+		return super.optInt(index, fallback);
+	}
+
+	@Override
+	public long optLong(int index) {
+		return optLong(index, 0L);
+	}
+
+	@Override
+	public long optLong(int index, long fallback) {
+		if (isNumeric()) {
+			return (index >= 0 && index < mSize) ? longValueAt(index) : fallback;
+		}
+		return super.optLong(index, fallback);
+	}
+
+	@Override
+	public JSONArray put(boolean value) {
+		if (mType == PrimitiveType.BOOLEAN) {
+			ensureCapacity(mSize + 1);
+			mBooleans[mSize++] = value;
+		} else {
+			append(value);
+		}
+		return this;
+	}
+
+	@Override
+	public JSONArray put(double value) throws JSONException {
+		checkDouble(value);
+		if (mType == PrimitiveType.DOUBLE) {
+			ensureCapacity(mSize + 1);
+			mDoubles[mSize++] = value;
+		} else {
+			append(value);
+		}
+		return this;
+	}
+
+	@Override
+	public JSONArray put(int value) {
+		if (mType == PrimitiveType.INT) {
+			ensureCapacity(mSize + 1);
+			mInts[mSize++] = value;
+		} else if (mType == PrimitiveType.LONG) {
+			ensureCapacity(mSize + 1);
+			mLongs[mSize++] = value;
+		} else if (mType == PrimitiveType.DOUBLE) {
+			ensureCapacity(mSize + 1);
+			mDoubles[mSize++] = value;
+		} else {
+			append(value);
+		}
+		return this;
+	}
+
+	@Override
+	public JSONArray put(long value) {
+		if (mType == PrimitiveType.LONG) {
+			ensureCapacity(mSize + 1);
+			mLongs[mSize++] = value;
+		} else {
+			append(value);
+		}
+		return this;
+	}
+
+	@Override
+	void removeAt(int index) {
+		int moved = mSize - index - 1;
+		--mSize;
+		if (mType == null) {
+			System.arraycopy(mBoxed, index + 1, mBoxed, index, moved);
+			mBoxed[mSize] = null;
+			return;
+		}
+		switch (mType) {
+		case BOOLEAN:
+			System.arraycopy(mBooleans, index + 1, mBooleans, index, moved);
+			break;
+		case DOUBLE:
+			System.arraycopy(mDoubles, index + 1, mDoubles, index, moved);
+			break;
+		case INT:
+			System.arraycopy(mInts, index + 1, mInts, index, moved);
+			break;
+		case LONG:
+			System.arraycopy(mLongs, index + 1, mLongs, index, moved);
+			break;
+		}
+	}
+
+	@NonNull
+	@Override
+	JSONArrayStore selectPositions(@NonNull int[] positions, int count,
+								   @Nullable JSONArray extra) {
+		boolean boxed = mType == null;
+		for (int i = 0; i < count && !boxed; ++i) {
+			//noinspection ConstantConditions
+			boxed = positions[i] >= mSize && !fits(mType, extra.opt(positions[i] - mSize));
+		}
+		if (boxed) {
+			ColumnJSONArray selection = new ColumnJSONArray(PrimitiveType.BOOLEAN, 0);
+			selection.box();
+			selection.ensureCapacity(count);
+			for (int i = 0; i < count; ++i) {
+				int position = positions[i];
+				//noinspection ConstantConditions
+				selection.mBoxed[i] = (position < mSize) ? opt(position)
+														 : extra.opt(position - mSize);
+			}
+			selection.mSize = count;
+			return selection;
+		}
+
+		//Own elements are copied per type, extra values are then converted one by one
+		ColumnJSONArray selection = new ColumnJSONArray(mType, count);
+		boolean hasExtra = false;
+		switch (mType) {
+		case BOOLEAN:
+			for (int i = 0; i < count; ++i) {
+				if (positions[i] < mSize) {
+					selection.mBooleans[i] = mBooleans[positions[i]];
+				} else {
+					hasExtra = true;
+				}
+			}
+			break;
+		case DOUBLE:
+			for (int i = 0; i < count; ++i) {
+				if (positions[i] < mSize) {
+					selection.mDoubles[i] = mDoubles[positions[i]];
+				} else {
+					hasExtra = true;
+				}
+			}
+			break;
+		case INT:
+			for (int i = 0; i < count; ++i) {
+				if (positions[i] < mSize) {
+					selection.mInts[i] = mInts[positions[i]];
+				} else {
+					hasExtra = true;
+				}
+			}
+			break;
+		case LONG:
+			for (int i = 0; i < count; ++i) {
+				if (positions[i] < mSize) {
+					selection.mLongs[i] = mLongs[positions[i]];
+				} else {
+					hasExtra = true;
+				}
+			}
+			break;
+		}
+		for (int i = 0; i < count && hasExtra; ++i) {
+			if (positions[i] >= mSize) {
+				//noinspection ConstantConditions
+				selection.store(i, extra.opt(positions[i] - mSize));
+			}
+		}
+		selection.mSize = count;
+		return selection;
+	}
+
+	@Override
+	void set(int index, @Nullable Object value) {
+		if (mType != null && !fits(mType, value)) {
+			box();
+		}
+		store(index, value);
+	}
+
+	/**
+	 * Writes an already validated value at index.
+	 */
+	private void store(int index, @Nullable Object value) {
+		if (mType == null) {
+			mBoxed[index] = value;
+			return;
+		}
+		//noinspection ConstantConditions
+		switch (mType) {
+		case BOOLEAN:
+			mBooleans[index] = (Boolean) value;
+			break;
+		case DOUBLE:
+			mDoubles[index] = ((Number) value).doubleValue();
+			break;
+		case INT:
+			mInts[index] = ((Number) value).intValue();
+			break;
+		case LONG:
+			mLongs[index] = ((Number) value).longValue();
+			break;
+		}
+	}
+}
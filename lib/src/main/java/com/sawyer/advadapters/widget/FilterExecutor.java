@@ -0,0 +1,189 @@
+/*
+ * Copyright 2014 Jay Soyer
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sawyer.advadapters.widget;
+
+import android.os.Process;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.widget.Filter;
+import android.widget.Filterable;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * <p>The {@link Executor} every filterable adapter runs it's filtering on. Rather than each
+ * adapter's filter spinning up it's own worker thread, all adapters share this executor. Requests
+ * made to a single adapter are never run in parallel. A request made while another is still
+ * waiting on the executor replaces it.</p>
+ *
+ * <p>The adapters always repeat their last filtering request through this executor. Since {@link
+ * Filter#filter(CharSequence)} is final, requests made through it still run on the filter's own
+ * worker thread. They're still run in sequence with those run here, never at the same time, and
+ * only the results of the newest request are published. Use {@link #filter(Filterable,
+ * CharSequence)} instead to run them here too.</p>
+ *
+ * <p>By default a small pool of background priority threads is used. The threads time out once
+ * idle. Set your own executor with {@link #set(Executor)} to share one bounded pool between the
+ * adapters and the rest of your app.</p>
+ */
+public final class FilterExecutor {
+	/** How long an idle thread of the default pool is kept around, in seconds */
+	private static final int KEEP_ALIVE = 30;
+	private static final Object LOCK = new Object();
+	private static Executor sExecutor;
+	private static ThreadPoolExecutor sDefaultExecutor;
+	private static int sThreadPriority = Process.THREAD_PRIORITY_BACKGROUND;
+
+	private FilterExecutor() {
+	}
+
+	@NonNull
+	private static ThreadPoolExecutor createDefault() {
+		int threads = Math.max(1, Math.min(2, Runtime.getRuntime().availableProcessors() - 1));
+		ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, KEEP_ALIVE,
+															 TimeUnit.SECONDS,
+															 new LinkedBlockingQueue<Runnable>(),
+															 new FilterThreadFactory());
+		executor.allowCoreThreadTimeOut(true);
+		return executor;
+	}
+
+	/**
+	 * Starts an asynchronous filtering request for the given adapter on this executor. Falls back
+	 * to {@link Filter#filter(CharSequence)} for adapters whose filter doesn't support it.
+	 *
+	 * @param adapter    Adapter to filter
+	 * @param constraint The constraint used to filter the data
+	 */
+	public static void filter(@NonNull Filterable adapter, @Nullable CharSequence constraint) {
+		filter(adapter, constraint, null);
+	}
+
+	/**
+	 * Starts an asynchronous filtering request for the given adapter on this executor. Falls back
+	 * to {@link Filter#filter(CharSequence, Filter.FilterListener)} for adapters whose filter
+	 * doesn't support it.
+	 *
+	 * @param adapter    Adapter to filter
+	 * @param constraint The constraint used to filter the data
+	 * @param listener   Notified once the results are published. May be null.
+	 */
+	public static void filter(@NonNull Filterable adapter, @Nullable CharSequence constraint,
+							  @Nullable Filter.FilterListener listener) {
+		Filter filter = adapter.getFilter();
+		if (filter instanceof PooledFilter) {
+			((PooledFilter) filter).submit(constraint, listener);
+		} else {
+			filter.filter(constraint, listener);
+		}
+	}
+
+	/**
+	 * Repeats the newest filtering request made to the given adapter, on this executor. Falls back
+	 * to {@link Filter#filter(CharSequence)} with the last published constraint for adapters whose
+	 * filter doesn't support it.
+	 *
+	 * @param adapter        Adapter to filter
+	 * @param lastConstraint The constraint of the adapter's last published results
+	 */
+	static void refilter(@NonNull Filterable adapter, @Nullable CharSequence lastConstraint) {
+		Filter filter = adapter.getFilter();
+		if (filter instanceof PooledFilter) {
+			((PooledFilter) filter).refilter();
+		} else {
+			filter.filter(lastConstraint);
+		}
+	}
+
+	/**
+	 * @return The executor filtering is currently run on. Either the one set through {@link
+	 * #set(Executor)}, or the default pool.
+	 */
+	@NonNull
+	public static Executor get() {
+		synchronized (LOCK) {
+			if (sExecutor != null) {
+				return sExecutor;
+			} else if (sDefaultExecutor == null) {
+				sDefaultExecutor = createDefault();
+			}
+			return sDefaultExecutor;
+		}
+	}
+
+	/**
+	 * @return The priority threads of the default pool run at. See {@link #setThreadPriority(int)}.
+	 */
+	public static int getThreadPriority() {
+		synchronized (LOCK) {
+			return sThreadPriority;
+		}
+	}
+
+	/**
+	 * Sets the executor all filtering is run on from now on. Filtering already submitted finishes
+	 * on the previous executor. The executor must not run tasks on the calling thread, nor reject
+	 * them.
+	 *
+	 * @param executor Executor to run filtering on. Null to return to the default pool.
+	 */
+	public static void set(@Nullable Executor executor) {
+		synchronized (LOCK) {
+			sExecutor = executor;
+		}
+	}
+
+	/**
+	 * Sets the priority threads of the default pool run at. Defaults to {@link
+	 * Process#THREAD_PRIORITY_BACKGROUND}. Has no effect on an executor set through {@link
+	 * #set(Executor)}, which should manage the priority of it's own threads.
+	 *
+	 * @param priority A Linux priority level, from -20 for highest scheduling priority to 19 for
+	 *                 lowest scheduling priority.
+	 */
+	public static void setThreadPriority(int priority) {
+		synchronized (LOCK) {
+			sThreadPriority = priority;
+		}
+	}
+
+	/**
+	 * Creates the threads of the default pool. Each one applies the current thread priority
+	 * before running it's first task.
+	 */
+	private static final class FilterThreadFactory implements ThreadFactory {
+		private final AtomicInteger mCount = new AtomicInteger();
+
+		@Override
+		public Thread newThread(@NonNull final Runnable runnable) {
+			final int priority = getThreadPriority();
+			Thread thread = new Thread(new Runnable() {
+				@Override
+				public void run() {
+					Process.setThreadPriority(priority);
+					runnable.run();
+				}
+			}, "FilterExecutor #" + mCount.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		}
+	}
+}
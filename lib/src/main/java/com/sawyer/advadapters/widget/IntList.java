@@ -0,0 +1,152 @@
+/*
+ * Copyright 2014 Jay Soyer
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sawyer.advadapters.widget;
+
+import android.support.annotation.NonNull;
+
+import java.util.Arrays;
+
+/**
+ * A growable list of int values, kept within a single int[] rather than boxing each value. Backs
+ * the {@link IntArrayAdapter} and {@link NFIntArrayAdapter}. Everything not reading, writing or
+ * comparing a value is implemented by the {@link AbsPrimitiveList}.
+ */
+final class IntList extends AbsPrimitiveList<IntList> {
+	private static final int[] EMPTY = new int[0];
+
+	private int[] mValues;
+
+	IntList() {
+		mValues = EMPTY;
+	}
+
+	/**
+	 * Creates a list holding a copy of the given values.
+	 */
+	IntList(@NonNull int[] values) {
+		mValues = values.clone();
+		mSize = values.length;
+	}
+
+	void add(int value) {
+		ensureCapacity(mSize + 1);
+		mValues[mSize++] = value;
+	}
+
+	void add(int index, int value) {
+		checkInsertIndex(index);
+		ensureCapacity(mSize + 1);
+		System.arraycopy(mValues, index, mValues, index + 1, mSize - index);
+		mValues[index] = value;
+		++mSize;
+	}
+
+	boolean contains(int value) {
+		return indexOf(value) >= 0;
+	}
+
+	@Override
+	@NonNull
+	IntList create() {
+		return new IntList();
+	}
+
+	int get(int index) {
+		checkIndex(index);
+		return mValues[index];
+	}
+
+	@Override
+	int getCapacity() {
+		return mValues.length;
+	}
+
+	@Override
+	@NonNull
+	Object getValues() {
+		return mValues;
+	}
+
+	int indexOf(int value) {
+		for (int i = 0; i < mSize; ++i) {
+			if (mValues[i] == value) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	@Override
+	int indexOf(@NonNull IntList source, int sourceIndex) {
+		return indexOf(source.get(sourceIndex));
+	}
+
+	@Override
+	boolean removeAll(@NonNull IntList values) {
+		return removeWhere(values, true);
+	}
+
+	private boolean removeWhere(@NonNull IntList values, boolean isFound) {
+		int[] sorted = values.toArray();
+		Arrays.sort(sorted);
+		int kept = 0;
+		for (int i = 0; i < mSize; ++i) {
+			if ((Arrays.binarySearch(sorted, mValues[i]) >= 0) != isFound) {
+				mValues[kept++] = mValues[i];
+			}
+		}
+		boolean isModified = kept != mSize;
+		mSize = kept;
+		return isModified;
+	}
+
+	@Override
+	void resizeValues(int length) {
+		mValues = Arrays.copyOf(mValues, length);
+	}
+
+	@Override
+	boolean retainAll(@NonNull IntList values) {
+		return removeWhere(values, false);
+	}
+
+	void set(int index, int value) {
+		checkIndex(index);
+		mValues[index] = value;
+	}
+
+	@Override
+	void sort() {
+		Arrays.sort(mValues, 0, mSize);
+	}
+
+	@NonNull
+	int[] toArray() {
+		return Arrays.copyOf(mValues, mSize);
+	}
+
+	/**
+	 * @return A list wrapping the given values without copying them. Only meant for handing values
+	 * over to another list, as the list and the array share their contents.
+	 */
+	@NonNull
+	static IntList wrap(@NonNull int... values) {
+		IntList list = new IntList();
+		list.mValues = values;
+		list.mSize = values.length;
+		return list;
+	}
+}
@@ -32,11 +32,22 @@ import org.json.JSONException;
 import org.json.JSONObject;
 import org.json.JSONTokener;
 
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.lang.reflect.Type;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -68,6 +79,41 @@ import java.util.Map;
  * implement a {@code isFilteredOut(Foo, CharSequence)}. Then during a filter operation, any Foo
  * object detected will have that method invoke to determine whether it passes the filter or
  * not.</p>
+ *
+ * <p>For large data sets stored on disk, the adapter may be constructed from the raw bytes of a
+ * JSON array or from a {@link FileChannel}. Instead of parsing everything up front, the offsets of
+ * each element are indexed and elements are only parsed once they're read. A bounded number of
+ * parsed elements is cached. Be aware that since parsed elements can be evicted at any time,
+ * modifying a returned JSONObject or JSONArray directly is not guaranteed to persist.</p>
+ *
+ * <p>Adapters holding large amounts of booleans or numbers can store them within a primitive array
+ * instead of boxing every value. Either declare the type up front with {@link
+ * #setPrimitiveType(PrimitiveType)}, or let {@link #compact()} detect it from the current data. The
+ * typed getters, such as {@link #getItemDouble(int)}, then read without boxing and filtering runs
+ * directly over the primitives through the primitive {@code isFilteredOut} methods. Values are only
+ * boxed when explicitly retrieved as objects, for instance through {@link #getItem(int)} or {@link
+ * #getJSONArray()}.</p>
+ *
+ * <p>JSONObjects may instead be filtered declaratively by their fields, see {@link
+ * #setFieldFilter(JSONFieldFilter)}. While a field filter is set, it alone decides which
+ * JSONObjects pass. All other items continue to be handled by the {@code isFilteredOut}
+ * methods.</p>
+ *
+ * <p>Many changes may be wrapped within {@link #beginBatch()} and {@link #commitBatch()}. The last
+ * filtering request is then repeated once, indexes rebuilt at most once and a single notification
+ * sent for the whole batch. Items added within a batch are added to a single copy of the items
+ * shown, which is shown once the batch commits.</p>
+ *
+ * <p>The items shown are held within an array that's never modified once published through a
+ * single volatile reference. Writers build a new array and swap it in, so the getters and {@link
+ * #getCount()} never lock and always see a consistent array. Outside a batch, every single item
+ * added copies the shown items, so each {@code add} takes time proportional to the number of items.
+ * Prefer {@link #addAll(JSONArray)} over repeated calls to {@code add}.</p>
+ *
+ * <p>Background threads adding items one at a time, such as while syncing, should post them
+ * instead through {@link #postAdd(Object)}. Posting never blocks. Every item posted before the main
+ * thread gets to them is added within a single batch, copying the shown items once and notifying
+ * only once.</p>
  */
 public abstract class JSONAdapter extends BaseAdapter implements Filterable {
 	/**
@@ -84,9 +130,10 @@ public abstract class JSONAdapter extends BaseAdapter implements Filterable {
 	/**
 	 * Contains the list of objects that represent the visible data of the adapter. It's contents
 	 * will change as filtering occurs. All methods retrieving data about the adapter will always do
-	 * so from this list.
+	 * so from this list. An array is never modified once assigned here. Changes are made to a copy,
+	 * which then replaces it.
 	 */
-	private JSONArray mObjects;
+	private volatile JSONArray mObjects;
 	/**
 	 * Indicates whether or not {@link #notifyDataSetChanged()} must be called whenever {@link
 	 * #mObjects} is modified.
@@ -110,6 +157,45 @@ public abstract class JSONAdapter extends BaseAdapter implements Filterable {
 	 */
 	private Map<String, Method> mFilterMethods;
 	private JSONArrayFilter mFilter;
+	/** Declared storage type of the adapter's items. Null when stored as regular JSON values. */
+	private PrimitiveType mPrimitiveType;
+	/** Declarative filter applied to JSONObjects in place of the isFilteredOut methods */
+	private JSONFieldFilter mFieldFilter;
+	/**
+	 * Position within {@link #mOriginalValues} of each item shown by {@link #mObjects}. Null when
+	 * each item of mObjects is found at the same position within mOriginalValues, which is always
+	 * the case while not filtered.
+	 */
+	private int[] mFilteredPositions;
+	/**
+	 * Incremented whenever items are rearranged without going through the filter. Filter results
+	 * computed before then are stale, and are discarded in favor of filtering again.
+	 */
+	private int mGeneration;
+	/** Secondary indexes over the original items, keyed by field path */
+	private Map<String, JSONFieldIndex> mIndexes;
+	/** Number of batches currently begun and not yet committed. See {@link #beginBatch()} */
+	private int mBatchDepth;
+	/** Whether a change made during the current batch requires the filter to be repeated */
+	private boolean mIsRefilterPending;
+	/** Whether a notification was deferred during the current batch */
+	private boolean mIsNotifyPending;
+	/** Whether the indexes are out of date until the current batch commits */
+	private boolean mIsIndexStale;
+	/**
+	 * The current batch's private copy of {@link #mObjects}, which items are added to in place.
+	 * Shown once the outermost batch commits, or once any other change is made. Null until an item
+	 * is added within a batch.
+	 */
+	private JSONArray mBatchObjects;
+	/** Items posted from any thread, waiting to be added on the main thread */
+	private final MutationQueue<Object> mPending = new MutationQueue<>(
+			new MutationQueue.Target<Object>() {
+				@Override
+				public void apply(@NonNull List<MutationQueue.Mutation<Object>> mutations) {
+					applyMutations(mutations);
+				}
+			});
 
 	/**
 	 * Constructor
@@ -150,6 +236,72 @@ public abstract class JSONAdapter extends BaseAdapter implements Filterable {
 		init(activity, generateCopy(array));
 	}
 
+	/**
+	 * Constructor. The elements are indexed but not parsed until read, caching up to 64 parsed
+	 * elements.
+	 *
+	 * @param activity Context used for inflating views
+	 * @param json     UTF-8 encoded bytes of a JSON array to be stored in the adapter. The bytes
+	 *                 are not copied and must not be modified afterwards.
+	 *
+	 * @throws JSONException if the bytes don't hold a {@code JSONArray}.
+	 */
+	public JSONAdapter(@NonNull Context activity, @NonNull byte[] json) throws JSONException {
+		this(activity, json, LazyJSONArray.DEFAULT_CACHE_SIZE);
+	}
+
+	/**
+	 * Constructor. The elements are indexed but not parsed until read. An element which then
+	 * fails to parse is logged and treated as missing, so it's never shown, copied or matched by
+	 * the filter.
+	 *
+	 * @param activity  Context used for inflating views
+	 * @param json      UTF-8 encoded bytes of a JSON array to be stored in the adapter. The bytes
+	 *                  are not copied and must not be modified afterwards.
+	 * @param cacheSize Maximum number of parsed elements to keep in memory. Must be positive.
+	 *
+	 * @throws JSONException if the bytes don't hold a {@code JSONArray}.
+	 */
+	public JSONAdapter(@NonNull Context activity, @NonNull byte[] json, int cacheSize)
+			throws JSONException {
+		init(activity, LazyJSONArray.from(json, cacheSize));
+	}
+
+	/**
+	 * Constructor. The channel's file is memory mapped, and it's elements are indexed but not
+	 * parsed until read, caching up to 64 parsed elements.
+	 *
+	 * @param activity Context used for inflating views
+	 * @param channel  Channel of a file holding a UTF-8 encoded JSON array to be stored in the
+	 *                 adapter. The channel may be closed afterwards, but the file must not be
+	 *                 modified.
+	 *
+	 * @throws IOException   if the file could not be mapped.
+	 * @throws JSONException if the file doesn't hold a {@code JSONArray}.
+	 */
+	public JSONAdapter(@NonNull Context activity, @NonNull FileChannel channel)
+			throws IOException, JSONException {
+		this(activity, channel, LazyJSONArray.DEFAULT_CACHE_SIZE);
+	}
+
+	/**
+	 * Constructor. The channel's file is memory mapped, and it's elements are indexed but not
+	 * parsed until read. An element which then fails to parse is logged and treated as missing.
+	 *
+	 * @param activity  Context used for inflating views
+	 * @param channel   Channel of a file holding a UTF-8 encoded JSON array to be stored in the
+	 *                  adapter. The channel may be closed afterwards, but the file must not be
+	 *                  modified.
+	 * @param cacheSize Maximum number of parsed elements to keep in memory. Must be positive.
+	 *
+	 * @throws IOException   if the file could not be mapped.
+	 * @throws JSONException if the file doesn't hold a {@code JSONArray}.
+	 */
+	public JSONAdapter(@NonNull Context activity, @NonNull FileChannel channel, int cacheSize)
+			throws IOException, JSONException {
+		init(activity, LazyJSONArray.from(channel, cacheSize));
+	}
+
 	/**
 	 * Constructor
 	 *
@@ -167,7 +319,7 @@ public abstract class JSONAdapter extends BaseAdapter implements Filterable {
 	private static JSONArray generateCopy(@NonNull JSONArray array) {
 		JSONArray copy = new JSONArray();
 		for (int i = 0; i < array.length(); ++i) {
-			Object object = array.opt(i);
+			Object object = JSONArrayStore.scan(array, i);
 			if (object != null) {
 				copy.put(object);
 			}
@@ -202,7 +354,8 @@ public abstract class JSONAdapter extends BaseAdapter implements Filterable {
 	/**
 	 * Adds the specified items at the end of the adapter. May not be NaNs or infinities which will
 	 * cause the adapter to be in an inconsistent state. Will repeat the last filtering request if
-	 * invoked while filtered results are being displayed.
+	 * invoked while filtered results are being displayed. Outside a batch this copies the items
+	 * shown, see {@link #postAdd(Object)} for adding many items one at a time.
 	 *
 	 * @param item The item to add at the end of the adapter.
 	 */
@@ -210,10 +363,13 @@ public abstract class JSONAdapter extends BaseAdapter implements Filterable {
 		synchronized (mLock) {
 			if (mOriginalValues != null) {
 				mOriginalValues.put(item);
-				getFilter().filter(mLastConstraint);
+				refilter();
 			} else {
-				mObjects.put(item);
+				JSONArray objects = editObjects();
+				objects.put(item);
+				publishObjects(objects);
 			}
+			appendToIndexes();
 		}
 		if (mNotifyOnChange) {
 			notifyDataSetChanged();
@@ -232,10 +388,13 @@ public abstract class JSONAdapter extends BaseAdapter implements Filterable {
 		synchronized (mLock) {
 			if (mOriginalValues != null) {
 				mOriginalValues.put(item);
-				getFilter().filter(mLastConstraint);
+				refilter();
 			} else {
-				mObjects.put(item);
+				JSONArray objects = editObjects();
+				objects.put(item);
+				publishObjects(objects);
 			}
+			appendToIndexes();
 		}
 		if (mNotifyOnChange) {
 			notifyDataSetChanged();
@@ -252,10 +411,13 @@ public abstract class JSONAdapter extends BaseAdapter implements Filterable {
 		synchronized (mLock) {
 			if (mOriginalValues != null) {
 				mOriginalValues.put(item);
-				getFilter().filter(mLastConstraint);
+				refilter();
 			} else {
-				mObjects.put(item);
+				JSONArray objects = editObjects();
+				objects.put(item);
+				publishObjects(objects);
 			}
+			appendToIndexes();
 		}
 		if (mNotifyOnChange) {
 			notifyDataSetChanged();
@@ -272,10 +434,13 @@ public abstract class JSONAdapter extends BaseAdapter implements Filterable {
 		synchronized (mLock) {
 			if (mOriginalValues != null) {
 				mOriginalValues.put(item);
-				getFilter().filter(mLastConstraint);
+				refilter();
 			} else {
-				mObjects.put(item);
+				JSONArray objects = editObjects();
+				objects.put(item);
+				publishObjects(objects);
 			}
+			appendToIndexes();
 		}
 		if (mNotifyOnChange) {
 			notifyDataSetChanged();
@@ -292,10 +457,13 @@ public abstract class JSONAdapter extends BaseAdapter implements Filterable {
 		synchronized (mLock) {
 			if (mOriginalValues != null) {
 				mOriginalValues.put(item);
-				getFilter().filter(mLastConstraint);
+				refilter();
 			} else {
-				mObjects.put(item);
+				JSONArray objects = editObjects();
+				objects.put(item);
+				publishObjects(objects);
 			}
+			appendToIndexes();
 		}
 		if (mNotifyOnChange) {
 			notifyDataSetChanged();
@@ -315,12 +483,15 @@ public abstract class JSONAdapter extends BaseAdapter implements Filterable {
 				for (int index = 0; index < items.length(); ++index) {
 					mOriginalValues.put(items.opt(index));
 				}
-				getFilter().filter(mLastConstraint);
+				refilter();
 			} else {
+				JSONArray objects = editObjects();
 				for (int index = 0; index < items.length(); ++index) {
-					mObjects.put(items.opt(index));
+					objects.put(items.opt(index));
 				}
+				publishObjects(objects);
 			}
+			appendToIndexes();
 		}
 		if (mNotifyOnChange) {
 			notifyDataSetChanged();
@@ -340,18 +511,106 @@ public abstract class JSONAdapter extends BaseAdapter implements Filterable {
 				for (Object object : items) {
 					mOriginalValues.put(object);
 				}
-				getFilter().filter(mLastConstraint);
+				refilter();
 			} else {
+				JSONArray objects = editObjects();
 				for (Object object : items) {
-					mObjects.put(object);
+					objects.put(object);
 				}
+				publishObjects(objects);
 			}
+			appendToIndexes();
 		}
 		if (mNotifyOnChange) {
 			notifyDataSetChanged();
 		}
 	}
 
+	/**
+	 * <p>Declares a secondary index on a field of the JSONObjects stored within the adapter. The
+	 * index maps each distinct value of the field to the items holding it, and is kept up to date
+	 * through every change made to the adapter. Indexing a field costs one pass over the items,
+	 * along with the memory to hold one position per item.</p>
+	 *
+	 * <p>Once indexed, a field filter whose equality condition on the field must hold, created by
+	 * either {@link JSONFieldFilter#equalTo(String)}, {@link JSONFieldFilter#equalTo(String,
+	 * Object)} or {@link JSONFieldFilter#in(String, Object...)}, only evaluates the items the index
+	 * finds for the compared values. Every other JSONObject is ruled out without being read. The
+	 * number of items holding each value is also available through {@link
+	 * #getFacetCounts(String)}.</p>
+	 *
+	 * @param fieldPath Dot separated path of the field, such as {@code "director.name"}
+	 *
+	 * @throws IllegalArgumentException If the path is empty or has an empty segment
+	 */
+	public void addIndex(@NonNull String fieldPath) {
+		JSONFieldPath path = JSONFieldPath.parse(fieldPath);
+		synchronized (mLock) {
+			if (mIndexes.containsKey(fieldPath)) {
+				return;
+			}
+			JSONFieldIndex index = new JSONFieldIndex(path);
+			index.append(getNewestOriginal());
+			mIndexes.put(fieldPath, index);
+		}
+	}
+
+	/**
+	 * Adds the posted items within a single batch, so the shown items are copied once, the last
+	 * filtering request repeated once and a single notification sent.
+	 */
+	private void applyMutations(@NonNull List<MutationQueue.Mutation<Object>> mutations) {
+		beginBatch();
+		try {
+			for (MutationQueue.Mutation<Object> mutation : mutations) {
+				if (mutation.op == MutationQueue.Mutation.ADD) {
+					add(mutation.item);
+				} else {
+					//noinspection ConstantConditions
+					for (Object item : mutation.items) {
+						add(item);
+					}
+				}
+			}
+		} finally {
+			commitBatch();
+		}
+	}
+
+	/**
+	 * Indexes the items appended to the original items since the indexes were last updated. Must
+	 * be invoked while holding {@link #mLock}.
+	 */
+	private void appendToIndexes() {
+		if (mIsIndexStale) {
+			return;    //Rebuilt in full once the batch commits
+		}
+		JSONArray original = getNewestOriginal();
+		for (JSONFieldIndex index : mIndexes.values()) {
+			index.append(original);
+		}
+	}
+
+	/**
+	 * <p>Begins a batch of changes. Until the matching {@link #commitBatch()}, changes made to the
+	 * adapter neither repeat the last filtering request nor notify. Instead the filter is repeated
+	 * once and a single notification is sent when the batch commits. Index
+	 * maintenance which can't be done incrementally is likewise deferred and done once.</p>
+	 *
+	 * <p>Items added to the items shown are added to a single private copy of them, which is only
+	 * shown once the batch commits. Any other change made within the batch, or filtering, shows the
+	 * items added so far before it's applied.</p>
+	 *
+	 * <p>Batches may be nested, only committing the outermost batch applies the deferred work.
+	 * Always begin and commit a batch on the same thread, ideally committing within a finally
+	 * block.</p>
+	 */
+	public void beginBatch() {
+		synchronized (mLock) {
+			++mBatchDepth;
+		}
+	}
+
 	/**
 	 * Caches the predefined isFilteredOut methods for later invocation.
 	 */
@@ -416,16 +675,154 @@ public abstract class JSONAdapter extends BaseAdapter implements Filterable {
 	 */
 	public void clear() {
 		synchronized (mLock) {
+			mBatchObjects = null;    //Cleared along with every other item
 			if (mOriginalValues != null) {
-				mOriginalValues = new JSONArray();
+				mOriginalValues = newStorage(new JSONArray());
 			}
-			mObjects = new JSONArray();
+			mObjects = newStorage(new JSONArray());
+			mFilteredPositions = null;
+			++mGeneration;
+			rebuildIndexes();
 		}
 		if (mNotifyOnChange) {
 			notifyDataSetChanged();
 		}
 	}
 
+	/**
+	 * Commits the batch begun by the matching {@link #beginBatch()}. Once the outermost batch
+	 * commits, the items added within it are shown and the indexes are rebuilt if any change left
+	 * them out of date. Then the last filtering request is repeated if any change required it and
+	 * {@link #notifyDataSetChanged()} is invoked if any change would have invoked it.
+	 *
+	 * @throws IllegalStateException If no batch has begun
+	 */
+	public void commitBatch() {
+		boolean isNotifyPending;
+
+		synchronized (mLock) {
+			if (mBatchDepth == 0) {
+				throw new IllegalStateException("No batch has begun");
+			} else if (--mBatchDepth > 0) {
+				return;
+			}
+			publishBatchObjects();
+			if (mIsIndexStale) {
+				refreshIndexes();
+			}
+			if (mIsRefilterPending) {
+				mIsRefilterPending = false;
+				FilterExecutor.refilter(this, mLastConstraint);
+			}
+			isNotifyPending = mIsNotifyPending;
+			mIsNotifyPending = false;
+		}
+		if (isNotifyPending) {
+			notifyDataSetChanged();
+		}
+	}
+
+	/**
+	 * <p>Detects whether the items currently stored within the adapter share a common layout, and
+	 * if so stores them in a more compact form. This is a one time conversion of the current items.
+	 * Unlike {@link #setPrimitiveType(PrimitiveType)}, nothing is remembered once the adapter is
+	 * cleared or reset with a new JSONArray. Two layouts are detected:</p>
+	 *
+	 * <ul><li>Items which are all of the same primitive type, Boolean, Double, Integer or Long, are
+	 * moved into a primitive array.</li> <li>Items which are all JSONObjects with the same set of
+	 * keys are reduced to arrays of values against a single shared table of keys. JSONObjects are
+	 * then only created when an item is retrieved as a whole. Use {@link #optItemField(int,
+	 * String)} to read a single field without creating one.</li></ul>
+	 *
+	 * <p>Once JSONObjects are compacted, a retrieved JSONObject is a new copy every time. Changes
+	 * made directly to it will not persist within the adapter, use {@code update} or {@link
+	 * #setJSONArray(JSONArray)} instead. Likewise, JSONObjects added afterwards are copied.</p>
+	 *
+	 * @return True if the items are now stored in a compact form. False if no common layout was
+	 * found.
+	 */
+	public boolean compact() {
+		synchronized (mLock) {
+			publishBatchObjects();
+			JSONArray original = (mOriginalValues != null) ? mOriginalValues : mObjects;
+			if (original instanceof ShapeJSONArray) {
+				return true;
+			}
+			PrimitiveType type = ColumnJSONArray.detect(original);
+			if (type != null) {
+				if (!(original instanceof ColumnJSONArray)) {
+					if (mOriginalValues != null) {
+						mOriginalValues = ColumnJSONArray.from(mOriginalValues, type);
+					}
+					mObjects = ColumnJSONArray.from(mObjects, type);
+				}
+				return true;
+			}
+			ShapeJSONArray shaped = ShapeJSONArray.compact(original);
+			if (shaped == null) {
+				return false;
+			}
+			if (mOriginalValues != null) {
+				mObjects = shaped.reshape(mObjects);
+				mOriginalValues = shaped;
+			} else {
+				mObjects = shaped;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Gets the items shown to add to, then handed to {@link #publishObjects(JSONArray)}. Outside a
+	 * batch, that's a new copy of {@link #mObjects}. Within a batch, that's the batch's private
+	 * copy, only made on it's first addition. Must be invoked while holding {@link #mLock}.
+	 */
+	@NonNull
+	private JSONArray editObjects() {
+		if (mBatchDepth == 0) {
+			return JSONArrayStore.copyOf(mObjects);
+		} else if (mBatchObjects == null) {
+			mBatchObjects = JSONArrayStore.copyOf(mObjects);
+		}
+		return mBatchObjects;
+	}
+
+	/**
+	 * <p>Writes the adapter's items as UTF-8 encoded JSON text, in the same form as {@link
+	 * JSONArray#toString()}. The items are streamed one at a time, so neither a full copy of the
+	 * items nor their complete text is ever built. The stream is flushed but not closed.</p>
+	 *
+	 * <p>The items are written without holding the adapter's lock, so the adapter is free to change
+	 * meanwhile. The items shown are never modified once published and are written as they are.
+	 * Exporting every item while filtered instead writes a copy of the unfiltered items, which are
+	 * modified in place. The copy only holds references to the items and keeps the storage of the
+	 * original. Either way the JSONObjects and JSONArrays found within the items are shared with
+	 * the adapter and must not be modified meanwhile.</p>
+	 *
+	 * @param stream       Stream to write to
+	 * @param filteredOnly True to only export the items currently shown, false to export every
+	 *                     item regardless of the current filter
+	 *
+	 * @throws IOException If writing to the stream fails
+	 */
+	public void exportTo(@NonNull OutputStream stream, boolean filteredOnly) throws IOException {
+		JSONExport.write(getExportedItems(filteredOnly), stream);
+	}
+
+	/**
+	 * Writes the adapter's items as JSON text. The writer is flushed but not closed. See {@link
+	 * #exportTo(OutputStream, boolean)}.
+	 *
+	 * @param writer       Writer to write to
+	 * @param filteredOnly True to only export the items currently shown, false to export every
+	 *                     item regardless of the current filter
+	 *
+	 * @throws IOException If writing to the writer fails
+	 */
+	public void exportTo(@NonNull Writer writer, boolean filteredOnly) throws IOException {
+		JSONExport.write(getExportedItems(filteredOnly), writer);
+	}
+
 	/**
 	 * @return The Context associated with this adapter.
 	 */
@@ -464,6 +861,57 @@ public abstract class JSONAdapter extends BaseAdapter implements Filterable {
 		return getDropDownView(mInflater, position, convertView, parent);
 	}
 
+	/**
+	 * Counts the items holding each distinct value of an indexed field, straight from the index
+	 * without reading any item. Items hidden by the current filter are also counted. Values are
+	 * grouped the same way {@link JSONFieldFilter#equalTo(String, Object)} compares them, so
+	 * {@code 2} and {@code 2.0} or {@code "Drama"} and {@code "drama"} are counted together, under
+	 * whichever was stored first. Items missing the field, or holding a JSONObject or JSONArray
+	 * within it, are not counted.
+	 *
+	 * @param fieldPath Dot separated path of a field declared through {@link #addIndex(String)}
+	 *
+	 * @return Number of items holding each value of the field.
+	 *
+	 * @throws IllegalArgumentException If the field isn't indexed
+	 */
+	@NonNull
+	public Map<Object, Integer> getFacetCounts(@NonNull String fieldPath) {
+		synchronized (mLock) {
+			JSONFieldIndex index = mIndexes.get(fieldPath);
+			if (index == null) {
+				throw new IllegalArgumentException("No index on field path: " + fieldPath);
+			} else if (mIsIndexStale) {
+				refreshIndexes();
+			}
+			return index.facetCounts();
+		}
+	}
+
+	/**
+	 * @return The declarative filter applied to JSONObjects, or null if none is set.
+	 */
+	@Nullable
+	public JSONFieldFilter getFieldFilter() {
+		synchronized (mLock) {
+			return mFieldFilter;
+		}
+	}
+
+	/**
+	 * @return The items to export, which are never modified afterwards. The unfiltered items are
+	 * modified in place, so those are copied while holding {@link #mLock}.
+	 */
+	@NonNull
+	private JSONArray getExportedItems(boolean filteredOnly) {
+		synchronized (mLock) {
+			if (!filteredOnly && mOriginalValues != null) {
+				return JSONArrayStore.copyOf(mOriginalValues);
+			}
+			return mObjects;
+		}
+	}
+
 	@Override
 	@NonNull
 	public Filter getFilter() {
@@ -489,13 +937,15 @@ public abstract class JSONAdapter extends BaseAdapter implements Filterable {
 	@Override
 	@NonNull
 	public Object getItem(int position) {
-		Object object = mObjects.opt(position);
+		JSONArray objects = mObjects;
+		Object object = objects.opt(position);
 		if (object == null) {
 			//A pain but can't add throws to this overridden method
-			if (position < 0 || position >= mObjects.length()) {
+			if (position < 0 || position >= objects.length()) {
 				throw new IndexOutOfBoundsException();
 			} else {
-				throw new NullPointerException();
+				throw new NullPointerException(
+						"Item at position " + position + " is null or unreadable");
 			}
 		}
 		return object;
@@ -602,6 +1052,32 @@ public abstract class JSONAdapter extends BaseAdapter implements Filterable {
 		return mObjects.getString(position);
 	}
 
+	/**
+	 * @return The unfiltered items including those added within the current batch. Must be invoked
+	 * while holding {@link #mLock}.
+	 */
+	@NonNull
+	private JSONArray getNewestOriginal() {
+		if (mOriginalValues != null) {
+			return mOriginalValues;
+		}
+		return (mBatchObjects != null) ? mBatchObjects : mObjects;
+	}
+
+	/**
+	 * @return The primitive type the adapter's items are currently stored as. Null if the items are
+	 * stored as regular JSON values, which is also the case once an item not matching the primitive
+	 * type has been added.
+	 */
+	@Nullable
+	public PrimitiveType getPrimitiveType() {
+		synchronized (mLock) {
+			JSONArray original = (mOriginalValues != null) ? mOriginalValues : mObjects;
+			return (original instanceof ColumnJSONArray) ? ((ColumnJSONArray) original).getType()
+														 : null;
+		}
+	}
+
 	/**
 	 * @return The original (unfiltered) list of items stored within the Adapter
 	 */
@@ -618,6 +1094,351 @@ public abstract class JSONAdapter extends BaseAdapter implements Filterable {
 		return objects;
 	}
 
+	/**
+	 * Posts the specified item to be added at the end of the adapter. May be called from any thread
+	 * and never blocks. The item is added on the main thread along with every other posted item.
+	 *
+	 * @param item The item to add at the end of the adapter.
+	 */
+	public void postAdd(@Nullable Object item) {
+		mPending.post(new MutationQueue.Mutation<>(MutationQueue.Mutation.ADD, item, null, -1, -1));
+	}
+
+	/**
+	 * Posts the specified Collection to be added at the end of the adapter. May be called from any
+	 * thread and never blocks. The items are added on the main thread along with every other posted
+	 * item.
+	 *
+	 * @param items The Collection to add at the end of the adapter. Copied before this returns.
+	 */
+	public void postAddAll(@NonNull Collection<?> items) {
+		mPending.post(new MutationQueue.Mutation<Object>(MutationQueue.Mutation.ADD_ALL, null,
+														 new ArrayList<>(items), -1, -1));
+	}
+
+	/**
+	 * Shows the items added within the current batch, if any. Must be invoked while holding {@link
+	 * #mLock}, before any change other than an addition.
+	 */
+	private void publishBatchObjects() {
+		if (mBatchObjects != null) {
+			mObjects = mBatchObjects;
+			mBatchObjects = null;
+		}
+	}
+
+	/**
+	 * Shows the items added to, or holds them as the batch's private copy until the outermost
+	 * batch commits. Must be invoked while holding {@link #mLock}.
+	 */
+	private void publishObjects(@NonNull JSONArray objects) {
+		if (mBatchDepth == 0) {
+			mObjects = objects;
+		}
+	}
+
+	/**
+	 * Rebuilds every index over the original items, or defers it until the current batch commits.
+	 * Must be invoked while holding {@link #mLock}.
+	 */
+	private void rebuildIndexes() {
+		if (mBatchDepth > 0) {
+			mIsIndexStale = true;
+		} else {
+			refreshIndexes();
+		}
+	}
+
+	/**
+	 * Repeats the last filtering request, or defers it until the current batch commits. Must be
+	 * invoked while holding {@link #mLock}.
+	 */
+	private void refilter() {
+		if (mBatchDepth > 0) {
+			mIsRefilterPending = true;
+		} else {
+			FilterExecutor.refilter(this, mLastConstraint);
+		}
+	}
+
+	/**
+	 * Rebuilds every index over the original items right away. Must be invoked while holding
+	 * {@link #mLock}.
+	 */
+	private void refreshIndexes() {
+		JSONArray original = getNewestOriginal();
+		for (JSONFieldIndex index : mIndexes.values()) {
+			index.rebuild(original);
+		}
+		mIsIndexStale = false;
+	}
+
+	/**
+	 * Removes the item at the specified position in the adapter.
+	 *
+	 * @param position The position of the item to remove
+	 */
+	public void remove(int position) {
+		removeAll(position);
+	}
+
+	/**
+	 * Removes the items at each of the specified positions in the adapter, in a single pass over
+	 * the adapter's items. The positions may be given in any order.
+	 *
+	 * @param positions The positions of the items to remove
+	 */
+	public void removeAll(@NonNull int... positions) {
+		boolean isModified;
+		synchronized (mLock) {
+			publishBatchObjects();
+			int shown = mObjects.length();
+			JSONArray original = (mOriginalValues != null) ? mOriginalValues : mObjects;
+			boolean[] removed = new boolean[original.length()];
+			for (int position : positions) {
+				if (position < 0 || position >= shown) {
+					throw new IndexOutOfBoundsException("Invalid position " + position +
+														", size is " + shown);
+				}
+				removed[toOriginalPosition(position)] = true;
+			}
+			isModified = removeMarked(removed);
+		}
+		if (isModified && mNotifyOnChange) {
+			notifyDataSetChanged();
+		}
+	}
+
+	/**
+	 * Drops the secondary index declared on a field through {@link #addIndex(String)}.
+	 *
+	 * @param fieldPath Dot separated path of the indexed field
+	 *
+	 * @return True if the field was indexed.
+	 */
+	public boolean removeIndex(@NonNull String fieldPath) {
+		synchronized (mLock) {
+			return mIndexes.remove(fieldPath) != null;
+		}
+	}
+
+	/**
+	 * Removes all items from the adapter which satisfy the specified predicate, in a single pass
+	 * over the adapter's items. Items hidden by the current filter are also tested.
+	 *
+	 * @param predicate Determines which items to remove
+	 */
+	public void removeAll(@NonNull JSONPredicate predicate) {
+		removeWhere(predicate, true);
+	}
+
+	/**
+	 * Removes the marked items from the adapter's original items, along with any of them currently
+	 * shown. Must be invoked while holding {@link #mLock}.
+	 *
+	 * @param removed Whether each item of the original items is to be removed
+	 *
+	 * @return True if any item was removed.
+	 */
+	private boolean removeMarked(@NonNull boolean[] removed) {
+		JSONArray original = (mOriginalValues != null) ? mOriginalValues : mObjects;
+		int length = original.length();
+		int[] kept = new int[length];
+		int[] newPositions = new int[length];
+		int count = 0;
+		for (int index = 0; index < length; ++index) {
+			if (!removed[index]) {
+				newPositions[index] = count;
+				kept[count++] = index;
+			}
+		}
+		if (count == length) {
+			return false;
+		}
+		if (mBatchDepth > 0) {
+			mIsIndexStale = true;
+		} else {
+			for (JSONFieldIndex index : mIndexes.values()) {
+				index.remove(removed, length - count);
+			}
+		}
+
+		JSONArray remaining = JSONArrayStore.select(original, kept, count);
+		if (mOriginalValues != null) {
+			int shown = mObjects.length();
+			int[] positions = new int[shown];
+			count = 0;
+			for (int index = 0; index < shown; ++index) {
+				int position = toOriginalPosition(index);
+				if (!removed[position]) {
+					kept[count] = index;
+					positions[count++] = newPositions[position];
+				}
+			}
+			mOriginalValues = remaining;
+			mObjects = JSONArrayStore.select(mObjects, kept, count);
+			mFilteredPositions = Arrays.copyOf(positions, count);
+		} else {
+			mObjects = remaining;
+		}
+		++mGeneration;
+		return true;
+	}
+
+	private void removeWhere(@NonNull JSONPredicate predicate, boolean outcome) {
+		boolean isModified;
+		synchronized (mLock) {
+			publishBatchObjects();
+			JSONArray original = (mOriginalValues != null) ? mOriginalValues : mObjects;
+			boolean[] removed = new boolean[original.length()];
+			for (int index = 0; index < removed.length; ++index) {
+				Object value = JSONArrayStore.scan(original, index);
+				removed[index] = (value != null) ? predicate.apply(value) == outcome : !outcome;
+			}
+			isModified = removeMarked(removed);
+		}
+		if (isModified && mNotifyOnChange) {
+			notifyDataSetChanged();
+		}
+	}
+
+	/**
+	 * Restores the items saved by {@link #saveSnapshot(File)}, caching up to 64 decoded items. See
+	 * {@link #restoreSnapshot(File, int)}.
+	 *
+	 * @param file File the snapshot was saved to
+	 *
+	 * @throws IOException If the file could not be mapped or doesn't hold a snapshot
+	 */
+	public void restoreSnapshot(@NonNull File file) throws IOException {
+		restoreSnapshot(file, LazyJSONArray.DEFAULT_CACHE_SIZE);
+	}
+
+	/**
+	 * <p>Replaces the adapter's items with those saved by {@link #saveSnapshot(File)}. The file is
+	 * memory mapped and only it's header is read up front, each item is decoded once it's read.
+	 * Restoring therefore takes a fraction of the time needed to parse the same items as JSON
+	 * text. The file must not be modified afterwards.</p>
+	 *
+	 * <p>If the items were filtered when saved, the same items are shown again without filtering,
+	 * and the saved constraint becomes the last filtering request. The adapter's {@code
+	 * isFilteredOut} methods and field filter are expected to be those in use when the snapshot
+	 * was saved.</p>
+	 *
+	 * @param file      File the snapshot was saved to
+	 * @param cacheSize Maximum number of decoded items to keep in memory. Must be positive.
+	 *
+	 * @throws IOException If the file could not be mapped or doesn't hold a snapshot
+	 */
+	public void restoreSnapshot(@NonNull File file, int cacheSize) throws IOException {
+		JSONSnapshot snapshot;
+		FileInputStream stream = new FileInputStream(file);
+		try {
+			FileChannel channel = stream.getChannel();
+			long size = channel.size();
+			if (size > Integer.MAX_VALUE) {
+				throw new IOException("File too large to map: " + size + " bytes");
+			}
+			snapshot = JSONSnapshot.read(channel.map(FileChannel.MapMode.READ_ONLY, 0, size),
+										 cacheSize);
+		} finally {
+			stream.close();
+		}
+
+		synchronized (mLock) {
+			mBatchObjects = null;    //Replaced along with every other item
+			JSONArray values = snapshot.getValues();
+			if (mPrimitiveType != null) {
+				values = newStorage(values);
+			}
+			int[] positions = snapshot.getPositions();
+			if (positions != null) {
+				mOriginalValues = values;
+				mObjects = JSONArrayStore.select(values, positions, positions.length);
+			} else {
+				mOriginalValues = null;
+				mObjects = values;
+			}
+			mFilteredPositions = positions;
+			mLastConstraint = snapshot.getConstraint();
+			++mGeneration;
+			Filter filter = getFilter();
+			if (filter instanceof PooledFilter) {
+				((PooledFilter) filter).reset(mLastConstraint);
+			}
+			rebuildIndexes();
+		}
+		if (mNotifyOnChange) {
+			notifyDataSetChanged();
+		}
+	}
+
+	/**
+	 * Removes all items from the adapter which do not satisfy the specified predicate, in a single
+	 * pass over the adapter's items. Items hidden by the current filter are also tested.
+	 *
+	 * @param predicate Determines which items to retain
+	 */
+	public void retainAll(@NonNull JSONPredicate predicate) {
+		removeWhere(predicate, false);
+	}
+
+	/**
+	 * Saves every item of the adapter to a file in a compact binary form, to be restored later by
+	 * {@link #restoreSnapshot(File)}. Strings are stored once however often they occur, and
+	 * numbers are stored in binary. The last filtering request and the items it shows are saved
+	 * along with the items. The items are written without holding the adapter's lock, while
+	 * filtered a copy of the unfiltered items is written. See {@link #exportTo(OutputStream,
+	 * boolean)}.
+	 *
+	 * @param file File to save to. Replaced if it already exists.
+	 *
+	 * @throws IOException If writing to the file fails
+	 */
+	public void saveSnapshot(@NonNull File file) throws IOException {
+		JSONArray values;
+		int[] positions = null;
+		CharSequence constraint;
+		synchronized (mLock) {
+			constraint = mLastConstraint;
+			if (mOriginalValues != null) {    //Modified in place, so copied under the lock
+				positions = new int[mObjects.length()];
+				for (int index = 0; index < positions.length; ++index) {
+					positions[index] = toOriginalPosition(index);
+				}
+				values = JSONArrayStore.copyOf(mOriginalValues);
+			} else {
+				values = mObjects;
+			}
+		}
+		OutputStream stream = new BufferedOutputStream(new FileOutputStream(file));
+		try {
+			JSONSnapshot.write(values, positions, constraint, stream);
+		} finally {
+			stream.close();
+		}
+	}
+
+	/**
+	 * <p>Sets a declarative filter for the JSONObjects stored within the adapter. While set, the
+	 * field filter alone decides whether a JSONObject passes, the {@code isFilteredOut} methods are
+	 * not invoked for it. Any other items, such as Strings or Integers, continue to be handled by
+	 * the {@code isFilteredOut} methods.</p>
+	 *
+	 * <p>A field filter is applied even while the filter's constraint is empty. Conditions of the
+	 * field filter which compare against the constraint are then always satisfied, while any others
+	 * still apply. The last filtering request is repeated immediately to reflect the change.</p>
+	 *
+	 * @param filter Filter to apply to JSONObjects. Null to return to using the {@code
+	 *               isFilteredOut} methods.
+	 */
+	public void setFieldFilter(@Nullable JSONFieldFilter filter) {
+		synchronized (mLock) {
+			mFieldFilter = filter;
+			refilter();
+		}
+	}
+
 	/**
 	 * Resets the adapter to store a new JSONArray of items. Convenient way of calling {@link
 	 * #clear()}, then {@link #addAll(org.json.JSONArray)} without having to worry about an extra
@@ -628,12 +1449,17 @@ public abstract class JSONAdapter extends BaseAdapter implements Filterable {
 	 */
 	public void setJSONArray(@NonNull JSONArray items) {
 		synchronized (mLock) {
+			mBatchObjects = null;    //Replaced along with every other item
 			if (mOriginalValues != null) {
-				mOriginalValues = generateCopy(items);
-				getFilter().filter(mLastConstraint);
+				mOriginalValues = newStorage(items);
+				mObjects = JSONArrayStore.copyOf(mOriginalValues);    //Shown until filtered
+				refilter();
 			} else {
-				mObjects = generateCopy(items);
+				mObjects = newStorage(items);
 			}
+			mFilteredPositions = null;
+			++mGeneration;
+			rebuildIndexes();
 		}
 		if (mNotifyOnChange) {
 			notifyDataSetChanged();
@@ -669,15 +1495,170 @@ public abstract class JSONAdapter extends BaseAdapter implements Filterable {
 		return this.getView(mInflater, position, convertView, parent);
 	}
 
+	/**
+	 * Creates a new {@code JSONArray} with values from another, stored according to the declared
+	 * {@link #mPrimitiveType}.
+	 */
+	@NonNull
+	private JSONArray newStorage(@NonNull JSONArray items) {
+		if (mPrimitiveType != null) {
+			return ColumnJSONArray.from(items, mPrimitiveType);
+		}
+		return generateCopy(items);
+	}
+
 	private void init(@NonNull Context context, @NonNull JSONArray objects) {
 		mInflater = LayoutInflater.from(context);
 		mContext = context;
 		mObjects = objects;
 		mFilterMethods = new HashMap<>();
+		mIndexes = new HashMap<>();
 		cacheKnownFilteredMethods();
 		cacheSubclassFilteredMethods();
 	}
 
+	/**
+	 * Inserts the specified item at the specified position in the adapter. May not be NaN or
+	 * infinity which will cause the adapter to be in an inconsistent state. Will repeat the last
+	 * filtering request if invoked while filtered results are being displayed.
+	 *
+	 * @param position The position at which the item must be inserted.
+	 * @param item     The item to insert into the adapter.
+	 */
+	public void insert(int position, @Nullable Object item) {
+		insertAll(position, new JSONArray().put(item));
+	}
+
+	/**
+	 * Inserts the specified items at the specified position in the adapter, in a single pass over
+	 * the adapter's items. May not contain NaNs or infinities which will cause the adapter to be in
+	 * an inconsistent state. While filtered results are being displayed, the items are inserted in
+	 * front of the shown item at position. The last filtering request is then repeated to determine
+	 * whether they should be shown.
+	 *
+	 * @param position The position at which the items must be inserted.
+	 * @param items    The items to insert into the adapter.
+	 */
+	public void insertAll(int position, @NonNull JSONArray items) {
+		synchronized (mLock) {
+			publishBatchObjects();
+			int shown = mObjects.length();
+			if (position < 0 || position > shown) {
+				throw new IndexOutOfBoundsException("Invalid position " + position + ", size is " +
+													shown);
+			}
+			if (mOriginalValues != null) {
+				int originalPosition = (position < shown) ? toOriginalPosition(position)
+														  : mOriginalValues.length();
+				mOriginalValues = JSONArrayStore.splice(mOriginalValues, originalPosition, items);
+				int[] positions = new int[shown];
+				for (int index = 0; index < shown; ++index) {
+					int original = toOriginalPosition(index);
+					positions[index] = (original < originalPosition) ? original
+																	 : original + items.length();
+				}
+				mFilteredPositions = positions;
+				refilter();
+			} else {
+				mObjects = JSONArrayStore.splice(mObjects, position, items);
+			}
+			++mGeneration;
+			rebuildIndexes();
+		}
+		if (mNotifyOnChange) {
+			notifyDataSetChanged();
+		}
+	}
+
+	/**
+	 * @return True if every item is filtered directly through {@link #isFilteredOut(Object,
+	 * CharSequence)}, skipping the lookup of a type specific {@code isFilteredOut} method. Used by
+	 * adapters which only hold a single type of item, such as {@link JSONObjectAdapter}.
+	 */
+	boolean isFilteredDirectly() {
+		return false;
+	}
+
+	/**
+	 * Determines whether the provided constraint filters out the given item. Only invoked for items
+	 * stored as primitives, see {@link #setPrimitiveType(PrimitiveType)}, and only while {@link
+	 * #isFilteredOut(Boolean, CharSequence)} hasn't been overridden. Subclass to provide you're own
+	 * logic without boxing every item. Internally, this method is only ever invoked from a
+	 * background thread.
+	 *
+	 * @param item       The boolean item to compare against the constraint
+	 * @param constraint The constraint used to filter the item
+	 *
+	 * @return True if the item is filtered out by the given constraint. False if the item will
+	 * continue to display in the adapter.
+	 */
+	protected boolean isFilteredOut(boolean item, @NonNull CharSequence constraint) {
+		return !Boolean.toString(item).equalsIgnoreCase(constraint.toString());
+	}
+
+	/**
+	 * Determines whether the provided constraint filters out the given item. Only invoked for items
+	 * stored as primitives, see {@link #setPrimitiveType(PrimitiveType)}, and only while {@link
+	 * #isFilteredOut(Double, CharSequence)} hasn't been overridden. Subclass to provide you're own
+	 * logic without boxing every item. Internally, this method is only ever invoked from a
+	 * background thread.
+	 *
+	 * @param item       The double item to compare against the constraint
+	 * @param constraint The constraint used to filter the item
+	 *
+	 * @return True if the item is filtered out by the given constraint. False if the item will
+	 * continue to display in the adapter.
+	 */
+	protected boolean isFilteredOut(double item, @NonNull CharSequence constraint) {
+		try {
+			return Double.compare(item, Double.parseDouble(constraint.toString())) != 0;
+		} catch (NumberFormatException e) {
+			return true;
+		}
+	}
+
+	/**
+	 * Determines whether the provided constraint filters out the given item. Only invoked for items
+	 * stored as primitives, see {@link #setPrimitiveType(PrimitiveType)}, and only while {@link
+	 * #isFilteredOut(Integer, CharSequence)} hasn't been overridden. Subclass to provide you're own
+	 * logic without boxing every item. Internally, this method is only ever invoked from a
+	 * background thread.
+	 *
+	 * @param item       The int item to compare against the constraint
+	 * @param constraint The constraint used to filter the item
+	 *
+	 * @return True if the item is filtered out by the given constraint. False if the item will
+	 * continue to display in the adapter.
+	 */
+	protected boolean isFilteredOut(int item, @NonNull CharSequence constraint) {
+		try {
+			return item != Integer.parseInt(constraint.toString());
+		} catch (NumberFormatException e) {
+			return true;
+		}
+	}
+
+	/**
+	 * Determines whether the provided constraint filters out the given item. Only invoked for items
+	 * stored as primitives, see {@link #setPrimitiveType(PrimitiveType)}, and only while {@link
+	 * #isFilteredOut(Long, CharSequence)} hasn't been overridden. Subclass to provide you're own
+	 * logic without boxing every item. Internally, this method is only ever invoked from a
+	 * background thread.
+	 *
+	 * @param item       The long item to compare against the constraint
+	 * @param constraint The constraint used to filter the item
+	 *
+	 * @return True if the item is filtered out by the given constraint. False if the item will
+	 * continue to display in the adapter.
+	 */
+	protected boolean isFilteredOut(long item, @NonNull CharSequence constraint) {
+		try {
+			return item != Long.parseLong(constraint.toString());
+		} catch (NumberFormatException e) {
+			return true;
+		}
+	}
+
 	/**
 	 * Determines whether the provided constraint filters out the given item. Subclass to provide
 	 * you're own logic. It's incorrect to modify the adapter or the contents of the item itself.
@@ -794,6 +1775,12 @@ public abstract class JSONAdapter extends BaseAdapter implements Filterable {
 
 	@Override
 	public void notifyDataSetChanged() {
+		synchronized (mLock) {
+			if (mBatchDepth > 0) {
+				mIsNotifyPending = true;    //Sent once the batch commits
+				return;
+			}
+		}
 		super.notifyDataSetChanged();
 		mNotifyOnChange = true;
 	}
@@ -861,6 +1848,26 @@ public abstract class JSONAdapter extends BaseAdapter implements Filterable {
 		return mObjects.optDouble(position, fallback);
 	}
 
+	/**
+	 * Gets a single field of the JSONObject data item associated with the specified position in the
+	 * adapter. Unlike {@code optItemJSONObject(position).opt(name)}, this never creates a
+	 * JSONObject for items stored in compact form. See {@link #compact()}.
+	 *
+	 * @param position Position of the item whose data we want within the adapter's data set.
+	 * @param name     Name of the field to retrieve.
+	 *
+	 * @return The field's value, or null if the item is not a JSONObject or has no such field.
+	 */
+	@Nullable
+	public Object optItemField(int position, @NonNull String name) {
+		JSONArray objects = mObjects;
+		if (objects instanceof ShapeJSONArray) {
+			return ((ShapeJSONArray) objects).optField(position, name);
+		}
+		JSONObject object = objects.optJSONObject(position);
+		return (object != null) ? object.opt(name) : null;
+	}
+
 	/**
 	 * Gets the int data item associated with the specified position in the adapter or null if there
 	 * is no value at position.
@@ -978,6 +1985,122 @@ public abstract class JSONAdapter extends BaseAdapter implements Filterable {
 		mNotifyOnChange = notifyOnChange;
 	}
 
+	/**
+	 * <p>Declares the primitive type of the adapter's items. Items are then stored within a
+	 * primitive array, and read back as that type. For instance an INT adapter returns an Integer
+	 * from {@link #getItem(int)} even if a Long was added. The declared type is kept when the
+	 * adapter is cleared or reset with a new JSONArray.</p>
+	 *
+	 * <p>Items which can't be stored as the declared type without loss, such as a String or a
+	 * fractional Double within an INT adapter, may still be added afterwards. However doing so
+	 * converts the storage back to regular JSON values until the adapter is cleared or reset.</p>
+	 *
+	 * @param type Primitive type to store items as. Null to store items as regular JSON values.
+	 *
+	 * @throws JSONException If any of the current items can't be stored as the given type. The
+	 *                       adapter is left unchanged.
+	 */
+	public void setPrimitiveType(@Nullable PrimitiveType type) throws JSONException {
+		synchronized (mLock) {
+			publishBatchObjects();
+			if (type == null) {
+				if (mOriginalValues != null) {
+					mOriginalValues = generateCopy(mOriginalValues);
+				}
+				mObjects = generateCopy(mObjects);
+			} else {
+				JSONArray original = null;
+				if (mOriginalValues != null) {
+					original = ColumnJSONArray.fromStrict(mOriginalValues, type);
+				}
+				JSONArray objects = ColumnJSONArray.fromStrict(mObjects, type);
+				if (original != null) {
+					mOriginalValues = original;
+				}
+				mObjects = objects;
+			}
+			mPrimitiveType = type;
+		}
+		if (mNotifyOnChange) {
+			notifyDataSetChanged();
+		}
+	}
+
+	/**
+	 * <p>Sorts the content of this adapter by the value of a field within each item. The field is
+	 * addressed by a dot separated path, such as {@code "director.name"}. A segment made only of
+	 * digits indexes into a JSONArray. Each item's sort key is read only once, so sorting is far
+	 * cheaper than comparing JSONObjects with a comparator.</p>
+	 *
+	 * <p>Numbers compare numerically, booleans as false before true, and text by {@link
+	 * String#compareTo(String)}. When the keys are of mixed kinds, numbers come first, then
+	 * booleans, then text. Items missing the field, or which are not JSONObjects, always sort last.
+	 * The sort is stable.</p>
+	 *
+	 * @param fieldPath Dot separated path of the field to sort by
+	 * @param ascending True to sort in ascending order, false for descending
+	 *
+	 * @throws IllegalArgumentException If the path is empty or has an empty segment
+	 */
+	public void sortBy(@NonNull String fieldPath, boolean ascending) {
+		JSONFieldPath path = JSONFieldPath.parse(fieldPath);
+		synchronized (mLock) {
+			publishBatchObjects();
+			if (mOriginalValues != null) {
+				//Sort the original values, then find where each shown item ended up
+				int[] order = JSONSort.order(mOriginalValues, path, ascending);
+				int[] sortedPositions = new int[order.length];
+				for (int index = 0; index < order.length; ++index) {
+					sortedPositions[order[index]] = index;
+				}
+				int[] positions = new int[mObjects.length()];
+				for (int index = 0; index < positions.length; ++index) {
+					positions[index] = sortedPositions[toOriginalPosition(index)];
+				}
+				Arrays.sort(positions);
+				mOriginalValues = JSONArrayStore.select(mOriginalValues, order, order.length);
+				mObjects = JSONArrayStore.select(mOriginalValues, positions, positions.length);
+				mFilteredPositions = positions;
+			} else {
+				mObjects = JSONSort.sort(mObjects, path, ascending);
+			}
+			++mGeneration;
+			rebuildIndexes();
+		}
+		if (mNotifyOnChange) {
+			notifyDataSetChanged();
+		}
+	}
+
+	/**
+	 * Converts a position within {@link #mObjects} to the position of the same item within {@link
+	 * #mOriginalValues}. Must be invoked while holding {@link #mLock}.
+	 */
+	private int toOriginalPosition(int position) {
+		return (mFilteredPositions != null) ? mFilteredPositions[position] : position;
+	}
+
+	/**
+	 * Primitive types the adapter's items can be stored as. See {@link
+	 * #setPrimitiveType(PrimitiveType)}.
+	 */
+	public enum PrimitiveType {
+		/** Items are stored as booleans and read back as Boolean */
+		BOOLEAN(Boolean.class),
+		/** Items are stored as doubles and read back as Double */
+		DOUBLE(Double.class),
+		/** Items are stored as ints and read back as Integer */
+		INT(Integer.class),
+		/** Items are stored as longs and read back as Long */
+		LONG(Long.class);
+
+		final Class<?> boxedClass;
+
+		PrimitiveType(@NonNull Class<?> boxedClass) {
+			this.boxedClass = boxedClass;
+		}
+	}
+
 	/**
 	 * <p>A JSONArray filter constrains the content of the adapter. Whether an item is constrained
 	 * or not is delegated to subclasses through the default {@link JSONAdapter#isFilteredOut(Object,
@@ -991,47 +2114,192 @@ public abstract class JSONAdapter extends BaseAdapter implements Filterable {
 	 * has defined an {@code isFilteredOut(Foo, CharSequence)}} method, then that  will be invoked
 	 * instead of the default {@link JSONAdapter#isFilteredOut(Object, CharSequence)}.</p>
 	 */
-	private class JSONArrayFilter extends Filter {
+	private class JSONArrayFilter extends PooledFilter {
 		@Override
-		protected FilterResults performFiltering(CharSequence constraint) {
+		protected FilterResults performPooledFiltering(CharSequence constraint) {
 			FilterResults results = new FilterResults();
 			final JSONArray values;
+			final JSONFieldFilter fieldFilter;
+			final int generation;
+			int[] candidates = null;
 
 			synchronized (mLock) {
-				if (TextUtils.isEmpty(constraint)) {    //Clearing out filtered results
+				publishBatchObjects();
+				fieldFilter = mFieldFilter;
+				generation = mGeneration;
+				if (TextUtils.isEmpty(constraint) && fieldFilter == null) {    //Clearing out
 					if (mOriginalValues != null) {
-						mObjects = generateCopy(mOriginalValues);
+						mObjects = JSONArrayStore.copyOf(mOriginalValues);
 						mOriginalValues = null;
+						mFilteredPositions = null;
 					}
-					results.values = mObjects;
+					results.values = new FilteredValues(mObjects, null, generation);
 					results.count = mObjects.length();
 					return results;
 				} else {    //Ready for filtering
 					if (mOriginalValues == null) {
-						mOriginalValues = generateCopy(mObjects);
+						mOriginalValues = JSONArrayStore.copyOf(mObjects);
 					}
-					values = generateCopy(mOriginalValues);
+					values = JSONArrayStore.copyOf(mOriginalValues);
+					if (fieldFilter != null) {
+						candidates = findCandidates(fieldFilter, constraint);
+					}
+				}
+			}
+
+			//Only track the positions of the items passing the filter. The new values are then
+			//selected from those, which keeps the original storage of the data intact.
+			final int[] positions = new int[values.length()];
+			int count;
+			if (isPrimitiveFilterable(values)) {
+				if (TextUtils.isEmpty(constraint)) {    //Field filter only, primitives all pass
+					for (count = 0; count < positions.length; ++count) {
+						positions[count] = count;
+					}
+				} else {
+					count = filterPrimitives((ColumnJSONArray) values, constraint, positions);
+				}
+			} else {
+				count = filterValues(values, constraint, fieldFilter, candidates, positions);
+			}
+
+			final JSONArray newValues = JSONArrayStore.select(values, positions, count);
+			results.values = new FilteredValues(newValues, Arrays.copyOf(positions, count),
+												generation);
+			results.count = newValues.length();
+
+			return results;
+		}
+
+		/**
+		 * Looks up the items which may satisfy the field filter from an index, if the filter has an
+		 * equality condition on an indexed field. Must be invoked while holding {@link #mLock}.
+		 *
+		 * @return Ascending positions of the only original items which may pass, or null if no
+		 * index applies.
+		 */
+		@Nullable
+		private int[] findCandidates(@NonNull JSONFieldFilter fieldFilter,
+									 @Nullable CharSequence constraint) {
+			if (mIsIndexStale) {
+				return null;    //Out of date until the batch commits, so scan everything
+			}
+			for (Map.Entry<String, JSONFieldIndex> entry : mIndexes.entrySet()) {
+				String[] operands = fieldFilter.equalityOperands(entry.getKey(), constraint);
+				if (operands != null) {
+					return entry.getValue().candidates(operands);
 				}
 			}
+			return null;
+		}
 
-			final JSONArray newValues = new JSONArray();
+		/**
+		 * Runs the primitive {@code isFilteredOut} methods directly over a column of primitives.
+		 *
+		 * @return Number of passing positions written to the positions array.
+		 */
+		private int filterPrimitives(@NonNull ColumnJSONArray values,
+									 @NonNull CharSequence constraint, @NonNull int[] positions) {
+			int count = 0;
+			int length = values.length();
+			//noinspection ConstantConditions
+			switch (values.getType()) {
+			case BOOLEAN:
+				for (int index = 0; index < length; ++index) {
+					if (!isFilteredOut(values.booleanAt(index), constraint)) {
+						positions[count++] = index;
+					}
+				}
+				break;
+			case DOUBLE:
+				for (int index = 0; index < length; ++index) {
+					if (!isFilteredOut(values.doubleAt(index), constraint)) {
+						positions[count++] = index;
+					}
+				}
+				break;
+			case INT:
+				for (int index = 0; index < length; ++index) {
+					if (!isFilteredOut(values.intAt(index), constraint)) {
+						positions[count++] = index;
+					}
+				}
+				break;
+			case LONG:
+				for (int index = 0; index < length; ++index) {
+					if (!isFilteredOut(values.longAt(index), constraint)) {
+						positions[count++] = index;
+					}
+				}
+				break;
+			}
+			return count;
+		}
+
+		/**
+		 * Evaluates JSONObjects against the field filter, if any, and invokes the best matching
+		 * {@code isFilteredOut} method for every other value.
+		 *
+		 * @param candidates Ascending positions of the only values which may pass, or null to
+		 *                   evaluate every value
+		 *
+		 * @return Number of passing positions written to the positions array.
+		 */
+		private int filterValues(@NonNull JSONArray values, @Nullable CharSequence constraint,
+								 @Nullable JSONFieldFilter fieldFilter, @Nullable int[] candidates,
+								 @NonNull int[] positions) {
+			JSONFieldFilter.Matcher matcher = null;
+			if (fieldFilter != null) {
+				matcher = fieldFilter.newMatcher(values, constraint);
+			}
+			boolean hasConstraint = !TextUtils.isEmpty(constraint);
+			boolean isDirect = isFilteredDirectly();
+
+			int count = 0;
 			Object[] varargs = new Object[2];
 			varargs[1] = constraint;
-			for (int index = 0; index < values.length(); ++index) {
-				Object value = values.opt(index);
+			int length = (candidates != null) ? candidates.length : values.length();
+			for (int candidate = 0; candidate < length; ++candidate) {
+				int index = (candidates != null) ? candidates[candidate] : candidate;
+				if (matcher != null && matcher.isCompactObject(index)) {
+					if (matcher.matches(index)) {
+						positions[count++] = index;
+					}
+					continue;
+				}
+				Object value = JSONArrayStore.scan(values, index);
+				if (value == null) {
+					continue;    //Null or unreadable element, can't be matched against anything
+				}
+				if (matcher != null && value instanceof JSONObject) {
+					if (matcher.matches((JSONObject) value)) {
+						positions[count++] = index;
+					}
+					continue;
+				}
+				if (!hasConstraint) {
+					positions[count++] = index;    //Field filter only, which ignores this value
+					continue;
+				}
+				if (isDirect) {
+					if (!isFilteredOut(value, constraint)) {
+						positions[count++] = index;
+					}
+					continue;
+				}
 				Method m = mFilterMethods.get(value.getClass().getName());
 				if (m != null) {
 					varargs[0] = value;
 					try {
 						boolean result = (boolean) m.invoke(JSONAdapter.this, varargs);
 						if (!result) {
-							newValues.put(value);
+							positions[count++] = index;
 						}
 					} catch (IllegalAccessException e) {
 						Log.w(m.getName(),
 							  "Method not accessible. Using `isFilteredOut(Object)` instead");
 						if (!isFilteredOut(value, constraint)) {
-							newValues.put(value);
+							positions[count++] = index;
 						}
 					} catch (InvocationTargetException e) {
 						Log.w(m.getName(), "Exception thrown by method. Gracefully skipping " +
@@ -1040,23 +2308,42 @@ public abstract class JSONAdapter extends BaseAdapter implements Filterable {
 				} else {
 					Log.v("No method defined for", value.getClass().getName());
 					if (!isFilteredOut(value, constraint)) {
-						newValues.put(value);
+						positions[count++] = index;
 					}
 				}
 			}
+			return count;
+		}
 
-			results.values = newValues;
-			results.count = newValues.length();
-
-			return results;
+		/**
+		 * Primitives can only be filtered directly when the boxed {@code isFilteredOut} method for
+		 * their type is still the default one. Otherwise the subclass expects them to be boxed.
+		 */
+		private boolean isPrimitiveFilterable(@NonNull JSONArray values) {
+			if (!(values instanceof ColumnJSONArray)) {
+				return false;
+			}
+			PrimitiveType type = ((ColumnJSONArray) values).getType();
+			if (type == null) {
+				return false;
+			}
+			Method m = mFilterMethods.get(type.boxedClass.getName());
+			return m == null || m.getDeclaringClass().equals(JSONAdapter.class);
 		}
 
 		@SuppressWarnings("unchecked")
 		@Override
-		protected void publishResults(CharSequence constraint, FilterResults results) {
+		protected void publishPooledResults(CharSequence constraint, FilterResults results) {
 			mLastConstraint = constraint;
+			FilteredValues filtered = (FilteredValues) results.values;
 			synchronized (mLock) {
-				mObjects = (JSONArray) results.values;
+				if (filtered.generation != mGeneration) {
+					//Items were rearranged since filtering began, so the results are out of date
+					refilter();
+					return;
+				}
+				mObjects = filtered.objects;
+				mFilteredPositions = filtered.positions;
 			}
 			if (results.count > 0) {
 				notifyDataSetChanged();
@@ -1065,4 +2352,21 @@ public abstract class JSONAdapter extends BaseAdapter implements Filterable {
 			}
 		}
 	}
-}
\ No newline at end of file
+
+	/**
+	 * The outcome of a filtering operation, passed from the background thread to be published.
+	 */
+	private static class FilteredValues {
+		final JSONArray objects;
+		/** Original position of each filtered item, or null if all items passed */
+		final int[] positions;
+		/** Value of {@link JSONAdapter#mGeneration} when filtering began */
+		final int generation;
+
+		FilteredValues(@NonNull JSONArray objects, @Nullable int[] positions, int generation) {
+			this.objects = objects;
+			this.positions = positions;
+			this.generation = generation;
+		}
+	}
+}
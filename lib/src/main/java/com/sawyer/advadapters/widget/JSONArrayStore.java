@@ -0,0 +1,302 @@
+/*
+ * Copyright 2014 Jay Soyer
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sawyer.advadapters.widget;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.json.JSONStringer;
+
+/**
+ * <p>Base class for the specialized {@link JSONArray} implementations used internally by the JSON
+ * adapters. A store keeps its elements in some representation other than the list of boxed values
+ * a regular JSONArray uses, while still answering every JSONArray read method. This allows the
+ * adapters to keep delegating to their backing array without caring how it's stored.</p>
+ *
+ * <p>Stores are never handed out by an adapter. JSONArray serializes nested arrays by reading its
+ * private list of values directly, which a store leaves empty. Anything returned to the outside
+ * world must first be converted with {@link #toJSONArray()}.</p>
+ *
+ * <p>For the same reason JSONArray's equals and hashCode can't see a store's elements. A store is
+ * therefore only equal to itself. Comparing elements wouldn't hold either, as a store may parse a
+ * fresh JSONObject each time an element is read.</p>
+ */
+abstract class JSONArrayStore extends JSONArray {
+	/**
+	 * Mirrors the check performed by JSONArray when putting a double.
+	 */
+	static double checkDouble(double value) throws JSONException {
+		if (Double.isInfinite(value) || Double.isNaN(value)) {
+			throw new JSONException("Forbidden numeric value: " + value);
+		}
+		return value;
+	}
+
+	/**
+	 * Creates a copy of the given array which keeps the storage of the original. Specialized stores
+	 * copy themselves, regular JSONArrays are copied element by element. Null elements are copied
+	 * as well, so every position of the copy holds the same element as the original.
+	 */
+	@NonNull
+	static JSONArray copyOf(@NonNull JSONArray array) {
+		if (array instanceof JSONArrayStore) {
+			return ((JSONArrayStore) array).copy();
+		}
+		JSONArray copy = new JSONArray();
+		for (int i = 0; i < array.length(); ++i) {
+			copy.put(array.opt(i));
+		}
+		return copy;
+	}
+
+	/**
+	 * Reads an element for a one-off pass over the whole array, such as filtering. Stores which
+	 * cache their elements may skip the cache so the pass doesn't evict what's currently shown.
+	 */
+	@Nullable
+	static Object scan(@NonNull JSONArray array, int index) {
+		if (array instanceof JSONArrayStore) {
+			return ((JSONArrayStore) array).optUncached(index);
+		}
+		return array.opt(index);
+	}
+
+	/**
+	 * Creates a new array containing the elements found at the given positions, in the order the
+	 * positions are listed. The new array keeps the storage of the original.
+	 *
+	 * @param array     Array to select elements from
+	 * @param positions Positions of the elements to select
+	 * @param count     Number of positions to use from the start of the positions array
+	 */
+	@NonNull
+	static JSONArray select(@NonNull JSONArray array, @NonNull int[] positions, int count) {
+		return select(array, positions, count, null);
+	}
+
+	/**
+	 * Same as {@link #select(JSONArray, int[], int)}, but positions at or past the end of the
+	 * array select from the extra values instead. Position {@code array.length() + i} selects the
+	 * extra value at {@code i}. Allows values to be inserted in the same pass.
+	 *
+	 * @param extra Values following the array's own elements. Null if there are none.
+	 */
+	@NonNull
+	static JSONArray select(@NonNull JSONArray array, @NonNull int[] positions, int count,
+							@Nullable JSONArray extra) {
+		if (array instanceof JSONArrayStore) {
+			return ((JSONArrayStore) array).selectPositions(positions, count, extra);
+		}
+		int length = array.length();
+		JSONArray selection = new JSONArray();
+		for (int i = 0; i < count; ++i) {
+			int position = positions[i];
+			//noinspection ConstantConditions
+			selection.put((position < length) ? array.opt(position) : extra.opt(position - length));
+		}
+		return selection;
+	}
+
+	/**
+	 * Creates a copy of the array with the items inserted at position. The copy keeps the storage
+	 * of the original.
+	 */
+	@NonNull
+	static JSONArray splice(@NonNull JSONArray array, int position, @NonNull JSONArray items) {
+		int length = array.length();
+		int count = items.length();
+		int[] positions = new int[length + count];
+		for (int i = 0; i < positions.length; ++i) {
+			if (i < position) {
+				positions[i] = i;
+			} else if (i < position + count) {
+				positions[i] = length + i - position;    //Selects from the items
+			} else {
+				positions[i] = i - count;
+			}
+		}
+		return select(array, positions, positions.length, items);
+	}
+
+	/**
+	 * Appends the value at the end of the store.
+	 */
+	abstract void append(@Nullable Object value);
+
+	/**
+	 * @return A copy of this store sharing whatever immutable state it can.
+	 */
+	@NonNull
+	abstract JSONArrayStore copy();
+
+	@Override
+	public boolean equals(Object o) {
+		return o == this;
+	}
+
+	@Override
+	public Object get(int index) throws JSONException {
+		if (index < 0 || index >= length()) {
+			throw new JSONException("Index " + index + " out of range [0.." + length() + ")");
+		}
+		Object value = opt(index);
+		if (value == null) {
+			throw new JSONException("Value at " + index + " is null.");
+		}
+		return value;
+	}
+
+	@Override
+	public int hashCode() {
+		return System.identityHashCode(this);
+	}
+
+	@Override
+	public String join(String separator) throws JSONException {
+		return toJSONArray().join(separator);
+	}
+
+	@Override
+	public abstract int length();
+
+	@Override
+	public abstract Object opt(int index);
+
+	/**
+	 * Same as {@link #opt(int)} but without populating any cache the store may keep.
+	 */
+	@Nullable
+	Object optUncached(int index) {
+		return opt(index);
+	}
+
+	@Override
+	public JSONArray put(boolean value) {
+		append(value);
+		return this;
+	}
+
+	@Override
+	public JSONArray put(double value) throws JSONException {
+		append(checkDouble(value));
+		return this;
+	}
+
+	@Override
+	public JSONArray put(int value) {
+		append(value);
+		return this;
+	}
+
+	@Override
+	public JSONArray put(long value) {
+		append(value);
+		return this;
+	}
+
+	@Override
+	public JSONArray put(Object value) {
+		append(value);
+		return this;
+	}
+
+	@Override
+	public JSONArray put(int index, Object value) throws JSONException {
+		if (value instanceof Number) {
+			checkDouble(((Number) value).doubleValue());
+		}
+		while (length() < index) {
+			append(null);
+		}
+		if (index == length()) {
+			append(value);
+		} else {
+			set(index, value);
+		}
+		return this;
+	}
+
+	@Override
+	public Object remove(int index) {
+		if (index < 0 || index >= length()) {
+			return null;
+		}
+		Object value = opt(index);
+		removeAt(index);
+		return value;
+	}
+
+	/**
+	 * Removes the element at an existing position, shifting every following element down by one.
+	 * The adapters rebuild their store with {@link #select(JSONArray, int[], int)} instead when
+	 * removing many elements at once.
+	 */
+	abstract void removeAt(int index);
+
+	/**
+	 * Creates a new store containing the elements found at the given positions.
+	 *
+	 * @see #select(JSONArray, int[], int, JSONArray)
+	 */
+	@NonNull
+	abstract JSONArrayStore selectPositions(@NonNull int[] positions, int count,
+											@Nullable JSONArray extra);
+
+	/**
+	 * Replaces the value at an existing position within the store.
+	 */
+	abstract void set(int index, @Nullable Object value);
+
+	/**
+	 * @return A regular JSONArray holding every element of this store.
+	 */
+	@NonNull
+	JSONArray toJSONArray() {
+		JSONArray array = new JSONArray();
+		for (int i = 0; i < length(); ++i) {
+			array.put(opt(i));
+		}
+		return array;
+	}
+
+	@Override
+	public JSONObject toJSONObject(JSONArray names) throws JSONException {
+		return toJSONArray().toJSONObject(names);
+	}
+
+	@Override
+	public String toString() {
+		try {
+			JSONStringer stringer = new JSONStringer();
+			stringer.array();
+			for (int i = 0; i < length(); ++i) {
+				stringer.value(opt(i));
+			}
+			stringer.endArray();
+			return stringer.toString();
+		} catch (JSONException e) {
+			return null;
+		}
+	}
+
+	@Override
+	public String toString(int indentSpaces) throws JSONException {
+		return toJSONArray().toString(indentSpaces);
+	}
+}
@@ -0,0 +1,164 @@
+/*
+ * Copyright 2014 Jay Soyer
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sawyer.advadapters.widget;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.util.JsonWriter;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.util.Iterator;
+
+/**
+ * Streams the elements of a JSONArray as JSON text through a {@link JsonWriter}, one value at a
+ * time. Neither a copy of the array nor it's full text is ever built. Primitives held by a {@link
+ * ColumnJSONArray} are written without boxing, and the compacted JSONObjects of a {@link
+ * ShapeJSONArray} are written without being materialized.
+ */
+final class JSONExport {
+	private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+	private JSONExport() {
+	}
+
+	/**
+	 * Writes the array as UTF-8 JSON text. The stream is flushed, but not closed.
+	 */
+	static void write(@NonNull JSONArray values, @NonNull OutputStream stream)
+			throws IOException {
+		write(values, new BufferedWriter(new OutputStreamWriter(stream, UTF_8)));
+	}
+
+	/**
+	 * Writes the array as JSON text. The writer is flushed, but not closed.
+	 */
+	static void write(@NonNull JSONArray values, @NonNull Writer writer) throws IOException {
+		JsonWriter json = new JsonWriter(writer);
+		json.beginArray();
+		if (values instanceof ColumnJSONArray && ((ColumnJSONArray) values).getType() != null) {
+			writeColumn((ColumnJSONArray) values, json);
+		} else if (values instanceof ShapeJSONArray) {
+			writeShape((ShapeJSONArray) values, json);
+		} else {
+			for (int i = 0; i < values.length(); ++i) {
+				Object value = JSONArrayStore.scan(values, i);
+				if (value != null) {    //Null or unreadable elements are skipped, as when copying
+					writeValue(value, json);
+				}
+			}
+		}
+		json.endArray();
+		json.flush();
+	}
+
+	private static void writeColumn(@NonNull ColumnJSONArray values, @NonNull JsonWriter json)
+			throws IOException {
+		int length = values.length();
+		//noinspection ConstantConditions
+		switch (values.getType()) {
+		case BOOLEAN:
+			for (int i = 0; i < length; ++i) {
+				json.value(values.booleanAt(i));
+			}
+			break;
+		case DOUBLE:
+			for (int i = 0; i < length; ++i) {
+				writeDouble(values.doubleAt(i), json);
+			}
+			break;
+		case INT:
+			for (int i = 0; i < length; ++i) {
+				json.value(values.intAt(i));
+			}
+			break;
+		case LONG:
+			for (int i = 0; i < length; ++i) {
+				json.value(values.longAt(i));
+			}
+			break;
+		}
+	}
+
+	/**
+	 * Writes integral doubles without a fraction, as {@link JSONObject#numberToString(Number)}
+	 * does.
+	 */
+	private static void writeDouble(double value, @NonNull JsonWriter json) throws IOException {
+		if (value == (long) value) {
+			json.value((long) value);
+		} else {
+			json.value(value);
+		}
+	}
+
+	private static void writeShape(@NonNull ShapeJSONArray values, @NonNull JsonWriter json)
+			throws IOException {
+		String[] keys = values.keys();
+		for (int i = 0; i < values.length(); ++i) {
+			Object[] row = values.rowAt(i);
+			if (row == null) {
+				writeValue(values.opt(i), json);
+				continue;
+			}
+			json.beginObject();
+			for (int slot = 0; slot < keys.length; ++slot) {
+				json.name(keys[slot]);
+				writeValue(row[slot], json);
+			}
+			json.endObject();
+		}
+	}
+
+	private static void writeValue(@Nullable Object value, @NonNull JsonWriter json)
+			throws IOException {
+		if (value == null || value == JSONObject.NULL) {
+			json.nullValue();
+		} else if (value instanceof JSONObject) {
+			JSONObject object = (JSONObject) value;
+			json.beginObject();
+			Iterator<?> keys = object.keys();
+			while (keys.hasNext()) {
+				String key = (String) keys.next();
+				json.name(key);
+				writeValue(object.opt(key), json);
+			}
+			json.endObject();
+		} else if (value instanceof JSONArray) {
+			JSONArray array = (JSONArray) value;
+			json.beginArray();
+			for (int i = 0; i < array.length(); ++i) {
+				writeValue(array.opt(i), json);
+			}
+			json.endArray();
+		} else if (value instanceof Double || value instanceof Float) {
+			writeDouble(((Number) value).doubleValue(), json);
+		} else if (value instanceof Number) {
+			json.value((Number) value);
+		} else if (value instanceof Boolean) {
+			json.value((Boolean) value);
+		} else {
+			json.value(value.toString());
+		}
+	}
+}
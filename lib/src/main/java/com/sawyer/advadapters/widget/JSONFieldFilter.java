@@ -0,0 +1,619 @@
+/*
+ * Copyright 2014 Jay Soyer
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sawyer.advadapters.widget;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * <p>A declarative filter over the fields of JSONObjects, for use with {@link
+ * JSONAdapter#setFieldFilter(JSONFieldFilter)}. Fields are addressed by dot separated paths, such
+ * as {@code "director.name"}. A segment made only of digits indexes into a JSONArray, so {@code
+ * "genres.0"} reads the first genre. Conditions are combined with {@link #and(JSONFieldFilter...)}
+ * and {@link #or(JSONFieldFilter...)}. For example:</p>
+ *
+ * <pre>{@code
+ * JSONFieldFilter filter = JSONFieldFilter.and(
+ *         JSONFieldFilter.or(JSONFieldFilter.contains("title"),
+ *                            JSONFieldFilter.contains("director.name")),
+ *         JSONFieldFilter.between("year", 1990, 1999));
+ * }</pre>
+ *
+ * <p>Conditions created without an operand compare against the constraint passed to the adapter's
+ * filter instead. Such a condition is always satisfied while the constraint is empty. Text
+ * comparisons ignore case. A field which is missing or {@link JSONObject#NULL NULL} never satisfies
+ * a condition.</p>
+ *
+ * <p>The first time a filter is used, every path within it is compiled into a single tree which
+ * shares common prefixes. Each path is then resolved only once per item, without allocating. A
+ * filter is immutable and may be shared between any number of adapters.</p>
+ */
+public final class JSONFieldFilter {
+	private static final int AND = 0;
+	private static final int OR = 1;
+	private static final int CONTAINS = 2;
+	private static final int STARTS_WITH = 3;
+	private static final int EQUAL_TO = 4;
+	private static final int BETWEEN = 5;
+	private static final int IN = 6;
+
+	private final int mOperator;
+	private final JSONFieldPath mPath;
+	/** Text operand, or null to use the filter's constraint */
+	private final String mText;
+	/** Numeric operand of EQUAL_TO, or NaN if the text operand isn't numeric */
+	private final double mNumber;
+	private final double mMin;
+	private final double mMax;
+	/** Text operands of IN */
+	private final String[] mTexts;
+	/** Numeric operands of IN, NaN for each text operand which isn't numeric */
+	private final double[] mNumbers;
+	private final JSONFieldFilter[] mChildren;
+	/** Compiled on first use. Compiling twice is harmless, so no locking is required. */
+	private volatile Compiled mCompiled;
+
+	private JSONFieldFilter(int operator, @Nullable JSONFieldPath path, @Nullable String text,
+							double number, double min, double max, @Nullable String[] texts,
+							@Nullable JSONFieldFilter[] children) {
+		mOperator = operator;
+		mPath = path;
+		mText = text;
+		mNumber = number;
+		mMin = min;
+		mMax = max;
+		mTexts = texts;
+		if (texts != null) {
+			mNumbers = new double[texts.length];
+			for (int i = 0; i < texts.length; ++i) {
+				mNumbers[i] = parseNumber(texts[i]);
+			}
+		} else {
+			mNumbers = null;
+		}
+		mChildren = children;
+	}
+
+	/**
+	 * Creates a filter satisfied only when all of the given filters are.
+	 *
+	 * @param filters Filters to combine. Must not be empty.
+	 */
+	@NonNull
+	public static JSONFieldFilter and(@NonNull JSONFieldFilter... filters) {
+		return combine(AND, filters);
+	}
+
+	/**
+	 * Creates a filter satisfied when the numeric field's value is within the given inclusive
+	 * range.
+	 *
+	 * @param path Dot separated path of the field
+	 * @param min  Smallest value accepted
+	 * @param max  Largest value accepted
+	 */
+	@NonNull
+	public static JSONFieldFilter between(@NonNull String path, double min, double max) {
+		return new JSONFieldFilter(BETWEEN, JSONFieldPath.parse(path), null, Double.NaN, min, max,
+								   null, null);
+	}
+
+	@NonNull
+	private static JSONFieldFilter combine(int operator, @NonNull JSONFieldFilter[] filters) {
+		if (filters.length == 0) {
+			throw new IllegalArgumentException("No filters to combine");
+		}
+		for (JSONFieldFilter filter : filters) {
+			if (filter == null) {
+				throw new NullPointerException("Cannot combine a null filter");
+			}
+		}
+		return new JSONFieldFilter(operator, null, null, Double.NaN, Double.NaN, Double.NaN, null,
+								   filters.clone());
+	}
+
+	/**
+	 * Creates a filter satisfied when the field's text contains the filter's constraint.
+	 *
+	 * @param path Dot separated path of the field
+	 */
+	@NonNull
+	public static JSONFieldFilter contains(@NonNull String path) {
+		return text(CONTAINS, path, null);
+	}
+
+	/**
+	 * Creates a filter satisfied when the field's text contains the given text.
+	 *
+	 * @param path Dot separated path of the field
+	 * @param text Text to look for
+	 */
+	@NonNull
+	public static JSONFieldFilter contains(@NonNull String path, @NonNull String text) {
+		return text(CONTAINS, path, text);
+	}
+
+	/**
+	 * Creates a filter satisfied when the field is equal to the filter's constraint. Numeric
+	 * fields are compared numerically, all others by their text.
+	 *
+	 * @param path Dot separated path of the field
+	 */
+	@NonNull
+	public static JSONFieldFilter equalTo(@NonNull String path) {
+		return text(EQUAL_TO, path, null);
+	}
+
+	/**
+	 * Creates a filter satisfied when the field is equal to the given value. Numeric fields are
+	 * compared numerically, all others by their text.
+	 *
+	 * @param path  Dot separated path of the field
+	 * @param value A String, Number or Boolean to compare with
+	 */
+	@NonNull
+	public static JSONFieldFilter equalTo(@NonNull String path, @NonNull Object value) {
+		return text(EQUAL_TO, path, value.toString());
+	}
+
+	/**
+	 * Creates a filter satisfied when the field is equal to any of the given values. Numeric fields
+	 * are compared numerically, all others by their text.
+	 *
+	 * @param path   Dot separated path of the field
+	 * @param values Strings, Numbers or Booleans to compare with. If empty, the filter is never
+	 *               satisfied.
+	 */
+	@NonNull
+	public static JSONFieldFilter in(@NonNull String path, @NonNull Object... values) {
+		String[] texts = new String[values.length];
+		for (int i = 0; i < values.length; ++i) {
+			texts[i] = values[i].toString();
+		}
+		return new JSONFieldFilter(IN, JSONFieldPath.parse(path), null, Double.NaN, Double.NaN,
+								   Double.NaN, texts, null);
+	}
+
+	private static boolean matchesText(int operator, @NonNull String value,
+									   @NonNull String text) {
+		switch (operator) {
+		case CONTAINS:
+			int last = value.length() - text.length();
+			for (int i = 0; i <= last; ++i) {
+				if (value.regionMatches(true, i, text, 0, text.length())) {
+					return true;
+				}
+			}
+			return false;
+		case STARTS_WITH:
+			return value.regionMatches(true, 0, text, 0, text.length());
+		default:
+			return value.equalsIgnoreCase(text);
+		}
+	}
+
+	/**
+	 * Creates a filter satisfied when any of the given filters is.
+	 *
+	 * @param filters Filters to combine. Must not be empty.
+	 */
+	@NonNull
+	public static JSONFieldFilter or(@NonNull JSONFieldFilter... filters) {
+		return combine(OR, filters);
+	}
+
+	/**
+	 * @return The number held by the text, or NaN if it doesn't hold one.
+	 */
+	private static double parseNumber(@NonNull String text) {
+		try {
+			return Double.parseDouble(text);
+		} catch (NumberFormatException e) {
+			return Double.NaN;
+		}
+	}
+
+	/**
+	 * Creates a filter satisfied when the field's text starts with the filter's constraint.
+	 *
+	 * @param path Dot separated path of the field
+	 */
+	@NonNull
+	public static JSONFieldFilter startsWith(@NonNull String path) {
+		return text(STARTS_WITH, path, null);
+	}
+
+	/**
+	 * Creates a filter satisfied when the field's text starts with the given prefix.
+	 *
+	 * @param path   Dot separated path of the field
+	 * @param prefix Text the field must start with
+	 */
+	@NonNull
+	public static JSONFieldFilter startsWith(@NonNull String path, @NonNull String prefix) {
+		return text(STARTS_WITH, path, prefix);
+	}
+
+	@NonNull
+	private static JSONFieldFilter text(int operator, @NonNull String path, @Nullable String text) {
+		double number = (text != null) ? parseNumber(text) : Double.NaN;
+		return new JSONFieldFilter(operator, JSONFieldPath.parse(path), text, number, Double.NaN,
+								   Double.NaN, null, null);
+	}
+
+	@NonNull
+	private Compiled compile() {
+		Compiled compiled = mCompiled;
+		if (compiled == null) {
+			compiled = new Compiled(this);
+			mCompiled = compiled;
+		}
+		return compiled;
+	}
+
+	/**
+	 * Finds an equality condition on the given path which every item satisfying this filter must
+	 * also satisfy. That is either this filter itself, or a condition directly combined by {@link
+	 * #and(JSONFieldFilter...)}. Such a condition can be resolved from an index on the path, ruling
+	 * out every other item without evaluating it.
+	 *
+	 * @param path       Path of the field
+	 * @param constraint Constraint of the filtering pass
+	 *
+	 * @return The texts the field must be equal to, or null if the filter has no such condition or
+	 * it doesn't rule out any item.
+	 */
+	@Nullable
+	String[] equalityOperands(@NonNull String path, @Nullable CharSequence constraint) {
+		if (mOperator == AND) {
+			for (JSONFieldFilter child : mChildren) {
+				String[] operands = child.equalityOperands(path, constraint);
+				if (operands != null) {
+					return operands;
+				}
+			}
+			return null;
+		} else if (mPath == null || !mPath.toString().equals(path)) {
+			return null;
+		} else if (mOperator == IN) {
+			return mTexts;
+		} else if (mOperator != EQUAL_TO) {
+			return null;
+		} else if (mText != null) {
+			return new String[] {mText};
+		} else if (constraint != null && constraint.length() > 0) {
+			return new String[] {constraint.toString()};
+		}
+		return null;    //Satisfied while the constraint is empty
+	}
+
+	/**
+	 * Prepares a single filtering pass over the given values. The returned matcher must only be
+	 * used by one thread.
+	 *
+	 * @param values     Values being filtered
+	 * @param constraint Constraint of the filtering pass
+	 */
+	@NonNull
+	Matcher newMatcher(@NonNull JSONArray values, @Nullable CharSequence constraint) {
+		return new Matcher(compile(), values, (constraint != null) ? constraint.toString() : "");
+	}
+
+	@Override
+	public String toString() {
+		switch (mOperator) {
+		case AND:
+		case OR:
+			StringBuilder builder = new StringBuilder(mOperator == AND ? "and(" : "or(");
+			for (int i = 0; i < mChildren.length; ++i) {
+				builder.append(i == 0 ? "" : ", ").append(mChildren[i]);
+			}
+			return builder.append(')').toString();
+		case BETWEEN:
+			return "between(" + mPath + ", " + mMin + ", " + mMax + ")";
+		case IN:
+			return "in(" + mPath + ", " + Arrays.toString(mTexts) + ")";
+		case CONTAINS:
+			return "contains(" + mPath + (mText != null ? ", " + mText : "") + ")";
+		case STARTS_WITH:
+			return "startsWith(" + mPath + (mText != null ? ", " + mText : "") + ")";
+		default:
+			return "equalTo(" + mPath + (mText != null ? ", " + mText : "") + ")";
+		}
+	}
+
+	/**
+	 * A filter compiled into a tree of path segments, along with an expression tree whose
+	 * conditions refer to the resolved paths by number.
+	 */
+	private static final class Compiled {
+		final PathNode[] roots;
+		final int pathCount;
+		final Expression expression;
+
+		Compiled(@NonNull JSONFieldFilter filter) {
+			Map<JSONFieldFilter, Integer> pathIds = new IdentityHashMap<>();
+			Map<String, Integer> distinct = new HashMap<>();
+			List<JSONFieldPath> paths = new ArrayList<>();
+			collectPaths(filter, pathIds, distinct, paths);
+			pathCount = paths.size();
+			roots = PathNode.build(paths);
+			expression = toExpression(filter, pathIds);
+		}
+
+		private static void collectPaths(@NonNull JSONFieldFilter filter,
+										 @NonNull Map<JSONFieldFilter, Integer> pathIds,
+										 @NonNull Map<String, Integer> distinct,
+										 @NonNull List<JSONFieldPath> paths) {
+			if (filter.mChildren != null) {
+				for (JSONFieldFilter child : filter.mChildren) {
+					collectPaths(child, pathIds, distinct, paths);
+				}
+				return;
+			}
+			String key = filter.mPath.toString();
+			Integer id = distinct.get(key);
+			if (id == null) {
+				id = paths.size();
+				distinct.put(key, id);
+				paths.add(filter.mPath);
+			}
+			pathIds.put(filter, id);
+		}
+
+		@NonNull
+		private static Expression toExpression(@NonNull JSONFieldFilter filter,
+											   @NonNull Map<JSONFieldFilter, Integer> pathIds) {
+			if (filter.mChildren != null) {
+				Expression[] children = new Expression[filter.mChildren.length];
+				for (int i = 0; i < children.length; ++i) {
+					children[i] = toExpression(filter.mChildren[i], pathIds);
+				}
+				return new Expression(filter, -1, children);
+			}
+			return new Expression(filter, pathIds.get(filter), null);
+		}
+	}
+
+	/**
+	 * A node of the compiled condition tree.
+	 */
+	private static final class Expression {
+		final int operator;
+		final int pathId;
+		final String text;
+		final double number;
+		final double min;
+		final double max;
+		final String[] texts;
+		final double[] numbers;
+		final Expression[] children;
+
+		Expression(@NonNull JSONFieldFilter filter, int pathId, @Nullable Expression[] children) {
+			operator = filter.mOperator;
+			this.pathId = pathId;
+			text = filter.mText;
+			number = filter.mNumber;
+			min = filter.mMin;
+			max = filter.mMax;
+			texts = filter.mTexts;
+			numbers = filter.mNumbers;
+			this.children = children;
+		}
+	}
+
+	/**
+	 * Evaluates a compiled filter against the values of one filtering pass. Holds the scratch
+	 * space used to resolve paths, so it's only allocated once per pass.
+	 */
+	static final class Matcher {
+		private final Compiled mCompiled;
+		private final ShapeJSONArray mShape;
+		/** Slot of each root segment within {@link #mShape} */
+		private final int[] mRootSlots;
+		/** Resolved value of each path for the item currently being evaluated */
+		private final Object[] mResolved;
+		private final String mConstraint;
+		private final double mConstraintNumber;
+
+		private Matcher(@NonNull Compiled compiled, @NonNull JSONArray values,
+						@NonNull String constraint) {
+			mCompiled = compiled;
+			mResolved = new Object[compiled.pathCount];
+			mConstraint = constraint;
+			mConstraintNumber = parseNumber(constraint);
+			if (values instanceof ShapeJSONArray) {
+				mShape = (ShapeJSONArray) values;
+				mRootSlots = new int[compiled.roots.length];
+				for (int i = 0; i < mRootSlots.length; ++i) {
+					mRootSlots[i] = mShape.slotOf(compiled.roots[i].name);
+				}
+			} else {
+				mShape = null;
+				mRootSlots = null;
+			}
+		}
+
+		private boolean evaluate(@NonNull Expression expression) {
+			switch (expression.operator) {
+			case AND:
+				for (Expression child : expression.children) {
+					if (!evaluate(child)) {
+						return false;
+					}
+				}
+				return true;
+			case OR:
+				for (Expression child : expression.children) {
+					if (evaluate(child)) {
+						return true;
+					}
+				}
+				return false;
+			default:
+				return test(expression, mResolved[expression.pathId]);
+			}
+		}
+
+		/**
+		 * @return True if the element at index can be evaluated by {@link #matches(int)} without
+		 * being read as a whole.
+		 */
+		boolean isCompactObject(int index) {
+			return mShape != null && mShape.isJSONObject(index);
+		}
+
+		/**
+		 * Evaluates the element at index of a ShapeJSONArray. Only valid if {@link
+		 * #isCompactObject(int)} is true.
+		 */
+		boolean matches(int index) {
+			PathNode[] roots = mCompiled.roots;
+			for (int i = 0; i < roots.length; ++i) {
+				//noinspection ConstantConditions
+				Object value = mShape.optSlot(index, mRootSlots[i], roots[i].name);
+				roots[i].store(value, mResolved);
+			}
+			return evaluate(mCompiled.expression);
+		}
+
+		boolean matches(@NonNull JSONObject object) {
+			PathNode[] roots = mCompiled.roots;
+			for (PathNode root : roots) {
+				root.store(JSONFieldPath.step(object, root.name, root.index), mResolved);
+			}
+			return evaluate(mCompiled.expression);
+		}
+
+		private boolean test(@NonNull Expression expression, @Nullable Object value) {
+			if (expression.operator == IN) {
+				return testIn(expression, value);
+			}
+			String text = (expression.text != null) ? expression.text : mConstraint;
+			if (expression.operator != BETWEEN && expression.text == null && text.length() == 0) {
+				return true;    //No constraint, so nothing to compare against
+			}
+			if (value == null || value == JSONObject.NULL) {
+				return false;
+			}
+			if (expression.operator == BETWEEN) {
+				if (!(value instanceof Number)) {
+					return false;
+				}
+				double number = ((Number) value).doubleValue();
+				return number >= expression.min && number <= expression.max;
+			}
+			if (expression.operator == EQUAL_TO && value instanceof Number) {
+				double number = (expression.text != null) ? expression.number : mConstraintNumber;
+				return ((Number) value).doubleValue() == number;
+			}
+			String valueText = (value instanceof String) ? (String) value : value.toString();
+			return matchesText(expression.operator, valueText, text);
+		}
+
+		private boolean testIn(@NonNull Expression expression, @Nullable Object value) {
+			if (value == null || value == JSONObject.NULL) {
+				return false;
+			}
+			if (value instanceof Number) {
+				double number = ((Number) value).doubleValue();
+				for (double operand : expression.numbers) {
+					if (number == operand) {
+						return true;
+					}
+				}
+				return false;
+			}
+			String valueText = (value instanceof String) ? (String) value : value.toString();
+			for (String operand : expression.texts) {
+				if (valueText.equalsIgnoreCase(operand)) {
+					return true;
+				}
+			}
+			return false;
+		}
+	}
+
+	/**
+	 * A segment within the tree of compiled paths. Paths sharing a common prefix share the nodes
+	 * of that prefix, so it's only resolved once. Nodes are only modified while compiling.
+	 */
+	private static final class PathNode {
+		final String name;
+		final int index;
+		/** Number of the path ending at this node, or -1 */
+		int pathId = -1;
+		PathNode[] children = new PathNode[0];
+
+		private PathNode(@NonNull String name, int index) {
+			this.name = name;
+			this.index = index;
+		}
+
+		/**
+		 * @return The root nodes of the tree holding every given path. Each path is numbered by
+		 * it's position within the list.
+		 */
+		@NonNull
+		static PathNode[] build(@NonNull List<JSONFieldPath> paths) {
+			PathNode root = new PathNode("", -1);
+			for (int id = 0; id < paths.size(); ++id) {
+				JSONFieldPath path = paths.get(id);
+				PathNode node = root;
+				for (int segment = 0; segment < path.length(); ++segment) {
+					node = node.child(path.name(segment), path.index(segment));
+				}
+				node.pathId = id;
+			}
+			return root.children;
+		}
+
+		@NonNull
+		private PathNode child(@NonNull String name, int index) {
+			for (PathNode child : children) {
+				if (child.name.equals(name)) {
+					return child;
+				}
+			}
+			PathNode child = new PathNode(name, index);
+			children = Arrays.copyOf(children, children.length + 1);
+			children[children.length - 1] = child;
+			return child;
+		}
+
+		/**
+		 * Stores the value resolved for this node, then resolves every path below it.
+		 */
+		void store(@Nullable Object value, @NonNull Object[] resolved) {
+			if (pathId >= 0) {
+				resolved[pathId] = value;
+			}
+			for (PathNode child : children) {
+				child.store(JSONFieldPath.step(value, child.name, child.index), resolved);
+			}
+		}
+	}
+}
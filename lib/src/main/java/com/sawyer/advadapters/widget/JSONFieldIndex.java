@@ -0,0 +1,252 @@
+/*
+ * Copyright 2014 Jay Soyer
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sawyer.advadapters.widget;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * <p>A secondary index over the value of one field within the elements of a JSONArray. Maps each
+ * distinct value to the ascending positions of the elements holding it, so the elements equal to a
+ * value are found without reading any other element.</p>
+ *
+ * <p>Values are keyed the same way {@link JSONFieldFilter#equalTo(String, Object)} compares them.
+ * Numbers are keyed by their numeric value, everything else by it's text ignoring case. Elements
+ * which can't be keyed are listed apart and offered as candidates to every lookup. Those are
+ * elements which aren't JSONObjects, along with fields holding a JSONObject or JSONArray. Elements
+ * missing the field can never be equal to anything, so are left out entirely.</p>
+ */
+final class JSONFieldIndex {
+	private final JSONFieldPath mPath;
+	private final HashMap<Object, Postings> mPostings = new HashMap<>();
+	/** Positions of elements which can't be keyed */
+	private final Postings mUnkeyed = new Postings(null);
+	/** Number of elements indexed */
+	private int mSize;
+
+	JSONFieldIndex(@NonNull JSONFieldPath path) {
+		mPath = path;
+	}
+
+	/**
+	 * @return The key a field's value is indexed by.
+	 */
+	@NonNull
+	private static Object keyOf(@NonNull Object value) {
+		if (value instanceof Number) {
+			double number = ((Number) value).doubleValue();
+			return (number == 0) ? 0d : number;    //Folds -0.0 into 0.0
+		}
+		return textKey((value instanceof String) ? (String) value : value.toString());
+	}
+
+	/**
+	 * @return The text folded such that two texts have equal keys exactly when {@link
+	 * String#equalsIgnoreCase(String)} considers them equal.
+	 */
+	@NonNull
+	private static String textKey(@NonNull String text) {
+		char[] chars = new char[text.length()];
+		for (int i = 0; i < chars.length; ++i) {
+			chars[i] = Character.toLowerCase(Character.toUpperCase(text.charAt(i)));
+		}
+		return new String(chars);
+	}
+
+	/**
+	 * Indexes every element of values past those already indexed. Used after elements have been
+	 * appended to the array this index was built from.
+	 */
+	void append(@NonNull JSONArray values) {
+		int length = values.length();
+		int slot = mPath.slotIn(values);
+		for (int i = mSize; i < length; ++i) {
+			add(values, i, slot);
+		}
+		mSize = length;
+	}
+
+	private void add(@NonNull JSONArray values, int position, int slot) {
+		boolean isObject = (values instanceof ShapeJSONArray) ?
+						   ((ShapeJSONArray) values).isJSONObject(position) :
+						   JSONArrayStore.scan(values, position) instanceof JSONObject;
+		if (!isObject) {
+			mUnkeyed.add(position);
+			return;
+		}
+		Object value = mPath.resolve(values, position, slot);
+		if (value == null || value == JSONObject.NULL) {
+			return;
+		} else if (value instanceof JSONObject || value instanceof JSONArray) {
+			mUnkeyed.add(position);
+			return;
+		}
+		Object key = keyOf(value);
+		Postings postings = mPostings.get(key);
+		if (postings == null) {
+			postings = new Postings(value);
+			mPostings.put(key, postings);
+		}
+		postings.add(position);
+	}
+
+	/**
+	 * Finds every element which may be equal to any of the given texts. Each text matches both
+	 * texts equal to it ignoring case, and numbers equal to the number it holds.
+	 *
+	 * @return Ascending positions of the candidates. Includes every element which can't be keyed.
+	 */
+	@NonNull
+	int[] candidates(@NonNull String[] texts) {
+		Postings[] found = new Postings[texts.length * 2 + 1];
+		int count = 0;
+		int total = mUnkeyed.size;
+		found[count++] = mUnkeyed;
+		for (String text : texts) {
+			Postings textPostings = mPostings.get(textKey(text));
+			Postings numberPostings = null;
+			try {
+				numberPostings = mPostings.get(keyOf(Double.parseDouble(text)));
+			} catch (NumberFormatException e) {
+				//Not a number, so only text can match
+			}
+			for (Postings postings : new Postings[] {textPostings, numberPostings}) {
+				if (postings != null && !contains(found, count, postings)) {
+					found[count++] = postings;
+					total += postings.size;
+				}
+			}
+		}
+
+		int[] positions = new int[total];
+		int offset = 0;
+		for (int i = 0; i < count; ++i) {
+			System.arraycopy(found[i].positions, 0, positions, offset, found[i].size);
+			offset += found[i].size;
+		}
+		if (count > 1) {
+			Arrays.sort(positions);    //The lists are disjoint, so no duplicates to drop
+		}
+		return positions;
+	}
+
+	private static boolean contains(@NonNull Postings[] found, int count,
+									@NonNull Postings postings) {
+		for (int i = 0; i < count; ++i) {
+			if (found[i] == postings) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * @return The number of elements holding each distinct value, keyed by the first value seen
+	 * of each. Elements which can't be keyed or are missing the field are not counted.
+	 */
+	@NonNull
+	Map<Object, Integer> facetCounts() {
+		Map<Object, Integer> counts = new LinkedHashMap<>(mPostings.size() * 2);
+		for (Postings postings : mPostings.values()) {
+			counts.put(postings.value, postings.size);
+		}
+		return counts;
+	}
+
+	@NonNull
+	JSONFieldPath getPath() {
+		return mPath;
+	}
+
+	/**
+	 * Discards the index and builds it anew over every element of values.
+	 */
+	void rebuild(@NonNull JSONArray values) {
+		mPostings.clear();
+		mUnkeyed.size = 0;
+		mSize = 0;
+		append(values);
+	}
+
+	/**
+	 * Updates the index after elements have been removed from the array it was built from. The
+	 * remaining elements keep their relative order.
+	 *
+	 * @param removed Whether each element, by it's position before removal, was removed
+	 * @param count   Number of elements removed
+	 */
+	void remove(@NonNull boolean[] removed, int count) {
+		int[] shifted = new int[mSize];
+		int next = 0;
+		for (int i = 0; i < mSize; ++i) {
+			shifted[i] = next;
+			if (i >= removed.length || !removed[i]) {
+				++next;
+			}
+		}
+		Iterator<Postings> iterator = mPostings.values().iterator();
+		while (iterator.hasNext()) {
+			Postings postings = iterator.next();
+			postings.remove(removed, shifted);
+			if (postings.size == 0) {
+				iterator.remove();
+			}
+		}
+		mUnkeyed.remove(removed, shifted);
+		mSize -= count;
+	}
+
+	/**
+	 * Ascending positions of the elements holding one value.
+	 */
+	private static final class Postings {
+		/** First value seen with this key, reported by {@link #facetCounts()} */
+		final Object value;
+		int[] positions = new int[4];
+		int size;
+
+		Postings(@Nullable Object value) {
+			this.value = value;
+		}
+
+		void add(int position) {
+			if (size == positions.length) {
+				positions = Arrays.copyOf(positions, size + (size >> 1) + 1);
+			}
+			positions[size++] = position;
+		}
+
+		void remove(@NonNull boolean[] removed, @NonNull int[] shifted) {
+			int kept = 0;
+			for (int i = 0; i < size; ++i) {
+				int position = positions[i];
+				if (position >= removed.length || !removed[position]) {
+					positions[kept++] = shifted[position];
+				}
+			}
+			size = kept;
+		}
+	}
+}
@@ -0,0 +1,148 @@
+/*
+ * Copyright 2014 Jay Soyer
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sawyer.advadapters.widget;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+/**
+ * A dot separated path to a field nested within a JSONObject, such as {@code "director.name"}. A
+ * segment made only of digits also indexes into a JSONArray, so {@code "genres.0"} reads the first
+ * genre. Paths are split once when parsed, resolving them afterwards never allocates.
+ */
+final class JSONFieldPath {
+	/** Name of each segment */
+	private final String[] mNames;
+	/** Array index of each segment, or -1 if the segment can't index a JSONArray */
+	private final int[] mIndices;
+	private final String mPath;
+
+	private JSONFieldPath(@NonNull String path, @NonNull String[] names, @NonNull int[] indices) {
+		mPath = path;
+		mNames = names;
+		mIndices = indices;
+	}
+
+	/**
+	 * @throws IllegalArgumentException If the path is empty or has an empty segment
+	 */
+	@NonNull
+	static JSONFieldPath parse(@NonNull String path) {
+		String[] names = path.split("\\.", -1);
+		int[] indices = new int[names.length];
+		for (int i = 0; i < names.length; ++i) {
+			if (names[i].length() == 0) {
+				throw new IllegalArgumentException("Empty segment within field path: " + path);
+			}
+			indices[i] = toIndex(names[i]);
+		}
+		return new JSONFieldPath(path, names, indices);
+	}
+
+	/**
+	 * Reads one step of a path.
+	 *
+	 * @param parent JSONObject or JSONArray to read from
+	 * @param name   Name of the field within a JSONObject
+	 * @param index  Index within a JSONArray, or -1
+	 *
+	 * @return The value read, or null if there is no such value.
+	 */
+	@Nullable
+	static Object step(@Nullable Object parent, @NonNull String name, int index) {
+		if (parent instanceof JSONObject) {
+			return ((JSONObject) parent).opt(name);
+		} else if (parent instanceof JSONArray && index >= 0) {
+			return ((JSONArray) parent).opt(index);
+		}
+		return null;
+	}
+
+	private static int toIndex(@NonNull String segment) {
+		if (segment.length() > 9) {
+			return -1;
+		}
+		for (int i = 0; i < segment.length(); ++i) {
+			char c = segment.charAt(i);
+			if (c < '0' || c > '9') {
+				return -1;
+			}
+		}
+		return Integer.parseInt(segment);
+	}
+
+	int index(int segment) {
+		return mIndices[segment];
+	}
+
+	int length() {
+		return mNames.length;
+	}
+
+	@NonNull
+	String name(int segment) {
+		return mNames[segment];
+	}
+
+	/**
+	 * Resolves the path starting from the given segment.
+	 *
+	 * @param value Value the segment is read from
+	 *
+	 * @return The value found at the end of the path, or null if there is none.
+	 */
+	@Nullable
+	Object resolve(@Nullable Object value, int segment) {
+		for (int i = segment; i < mNames.length && value != null; ++i) {
+			value = step(value, mNames[i], mIndices[i]);
+		}
+		return value;
+	}
+
+	/**
+	 * Resolves the path against the element at index. Elements of a {@link ShapeJSONArray} have
+	 * their first segment read by slot, without materializing the element.
+	 *
+	 * @param slot Slot of the first segment as returned by {@link #slotIn(JSONArray)}
+	 *
+	 * @return The value found at the end of the path, or null if there is none.
+	 */
+	@Nullable
+	Object resolve(@NonNull JSONArray values, int index, int slot) {
+		if (values instanceof ShapeJSONArray) {
+			return resolve(((ShapeJSONArray) values).optSlot(index, slot, mNames[0]), 1);
+		}
+		return resolve(JSONArrayStore.scan(values, index), 0);
+	}
+
+	/**
+	 * @return The slot of the first segment if values is a ShapeJSONArray, otherwise -1.
+	 */
+	int slotIn(@NonNull JSONArray values) {
+		if (values instanceof ShapeJSONArray) {
+			return ((ShapeJSONArray) values).slotOf(mNames[0]);
+		}
+		return -1;
+	}
+
+	@Override
+	public String toString() {
+		return mPath;
+	}
+}
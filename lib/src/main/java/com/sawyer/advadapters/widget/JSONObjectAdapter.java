@@ -0,0 +1,395 @@
+/*
+ * Copyright 2014 Jay Soyer
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sawyer.advadapters.widget;
+
+import android.content.Context;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.json.JSONTokener;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.util.Collection;
+
+/**
+ * <p>A {@link JSONAdapter} specialized for a JSONArray holding only JSONObjects. Filtering goes
+ * straight through a single {@link #isFilteredOut(JSONObject, CharSequence)} for every item, with
+ * no reflection and no lookup of a type specific {@code isFilteredOut} method. Any item which isn't
+ * a JSONObject is filtered out whenever a constraint is applied.</p>
+ *
+ * <p>Fields of the items are read through the {@code optField} methods, such as {@link
+ * #optFieldString(int, String)}. They never throw, falling back to a default value whenever the
+ * item or field is missing or can't be coerced. Items stored in compact form, see {@link
+ * #compact()}, have their fields read without creating a JSONObject.</p>
+ */
+public abstract class JSONObjectAdapter extends JSONAdapter {
+	/**
+	 * Constructor
+	 *
+	 * @param activity Context used for inflating views
+	 */
+	public JSONObjectAdapter(@NonNull Context activity) {
+		super(activity);
+	}
+
+	/**
+	 * Constructor
+	 *
+	 * @param activity Context used for inflating views
+	 * @param readFrom a tokener whose nextValue() method will yield a {@code JSONArray} to be
+	 *                 stored in the adapter.
+	 *
+	 * @throws JSONException if the parse fails or doesn't yield a {@code JSONArray}.
+	 */
+	public JSONObjectAdapter(@NonNull Context activity,
+							 @NonNull JSONTokener readFrom) throws JSONException {
+		super(activity, readFrom);
+	}
+
+	/**
+	 * Constructor
+	 *
+	 * @param activity Context used for inflating views
+	 * @param json     a JSON-encoded string containing an array to be stored in the adapter
+	 *
+	 * @throws JSONException if the parse fails or doesn't yield a {@code JSONArray}.
+	 */
+	public JSONObjectAdapter(@NonNull Context activity, @NonNull String json)
+			throws JSONException {
+		super(activity, json);
+	}
+
+	/**
+	 * Constructor
+	 *
+	 * @param activity Context used for inflating views
+	 * @param array    The JSONObjects to represent within the adapter.
+	 */
+	public JSONObjectAdapter(@NonNull Context activity, @NonNull JSONArray array) {
+		super(activity, array);
+	}
+
+	/**
+	 * Constructor. The elements are indexed but not parsed until read, caching up to 64 parsed
+	 * elements.
+	 *
+	 * @param activity Context used for inflating views
+	 * @param json     UTF-8 encoded bytes of a JSON array to be stored in the adapter. The bytes
+	 *                 are not copied and must not be modified afterwards.
+	 *
+	 * @throws JSONException if the bytes don't hold a {@code JSONArray}.
+	 */
+	public JSONObjectAdapter(@NonNull Context activity, @NonNull byte[] json)
+			throws JSONException {
+		super(activity, json);
+	}
+
+	/**
+	 * Constructor. The elements are indexed but not parsed until read.
+	 *
+	 * @param activity  Context used for inflating views
+	 * @param json      UTF-8 encoded bytes of a JSON array to be stored in the adapter. The bytes
+	 *                  are not copied and must not be modified afterwards.
+	 * @param cacheSize Maximum number of parsed elements to keep in memory. Must be positive.
+	 *
+	 * @throws JSONException if the bytes don't hold a {@code JSONArray}.
+	 */
+	public JSONObjectAdapter(@NonNull Context activity, @NonNull byte[] json, int cacheSize)
+			throws JSONException {
+		super(activity, json, cacheSize);
+	}
+
+	/**
+	 * Constructor. The channel's file is memory mapped, and it's elements are indexed but not
+	 * parsed until read, caching up to 64 parsed elements.
+	 *
+	 * @param activity Context used for inflating views
+	 * @param channel  Channel of a file holding a UTF-8 encoded JSON array to be stored in the
+	 *                 adapter. The channel may be closed afterwards, but the file must not be
+	 *                 modified.
+	 *
+	 * @throws IOException   if the file could not be mapped.
+	 * @throws JSONException if the file doesn't hold a {@code JSONArray}.
+	 */
+	public JSONObjectAdapter(@NonNull Context activity, @NonNull FileChannel channel)
+			throws IOException, JSONException {
+		super(activity, channel);
+	}
+
+	/**
+	 * Constructor. The channel's file is memory mapped, and it's elements are indexed but not
+	 * parsed until read.
+	 *
+	 * @param activity  Context used for inflating views
+	 * @param channel   Channel of a file holding a UTF-8 encoded JSON array to be stored in the
+	 *                  adapter. The channel may be closed afterwards, but the file must not be
+	 *                  modified.
+	 * @param cacheSize Maximum number of parsed elements to keep in memory. Must be positive.
+	 *
+	 * @throws IOException   if the file could not be mapped.
+	 * @throws JSONException if the file doesn't hold a {@code JSONArray}.
+	 */
+	public JSONObjectAdapter(@NonNull Context activity, @NonNull FileChannel channel,
+							 int cacheSize) throws IOException, JSONException {
+		super(activity, channel, cacheSize);
+	}
+
+	/**
+	 * Constructor
+	 *
+	 * @param activity Context used for inflating views
+	 * @param items    The JSONObjects to represent within the adapter.
+	 */
+	public JSONObjectAdapter(@NonNull Context activity, @NonNull Collection<JSONObject> items) {
+		super(activity, items);
+	}
+
+	/**
+	 * @return The number held by the text, or the fallback if it holds no number.
+	 */
+	private static double parseDouble(@NonNull String value, double fallback) {
+		try {
+			return Double.parseDouble(value);
+		} catch (NumberFormatException e) {
+			return fallback;
+		}
+	}
+
+	@Override
+	final boolean isFilteredDirectly() {
+		return true;
+	}
+
+	/**
+	 * Passes JSONObjects on to {@link #isFilteredOut(JSONObject, CharSequence)}. Every other item
+	 * is filtered out.
+	 */
+	@Override
+	protected final boolean isFilteredOut(Object item, @NonNull CharSequence constraint) {
+		return !(item instanceof JSONObject) || isFilteredOut((JSONObject) item, constraint);
+	}
+
+	/**
+	 * Determines whether the provided constraint filters out the given item. Allows easy,
+	 * customized filtering for subclasses. It's incorrect to modify the adapter or the contents of
+	 * the item itself. Any alterations will lead to undefined behavior or crashes. Internally, this
+	 * method is only ever invoked from a background thread.
+	 *
+	 * @param item       The JSONObject item to compare against the constraint
+	 * @param constraint The constraint used to filter the item
+	 *
+	 * @return True if the item is filtered out by the given constraint. False if the item will
+	 * continue to display in the adapter.
+	 */
+	protected abstract boolean isFilteredOut(@NonNull JSONObject item,
+											 @NonNull CharSequence constraint);
+
+	/**
+	 * Gets a boolean field of the item at the specified position, coercing the text "true" or
+	 * "false" if needed.
+	 *
+	 * @param position Position of the item whose data we want within the adapter's data set.
+	 * @param name     Name of the field to retrieve.
+	 *
+	 * @return The field's value, or false if there is no such boolean.
+	 */
+	public boolean optFieldBoolean(int position, @NonNull String name) {
+		return optFieldBoolean(position, name, false);
+	}
+
+	/**
+	 * Gets a boolean field of the item at the specified position, coercing the text "true" or
+	 * "false" if needed.
+	 *
+	 * @param position Position of the item whose data we want within the adapter's data set.
+	 * @param name     Name of the field to retrieve.
+	 * @param fallback Value to return if there is no such boolean.
+	 *
+	 * @return The field's value or otherwise the fallback.
+	 */
+	public boolean optFieldBoolean(int position, @NonNull String name, boolean fallback) {
+		Object value = optItemField(position, name);
+		if (value instanceof Boolean) {
+			return (Boolean) value;
+		} else if (value instanceof String) {
+			if ("true".equalsIgnoreCase((String) value)) {
+				return true;
+			} else if ("false".equalsIgnoreCase((String) value)) {
+				return false;
+			}
+		}
+		return fallback;
+	}
+
+	/**
+	 * Gets a double field of the item at the specified position, coercing numeric text if needed.
+	 *
+	 * @param position Position of the item whose data we want within the adapter's data set.
+	 * @param name     Name of the field to retrieve.
+	 *
+	 * @return The field's value, or NaN if there is no such number.
+	 */
+	public double optFieldDouble(int position, @NonNull String name) {
+		return optFieldDouble(position, name, Double.NaN);
+	}
+
+	/**
+	 * Gets a double field of the item at the specified position, coercing numeric text if needed.
+	 *
+	 * @param position Position of the item whose data we want within the adapter's data set.
+	 * @param name     Name of the field to retrieve.
+	 * @param fallback Value to return if there is no such number.
+	 *
+	 * @return The field's value or otherwise the fallback.
+	 */
+	public double optFieldDouble(int position, @NonNull String name, double fallback) {
+		Object value = optItemField(position, name);
+		if (value instanceof Number) {
+			return ((Number) value).doubleValue();
+		} else if (value instanceof String) {
+			return parseDouble((String) value, fallback);
+		}
+		return fallback;
+	}
+
+	/**
+	 * Gets an int field of the item at the specified position, coercing numeric text if needed.
+	 *
+	 * @param position Position of the item whose data we want within the adapter's data set.
+	 * @param name     Name of the field to retrieve.
+	 *
+	 * @return The field's value, or 0 if there is no such number.
+	 */
+	public int optFieldInt(int position, @NonNull String name) {
+		return optFieldInt(position, name, 0);
+	}
+
+	/**
+	 * Gets an int field of the item at the specified position, coercing numeric text if needed.
+	 *
+	 * @param position Position of the item whose data we want within the adapter's data set.
+	 * @param name     Name of the field to retrieve.
+	 * @param fallback Value to return if there is no such number.
+	 *
+	 * @return The field's value or otherwise the fallback.
+	 */
+	public int optFieldInt(int position, @NonNull String name, int fallback) {
+		Object value = optItemField(position, name);
+		if (value instanceof Number) {
+			return ((Number) value).intValue();
+		} else if (value instanceof String) {
+			return (int) parseDouble((String) value, fallback);
+		}
+		return fallback;
+	}
+
+	/**
+	 * Gets a JSONArray field of the item at the specified position.
+	 *
+	 * @param position Position of the item whose data we want within the adapter's data set.
+	 * @param name     Name of the field to retrieve.
+	 *
+	 * @return The field's value, or null if there is no such JSONArray.
+	 */
+	@Nullable
+	public JSONArray optFieldJSONArray(int position, @NonNull String name) {
+		Object value = optItemField(position, name);
+		return (value instanceof JSONArray) ? (JSONArray) value : null;
+	}
+
+	/**
+	 * Gets a JSONObject field of the item at the specified position.
+	 *
+	 * @param position Position of the item whose data we want within the adapter's data set.
+	 * @param name     Name of the field to retrieve.
+	 *
+	 * @return The field's value, or null if there is no such JSONObject.
+	 */
+	@Nullable
+	public JSONObject optFieldJSONObject(int position, @NonNull String name) {
+		Object value = optItemField(position, name);
+		return (value instanceof JSONObject) ? (JSONObject) value : null;
+	}
+
+	/**
+	 * Gets a long field of the item at the specified position, coercing numeric text if needed.
+	 *
+	 * @param position Position of the item whose data we want within the adapter's data set.
+	 * @param name     Name of the field to retrieve.
+	 *
+	 * @return The field's value, or 0 if there is no such number.
+	 */
+	public long optFieldLong(int position, @NonNull String name) {
+		return optFieldLong(position, name, 0L);
+	}
+
+	/**
+	 * Gets a long field of the item at the specified position, coercing numeric text if needed.
+	 *
+	 * @param position Position of the item whose data we want within the adapter's data set.
+	 * @param name     Name of the field to retrieve.
+	 * @param fallback Value to return if there is no such number.
+	 *
+	 * @return The field's value or otherwise the fallback.
+	 */
+	public long optFieldLong(int position, @NonNull String name, long fallback) {
+		Object value = optItemField(position, name);
+		if (value instanceof Number) {
+			return ((Number) value).longValue();
+		} else if (value instanceof String) {
+			double number = parseDouble((String) value, Double.NaN);
+			return Double.isNaN(number) ? fallback : (long) number;
+		}
+		return fallback;
+	}
+
+	/**
+	 * Gets a field of the item at the specified position as text, converting other values if
+	 * needed.
+	 *
+	 * @param position Position of the item whose data we want within the adapter's data set.
+	 * @param name     Name of the field to retrieve.
+	 *
+	 * @return The field's text, or an empty String if there is no such field.
+	 */
+	@NonNull
+	public String optFieldString(int position, @NonNull String name) {
+		return optFieldString(position, name, "");
+	}
+
+	/**
+	 * Gets a field of the item at the specified position as text, converting other values if
+	 * needed.
+	 *
+	 * @param position Position of the item whose data we want within the adapter's data set.
+	 * @param name     Name of the field to retrieve.
+	 * @param fallback Value to return if there is no such field.
+	 *
+	 * @return The field's text or otherwise the fallback.
+	 */
+	public String optFieldString(int position, @NonNull String name,
+								 @Nullable String fallback) {
+		Object value = optItemField(position, name);
+		if (value instanceof String) {
+			return (String) value;
+		}
+		return (value != null) ? String.valueOf(value) : fallback;
+	}
+}
@@ -0,0 +1,36 @@
+/*
+ * Copyright 2014 Jay Soyer
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sawyer.advadapters.widget;
+
+import android.support.annotation.NonNull;
+
+/**
+ * An interface definition for deciding whether an item stored within a JSON adapter satisfies
+ * some condition. Used by the bulk removal methods of {@link JSONAdapter} and {@link
+ * NFJSONArrayAdapter}.
+ */
+public interface JSONPredicate {
+	/**
+	 * Determines whether the item satisfies this predicate. It's incorrect to modify the adapter or
+	 * the contents of the item itself.
+	 *
+	 * @param item The item to test. Any value a JSONArray can hold, such as a JSONObject, String,
+	 *             Boolean, Number or {@link org.json.JSONObject#NULL NULL}.
+	 *
+	 * @return True if the item satisfies this predicate.
+	 */
+	boolean apply(@NonNull Object item);
+}
@@ -0,0 +1,480 @@
+/*
+ * Copyright 2014 Jay Soyer
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sawyer.advadapters.widget;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+
+/**
+ * <p>A compact binary form of a JSONArray, along with the filter state of the adapter holding it.
+ * Restoring a snapshot only reads it's header. Elements are decoded once they're read through a
+ * {@link LazyJSONArray}, and strings once an element refers to them.</p>
+ *
+ * <p>Every string, whether a key or a value, is stored once within a table of length prefixed UTF-8
+ * strings and referred to by index. Values are written as a one byte tag followed by their data.
+ * Integers and lengths are written as variable length integers, seven bits per byte. The layout
+ * is:</p>
+ *
+ * <pre>
+ * magic        "AJS" followed by the format version
+ * strings      count, then each string's byte length and UTF-8 bytes
+ * constraint   index of the constraint within the strings plus one, or 0 for none
+ * positions    count plus one, then each filtered position. 0 when not filtered.
+ * elements     count, then each element's byte length, then the encoded elements
+ * </pre>
+ *
+ * <p>Values other than those of JSON, such as custom objects, are written as their text.</p>
+ */
+final class JSONSnapshot implements LazyJSONArray.Decoder {
+	private static final byte[] MAGIC = {'A', 'J', 'S', 1};
+	private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+	/** An element which could not be read when the snapshot was written */
+	private static final byte MISSING = 0;
+	private static final byte NULL = 1;
+	private static final byte FALSE = 2;
+	private static final byte TRUE = 3;
+	private static final byte INT = 4;
+	private static final byte LONG = 5;
+	private static final byte DOUBLE = 6;
+	private static final byte STRING = 7;
+	private static final byte OBJECT = 8;
+	private static final byte ARRAY = 9;
+
+	private final ByteBuffer mBuffer;
+	/** Offset of each string's first byte */
+	private final int[] mStringStarts;
+	private final int[] mStringLengths;
+	/** Strings decoded so far. Decoding one twice is harmless, so no locking is required. */
+	private final String[] mStrings;
+	private final String mConstraint;
+	private final int[] mPositions;
+	private final JSONArray mValues;
+
+	private JSONSnapshot(@NonNull ByteBuffer buffer, int cacheSize) throws IOException {
+		mBuffer = buffer;
+		Reader reader = new Reader(buffer, 0, buffer.limit());
+		for (byte b : MAGIC) {
+			if (reader.readByte() != b) {
+				throw new IOException("Not a JSONAdapter snapshot");
+			}
+		}
+
+		int stringCount = reader.readCount();
+		mStringStarts = new int[stringCount];
+		mStringLengths = new int[stringCount];
+		mStrings = new String[stringCount];
+		for (int i = 0; i < stringCount; ++i) {
+			mStringLengths[i] = reader.readCount();
+			mStringStarts[i] = reader.skip(mStringLengths[i]);
+		}
+
+		int constraint = reader.readCount() - 1;
+		mConstraint = (constraint >= 0) ? stringAt(constraint) : null;
+		int positionCount = reader.readCount() - 1;
+		if (positionCount >= 0) {
+			mPositions = new int[positionCount];
+			for (int i = 0; i < positionCount; ++i) {
+				mPositions[i] = reader.readCount();
+			}
+		} else {
+			mPositions = null;
+		}
+
+		int count = reader.readCount();
+		int[] ends = new int[count];
+		for (int i = 0; i < count; ++i) {
+			ends[i] = reader.readCount();
+		}
+		int[] starts = new int[count];
+		int offset = reader.position;
+		for (int i = 0; i < count; ++i) {
+			starts[i] = offset;
+			offset += ends[i];
+			if (offset > buffer.limit() || offset < starts[i]) {
+				throw new IOException("Truncated snapshot");
+			}
+			ends[i] = offset;
+		}
+		if (mPositions != null) {
+			for (int position : mPositions) {
+				if (position >= count) {
+					throw new IOException("Filtered position " + position + " out of range");
+				}
+			}
+		}
+		mValues = LazyJSONArray.from(buffer, starts, ends, this, cacheSize);
+	}
+
+	/**
+	 * Reads the header of a snapshot. The buffer must not be modified afterwards.
+	 *
+	 * @param cacheSize Maximum number of decoded elements to keep in memory
+	 *
+	 * @throws IOException If the buffer doesn't hold a snapshot
+	 */
+	@NonNull
+	static JSONSnapshot read(@NonNull ByteBuffer buffer, int cacheSize) throws IOException {
+		return new JSONSnapshot(buffer, cacheSize);
+	}
+
+	/**
+	 * Writes a snapshot of the given state. Null or unreadable elements are written as missing, so
+	 * positions remain valid.
+	 *
+	 * @param values     Every item of the adapter
+	 * @param positions  Positions within values of the items shown, or null if not filtered
+	 * @param constraint Last constraint the items were filtered by, or null if none
+	 */
+	static void write(@NonNull JSONArray values, @Nullable int[] positions,
+					  @Nullable CharSequence constraint, @NonNull OutputStream stream)
+			throws IOException {
+		Writer elements = new Writer();
+		int length = values.length();
+		int[] lengths = new int[length];
+		for (int i = 0; i < length; ++i) {
+			int start = elements.size;
+			Object value = JSONArrayStore.scan(values, i);
+			if (value != null) {
+				elements.writeValue(value);
+			} else {
+				elements.writeByte(MISSING);
+			}
+			lengths[i] = elements.size - start;
+		}
+		int constraintIndex = (constraint != null) ? elements.intern(constraint.toString()) : -1;
+
+		Writer header = new Writer();
+		for (byte b : MAGIC) {
+			header.writeByte(b);
+		}
+		header.writeCount(elements.strings.size());
+		for (String string : elements.strings) {
+			byte[] bytes = string.getBytes(UTF_8);
+			header.writeCount(bytes.length);
+			header.writeBytes(bytes);
+		}
+		header.writeCount(constraintIndex + 1);
+		if (positions != null) {
+			header.writeCount(positions.length + 1);
+			for (int position : positions) {
+				header.writeCount(position);
+			}
+		} else {
+			header.writeCount(0);
+		}
+		header.writeCount(length);
+		for (int elementLength : lengths) {
+			header.writeCount(elementLength);
+		}
+		stream.write(header.bytes, 0, header.size);
+		stream.write(elements.bytes, 0, elements.size);
+		stream.flush();
+	}
+
+	@NonNull
+	@Override
+	public Object decode(@NonNull ByteBuffer buffer, int start, int end) throws JSONException {
+		Reader reader = new Reader(buffer, start, end);
+		try {
+			if (reader.peekByte() == MISSING) {
+				throw new JSONException("Missing value at byte " + start);
+			}
+			return readValue(reader);
+		} catch (IOException e) {
+			throw new JSONException("Corrupt value at byte " + start + ": " + e.getMessage());
+		}
+	}
+
+	/**
+	 * @return The constraint the items were filtered by, or null if there was none.
+	 */
+	@Nullable
+	String getConstraint() {
+		return mConstraint;
+	}
+
+	/**
+	 * @return Positions within {@link #getValues()} of the items shown, or null if not filtered.
+	 */
+	@Nullable
+	int[] getPositions() {
+		return mPositions;
+	}
+
+	/**
+	 * @return Every item of the snapshot, decoded as read.
+	 */
+	@NonNull
+	JSONArray getValues() {
+		return mValues;
+	}
+
+	@NonNull
+	private Object readValue(@NonNull Reader reader) throws IOException, JSONException {
+		byte tag = reader.readByte();
+		switch (tag) {
+		case NULL:
+			return JSONObject.NULL;
+		case FALSE:
+			return Boolean.FALSE;
+		case TRUE:
+			return Boolean.TRUE;
+		case INT:
+			return (int) reader.readSigned();
+		case LONG:
+			return reader.readSigned();
+		case DOUBLE:
+			return Double.longBitsToDouble(reader.readFixed64());
+		case STRING:
+			return stringAt(reader.readCount());
+		case OBJECT:
+			int fields = reader.readCount();
+			JSONObject object = new JSONObject();
+			for (int i = 0; i < fields; ++i) {
+				String key = stringAt(reader.readCount());
+				object.put(key, readValue(reader));
+			}
+			return object;
+		case ARRAY:
+			int count = reader.readCount();
+			JSONArray array = new JSONArray();
+			for (int i = 0; i < count; ++i) {
+				array.put(readValue(reader));
+			}
+			return array;
+		default:
+			throw new IOException("Unknown tag " + tag);
+		}
+	}
+
+	/**
+	 * @return The string at index within the string table, decoded on first use.
+	 */
+	@NonNull
+	private String stringAt(int index) throws IOException {
+		if (index < 0 || index >= mStrings.length) {
+			throw new IOException("String " + index + " out of range");
+		}
+		String string = mStrings[index];
+		if (string == null) {
+			int start = mStringStarts[index];
+			int length = mStringLengths[index];
+			if (mBuffer.hasArray()) {
+				string = new String(mBuffer.array(), mBuffer.arrayOffset() + start, length, UTF_8);
+			} else {
+				byte[] bytes = new byte[length];
+				ByteBuffer view = mBuffer.duplicate();    //Never move the shared buffer's position
+				view.position(start);
+				view.get(bytes);
+				string = new String(bytes, UTF_8);
+			}
+			mStrings[index] = string;
+		}
+		return string;
+	}
+
+	/**
+	 * Reads from a range of a buffer without moving the buffer's position.
+	 */
+	private static final class Reader {
+		private final ByteBuffer mBuffer;
+		private final int mLimit;
+		int position;
+
+		Reader(@NonNull ByteBuffer buffer, int start, int limit) {
+			mBuffer = buffer;
+			position = start;
+			mLimit = limit;
+		}
+
+		byte peekByte() throws IOException {
+			if (position >= mLimit) {
+				throw new IOException("Truncated snapshot");
+			}
+			return mBuffer.get(position);
+		}
+
+		byte readByte() throws IOException {
+			byte b = peekByte();
+			++position;
+			return b;
+		}
+
+		/**
+		 * Reads a non-negative int written by {@link Writer#writeCount(int)}.
+		 */
+		int readCount() throws IOException {
+			long value = readUnsigned();
+			if (value > Integer.MAX_VALUE) {
+				throw new IOException("Count out of range: " + value);
+			}
+			return (int) value;
+		}
+
+		long readFixed64() throws IOException {
+			if (mLimit - position < 8) {
+				throw new IOException("Truncated snapshot");
+			}
+			long value = mBuffer.getLong(position);
+			position += 8;
+			return value;
+		}
+
+		/**
+		 * Reads a zigzag encoded variable length integer.
+		 */
+		long readSigned() throws IOException {
+			long value = readUnsigned();
+			return (value >>> 1) ^ -(value & 1);
+		}
+
+		private long readUnsigned() throws IOException {
+			long value = 0;
+			for (int shift = 0; shift < 64; shift += 7) {
+				byte b = readByte();
+				value |= (long) (b & 0x7F) << shift;
+				if (b >= 0) {
+					return value;
+				}
+			}
+			throw new IOException("Malformed variable length integer");
+		}
+
+		/**
+		 * Skips over the given number of bytes.
+		 *
+		 * @return The position of the first byte skipped.
+		 */
+		int skip(int count) throws IOException {
+			if (mLimit - position < count) {
+				throw new IOException("Truncated snapshot");
+			}
+			int start = position;
+			position += count;
+			return start;
+		}
+	}
+
+	/**
+	 * A growable byte array values are encoded into, interning every string written.
+	 */
+	private static final class Writer {
+		final ArrayList<String> strings = new ArrayList<>();
+		private final HashMap<String, Integer> mStringIndices = new HashMap<>();
+		byte[] bytes = new byte[1024];
+		int size;
+
+		private void ensureCapacity(int extra) {
+			if (bytes.length - size < extra) {
+				bytes = Arrays.copyOf(bytes, Math.max(size + extra, bytes.length * 2));
+			}
+		}
+
+		int intern(@NonNull String string) {
+			Integer index = mStringIndices.get(string);
+			if (index == null) {
+				index = strings.size();
+				strings.add(string);
+				mStringIndices.put(string, index);
+			}
+			return index;
+		}
+
+		void writeByte(int b) {
+			ensureCapacity(1);
+			bytes[size++] = (byte) b;
+		}
+
+		void writeBytes(@NonNull byte[] values) {
+			ensureCapacity(values.length);
+			System.arraycopy(values, 0, bytes, size, values.length);
+			size += values.length;
+		}
+
+		void writeCount(int value) {
+			writeUnsigned(value);
+		}
+
+		private void writeSigned(long value) {
+			writeUnsigned((value << 1) ^ (value >> 63));
+		}
+
+		private void writeUnsigned(long value) {
+			ensureCapacity(10);
+			while ((value & ~0x7FL) != 0) {
+				bytes[size++] = (byte) ((value & 0x7F) | 0x80);
+				value >>>= 7;
+			}
+			bytes[size++] = (byte) value;
+		}
+
+		void writeValue(@Nullable Object value) {
+			if (value == null || value == JSONObject.NULL) {
+				writeByte(NULL);
+			} else if (value instanceof Boolean) {
+				writeByte((Boolean) value ? TRUE : FALSE);
+			} else if (value instanceof Integer || value instanceof Short ||
+					   value instanceof Byte) {
+				writeByte(INT);
+				writeSigned(((Number) value).intValue());
+			} else if (value instanceof Long) {
+				writeByte(LONG);
+				writeSigned((Long) value);
+			} else if (value instanceof Number) {
+				writeByte(DOUBLE);
+				long bits = Double.doubleToLongBits(((Number) value).doubleValue());
+				ensureCapacity(8);
+				for (int shift = 56; shift >= 0; shift -= 8) {
+					bytes[size++] = (byte) (bits >>> shift);
+				}
+			} else if (value instanceof JSONObject) {
+				JSONObject object = (JSONObject) value;
+				writeByte(OBJECT);
+				writeCount(object.length());
+				Iterator<?> keys = object.keys();
+				while (keys.hasNext()) {
+					String key = (String) keys.next();
+					writeCount(intern(key));
+					writeValue(object.opt(key));
+				}
+			} else if (value instanceof JSONArray) {
+				JSONArray array = (JSONArray) value;
+				writeByte(ARRAY);
+				writeCount(array.length());
+				for (int i = 0; i < array.length(); ++i) {
+					writeValue(array.opt(i));
+				}
+			} else {
+				writeByte(STRING);
+				writeCount(intern(value.toString()));
+			}
+		}
+	}
+}
@@ -0,0 +1,185 @@
+/*
+ * Copyright 2014 Jay Soyer
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sawyer.advadapters.widget;
+
+import android.support.annotation.NonNull;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+/**
+ * <p>Sorts a JSONArray by the value of a field within each of it's elements. Every sort key is read
+ * once up front into a primitive or String array, and the elements are then ordered by an index
+ * merge sort over those keys. Comparing two elements never reads a field nor allocates.</p>
+ *
+ * <p>Keys are grouped by kind, ordered as numbers, booleans, then text. Numbers compare
+ * numerically, booleans as false before true and text by {@link String#compareTo(String)}. Any
+ * other value, such as a JSONObject, compares by it's text. Elements missing the field always sort
+ * last. The sort is stable.</p>
+ */
+final class JSONSort {
+	private static final byte NUMBER = 0;
+	private static final byte BOOLEAN = 1;
+	private static final byte TEXT = 2;
+	private static final byte MISSING = 3;
+
+	private final byte[] mKinds;
+	/** Keys of NUMBER elements when every number is integral, and of every BOOLEAN element */
+	private final long[] mLongs;
+	/** Keys of NUMBER elements when any number is fractional */
+	private final double[] mDoubles;
+	private final String[] mTexts;
+	private final int mDirection;
+
+	private JSONSort(@NonNull JSONArray values, @NonNull JSONFieldPath path, boolean ascending) {
+		int length = values.length();
+		mKinds = new byte[length];
+		mLongs = new long[length];
+		mDirection = ascending ? 1 : -1;
+
+		Object[] keys = new Object[length];
+		boolean integral = true;
+		boolean hasText = false;
+		int slot = path.slotIn(values);
+		for (int i = 0; i < length; ++i) {
+			Object key = path.resolve(values, i, slot);
+			if (key instanceof Number) {
+				mKinds[i] = NUMBER;
+				integral &= key instanceof Integer || key instanceof Long ||
+							key instanceof Short || key instanceof Byte;
+			} else if (key instanceof Boolean) {
+				mKinds[i] = BOOLEAN;
+				mLongs[i] = ((Boolean) key) ? 1 : 0;
+			} else if (key == null || key == JSONObject.NULL) {
+				mKinds[i] = MISSING;
+			} else {
+				mKinds[i] = TEXT;
+				hasText = true;
+			}
+			keys[i] = key;
+		}
+
+		mDoubles = integral ? null : new double[length];
+		mTexts = hasText ? new String[length] : null;
+		for (int i = 0; i < length; ++i) {
+			if (mKinds[i] == NUMBER) {
+				if (integral) {
+					mLongs[i] = ((Number) keys[i]).longValue();
+				} else {
+					mDoubles[i] = ((Number) keys[i]).doubleValue();
+				}
+			} else if (mKinds[i] == TEXT) {
+				//noinspection ConstantConditions
+				mTexts[i] = keys[i].toString();
+			}
+		}
+	}
+
+	/**
+	 * Determines the sorted order of the given array without modifying it.
+	 *
+	 * @param values    Array to sort
+	 * @param path      Path of the field to sort by
+	 * @param ascending True to sort in ascending order, false for descending
+	 *
+	 * @return The original position of each element, listed in sorted order.
+	 */
+	@NonNull
+	static int[] order(@NonNull JSONArray values, @NonNull JSONFieldPath path,
+					   boolean ascending) {
+		int length = values.length();
+		JSONSort sort = new JSONSort(values, path, ascending);
+		int[] order = new int[length];
+		for (int i = 0; i < length; ++i) {
+			order[i] = i;
+		}
+		sort.mergeSort(order, new int[length], 0, length);
+		return order;
+	}
+
+	/**
+	 * Creates a sorted copy of the given array. The copy keeps the storage of the original.
+	 *
+	 * @see #order(JSONArray, JSONFieldPath, boolean)
+	 */
+	@NonNull
+	static JSONArray sort(@NonNull JSONArray values, @NonNull JSONFieldPath path,
+						  boolean ascending) {
+		int[] order = order(values, path, ascending);
+		return JSONArrayStore.select(values, order, order.length);
+	}
+
+	private int compare(int a, int b) {
+		int kindA = mKinds[a];
+		int kindB = mKinds[b];
+		if (kindA != kindB) {
+			return (kindA < kindB) ? -1 : 1;
+		}
+		int result;
+		switch (kindA) {
+		case NUMBER:
+			if (mDoubles != null) {
+				result = Double.compare(mDoubles[a], mDoubles[b]);
+			} else {
+				result = (mLongs[a] < mLongs[b]) ? -1 : ((mLongs[a] == mLongs[b]) ? 0 : 1);
+			}
+			break;
+		case BOOLEAN:
+			result = (int) (mLongs[a] - mLongs[b]);
+			break;
+		case TEXT:
+			result = mTexts[a].compareTo(mTexts[b]);
+			break;
+		default:
+			return 0;
+		}
+		return result * mDirection;
+	}
+
+	/**
+	 * Stable top down merge sort of order[from, to), using scratch as temporary space.
+	 */
+	private void mergeSort(@NonNull int[] order, @NonNull int[] scratch, int from, int to) {
+		if (to - from < 8) {    //Insertion sort small runs
+			for (int i = from + 1; i < to; ++i) {
+				int index = order[i];
+				int j = i - 1;
+				while (j >= from && compare(order[j], index) > 0) {
+					order[j + 1] = order[j];
+					--j;
+				}
+				order[j + 1] = index;
+			}
+			return;
+		}
+		int middle = (from + to) >>> 1;
+		mergeSort(order, scratch, from, middle);
+		mergeSort(order, scratch, middle, to);
+		if (compare(order[middle - 1], order[middle]) <= 0) {
+			return;    //Already in order
+		}
+		System.arraycopy(order, from, scratch, from, to - from);
+		int left = from;
+		int right = middle;
+		for (int i = from; i < to; ++i) {
+			if (right >= to || (left < middle && compare(scratch[left], scratch[right]) <= 0)) {
+				order[i] = scratch[left++];
+			} else {
+				order[i] = scratch[right++];
+			}
+		}
+	}
+}
@@ -0,0 +1,453 @@
+/*
+ * Copyright 2014 Jay Soyer
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sawyer.advadapters.widget;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.util.Log;
+import android.util.LruCache;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONTokener;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * <p>A {@link JSONArrayStore} backed by the raw UTF-8 bytes of a JSON array. A single structural
+ * scan records where each top-level element starts and ends. Elements are only parsed once they're
+ * read, and the parsed result is kept within a bounded LRU cache. Memory therefore scales with the
+ * elements actually being looked at rather than the size of the data set.</p>
+ *
+ * <p>The bytes are expected to hold strict JSON. Lenient syntax accepted by {@link JSONTokener},
+ * such as single quoted strings, may confuse the scan. An element which then fails to parse is
+ * treated as missing by {@link #opt(int)}, which logs the failure. Only {@link #get(int)} throws,
+ * with a JSONException naming the element's position.</p>
+ *
+ * <p>Since parsed elements can be evicted and re-parsed at any time, changes made directly to a
+ * returned JSONObject or JSONArray are not guaranteed to persist. Values added or replaced through
+ * the store itself are held in memory and are never evicted.</p>
+ *
+ * <p>Elements stored in a format other than JSON text, such as a {@link JSONSnapshot}, are read
+ * the same way through a {@link Decoder} given the byte range of each element.</p>
+ */
+final class LazyJSONArray extends JSONArrayStore {
+	/** Number of parsed elements cached when no size is specified */
+	static final int DEFAULT_CACHE_SIZE = 64;
+	private static final String LOG_TAG = "LazyJSONArray";
+	private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+	/** The bytes, element offsets and parsed cache. Shared by every copy of this store. */
+	private final Source mSource;
+	/**
+	 * Maps each position to its element. A positive value is the index of an element within
+	 * {@link #mSource}. A negative value is the complement of an index within {@link #mValues}.
+	 */
+	private int[] mRefs;
+	private int mSize;
+	/** Values added or replaced after the source was indexed. Never shared between copies. */
+	private ArrayList<Object> mValues;
+
+	private LazyJSONArray(@NonNull Source source, @NonNull int[] refs, int size,
+						  @NonNull ArrayList<Object> values) {
+		mSource = source;
+		mRefs = refs;
+		mSize = size;
+		mValues = values;
+	}
+
+	/**
+	 * Indexes the given bytes. The array is not copied, so it must not be modified afterwards.
+	 *
+	 * @param json      UTF-8 encoded JSON array
+	 * @param cacheSize Maximum number of parsed elements to keep in memory
+	 *
+	 * @throws JSONException If the bytes do not hold a JSON array
+	 */
+	@NonNull
+	static LazyJSONArray from(@NonNull byte[] json, int cacheSize) throws JSONException {
+		return from(ByteBuffer.wrap(json), cacheSize);
+	}
+
+	/**
+	 * Memory maps and indexes the entire content of the given channel. The mapping remains valid
+	 * after the channel is closed. The underlying file must not be modified afterwards.
+	 *
+	 * @param channel   Channel of a file holding a UTF-8 encoded JSON array
+	 * @param cacheSize Maximum number of parsed elements to keep in memory
+	 *
+	 * @throws IOException   If the file could not be mapped
+	 * @throws JSONException If the file does not hold a JSON array
+	 */
+	@NonNull
+	static LazyJSONArray from(@NonNull FileChannel channel, int cacheSize)
+			throws IOException, JSONException {
+		long size = channel.size();
+		if (size > Integer.MAX_VALUE) {
+			throw new IOException("File too large to map: " + size + " bytes");
+		}
+		return from(channel.map(FileChannel.MapMode.READ_ONLY, 0, size), cacheSize);
+	}
+
+	@NonNull
+	private static LazyJSONArray from(@NonNull ByteBuffer buffer, int cacheSize)
+			throws JSONException {
+		checkCacheSize(cacheSize);
+		return from(Source.index(buffer, cacheSize));
+	}
+
+	/**
+	 * Wraps elements already located within the buffer, decoding each once it's read.
+	 *
+	 * @param starts    Offset of the first byte of each element
+	 * @param ends      Offset following the last byte of each element
+	 * @param decoder   Decodes a single element from it's bytes
+	 * @param cacheSize Maximum number of decoded elements to keep in memory
+	 */
+	@NonNull
+	static LazyJSONArray from(@NonNull ByteBuffer buffer, @NonNull int[] starts,
+							  @NonNull int[] ends, @NonNull Decoder decoder, int cacheSize) {
+		checkCacheSize(cacheSize);
+		return from(new Source(buffer, starts, ends, cacheSize, decoder));
+	}
+
+	@NonNull
+	private static LazyJSONArray from(@NonNull Source source) {
+		int size = source.starts.length;
+		int[] refs = new int[size];
+		for (int i = 0; i < size; ++i) {
+			refs[i] = i;
+		}
+		return new LazyJSONArray(source, refs, size, new ArrayList<>());
+	}
+
+	private static void checkCacheSize(int cacheSize) {
+		if (cacheSize <= 0) {
+			throw new IllegalArgumentException("cacheSize <= 0");
+		}
+	}
+
+	/**
+	 * The structural scan accepts elements which can't be parsed, such as {@code {"a":tru}}.
+	 *
+	 * @return The parsing failure, restated to name the element's position.
+	 */
+	@NonNull
+	private static JSONException unreadable(int index, @NonNull JSONException e) {
+		JSONException failure = new JSONException(
+				"Unreadable JSON element at index " + index + ": " + e.getMessage());
+		failure.initCause(e);
+		return failure;
+	}
+
+	@Override
+	void append(@Nullable Object value) {
+		if (mSize == mRefs.length) {
+			mRefs = Arrays.copyOf(mRefs, Math.max(8, mSize + (mSize >> 1)));
+		}
+		mValues.add(value);
+		mRefs[mSize++] = ~(mValues.size() - 1);
+	}
+
+	@NonNull
+	@Override
+	JSONArrayStore copy() {
+		return new LazyJSONArray(mSource, Arrays.copyOf(mRefs, mSize), mSize,
+								 new ArrayList<>(mValues));
+	}
+
+	@Override
+	public int length() {
+		return mSize;
+	}
+
+	@Override
+	public Object opt(int index) {
+		if (index < 0 || index >= mSize) {
+			return null;
+		}
+		int ref = mRefs[index];
+		if (ref < 0) {
+			return mValues.get(~ref);
+		}
+		try {
+			return mSource.get(ref);
+		} catch (JSONException e) {
+			Log.w(LOG_TAG, "Unreadable JSON element at index " + index, e);
+			return null;
+		}
+	}
+
+	@Override
+	public Object get(int index) throws JSONException {
+		if (index >= 0 && index < mSize && mRefs[index] >= 0) {
+			try {
+				return mSource.get(mRefs[index]);
+			} catch (JSONException e) {
+				throw unreadable(index, e);
+			}
+		}
+		return super.get(index);
+	}
+
+	@Override
+	Object optUncached(int index) {
+		if (index < 0 || index >= mSize) {
+			return null;
+		}
+		int ref = mRefs[index];
+		if (ref < 0) {
+			return mValues.get(~ref);
+		}
+		try {
+			return mSource.peek(ref);
+		} catch (JSONException e) {
+			Log.w(LOG_TAG, "Unreadable JSON element at index " + index, e);
+			return null;
+		}
+	}
+
+	@Override
+	void removeAt(int index) {
+		int ref = mRefs[index];
+		if (ref < 0) {
+			mValues.set(~ref, null);    //Released, the slot itself is never reused
+		}
+		System.arraycopy(mRefs, index + 1, mRefs, index, mSize - index - 1);
+		--mSize;
+	}
+
+	@NonNull
+	@Override
+	JSONArrayStore selectPositions(@NonNull int[] positions, int count,
+								   @Nullable JSONArray extra) {
+		int[] refs = new int[count];
+		ArrayList<Object> values = new ArrayList<>();
+		for (int i = 0; i < count; ++i) {
+			int position = positions[i];
+			int ref;
+			if (position >= mSize) {
+				//noinspection ConstantConditions
+				values.add(extra.opt(position - mSize));
+				ref = ~(values.size() - 1);
+			} else {
+				ref = mRefs[position];
+				if (ref < 0) {
+					values.add(mValues.get(~ref));
+					ref = ~(values.size() - 1);
+				}
+			}
+			refs[i] = ref;
+		}
+		return new LazyJSONArray(mSource, refs, count, values);
+	}
+
+	@Override
+	void set(int index, @Nullable Object value) {
+		int ref = mRefs[index];
+		if (ref < 0) {
+			mValues.set(~ref, value);
+		} else {
+			mValues.add(value);
+			mRefs[index] = ~(mValues.size() - 1);
+		}
+	}
+
+	/**
+	 * Decodes single elements stored in a format other than JSON text. Must be thread safe.
+	 */
+	interface Decoder {
+		/**
+		 * @param buffer Buffer holding the element. It's position must not be modified.
+		 * @param start  Offset of the element's first byte
+		 * @param end    Offset following the element's last byte
+		 *
+		 * @throws JSONException If the bytes don't hold a valid element
+		 */
+		@NonNull
+		Object decode(@NonNull ByteBuffer buffer, int start, int end) throws JSONException;
+	}
+
+	/**
+	 * The indexed bytes along with the cache of parsed elements. Immutable apart from the cache,
+	 * which is itself thread safe.
+	 */
+	private static final class Source {
+		private final ByteBuffer mBuffer;
+		private final LruCache<Integer, Object> mCache;
+		/** Decodes elements, or null if they're JSON text */
+		private final Decoder mDecoder;
+		/** Offset of the first byte of each element */
+		final int[] starts;
+		/** Offset following the last byte of each element */
+		final int[] ends;
+
+		private Source(@NonNull ByteBuffer buffer, @NonNull int[] starts, @NonNull int[] ends,
+					   int cacheSize, @Nullable Decoder decoder) {
+			mBuffer = buffer;
+			mCache = new LruCache<>(cacheSize);
+			mDecoder = decoder;
+			this.starts = starts;
+			this.ends = ends;
+		}
+
+		/**
+		 * Scans the buffer once, recording the byte range of each top-level element. Only the
+		 * structure is validated, elements themselves are validated when parsed.
+		 */
+		@NonNull
+		static Source index(@NonNull ByteBuffer buffer, int cacheSize) throws JSONException {
+			int limit = buffer.limit();
+			int[] starts = new int[16];
+			int[] ends = new int[16];
+			int count = 0;
+
+			int i = 0;
+			if (limit >= 3 && buffer.get(0) == (byte) 0xEF && buffer.get(1) == (byte) 0xBB &&
+				buffer.get(2) == (byte) 0xBF) {
+				i = 3;    //Skip the UTF-8 byte order mark
+			}
+			i = skipWhitespace(buffer, i, limit);
+			if (i >= limit || buffer.get(i) != '[') {
+				throw new JSONException("Expected '[' at character " + i);
+			}
+			i = skipWhitespace(buffer, i + 1, limit);
+			if (i < limit && buffer.get(i) == ']') {
+				return new Source(buffer, new int[0], new int[0], cacheSize, null);
+			}
+
+			while (true) {
+				int start = i;
+				int depth = 0;
+				for (; i < limit; ++i) {
+					byte b = buffer.get(i);
+					if (b == '"') {
+						i = skipString(buffer, i, limit);
+					} else if (b == '[' || b == '{') {
+						++depth;
+					} else if (b == ']' || b == '}') {
+						if (depth == 0) {
+							break;
+						}
+						--depth;
+					} else if (b == ',' && depth == 0) {
+						break;
+					}
+				}
+				if (i >= limit) {
+					throw new JSONException("Unterminated array at character " + limit);
+				}
+
+				int end = i;
+				while (end > start && isWhitespace(buffer.get(end - 1))) {
+					--end;
+				}
+				if (end == start) {
+					throw new JSONException("Missing value at character " + start);
+				}
+				if (count == starts.length) {
+					starts = Arrays.copyOf(starts, count * 2);
+					ends = Arrays.copyOf(ends, count * 2);
+				}
+				starts[count] = start;
+				ends[count] = end;
+				++count;
+
+				if (buffer.get(i) != ',') {
+					break;    //Found the closing bracket
+				}
+				i = skipWhitespace(buffer, i + 1, limit);
+			}
+			return new Source(buffer, Arrays.copyOf(starts, count), Arrays.copyOf(ends, count),
+							  cacheSize, null);
+		}
+
+		private static boolean isWhitespace(byte b) {
+			return b == ' ' || b == '\t' || b == '\n' || b == '\r';
+		}
+
+		private static int skipString(@NonNull ByteBuffer buffer, int quote, int limit)
+				throws JSONException {
+			for (int i = quote + 1; i < limit; ++i) {
+				byte b = buffer.get(i);
+				if (b == '\\') {
+					++i;
+				} else if (b == '"') {
+					return i;
+				}
+			}
+			throw new JSONException("Unterminated string at character " + quote);
+		}
+
+		private static int skipWhitespace(@NonNull ByteBuffer buffer, int i, int limit) {
+			while (i < limit && isWhitespace(buffer.get(i))) {
+				++i;
+			}
+			return i;
+		}
+
+		/**
+		 * @return The parsed element, from cache if possible. Newly parsed elements are cached.
+		 */
+		@NonNull
+		Object get(int element) throws JSONException {
+			Object value = mCache.get(element);
+			if (value == null) {
+				value = parse(element);
+				mCache.put(element, value);
+			}
+			return value;
+		}
+
+		@NonNull
+		private Object parse(int element) throws JSONException {
+			int start = starts[element];
+			if (mDecoder != null) {
+				return mDecoder.decode(mBuffer, start, ends[element]);
+			}
+			int length = ends[element] - start;
+			String json;
+			if (mBuffer.hasArray()) {
+				json = new String(mBuffer.array(), mBuffer.arrayOffset() + start, length, UTF_8);
+			} else {
+				byte[] bytes = new byte[length];
+				ByteBuffer view = mBuffer.duplicate();    //Never move the shared buffer's position
+				view.position(start);
+				view.get(bytes);
+				json = new String(bytes, UTF_8);
+			}
+			Object value = new JSONTokener(json).nextValue();
+			if (value == null) {
+				throw new JSONException("Missing value at character " + start);
+			}
+			return value;
+		}
+
+		/**
+		 * @return The parsed element, from cache if possible. Newly parsed elements are not cached.
+		 */
+		@NonNull
+		Object peek(int element) throws JSONException {
+			Object value = mCache.get(element);
+			return (value != null) ? value : parse(element);
+		}
+	}
+}
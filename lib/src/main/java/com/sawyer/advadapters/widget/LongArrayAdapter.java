@@ -0,0 +1,222 @@
+/*
+ * Copyright 2014 Jay Soyer
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sawyer.advadapters.widget;
+
+import android.content.Context;
+import android.support.annotation.NonNull;
+import android.widget.BaseAdapter;
+
+/**
+ * <p>A custom abstract {@link BaseAdapter} that is backed by a growable array of long values. By
+ * default this class delegates view generation and defining the filtering logic to
+ * subclasses.</p>
+ *
+ * <p>Mirrors the {@link AbsArrayAdapter} for lists of numbers, such as timestamps. Values are kept
+ * within a single long[] instead of an ArrayList of Long, so a large list takes a fraction of the
+ * heap. Use {@link #getItemLong(int)} to read a value without boxing it. Filtering passes each
+ * value to {@link #isFilteredOut(long, CharSequence)} without boxing it either.</p>
+ *
+ * <p>Because of the background filtering process, all methods which mutates the underlying data are
+ * internally synchronized. This ensures a thread safe environment for internal write operations. If
+ * filtering is not required, it's strongly recommended to use the {@link NFLongArrayAdapter}
+ * instead.</p>
+ *
+ * <p>The values shown are held within an immutable list, published through a single volatile
+ * reference. Writers build a new list and swap it in, so methods reading the shown values never
+ * lock. Since every change copies the shown values, prefer the bulk methods such as {@link
+ * #addAll(long...)}, or wrap many changes within {@link #beginBatch()} and {@link
+ * #commitBatch()}.</p>
+ */
+public abstract class LongArrayAdapter extends AbsPrimitiveArrayAdapter<LongList, long[]> {
+	/**
+	 * Constructor
+	 *
+	 * @param activity Context used for inflating views
+	 */
+	public LongArrayAdapter(@NonNull Context activity) {
+		super(activity, new LongList());
+	}
+
+	/**
+	 * Constructor
+	 *
+	 * @param activity Context used for inflating views
+	 * @param items    The items to represent within the adapter.
+	 */
+	public LongArrayAdapter(@NonNull Context activity, @NonNull long[] items) {
+		super(activity, new LongList(items));
+	}
+
+	/**
+	 * Adds the specified item at the end of the adapter. Will repeat the last filtering request if
+	 * invoked while filtered results are being displayed.
+	 *
+	 * @param item The item to add at the end of the adapter.
+	 */
+	public void add(long item) {
+		addItems(LongList.wrap(item));
+	}
+
+	/**
+	 * Adds the specified items at the end of the adapter. Will repeat the last filtering request if
+	 * invoked while filtered results are being displayed.
+	 *
+	 * @param items The items to add at the end of the adapter.
+	 */
+	public void addAll(@NonNull long... items) {
+		addItems(LongList.wrap(items));
+	}
+
+	/**
+	 * Tests whether this adapter contains the specified item. Be aware that this is a linear
+	 * search.
+	 *
+	 * @param item The item to search for
+	 *
+	 * @return {@code true} if the item is an element of this adapter. {@code false} otherwise
+	 */
+	public boolean contains(long item) {
+		return getShownValues().contains(item);
+	}
+
+	/**
+	 * @return A copy of the shown filtered values. If no filter is applied, then the original
+	 * values are returned.
+	 */
+	@NonNull
+	public long[] getFilteredList() {
+		return getFilteredItems();
+	}
+
+	/**
+	 * Boxes the value at the specified position. Prefer {@link #getItemLong(int)}, which doesn't.
+	 */
+	@Override
+	public Long getItem(int position) {
+		return getShownValues().get(position);
+	}
+
+	/**
+	 * Gets the value at the specified position, without boxing it.
+	 *
+	 * @param position Position of the item whose data we want within the adapter's data set.
+	 *
+	 * @return The value at the specified position.
+	 */
+	public long getItemLong(int position) {
+		return getShownValues().get(position);
+	}
+
+	/**
+	 * @return A copy of the original (unfiltered) values stored within the Adapter
+	 */
+	@NonNull
+	public long[] getList() {
+		return getItems();
+	}
+
+	/**
+	 * Resets the adapter to store a new list of items. Convenient way of calling {@link #clear()},
+	 * then {@link #addAll(long...)} without having to worry about an extra {@link
+	 * #notifyDataSetChanged()} invoked in between. Will repeat the last filtering request if
+	 * invoked while filtered results are being displayed.
+	 *
+	 * @param items New list of items to store within the adapter.
+	 */
+	public void setList(@NonNull long[] items) {
+		setItems(new LongList(items));
+	}
+
+	/**
+	 * Returns the position of the specified item in the array.  Be aware that this performs a
+	 * linear search.
+	 *
+	 * @param item The item to retrieve the position of.
+	 *
+	 * @return The position of the specified item.
+	 */
+	public int getPosition(long item) {
+		return getShownValues().indexOf(item);
+	}
+
+	/**
+	 * Determines whether the provided constraint filters out the given item. Allows easy,
+	 * customized filtering for subclasses. It's incorrect to modify the adapter within this
+	 * method. Any alterations will lead to undefined behavior or crashes. Internally, this method
+	 * is only ever invoked from a background thread.
+	 *
+	 * @param item       The item to compare against the constraint
+	 * @param constraint The constraint used to filter the item
+	 *
+	 * @return True if the item is filtered out by the given constraint. False if the item will
+	 * continue to display in the adapter.
+	 */
+	protected abstract boolean isFilteredOut(long item, @NonNull CharSequence constraint);
+
+	@Override
+	final boolean isFilteredOutAt(@NonNull LongList values, int index,
+								   @NonNull CharSequence constraint) {
+		return isFilteredOut(values.get(index), constraint);
+	}
+
+	/**
+	 * Removes the first occurrence of the specified item from the adapter. Be aware the item is a
+	 * value to search for, not a position.
+	 *
+	 * @param item The item to remove.
+	 */
+	public void remove(long item) {
+		removeItem(LongList.wrap(item));
+	}
+
+	/**
+	 * Removes all occurrences in the adapter of each of the specified items.
+	 *
+	 * @param items The items to remove
+	 */
+	public void removeAll(@NonNull long... items) {
+		removeItems(LongList.wrap(items));
+	}
+
+	/**
+	 * Removes all items from this adapter that are not among the specified items.
+	 *
+	 * @param items The items to retain
+	 */
+	public void retainAll(@NonNull long... items) {
+		retainItems(LongList.wrap(items));
+	}
+
+	@Override
+	@NonNull
+	long[] toPublic(@NonNull LongList values) {
+		return values.toArray();
+	}
+
+	/**
+	 * Updates the item at the specified position in the adapter with the specified item. This
+	 * operation does not change the size of the adapter. Will repeat the last filtering request if
+	 * invoked while filtered results are being displayed. Be-aware this method is only a constant
+	 * time operation when the list is not filtered. Otherwise, the position must be converted to a
+	 * unfiltered position; which requires traversing the original unfiltered list.
+	 *
+	 * @param position The location at which to put the specified item
+	 * @param item     The new item to replace with the old
+	 */
+	public void update(int position, long item) {
+		updateAt(position, LongList.wrap(item));
+	}
+}
@@ -0,0 +1,276 @@
+/*
+ * Copyright 2014 Jay Soyer
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sawyer.advadapters.widget;
+
+import android.annotation.TargetApi;
+import android.os.Build;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.util.LongSparseArray;
+
+import java.util.Arrays;
+
+/**
+ * <p>Maps longs to objects, just as {@link android.util.SparseArray} maps ints. Keys are held in a
+ * sorted long[] and looked up with a binary search, so no key is ever boxed. Backs the {@link
+ * LongSparseAdapter} and {@link NFLongSparseAdapter}, which exchange mappings as a
+ * LongKeyArray.</p>
+ *
+ * <p>Mirrors the API of {@link LongSparseArray}, which is only available from API 16. Unlike the
+ * platform class, removals are applied straight away rather than deferred, so reading never
+ * modifies the array. An array published to readers which don't lock is therefore safe to read.
+ * This class is not synchronized.</p>
+ */
+public final class LongKeyArray<E> implements Cloneable {
+	private static final long[] EMPTY_KEYS = new long[0];
+	private static final Object[] EMPTY_VALUES = new Object[0];
+
+	private long[] mKeys;
+	private Object[] mValues;
+	private int mSize;
+
+	/**
+	 * Creates a new LongKeyArray containing no mappings.
+	 */
+	public LongKeyArray() {
+		mKeys = EMPTY_KEYS;
+		mValues = EMPTY_VALUES;
+	}
+
+	/**
+	 * Creates a new LongKeyArray containing no mappings that will not require any additional
+	 * memory allocation to store the specified number of mappings.
+	 */
+	public LongKeyArray(int initialCapacity) {
+		mKeys = (initialCapacity > 0) ? new long[initialCapacity] : EMPTY_KEYS;
+		mValues = (initialCapacity > 0) ? new Object[initialCapacity] : EMPTY_VALUES;
+	}
+
+	/**
+	 * Puts a key/value pair into the array, optimizing for the case where the key is greater than
+	 * all existing keys in the array.
+	 */
+	public void append(long key, @Nullable E value) {
+		if (mSize != 0 && key <= mKeys[mSize - 1]) {
+			put(key, value);
+			return;
+		}
+		ensureCapacity(mSize + 1);
+		mKeys[mSize] = key;
+		mValues[mSize] = value;
+		++mSize;
+	}
+
+	/**
+	 * Removes all key-value mappings from this LongKeyArray.
+	 */
+	public void clear() {
+		Arrays.fill(mValues, 0, mSize, null);
+		mSize = 0;
+	}
+
+	@Override
+	@NonNull
+	@SuppressWarnings("unchecked")
+	public LongKeyArray<E> clone() {
+		LongKeyArray<E> clone;
+		try {
+			clone = (LongKeyArray<E>) super.clone();
+		} catch (CloneNotSupportedException e) {
+			throw new AssertionError(e);    //Cloneable is implemented
+		}
+		clone.mKeys = Arrays.copyOf(mKeys, mSize);
+		clone.mValues = Arrays.copyOf(mValues, mSize);
+		return clone;
+	}
+
+	/**
+	 * Removes the mapping from the specified key, if there was any.
+	 */
+	public void delete(long key) {
+		int index = indexOfKey(key);
+		if (index >= 0) {
+			removeAt(index);
+		}
+	}
+
+	private void ensureCapacity(int capacity) {
+		if (capacity > mKeys.length) {
+			int newCapacity = Math.max(capacity, mKeys.length + (mKeys.length >> 1) + 4);
+			mKeys = Arrays.copyOf(mKeys, newCapacity);
+			mValues = Arrays.copyOf(mValues, newCapacity);
+		}
+	}
+
+	/**
+	 * @return A new LongKeyArray holding a copy of the mappings of the items.
+	 */
+	@NonNull
+	@TargetApi(Build.VERSION_CODES.JELLY_BEAN)
+	static <E> LongKeyArray<E> from(@NonNull LongSparseArray<E> items) {
+		int size = items.size();
+		LongKeyArray<E> values = new LongKeyArray<>(size);
+		for (int index = 0; index < size; ++index) {
+			values.append(items.keyAt(index), items.valueAt(index));
+		}
+		return values;
+	}
+
+	/**
+	 * Gets the Object mapped from the specified key, or {@code null} if no such mapping has been
+	 * made.
+	 */
+	@Nullable
+	public E get(long key) {
+		return get(key, null);
+	}
+
+	/**
+	 * Gets the Object mapped from the specified key, or the specified Object if no such mapping has
+	 * been made.
+	 */
+	@SuppressWarnings("unchecked")
+	public E get(long key, E valueIfKeyNotFound) {
+		int index = indexOfKey(key);
+		return (index >= 0) ? (E) mValues[index] : valueIfKeyNotFound;
+	}
+
+	/**
+	 * Returns the index for which {@link #keyAt} would return the specified key, or a negative
+	 * number if the specified key is not mapped. The negative number is the bitwise complement of
+	 * the index the key would be inserted at.
+	 */
+	public int indexOfKey(long key) {
+		return Arrays.binarySearch(mKeys, 0, mSize, key);
+	}
+
+	/**
+	 * Returns an index for which {@link #valueAt} would return the specified value, or a negative
+	 * number if no keys map to the specified value. Beware that this is a linear search, unlike
+	 * lookups by key, and that multiple keys can map to the same value and this will find only one
+	 * of them. Values are compared using == rather than equals, as with SparseArray.
+	 */
+	public int indexOfValue(@Nullable E value) {
+		for (int index = 0; index < mSize; ++index) {
+			if (mValues[index] == value) {
+				return index;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Given an index in the range 0...{@link #size()}-1, returns the key from the index-th
+	 * key-value mapping that this LongKeyArray stores. Keys are in ascending order.
+	 */
+	public long keyAt(int index) {
+		checkIndex(index);
+		return mKeys[index];
+	}
+
+	private void checkIndex(int index) {
+		if (index < 0 || index >= mSize) {
+			throw new ArrayIndexOutOfBoundsException(index);
+		}
+	}
+
+	/**
+	 * Adds a mapping from the specified key to the specified value, replacing the previous mapping
+	 * from the specified key if there was one.
+	 */
+	public void put(long key, @Nullable E value) {
+		int index = indexOfKey(key);
+		if (index >= 0) {
+			mValues[index] = value;
+			return;
+		}
+		index = ~index;
+		ensureCapacity(mSize + 1);
+		System.arraycopy(mKeys, index, mKeys, index + 1, mSize - index);
+		System.arraycopy(mValues, index, mValues, index + 1, mSize - index);
+		mKeys[index] = key;
+		mValues[index] = value;
+		++mSize;
+	}
+
+	/**
+	 * Removes the mapping at the specified index.
+	 */
+	public void removeAt(int index) {
+		checkIndex(index);
+		System.arraycopy(mKeys, index + 1, mKeys, index, mSize - index - 1);
+		System.arraycopy(mValues, index + 1, mValues, index, mSize - index - 1);
+		mValues[--mSize] = null;
+	}
+
+	/**
+	 * Given an index in the range 0...{@link #size()}-1, sets a new value for the index-th
+	 * key-value mapping that this LongKeyArray stores.
+	 */
+	public void setValueAt(int index, @Nullable E value) {
+		checkIndex(index);
+		mValues[index] = value;
+	}
+
+	/**
+	 * Returns the number of key-value mappings that this LongKeyArray currently stores.
+	 */
+	public int size() {
+		return mSize;
+	}
+
+	/**
+	 * @return A new LongSparseArray holding a copy of the mappings.
+	 */
+	@NonNull
+	@TargetApi(Build.VERSION_CODES.JELLY_BEAN)
+	LongSparseArray<E> toLongSparseArray() {
+		LongSparseArray<E> items = new LongSparseArray<>(mSize);
+		for (int index = 0; index < mSize; ++index) {
+			items.append(mKeys[index], valueAt(index));
+		}
+		return items;
+	}
+
+	@Override
+	public String toString() {
+		if (mSize == 0) {
+			return "{}";
+		}
+		StringBuilder buffer = new StringBuilder(mSize * 28);
+		buffer.append('{');
+		for (int index = 0; index < mSize; ++index) {
+			if (index > 0) {
+				buffer.append(", ");
+			}
+			buffer.append(mKeys[index]).append('=');
+			Object value = mValues[index];
+			buffer.append((value != this) ? value : "(this Map)");
+		}
+		buffer.append('}');
+		return buffer.toString();
+	}
+
+	/**
+	 * Given an index in the range 0...{@link #size()}-1, returns the value from the index-th
+	 * key-value mapping that this LongKeyArray stores.
+	 */
+	@SuppressWarnings("unchecked")
+	public E valueAt(int index) {
+		checkIndex(index);
+		return (E) mValues[index];
+	}
+}
@@ -0,0 +1,152 @@
+/*
+ * Copyright 2014 Jay Soyer
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sawyer.advadapters.widget;
+
+import android.support.annotation.NonNull;
+
+import java.util.Arrays;
+
+/**
+ * A growable list of long values, kept within a single long[] rather than boxing each value. Backs
+ * the {@link LongArrayAdapter} and {@link NFLongArrayAdapter}. Everything not reading, writing or
+ * comparing a value is implemented by the {@link AbsPrimitiveList}.
+ */
+final class LongList extends AbsPrimitiveList<LongList> {
+	private static final long[] EMPTY = new long[0];
+
+	private long[] mValues;
+
+	LongList() {
+		mValues = EMPTY;
+	}
+
+	/**
+	 * Creates a list holding a copy of the given values.
+	 */
+	LongList(@NonNull long[] values) {
+		mValues = values.clone();
+		mSize = values.length;
+	}
+
+	void add(long value) {
+		ensureCapacity(mSize + 1);
+		mValues[mSize++] = value;
+	}
+
+	void add(int index, long value) {
+		checkInsertIndex(index);
+		ensureCapacity(mSize + 1);
+		System.arraycopy(mValues, index, mValues, index + 1, mSize - index);
+		mValues[index] = value;
+		++mSize;
+	}
+
+	boolean contains(long value) {
+		return indexOf(value) >= 0;
+	}
+
+	@Override
+	@NonNull
+	LongList create() {
+		return new LongList();
+	}
+
+	long get(int index) {
+		checkIndex(index);
+		return mValues[index];
+	}
+
+	@Override
+	int getCapacity() {
+		return mValues.length;
+	}
+
+	@Override
+	@NonNull
+	Object getValues() {
+		return mValues;
+	}
+
+	int indexOf(long value) {
+		for (int i = 0; i < mSize; ++i) {
+			if (mValues[i] == value) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	@Override
+	int indexOf(@NonNull LongList source, int sourceIndex) {
+		return indexOf(source.get(sourceIndex));
+	}
+
+	@Override
+	boolean removeAll(@NonNull LongList values) {
+		return removeWhere(values, true);
+	}
+
+	private boolean removeWhere(@NonNull LongList values, boolean isFound) {
+		long[] sorted = values.toArray();
+		Arrays.sort(sorted);
+		int kept = 0;
+		for (int i = 0; i < mSize; ++i) {
+			if ((Arrays.binarySearch(sorted, mValues[i]) >= 0) != isFound) {
+				mValues[kept++] = mValues[i];
+			}
+		}
+		boolean isModified = kept != mSize;
+		mSize = kept;
+		return isModified;
+	}
+
+	@Override
+	void resizeValues(int length) {
+		mValues = Arrays.copyOf(mValues, length);
+	}
+
+	@Override
+	boolean retainAll(@NonNull LongList values) {
+		return removeWhere(values, false);
+	}
+
+	void set(int index, long value) {
+		checkIndex(index);
+		mValues[index] = value;
+	}
+
+	@Override
+	void sort() {
+		Arrays.sort(mValues, 0, mSize);
+	}
+
+	@NonNull
+	long[] toArray() {
+		return Arrays.copyOf(mValues, mSize);
+	}
+
+	/**
+	 * @return A list wrapping the given values without copying them. Only meant for handing values
+	 * over to another list, as the list and the array share their contents.
+	 */
+	@NonNull
+	static LongList wrap(@NonNull long... values) {
+		LongList list = new LongList();
+		list.mValues = values;
+		list.mSize = values.length;
+		return list;
+	}
+}
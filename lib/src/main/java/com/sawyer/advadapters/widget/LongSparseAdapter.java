@@ -0,0 +1,825 @@
+/*
+ * Copyright 2014 Jay Soyer
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sawyer.advadapters.widget;
+
+import android.annotation.TargetApi;
+import android.content.Context;
+import android.os.Build;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.text.TextUtils;
+import android.util.LongSparseArray;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.BaseAdapter;
+import android.widget.Filter;
+import android.widget.Filterable;
+
+/**
+ * <p>A custom abstract {@link BaseAdapter} that is backed by a {@link LongKeyArray} of arbitrary
+ * objects.  By default this class delegates view generation and defining the filtering logic to
+ * subclasses.</p>
+ *
+ * <p>The 64-bit counterpart of the {@link SparseAdapter}, for data keyed by longs such as server
+ * IDs. Keys are held in a sorted long[] and looked up with a binary search, without boxing. An
+ * adapter's row ID is the item's key and vice versa, so the IDs are stable and {@link
+ * #hasStableIds()} returns true. Any method requiring a key will have <i>"withId"</i> in the
+ * name.</p>
+ *
+ * <p>Mappings are exchanged as a {@link LongKeyArray}, whose removals are applied eagerly, keeping
+ * the published sparse array safe to read without locking. The platform's {@link LongSparseArray}
+ * is only available from API 16, so it's only accepted by overloads which require API 16. The
+ * adapter itself works on every API level the library supports.</p>
+ *
+ * <p>Because of the background filtering process, all methods which mutates the underlying data are
+ * internally synchronized. This ensures a thread safe environment for internal write operations. If
+ * filtering is not required, it's strongly recommended to use the {@link NFLongSparseAdapter}
+ * instead.</p>
+ *
+ * <p>The items shown are held within an immutable sparse array, published through a single
+ * volatile reference. Writers build a new sparse array and swap it in, so methods reading the
+ * shown items, such as {@link #getItem(int)} or {@link #getItemWithId(long)}, never lock and always
+ * see a consistent sparse array. Since every change copies the shown items, prefer the bulk
+ * methods such as {@link #putAll(LongKeyArray)} over repeated single item changes.</p>
+ *
+ * <p>Many changes may instead be wrapped within {@link #beginBatch()} and {@link #commitBatch()}.
+ * The shown items are then copied once for the whole batch, and the changes shown once it commits.
+ * The last filtering request is also repeated once and a single notification sent for the whole
+ * batch.</p>
+ */
+public abstract class LongSparseAdapter<T> extends BaseAdapter implements Filterable {
+	/**
+	 * Lock used to modify the content of {@link #mObjects}. Any write operation performed on the
+	 * sparse array should be synchronized on this lock. This lock is also used by the filter (see
+	 * {@link #getFilter()} to make a synchronized copy of the original array of data.
+	 */
+	private final Object mLock = new Object();
+
+	/** LayoutInflater created from the constructing context */
+	private LayoutInflater mInflater;
+	/** Activity Context used to construct this adapter * */
+	private Context mContext;
+	/**
+	 * Contains the sparse array of objects that represent the visible data of the adapter. It's
+	 * contents will change as filtering occurs. All methods retrieving data about the adapter will
+	 * always do so from this sparse array. A sparse array is never modified once assigned here.
+	 * Changes are made to a copy, which then replaces it.
+	 */
+	private volatile LongKeyArray<T> mObjects;
+	/**
+	 * Indicates whether or not {@link #notifyDataSetChanged()} must be called whenever {@link
+	 * #mObjects} is modified.
+	 */
+	private boolean mNotifyOnChange = true;
+	/**
+	 * A copy of the original mObjects sparse array, is not initialized until a filtering processing
+	 * occurs. Once initialized, it'll track the entire unfiltered data. Once the filter process
+	 * completes, it's contents are copied back over to mObjects and is set to null.
+	 */
+	private LongKeyArray<T> mOriginalValues;
+	private LongSparseArrayFilter mFilter;
+
+	/**
+	 * Saves the constraint used during the last filtering operation. Used to re-filter the sparse
+	 * array following changes to the data
+	 */
+	private CharSequence mLastConstraint;
+	/** Number of batches currently begun and not yet committed. See {@link #beginBatch()} */
+	private int mBatchDepth;
+	/** Whether a change made during the current batch requires the filter to be repeated */
+	private boolean mIsRefilterPending;
+	/** Whether a notification was deferred during the current batch */
+	private boolean mIsNotifyPending;
+	/**
+	 * The current batch's private copy of {@link #mObjects}, changed in place and only shown once
+	 * the outermost batch commits. Null until first changed within a batch.
+	 */
+	private LongKeyArray<T> mBatchObjects;
+
+	/**
+	 * Constructor
+	 *
+	 * @param activity Context used for inflating views
+	 */
+	public LongSparseAdapter(@NonNull Context activity) {
+		init(activity, new LongKeyArray<T>());
+	}
+
+	/**
+	 * Constructor
+	 *
+	 * @param activity Context used for inflating views
+	 * @param items    The items to represent within the adapter.
+	 */
+	public LongSparseAdapter(@NonNull Context activity, @NonNull LongKeyArray<T> items) {
+		init(activity, items.clone());
+	}
+
+	/**
+	 * Constructor. Requires API 16.
+	 *
+	 * @param activity Context used for inflating views
+	 * @param items    The items to represent within the adapter.
+	 */
+	@TargetApi(Build.VERSION_CODES.JELLY_BEAN)
+	public LongSparseAdapter(@NonNull Context activity, @NonNull LongSparseArray<T> items) {
+		init(activity, LongKeyArray.from(items));
+	}
+
+	/**
+	 * Appends the specified LongKeyArray at the end of the adapter, optimizing for the case
+	 * where all the keys are greater then all existing keys in the adapter. This includes the given
+	 * items having it's keys in sequential order as well. Will repeat the last filtering request if
+	 * invoked while filtered results are being displayed.
+	 *
+	 * @param items The LongKeyArray items to add at the end of the adapter.
+	 */
+	public void appendAll(@NonNull LongKeyArray<T> items) {
+		synchronized (mLock) {
+			if (mOriginalValues != null) {
+				for (int index = 0; index < items.size(); ++index) {
+					mOriginalValues.append(items.keyAt(index), items.valueAt(index));
+				}
+				refilter();
+			} else {
+				LongKeyArray<T> objects = editObjects();
+				for (int index = 0; index < items.size(); ++index) {
+					objects.append(items.keyAt(index), items.valueAt(index));
+				}
+				publishObjects(objects);
+			}
+		}
+		if (mNotifyOnChange) {
+			notifyDataSetChanged();
+		}
+	}
+
+	/**
+	 * Same as {@link #appendAll(LongKeyArray)}, for the platform's LongSparseArray. Requires API
+	 * 16.
+	 */
+	@TargetApi(Build.VERSION_CODES.JELLY_BEAN)
+	public void appendAll(@NonNull LongSparseArray<T> items) {
+		appendAll(LongKeyArray.from(items));
+	}
+
+	/**
+	 * Appends the specified key and item pair to the end of the adapter, optimizing for the case
+	 * where the key is greater then all existing keys in the adapter. Will repeat the last
+	 * filtering request if invoked while filtered results are being displayed.
+	 *
+	 * @param keyId The keyId to append with
+	 * @param item  The item to append with
+	 */
+	public void appendWithId(long keyId, @Nullable T item) {
+		synchronized (mLock) {
+			if (mOriginalValues != null) {
+				mOriginalValues.append(keyId, item);
+				refilter();
+			} else {
+				LongKeyArray<T> objects = editObjects();
+				objects.append(keyId, item);
+				publishObjects(objects);
+			}
+		}
+		if (mNotifyOnChange) {
+			notifyDataSetChanged();
+		}
+	}
+
+	/**
+	 * <p>Begins a batch of changes. Until the matching {@link #commitBatch()}, changes made to the
+	 * adapter neither repeat the last filtering request nor notify. Instead the filter is repeated
+	 * once and a single notification is sent when the batch commits.</p>
+	 *
+	 * <p>Changes are made to a single private copy of the items shown, which is only shown once the
+	 * batch commits. Until then, the adapter keeps showing the items as they were. Positions given
+	 * within a batch, such as to {@link #put(int, Object)}, are of the items shown.</p>
+	 *
+	 * <p>Batches may be nested, only committing the outermost batch applies the deferred work.
+	 * Always begin and commit a batch on the same thread, ideally committing within a finally
+	 * block.</p>
+	 */
+	public void beginBatch() {
+		synchronized (mLock) {
+			++mBatchDepth;
+		}
+	}
+
+	/**
+	 * Removes all items from the adapter.
+	 */
+	public void clear() {
+		synchronized (mLock) {
+			if (mOriginalValues != null) {
+				mOriginalValues.clear();
+			}
+			publishObjects(new LongKeyArray<T>());
+		}
+		if (mNotifyOnChange) {
+			notifyDataSetChanged();
+		}
+	}
+
+	/**
+	 * Commits the batch begun by the matching {@link #beginBatch()}. Once the outermost batch
+	 * commits, the changes made within it are shown. The last filtering request is then repeated
+	 * if any change required it and {@link #notifyDataSetChanged()} is invoked if any change
+	 * would have invoked it.
+	 *
+	 * @throws IllegalStateException If no batch has begun
+	 */
+	public void commitBatch() {
+		boolean isNotifyPending;
+
+		synchronized (mLock) {
+			if (mBatchDepth == 0) {
+				throw new IllegalStateException("No batch has begun");
+			} else if (--mBatchDepth > 0) {
+				return;
+			}
+			if (mBatchObjects != null) {
+				mObjects = mBatchObjects;
+				mBatchObjects = null;
+			}
+			if (mIsRefilterPending) {
+				mIsRefilterPending = false;
+				FilterExecutor.refilter(this, mLastConstraint);
+			}
+			isNotifyPending = mIsNotifyPending;
+			mIsNotifyPending = false;
+		}
+		if (isNotifyPending) {
+			notifyDataSetChanged();
+		}
+	}
+
+	/**
+	 * Determines if the specified keyId exists within the adapter.
+	 *
+	 * @param keyId The keyId to search for
+	 *
+	 * @return {@code true} if the keyId is found within the adapter. {@code false} otherwise.
+	 */
+	public boolean containsId(long keyId) {
+		return mObjects.indexOfKey(keyId) >= 0;
+	}
+
+	/**
+	 * <p>Determines if the specified item exists within the adapter. Be aware that this is a linear
+	 * search, unlike look-ups by key, and that multiple keys can map to the same value and this
+	 * will find only one of them.</p>
+	 *
+	 * <p>Note also that unlike most collections this method compares values using == rather than
+	 * equals...a result of how LongSparseArrays are implemented.</p>
+	 *
+	 * @param item The item to search for
+	 *
+	 * @return {@code true} if the item is an element of this adapter. {@code false} otherwise
+	 */
+	public boolean containsItem(@Nullable T item) {
+		return mObjects.indexOfValue(item) >= 0;
+	}
+
+	/**
+	 * Gets the items shown to change, then handed to {@link #publishObjects}. Outside a batch,
+	 * that's a new copy of {@link #mObjects}. Within a batch, that's the batch's private copy, only
+	 * made on it's first change. Must be invoked while holding {@link #mLock}.
+	 */
+	@NonNull
+	private LongKeyArray<T> editObjects() {
+		if (mBatchDepth == 0) {
+			return mObjects.clone();
+		} else if (mBatchObjects == null) {
+			mBatchObjects = mObjects.clone();
+		}
+		return mBatchObjects;
+	}
+
+	/**
+	 * @return The Context associated with this adapter.
+	 */
+	@NonNull
+	public Context getContext() {
+		return mContext;
+	}
+
+	@Override
+	public int getCount() {
+		return mObjects.size();
+	}
+
+	/**
+	 * <p>Get a {@link android.view.View} that displays in the drop down popup the data at the
+	 * specified position in the data set.</p>
+	 *
+	 * @param inflater    the LayoutInflater object that can be used to inflate each view.
+	 * @param position    index of the item whose view we want.
+	 * @param convertView the old view to reuse, if possible. Note: You should check that this view
+	 *                    is non-null and of an appropriate type before using. If it is not possible
+	 *                    to convert this view to display the correct data, this method can create a
+	 *                    new view.
+	 * @param parent      the parent that this view will eventually be attached to
+	 *
+	 * @return a {@link android.view.View} corresponding to the data at the specified position.
+	 */
+	@NonNull
+	public View getDropDownView(@NonNull LayoutInflater inflater, int position,
+								@Nullable View convertView, @NonNull ViewGroup parent) {
+		return getView(inflater, position, convertView, parent);
+	}
+
+	@Override
+	public final View getDropDownView(int position, View convertView, ViewGroup parent) {
+		return getDropDownView(mInflater, position, convertView, parent);
+	}
+
+	@Override
+	@NonNull
+	public Filter getFilter() {
+		if (mFilter == null) {
+			mFilter = new LongSparseArrayFilter();
+		}
+		return mFilter;
+	}
+
+	/**
+	 * @return The shown filtered data as a LongKeyArray. If no filter is applied, then the original
+	 * (unfiltered) data is returned instead.
+	 */
+	@NonNull
+	public LongKeyArray<T> getFilteredLongKeyArray() {
+		return mObjects.clone();
+	}
+
+	/**
+	 * Same as {@link #getFilteredLongKeyArray()}, as the platform's LongSparseArray. Requires API
+	 * 16.
+	 */
+	@NonNull
+	@TargetApi(Build.VERSION_CODES.JELLY_BEAN)
+	public LongSparseArray<T> getFilteredLongSparseArray() {
+		return mObjects.toLongSparseArray();
+	}
+
+	@Override
+	public T getItem(int position) {
+		return mObjects.valueAt(position);
+	}
+
+	@Override
+	public long getItemId(int position) {
+		return mObjects.keyAt(position);
+	}
+
+	/**
+	 * @return The Item mapped by the keyId or null if no such mapping has been made
+	 */
+	@Nullable
+	public T getItemWithId(long keyId) {
+		return mObjects.get(keyId);
+	}
+
+	/**
+	 * @return The items shown including any change made within the current batch. Must be invoked
+	 * while holding {@link #mLock}.
+	 */
+	@NonNull
+	private LongKeyArray<T> getNewestObjects() {
+		return (mBatchObjects != null) ? mBatchObjects : mObjects;
+	}
+
+	/**
+	 * <p>Returns the position of the specified item in the sparse array. Be aware that this is a
+	 * linear search, unlike look-ups by key,and that multiple keys can map to the same value and
+	 * this will find only one of them.</p>
+	 *
+	 * <p>Note also that unlike most collections, this method compares values using == rather than
+	 * equals.</p>
+	 *
+	 * @param item The item to retrieve the position of.
+	 *
+	 * @return The position of the specified item, or a negative number if not found.
+	 */
+	public int getPosition(@Nullable T item) {
+		return mObjects.indexOfValue(item);
+	}
+
+	/**
+	 * @param keyId The keyId to search for
+	 *
+	 * @return the position for which a keyId is found, or a negative number if not found.
+	 */
+	public int getPosition(long keyId) {
+		return mObjects.indexOfKey(keyId);
+	}
+
+	/**
+	 * @return The original (unfiltered) LongKeyArray of items stored within the adapter.
+	 */
+	@NonNull
+	public LongKeyArray<T> getLongKeyArray() {
+		synchronized (mLock) {
+			return (mOriginalValues != null) ? mOriginalValues.clone() : mObjects.clone();
+		}
+	}
+
+	/**
+	 * Same as {@link #getLongKeyArray()}, as the platform's LongSparseArray. Requires API 16.
+	 */
+	@NonNull
+	@TargetApi(Build.VERSION_CODES.JELLY_BEAN)
+	public LongSparseArray<T> getLongSparseArray() {
+		synchronized (mLock) {
+			return (mOriginalValues != null) ? mOriginalValues.toLongSparseArray()
+											 : mObjects.toLongSparseArray();
+		}
+	}
+
+	/**
+	 * Resets the adapter to store a new LongKeyArray of items. Though equivalent to calling
+	 * {@link #clear()}, followed by {@link #putAll}; this method is more efficient. It performs a
+	 * straight clone of the items instead of having to perform a binary search before putting each
+	 * item within the adapter. Will repeat the last filtering request if invoked while filtered
+	 * results are being displayed.
+	 *
+	 * @param items New LongKeyArray of items to store within the adapter.
+	 */
+	public void setLongKeyArray(@NonNull LongKeyArray<T> items) {
+		LongKeyArray<T> objects = items.clone();
+		synchronized (mLock) {
+			if (mOriginalValues != null) {
+				mOriginalValues = objects;
+				refilter();
+			} else {
+				publishObjects(objects);
+			}
+		}
+		if (mNotifyOnChange) {
+			notifyDataSetChanged();
+		}
+	}
+
+	/**
+	 * Same as {@link #setLongKeyArray(LongKeyArray)}, for the platform's LongSparseArray. Requires
+	 * API 16.
+	 */
+	@TargetApi(Build.VERSION_CODES.JELLY_BEAN)
+	public void setLongSparseArray(@NonNull LongSparseArray<T> items) {
+		setLongKeyArray(LongKeyArray.from(items));
+	}
+
+	/**
+	 * Get a View that displays the data at the specified position in the data set.  You can either
+	 * create a View manually or inflate it from an XML layout file.  When the View is inflated, the
+	 * parent View (GridView, ListView...) will apply default layout parameters unless you {@link
+	 * android.view.LayoutInflater#inflate(int, android.view.ViewGroup, boolean) to specifiy a root
+	 * view and to prevent attachment to the root.}
+	 *
+	 * @param inflater    the LayoutInflater object that can be used to inflate each view.
+	 * @param position    The position of the item within the adapter's data set of the item whose
+	 *                    view we want
+	 * @param convertView the old view to reuse, if possible. Note: You should check that this view
+	 *                    is non-null and of an appropriate type before using. If it is not possible
+	 *                    to convert this view to display the correct data, this method can create a
+	 *                    new view.
+	 * @param parent      the parent that this view will eventually be attached to
+	 *
+	 * @return A View corresponding to the data at the specified position
+	 */
+	@NonNull
+	public abstract View getView(@NonNull LayoutInflater inflater, int position,
+								 @Nullable View convertView, @NonNull ViewGroup parent);
+
+	@Override
+	public final View getView(int position, View convertView, ViewGroup parent) {
+		return this.getView(mInflater, position, convertView, parent);
+	}
+
+	/**
+	 * @return Always true, as an adapter's row ID is the item's key.
+	 */
+	@Override
+	public boolean hasStableIds() {
+		return true;
+	}
+
+	private void init(@NonNull Context context, @NonNull LongKeyArray<T> objects) {
+		mInflater = LayoutInflater.from(context);
+		mContext = context;
+		mObjects = objects;
+	}
+
+	/**
+	 * Determines whether the provided constraint filters out the given item. Allows easy,
+	 * customized filtering for subclasses. It's incorrect to modify the adapter or the contents of
+	 * the item itself. Any alterations will lead to undefined behavior or crashes. Internally, this
+	 * method is only ever invoked from a background thread.
+	 *
+	 * @param item       The item to compare against the constraint
+	 * @param constraint The constraint used to filter the item
+	 *
+	 * @return True if the item is filtered out by the given constraint. False if the item will
+	 * continue to display in the adapter.
+	 */
+	protected abstract boolean isFilteredOut(long keyId, T item, @NonNull CharSequence constraint);
+
+	@Override
+	public void notifyDataSetChanged() {
+		synchronized (mLock) {
+			if (mBatchDepth > 0) {
+				mIsNotifyPending = true;    //Sent once the batch commits
+				return;
+			}
+		}
+		super.notifyDataSetChanged();
+		mNotifyOnChange = true;
+	}
+
+	/**
+	 * Given a position in the range of 0...{@link #getCount()} - 1, sets a new value for the
+	 * key-value stored at that position. Be aware this method is only a constant amortised time
+	 * operation when the adapter is not filtered. Otherwise, the position must be converted to a
+	 * unfiltered position; which requires a binary search on the original unfiltered data. The
+	 * same holds within a batch, where the item is not updated if removed earlier within the batch.
+	 *
+	 * @param position The position of the item to update
+	 * @param item     The item to update with
+	 */
+	public void put(int position, @Nullable T item) {
+		synchronized (mLock) {
+			if (mOriginalValues != null) {
+				int newPosition = mOriginalValues.indexOfKey(mObjects.keyAt(position));
+				mOriginalValues.setValueAt(newPosition, item);
+				refilter();
+			} else {
+				int newPosition = toNewestPosition(position);
+				if (newPosition >= 0) {
+					LongKeyArray<T> objects = editObjects();
+					objects.setValueAt(newPosition, item);
+					publishObjects(objects);
+				}
+			}
+		}
+		if (mNotifyOnChange) {
+			notifyDataSetChanged();
+		}
+	}
+
+	/**
+	 * Adds the specified LongKeyArray to the adapter, replacing any existing mappings from the
+	 * specified keys if there were any.  Will repeat the last filtering request if invoked while
+	 * filtered results are being displayed.
+	 *
+	 * @param items The LongKeyArray items to add to the adapter.
+	 */
+	public void putAll(@NonNull LongKeyArray<T> items) {
+		synchronized (mLock) {
+			if (mOriginalValues != null) {
+				for (int index = 0; index < items.size(); ++index) {
+					mOriginalValues.put(items.keyAt(index), items.valueAt(index));
+				}
+				refilter();
+			} else {
+				LongKeyArray<T> objects = editObjects();
+				for (int index = 0; index < items.size(); ++index) {
+					objects.put(items.keyAt(index), items.valueAt(index));
+				}
+				publishObjects(objects);
+			}
+		}
+		if (mNotifyOnChange) {
+			notifyDataSetChanged();
+		}
+	}
+
+	/**
+	 * Same as {@link #putAll(LongKeyArray)}, for the platform's LongSparseArray. Requires API
+	 * 16.
+	 */
+	@TargetApi(Build.VERSION_CODES.JELLY_BEAN)
+	public void putAll(@NonNull LongSparseArray<T> items) {
+		putAll(LongKeyArray.from(items));
+	}
+
+	/**
+	 * Adds the specified key and item to the adapter, replacing the previous mapping from the
+	 * specified key if there was one. Will repeat the last filtering request if invoked while
+	 * filtered results are being displayed.
+	 */
+	public void putWithId(long keyId, @Nullable T item) {
+		synchronized (mLock) {
+			if (mOriginalValues != null) {
+				mOriginalValues.put(keyId, item);
+				refilter();
+			} else {
+				LongKeyArray<T> objects = editObjects();
+				objects.put(keyId, item);
+				publishObjects(objects);
+			}
+		}
+		if (mNotifyOnChange) {
+			notifyDataSetChanged();
+		}
+	}
+
+	/**
+	 * Shows the changed items, or holds them as the batch's private copy until the outermost batch
+	 * commits. Must be invoked while holding {@link #mLock}.
+	 */
+	private void publishObjects(@NonNull LongKeyArray<T> objects) {
+		if (mBatchDepth == 0) {
+			mObjects = objects;
+		} else {
+			mBatchObjects = objects;
+		}
+	}
+
+	/**
+	 * Repeats the last filtering request, or defers it until the current batch commits. Must be
+	 * invoked while holding {@link #mLock}.
+	 */
+	private void refilter() {
+		if (mBatchDepth > 0) {
+			mIsRefilterPending = true;
+		} else {
+			FilterExecutor.refilter(this, mLastConstraint);
+		}
+	}
+
+	/**
+	 * Removes the mapping at the specified position in the adapter.  Be aware this method is only a
+	 * constant amortised time operation when the adapter is not filtered. Otherwise, the position
+	 * must be converted to a unfiltered position; which requires a binary search on the original
+	 * unfiltered sparse array.
+	 *
+	 * @param position The position of the item to remove
+	 */
+	public void remove(int position) {
+		synchronized (mLock) {
+			if (mOriginalValues != null) {
+				int newPosition = mOriginalValues.indexOfKey(mObjects.keyAt(position));
+				mOriginalValues.removeAt(newPosition);
+			}
+			int newPosition = toNewestPosition(position);
+			if (newPosition >= 0) {
+				LongKeyArray<T> objects = editObjects();
+				objects.removeAt(newPosition);
+				publishObjects(objects);
+			}
+		}
+		if (mNotifyOnChange) {
+			notifyDataSetChanged();
+		}
+	}
+
+	/**
+	 * Removes all items from the adapter that are found within the specified LongKeyArray.
+	 *
+	 * @param items The LongKeyArray items to remove from the adapter.
+	 */
+	public void removeAll(@NonNull LongKeyArray<T> items) {
+		synchronized (mLock) {
+			if (mOriginalValues != null) {
+				for (int index = 0; index < items.size(); ++index) {
+					mOriginalValues.delete(items.keyAt(index));
+				}
+			}
+			LongKeyArray<T> objects = editObjects();
+			for (int index = 0; index < items.size(); ++index) {
+				objects.delete(items.keyAt(index));
+			}
+			publishObjects(objects);
+		}
+		if (mNotifyOnChange) {
+			notifyDataSetChanged();
+		}
+	}
+
+	/**
+	 * Same as {@link #removeAll(LongKeyArray)}, for the platform's LongSparseArray. Requires API
+	 * 16.
+	 */
+	@TargetApi(Build.VERSION_CODES.JELLY_BEAN)
+	public void removeAll(@NonNull LongSparseArray<T> items) {
+		removeAll(LongKeyArray.from(items));
+	}
+
+	/**
+	 * Removes the mapping with the specified keyId from the adapter.
+	 *
+	 * @param keyId The keyId to remove.
+	 */
+	public void removeWithId(long keyId) {
+		synchronized (mLock) {
+			if (mOriginalValues != null) {
+				mOriginalValues.delete(keyId);
+			}
+			LongKeyArray<T> objects = editObjects();
+			objects.delete(keyId);
+			publishObjects(objects);
+		}
+		if (mNotifyOnChange) {
+			notifyDataSetChanged();
+		}
+	}
+
+	/**
+	 * <p>Controls whether methods that change the list ({@link #appendWithId}, {@link #putWithId},
+	 * {@link #remove}, {@link #clear}) automatically call {@link #notifyDataSetChanged}.  If set to
+	 * false, caller must manually call notifyDataSetChanged() to have the changes reflected in the
+	 * attached view.</p>
+	 *
+	 * <p>The default is true, and calling notifyDataSetChanged() resets the flag to true.</p>
+	 *
+	 * @param notifyOnChange if true, modifications to the list will automatically call {@link
+	 *                       #notifyDataSetChanged}
+	 */
+	public void setNotifyOnChange(boolean notifyOnChange) {
+		mNotifyOnChange = notifyOnChange;
+	}
+
+	/**
+	 * Converts a position shown into one within {@link #getNewestObjects()}. Only requires a binary
+	 * search once changed within the current batch. Must be invoked while holding {@link #mLock}.
+	 *
+	 * @return The position, or a negative number if the item has since been removed.
+	 */
+	private int toNewestPosition(int position) {
+		if (mBatchObjects == null) {
+			return position;
+		}
+		return mBatchObjects.indexOfKey(mObjects.keyAt(position));
+	}
+
+	/**
+	 * A LongSparseArray filter constrains the content of the adapter. Whether an item is
+	 * constrained or not is delegated to subclasses through {@link LongSparseAdapter#isFilteredOut}
+	 */
+	private class LongSparseArrayFilter extends PooledFilter {
+		@Override
+		protected FilterResults performPooledFiltering(CharSequence constraint) {
+			FilterResults results = new FilterResults();
+			final LongKeyArray<T> values;
+
+			synchronized (mLock) {
+				if (TextUtils.isEmpty(constraint)) {    //Clearing out filtered results
+					if (mOriginalValues != null) {
+						mObjects = mOriginalValues.clone();
+						mOriginalValues = null;
+						mBatchObjects = null;    //Unfiltered items hold the batch's changes
+					}
+					results.values = mObjects;
+					results.count = mObjects.size();
+					return results;
+				} else {    //Ready for filtering
+					if (mOriginalValues == null) {
+						mOriginalValues = getNewestObjects().clone();
+					}
+					mBatchObjects = null;    //Unfiltered items now hold the batch's changes
+					values = mOriginalValues.clone();
+				}
+			}
+
+			final LongKeyArray<T> newValues = new LongKeyArray<>();
+			for (int index = 0; index < values.size(); ++index) {
+				if (!isFilteredOut(values.keyAt(index), values.valueAt(index), constraint)) {
+					newValues.append(values.keyAt(index), values.valueAt(index));
+				}
+			}
+
+			results.values = newValues;
+			results.count = newValues.size();
+
+			return results;
+		}
+
+		@SuppressWarnings("unchecked")
+		@Override
+		protected void publishPooledResults(CharSequence constraint, FilterResults results) {
+			mLastConstraint = constraint;
+			synchronized (mLock) {
+				mObjects = (LongKeyArray<T>) results.values;
+			}
+			if (results.count > 0) {
+				notifyDataSetChanged();
+			} else {
+				notifyDataSetInvalidated();
+			}
+		}
+	}
+}
\ No newline at end of file
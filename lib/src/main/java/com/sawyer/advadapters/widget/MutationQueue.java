@@ -0,0 +1,109 @@
+/*
+ * Copyright 2014 Jay Soyer
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sawyer.advadapters.widget;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Collects changes made to an adapter from any thread and hands them over all at once on the main
+ * thread. Changes are held within a lock free queue, so posting one never blocks. No matter how
+ * many changes are posted before the main thread gets to them, only a single drain is ever
+ * scheduled. The adapter can then apply the whole batch under one lock and notify once.
+ */
+final class MutationQueue<T> {
+	private final ConcurrentLinkedQueue<Mutation<T>> mPending = new ConcurrentLinkedQueue<>();
+	/** Whether a drain has been posted to the main thread and has not started yet */
+	private final AtomicBoolean mIsScheduled = new AtomicBoolean();
+	private final Handler mHandler = new Handler(Looper.getMainLooper());
+	private final Target<T> mTarget;
+	private final Runnable mDrain = new Runnable() {
+		@Override
+		public void run() {
+			drain();
+		}
+	};
+
+	MutationQueue(@NonNull Target<T> target) {
+		mTarget = target;
+	}
+
+	private void drain() {
+		//Cleared before polling, so a change posted while draining schedules another drain
+		mIsScheduled.set(false);
+		List<Mutation<T>> mutations = new ArrayList<>();
+		Mutation<T> mutation;
+		while ((mutation = mPending.poll()) != null) {
+			mutations.add(mutation);
+		}
+		if (!mutations.isEmpty()) {
+			mTarget.apply(mutations);
+		}
+	}
+
+	/**
+	 * Queues the change, scheduling a drain on the main thread if one isn't already pending. Safe
+	 * to call from any thread.
+	 */
+	void post(@NonNull Mutation<T> mutation) {
+		mPending.offer(mutation);
+		if (mIsScheduled.compareAndSet(false, true)) {
+			mHandler.post(mDrain);
+		}
+	}
+
+	/**
+	 * Receives every change queued since the last drain, in the order they were posted. Always
+	 * invoked on the main thread.
+	 */
+	interface Target<T> {
+		void apply(@NonNull List<Mutation<T>> mutations);
+	}
+
+	/**
+	 * A single change waiting to be applied to an adapter.
+	 */
+	static final class Mutation<T> {
+		static final int ADD = 0;
+		static final int ADD_ALL = 1;
+		static final int REMOVE = 2;
+		static final int REMOVE_ALL = 3;
+		static final int UPDATE = 4;
+
+		final int op;
+		final T item;
+		final Collection<?> items;
+		final int position;
+		final int childPosition;
+
+		Mutation(int op, @Nullable T item, @Nullable Collection<?> items, int position,
+				 int childPosition) {
+			this.op = op;
+			this.item = item;
+			this.items = items;
+			this.position = position;
+			this.childPosition = childPosition;
+		}
+	}
+}
@@ -28,6 +28,9 @@ import org.json.JSONException;
 import org.json.JSONObject;
 import org.json.JSONTokener;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
 import java.util.Collection;
 
 /**
@@ -213,6 +216,31 @@ public abstract class NFJSONArrayAdapter extends BaseAdapter {
 		}
 	}
 
+	/**
+	 * Writes the adapter's items as UTF-8 encoded JSON text, in the same form as {@link
+	 * JSONArray#toString()}. The items are streamed one at a time, so neither a copy of the items
+	 * nor their complete text is ever built. The stream is flushed but not closed.
+	 *
+	 * @param stream Stream to write to
+	 *
+	 * @throws IOException If writing to the stream fails
+	 */
+	public void exportTo(@NonNull OutputStream stream) throws IOException {
+		JSONExport.write(mObjects, stream);
+	}
+
+	/**
+	 * Writes the adapter's items as JSON text. The writer is flushed but not closed. See {@link
+	 * #exportTo(OutputStream)}.
+	 *
+	 * @param writer Writer to write to
+	 *
+	 * @throws IOException If writing to the writer fails
+	 */
+	public void exportTo(@NonNull Writer writer) throws IOException {
+		JSONExport.write(mObjects, writer);
+	}
+
 	/**
 	 * @return The Context associated with this adapter.
 	 */
@@ -427,6 +455,36 @@ public abstract class NFJSONArrayAdapter extends BaseAdapter {
 		mObjects = objects;
 	}
 
+	/**
+	 * Inserts the specified item at the specified position in the adapter. May not be NaN or
+	 * infinity which will cause the adapter to be in an inconsistent state.
+	 *
+	 * @param position The position at which the item must be inserted.
+	 * @param item     The item to insert into the adapter.
+	 */
+	public void insert(int position, @Nullable Object item) {
+		insertAll(position, new JSONArray().put(item));
+	}
+
+	/**
+	 * Inserts the specified items at the specified position in the adapter, in a single pass over
+	 * the adapter's items. May not contain NaNs or infinities which will cause the adapter to be in
+	 * an inconsistent state.
+	 *
+	 * @param position The position at which the items must be inserted.
+	 * @param items    The items to insert into the adapter.
+	 */
+	public void insertAll(int position, @NonNull JSONArray items) {
+		if (position < 0 || position > mObjects.length()) {
+			throw new IndexOutOfBoundsException("Invalid position " + position + ", size is " +
+												mObjects.length());
+		}
+		mObjects = JSONArrayStore.splice(mObjects, position, items);
+		if (mNotifyOnChange) {
+			notifyDataSetChanged();
+		}
+	}
+
 	/**
 	 * @return True if this adapter has no value at position, or if it's value is the {@code null}
 	 * reference or {@link org.json.JSONObject#NULL NULL}.
@@ -607,6 +665,80 @@ public abstract class NFJSONArrayAdapter extends BaseAdapter {
 		return mObjects.optString(position, fallback);
 	}
 
+	/**
+	 * Removes the item at the specified position in the adapter.
+	 *
+	 * @param position The position of the item to remove
+	 */
+	public void remove(int position) {
+		removeAll(position);
+	}
+
+	/**
+	 * Removes the items at each of the specified positions in the adapter, in a single pass over
+	 * the adapter's items. The positions may be given in any order.
+	 *
+	 * @param positions The positions of the items to remove
+	 */
+	public void removeAll(@NonNull int... positions) {
+		int length = mObjects.length();
+		boolean[] removed = new boolean[length];
+		for (int position : positions) {
+			if (position < 0 || position >= length) {
+				throw new IndexOutOfBoundsException("Invalid position " + position +
+													", size is " + length);
+			}
+			removed[position] = true;
+		}
+		removeMarked(removed);
+	}
+
+	/**
+	 * Removes all items from the adapter which satisfy the specified predicate, in a single pass
+	 * over the adapter's items.
+	 *
+	 * @param predicate Determines which items to remove
+	 */
+	public void removeAll(@NonNull JSONPredicate predicate) {
+		removeWhere(predicate, true);
+	}
+
+	private void removeMarked(@NonNull boolean[] removed) {
+		int[] kept = new int[removed.length];
+		int count = 0;
+		for (int index = 0; index < removed.length; ++index) {
+			if (!removed[index]) {
+				kept[count++] = index;
+			}
+		}
+		if (count == removed.length) {
+			return;
+		}
+		mObjects = JSONArrayStore.select(mObjects, kept, count);
+		if (mNotifyOnChange) {
+			notifyDataSetChanged();
+		}
+	}
+
+	private void removeWhere(@NonNull JSONPredicate predicate, boolean outcome) {
+		boolean[] removed = new boolean[mObjects.length()];
+		for (int index = 0; index < removed.length; ++index) {
+			Object value = mObjects.opt(index);
+			removed[index] = (value != null) ? predicate.apply(value) == outcome : !outcome;
+		}
+		removeMarked(removed);
+	}
+
+	/**
+	 * Removes all items from the adapter which do not satisfy the specified predicate, in a single
+	 * pass over the adapter's items.
+	 *
+	 * @param predicate Determines which items to retain
+	 */
+	public void retainAll(@NonNull JSONPredicate predicate) {
+		removeWhere(predicate, false);
+	}
+
 	/**
 	 * <p>Control whether methods that change the list ({@link #add}, {@link #clear}) automatically
 	 * call {@link #notifyDataSetChanged}.  If set to false, caller must manually call
@@ -621,6 +753,29 @@ public abstract class NFJSONArrayAdapter extends BaseAdapter {
 		mNotifyOnChange = notifyOnChange;
 	}
 
+	/**
+	 * <p>Sorts the content of this adapter by the value of a field within each item. The field is
+	 * addressed by a dot separated path, such as {@code "director.name"}. A segment made only of
+	 * digits indexes into a JSONArray. Each item's sort key is read only once, so sorting is far
+	 * cheaper than comparing JSONObjects with a comparator.</p>
+	 *
+	 * <p>Numbers compare numerically, booleans as false before true, and text by {@link
+	 * String#compareTo(String)}. When the keys are of mixed kinds, numbers come first, then
+	 * booleans, then text. Items missing the field, or which are not JSONObjects, always sort last.
+	 * The sort is stable.</p>
+	 *
+	 * @param fieldPath Dot separated path of the field to sort by
+	 * @param ascending True to sort in ascending order, false for descending
+	 *
+	 * @throws IllegalArgumentException If the path is empty or has an empty segment
+	 */
+	public void sortBy(@NonNull String fieldPath, boolean ascending) {
+		mObjects = JSONSort.sort(mObjects, JSONFieldPath.parse(fieldPath), ascending);
+		if (mNotifyOnChange) {
+			notifyDataSetChanged();
+		}
+	}
+
 	/**
 	 * Updates the item at the specified position in the adapter with the specified item. This
 	 * operation does not change the size of the adapter.
@@ -0,0 +1,197 @@
+/*
+ * Copyright 2014 Jay Soyer
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sawyer.advadapters.widget;
+
+import android.content.Context;
+import android.support.annotation.NonNull;
+import android.widget.BaseAdapter;
+
+/**
+ * <p>A non-filterable custom abstract {@link BaseAdapter} that is backed by a growable array of
+ * long values. By default this class delegates view generation to subclasses.</p>
+ *
+ * <p>Mirrors the {@link NFArrayAdapter} for lists of numbers, such as timestamps. Values are kept
+ * within a single long[] instead of an ArrayList of Long, so a large list takes a fraction of the
+ * heap. Use {@link #getItemLong(int)} to read a value without boxing it.</p>
+ *
+ * <p>If filtering is required, it's strongly recommended to use the {@link LongArrayAdapter}
+ * instead.</p>
+ */
+public abstract class NFLongArrayAdapter extends AbsNFPrimitiveArrayAdapter<LongList, long[]> {
+	/**
+	 * Constructor
+	 *
+	 * @param activity Context used for inflating views
+	 */
+	public NFLongArrayAdapter(@NonNull Context activity) {
+		super(activity, new LongList());
+	}
+
+	/**
+	 * Constructor
+	 *
+	 * @param activity Context used for inflating views
+	 * @param items    The items to represent within the adapter.
+	 */
+	public NFLongArrayAdapter(@NonNull Context activity, @NonNull long[] items) {
+		super(activity, new LongList(items));
+	}
+
+	/**
+	 * Adds the specified item at the end of the adapter.
+	 *
+	 * @param item The item to add at the end of the adapter.
+	 */
+	public void add(long item) {
+		addItems(LongList.wrap(item));
+	}
+
+	/**
+	 * Adds the specified items at the end of the adapter.
+	 *
+	 * @param items The items to add at the end of the adapter.
+	 */
+	public void addAll(@NonNull long... items) {
+		addItems(LongList.wrap(items));
+	}
+
+	/**
+	 * Tests whether this adapter contains the specified item. Be aware that this is a linear
+	 * search.
+	 *
+	 * @param item The item to search for
+	 *
+	 * @return {@code true} if the item is an element of this adapter. {@code false} otherwise
+	 */
+	public boolean contains(long item) {
+		return getValues().contains(item);
+	}
+
+	/**
+	 * Boxes the value at the specified position. Prefer {@link #getItemLong(int)}, which doesn't.
+	 */
+	@Override
+	public Long getItem(int position) {
+		return getValues().get(position);
+	}
+
+	/**
+	 * Gets the value at the specified position, without boxing it.
+	 *
+	 * @param position Position of the item whose data we want within the adapter's data set.
+	 *
+	 * @return The value at the specified position.
+	 */
+	public long getItemLong(int position) {
+		return getValues().get(position);
+	}
+
+	/**
+	 * @return A copy of the values stored within the Adapter
+	 */
+	@NonNull
+	public long[] getList() {
+		return getItems();
+	}
+
+	/**
+	 * Resets the adapter to store a new list of items. Convenient way of calling {@link #clear()},
+	 * then {@link #addAll(long...)} without having to worry about an extra {@link
+	 * #notifyDataSetChanged()} invoked in between.
+	 *
+	 * @param items New list of items to store within the adapter.
+	 */
+	public void setList(@NonNull long[] items) {
+		setItems(new LongList(items));
+	}
+
+	/**
+	 * Returns the position of the specified item in the array.  Be aware that this is a linear
+	 * search.
+	 *
+	 * @param item The item to retrieve the position of.
+	 *
+	 * @return The position of the specified item.
+	 */
+	public int getPosition(long item) {
+		return getValues().indexOf(item);
+	}
+
+	/**
+	 * Inserts the specified item at the specified index in the array.
+	 *
+	 * @param index The index at which the item must be inserted.
+	 * @param item  The item to insert into the adapter.
+	 */
+	public void insert(int index, long item) {
+		insertItems(index, LongList.wrap(item));
+	}
+
+	/**
+	 * Inserts the specified items at the specified location in this adapter, in the order given.
+	 *
+	 * @param index The index at which the items must be inserted.
+	 * @param items The items to be inserted.
+	 */
+	public void insertAll(int index, @NonNull long... items) {
+		insertItems(index, LongList.wrap(items));
+	}
+
+	/**
+	 * Removes the first occurrence of the specified item from the adapter. Be aware the item is a
+	 * value to search for, not a position.
+	 *
+	 * @param item The item to remove.
+	 */
+	public void remove(long item) {
+		removeItem(LongList.wrap(item));
+	}
+
+	/**
+	 * Removes all occurrences in the adapter of each of the specified items.
+	 *
+	 * @param items The items to remove
+	 */
+	public void removeAll(@NonNull long... items) {
+		removeItems(LongList.wrap(items));
+	}
+
+	/**
+	 * Removes all items from this adapter that are not among the specified items.
+	 *
+	 * @param items The items to retain
+	 */
+	public void retainAll(@NonNull long... items) {
+		retainItems(LongList.wrap(items));
+	}
+
+	@Override
+	@NonNull
+	long[] toPublic(@NonNull LongList values) {
+		return values.toArray();
+	}
+
+	/**
+	 * Updates the item at the specified position in the adapter with the specified item. This
+	 * operation does not change the size of the adapter.
+	 *
+	 * @param position The location at which to put the specified item
+	 * @param item     The new item to replace with the old
+	 */
+	public void update(int position, long item) {
+		updateAt(position, LongList.wrap(item));
+	}
+}
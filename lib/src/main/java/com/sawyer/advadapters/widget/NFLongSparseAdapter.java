@@ -0,0 +1,435 @@
+/*
+ * Copyright 2014 Jay Soyer
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sawyer.advadapters.widget;
+
+import android.annotation.TargetApi;
+import android.content.Context;
+import android.os.Build;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.util.LongSparseArray;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.BaseAdapter;
+
+/**
+ * <p>A non-filterable custom abstract {@link BaseAdapter} that is backed by a {@link
+ * LongKeyArray} of arbitrary objects.  By default this class delegates view generation to
+ * subclasses.</p>
+ *
+ * <p>The 64-bit counterpart of the {@link NFSparseAdapter}, for data keyed by longs such as server
+ * IDs. Keys are held in a sorted long[] and looked up with a binary search, without boxing. An
+ * adapter's row ID is the item's key and vice versa, so the IDs are stable and {@link
+ * #hasStableIds()} returns true. Any method requiring a key will have <i>"withId"</i> in the
+ * name.</p>
+ *
+ * <p>Backed by a {@link LongKeyArray}, which mappings are exchanged as. The platform's {@link
+ * LongSparseArray} is only available from API 16, so it's only accepted by overloads which
+ * require API 16. The adapter itself works on every API level the library supports.</p>
+ *
+ * <p>If filtering is required, it's strongly recommended to use the {@link LongSparseAdapter}
+ * instead.</p>
+ */
+public abstract class NFLongSparseAdapter<T> extends BaseAdapter {
+
+	/** LayoutInflater created from the constructing context */
+	private LayoutInflater mInflater;
+	/** Activity Context used to construct this adapter * */
+	private Context mContext;
+	/**
+	 * Contains the sparse array of objects that represent the visible data of the adapter. It's
+	 * contents will change as filtering occurs. All methods retrieving data about the adapter will
+	 * always do so from this sparse array.
+	 */
+	private LongKeyArray<T> mObjects;
+	/**
+	 * Indicates whether or not {@link #notifyDataSetChanged()} must be called whenever {@link
+	 * #mObjects} is modified.
+	 */
+	private boolean mNotifyOnChange = true;
+
+	/**
+	 * Constructor
+	 *
+	 * @param activity Context used for inflating views
+	 */
+	public NFLongSparseAdapter(@NonNull Context activity) {
+		init(activity, null);
+	}
+
+	/**
+	 * Constructor
+	 *
+	 * @param activity Context used for inflating views
+	 * @param items    The items to represent within the adapter.
+	 */
+	public NFLongSparseAdapter(@NonNull Context activity, @NonNull LongKeyArray<T> items) {
+		init(activity, items);
+	}
+
+	/**
+	 * Constructor. Requires API 16.
+	 *
+	 * @param activity Context used for inflating views
+	 * @param items    The items to represent within the adapter.
+	 */
+	@TargetApi(Build.VERSION_CODES.JELLY_BEAN)
+	public NFLongSparseAdapter(@NonNull Context activity, @NonNull LongSparseArray<T> items) {
+		init(activity, LongKeyArray.from(items));
+	}
+
+	/**
+	 * Appends the specified LongKeyArray at the end of the adapter, optimizing for the case
+	 * where all the keys are greater then all existing keys in the adapter. This includes the given
+	 * items having it's keys in sequential order as well.
+	 *
+	 * @param items The LongKeyArray items to add at the end of the adapter.
+	 */
+	public void appendAll(@NonNull LongKeyArray<T> items) {
+		for (int index = 0; index < items.size(); ++index) {
+			mObjects.append(items.keyAt(index), items.valueAt(index));
+		}
+		if (mNotifyOnChange) notifyDataSetChanged();
+	}
+
+	/**
+	 * Same as {@link #appendAll(LongKeyArray)}, for the platform's LongSparseArray. Requires API
+	 * 16.
+	 */
+	@TargetApi(Build.VERSION_CODES.JELLY_BEAN)
+	public void appendAll(@NonNull LongSparseArray<T> items) {
+		appendAll(LongKeyArray.from(items));
+	}
+
+	/**
+	 * Appends the specified key and item pair to the end of the adapter, optimizing for the case
+	 * where the key is greater then all existing keys in the adapter.
+	 *
+	 * @param keyId The keyId to append with
+	 * @param item  The item to append with
+	 */
+	public void appendWithId(long keyId, @Nullable T item) {
+		mObjects.append(keyId, item);
+		if (mNotifyOnChange) notifyDataSetChanged();
+	}
+
+	/**
+	 * Removes all items from the adapter.
+	 */
+	public void clear() {
+		mObjects.clear();
+		if (mNotifyOnChange) notifyDataSetChanged();
+	}
+
+	/**
+	 * Determines if the specified keyId exists within the adapter.
+	 *
+	 * @param keyId The keyId to search for
+	 *
+	 * @return {@code true} if the keyId is found within the adapter. {@code false} otherwise.
+	 */
+	public boolean containsId(long keyId) {
+		return mObjects.indexOfKey(keyId) >= 0;
+	}
+
+	/**
+	 * <p>Determines if the specified item exists within the adapter. Be aware that this is a linear
+	 * search, unlike look-ups by key, and that multiple keys can map to the same value and this
+	 * will find only one of them.</p>
+	 *
+	 * <p>Note also that unlike most collections this method compares values using == rather than
+	 * equals...a result of how LongSparseArrays are implemented.</p>
+	 *
+	 * @param item The item to search for
+	 *
+	 * @return {@code true} if the item is an element of this adapter. {@code false} otherwise
+	 */
+	public boolean containsItem(@Nullable T item) {
+		return mObjects.indexOfValue(item) >= 0;
+	}
+
+	/**
+	 * @return The Context associated with this adapter.
+	 */
+	@NonNull
+	public Context getContext() {
+		return mContext;
+	}
+
+	@Override
+	public int getCount() {
+		return mObjects.size();
+	}
+
+	/**
+	 * <p>Get a {@link android.view.View} that displays in the drop down popup the data at the
+	 * specified position in the data set.</p>
+	 *
+	 * @param inflater    the LayoutInflater object that can be used to inflate each view.
+	 * @param position    index of the item whose view we want.
+	 * @param convertView the old view to reuse, if possible. Note: You should check that this view
+	 *                    is non-null and of an appropriate type before using. If it is not possible
+	 *                    to convert this view to display the correct data, this method can create a
+	 *                    new view.
+	 * @param parent      the parent that this view will eventually be attached to
+	 *
+	 * @return a {@link android.view.View} corresponding to the data at the specified position.
+	 */
+	@NonNull
+	public View getDropDownView(@NonNull LayoutInflater inflater, int position,
+								@Nullable View convertView, @NonNull ViewGroup parent) {
+		return getView(inflater, position, convertView, parent);
+	}
+
+	@Override
+	public final View getDropDownView(int position, View convertView, ViewGroup parent) {
+		return getDropDownView(mInflater, position, convertView, parent);
+	}
+
+	@Override
+	public T getItem(int position) {
+		return mObjects.valueAt(position);
+	}
+
+	@Override
+	public long getItemId(int position) {
+		return mObjects.keyAt(position);
+	}
+
+	/**
+	 * @return The Item mapped by the keyId or null if no such mapping has been made
+	 */
+	@Nullable
+	public T getItemWithId(long keyId) {
+		return mObjects.get(keyId);
+	}
+
+	/**
+	 * <p>Returns the position of the specified item in the sparse array. Be aware that this is a
+	 * linear search, unlike look-ups by key,and that multiple keys can map to the same value and
+	 * this will find only one of them.</p>
+	 *
+	 * <p>Note also that unlike most collections, this method compares values using == rather than
+	 * equals.</p>
+	 *
+	 * @param item The item to retrieve the position of.
+	 *
+	 * @return The position of the specified item, or a negative number if not found.
+	 */
+	public int getPosition(@Nullable T item) {
+		return mObjects.indexOfValue(item);
+	}
+
+	/**
+	 * @param keyId The keyId to search for
+	 *
+	 * @return the position for which a keyId is found, or a negative number if not found.
+	 */
+	public int getPosition(long keyId) {
+		return mObjects.indexOfKey(keyId);
+	}
+
+	/**
+	 * @return The LongKeyArray of items stored within the adapter.
+	 */
+	@NonNull
+	public LongKeyArray<T> getLongKeyArray() {
+		return mObjects.clone();
+	}
+
+	/**
+	 * Same as {@link #getLongKeyArray()}, as the platform's LongSparseArray. Requires API 16.
+	 */
+	@NonNull
+	@TargetApi(Build.VERSION_CODES.JELLY_BEAN)
+	public LongSparseArray<T> getLongSparseArray() {
+		return mObjects.toLongSparseArray();
+	}
+
+	/**
+	 * Resets the adapter to store a new LongKeyArray of items. Though equivalent to calling
+	 * {@link #clear()}, followed by {@link #putAll}; this method is more efficient. It performs a
+	 * straight clone of the items instead of having to perform a binary search before putting each
+	 * item within the adapter.
+	 *
+	 * @param items New LongKeyArray of items to store within the adapter.
+	 */
+	public void setLongKeyArray(@NonNull LongKeyArray<T> items) {
+		mObjects.clear();
+		mObjects = items.clone();
+		if (mNotifyOnChange) notifyDataSetChanged();
+	}
+
+	/**
+	 * Same as {@link #setLongKeyArray(LongKeyArray)}, for the platform's LongSparseArray. Requires
+	 * API 16.
+	 */
+	@TargetApi(Build.VERSION_CODES.JELLY_BEAN)
+	public void setLongSparseArray(@NonNull LongSparseArray<T> items) {
+		setLongKeyArray(LongKeyArray.from(items));
+	}
+
+	/**
+	 * Get a View that displays the data at the specified position in the data set.  You can either
+	 * create a View manually or inflate it from an XML layout file.  When the View is inflated, the
+	 * parent View (GridView, ListView...) will apply default layout parameters unless you {@link
+	 * android.view.LayoutInflater#inflate(int, android.view.ViewGroup, boolean) to specifiy a root
+	 * view and to prevent attachment to the root.}
+	 *
+	 * @param inflater    the LayoutInflater object that can be used to inflate each view.
+	 * @param position    The position of the item within the adapter's data set of the item whose
+	 *                    view we want
+	 * @param convertView the old view to reuse, if possible. Note: You should check that this view
+	 *                    is non-null and of an appropriate type before using. If it is not possible
+	 *                    to convert this view to display the correct data, this method can create a
+	 *                    new view.
+	 * @param parent      the parent that this view will eventually be attached to
+	 *
+	 * @return A View corresponding to the data at the specified position
+	 */
+	@NonNull
+	public abstract View getView(@NonNull LayoutInflater inflater, int position,
+								 @Nullable View convertView, @NonNull ViewGroup parent);
+
+	@Override
+	public final View getView(int position, View convertView, ViewGroup parent) {
+		return this.getView(mInflater, position, convertView, parent);
+	}
+
+	/**
+	 * @return Always true, as an adapter's row ID is the item's key.
+	 */
+	@Override
+	public boolean hasStableIds() {
+		return true;
+	}
+
+	private void init(@NonNull Context context, @Nullable LongKeyArray<T> objects) {
+		mInflater = LayoutInflater.from(context);
+		mContext = context;
+		if (objects == null) {
+			mObjects = new LongKeyArray<>();
+		} else {
+			mObjects = objects.clone();
+		}
+	}
+
+	@Override
+	public void notifyDataSetChanged() {
+		super.notifyDataSetChanged();
+		mNotifyOnChange = true;
+	}
+
+	/**
+	 * Given a position in the range of 0...{@link #getCount()} - 1, sets a new value for the
+	 * key-value stored at that position.
+	 *
+	 * @param position The position of the item to update
+	 * @param item     The item to update with
+	 */
+	public void put(int position, @Nullable T item) {
+		mObjects.setValueAt(position, item);
+		if (mNotifyOnChange) notifyDataSetChanged();
+	}
+
+	/**
+	 * Adds the specified LongKeyArray to the adapter, replacing any existing mappings from the
+	 * specified keys if there were any.
+	 *
+	 * @param items The LongKeyArray items to add to the adapter.
+	 */
+	public void putAll(@NonNull LongKeyArray<T> items) {
+		for (int index = 0; index < items.size(); ++index) {
+			mObjects.put(items.keyAt(index), items.valueAt(index));
+		}
+		if (mNotifyOnChange) notifyDataSetChanged();
+	}
+
+	/**
+	 * Same as {@link #putAll(LongKeyArray)}, for the platform's LongSparseArray. Requires API
+	 * 16.
+	 */
+	@TargetApi(Build.VERSION_CODES.JELLY_BEAN)
+	public void putAll(@NonNull LongSparseArray<T> items) {
+		putAll(LongKeyArray.from(items));
+	}
+
+	/**
+	 * Adds the specified key and item to the adapter, replacing the previous mapping from the
+	 * specified key if there was one.
+	 */
+	public void putWithId(long keyId, @Nullable T item) {
+		mObjects.put(keyId, item);
+		if (mNotifyOnChange) notifyDataSetChanged();
+	}
+
+	/**
+	 * Removes the mapping at the specified position in the adapter.
+	 *
+	 * @param position The position of the item to remove
+	 */
+	public void remove(int position) {
+		mObjects.removeAt(position);
+		if (mNotifyOnChange) notifyDataSetChanged();
+	}
+
+	/**
+	 * Removes all items from the adapter that are found within the specified LongKeyArray.
+	 *
+	 * @param items The LongKeyArray items to remove from the adapter.
+	 */
+	public void removeAll(@NonNull LongKeyArray<T> items) {
+		for (int index = 0; index < items.size(); ++index) {
+			mObjects.delete(items.keyAt(index));
+		}
+		if (mNotifyOnChange) notifyDataSetChanged();
+	}
+
+	/**
+	 * Same as {@link #removeAll(LongKeyArray)}, for the platform's LongSparseArray. Requires API
+	 * 16.
+	 */
+	@TargetApi(Build.VERSION_CODES.JELLY_BEAN)
+	public void removeAll(@NonNull LongSparseArray<T> items) {
+		removeAll(LongKeyArray.from(items));
+	}
+
+	/**
+	 * Removes the mapping with the specified keyId from the adapter.
+	 *
+	 * @param keyId The keyId to remove.
+	 */
+	public void removeWithId(long keyId) {
+		mObjects.delete(keyId);
+		if (mNotifyOnChange) notifyDataSetChanged();
+	}
+
+	/**
+	 * <p>Controls whether methods that change the list ({@link #appendWithId}, {@link #putWithId},
+	 * {@link #remove}, {@link #clear}) automatically call {@link #notifyDataSetChanged}.  If set to
+	 * false, caller must manually call notifyDataSetChanged() to have the changes reflected in the
+	 * attached view.</p>
+	 *
+	 * <p>The default is true, and calling notifyDataSetChanged() resets the flag to true.</p>
+	 *
+	 * @param notifyOnChange if true, modifications to the list will automatically call {@link
+	 *                       #notifyDataSetChanged}
+	 */
+	public void setNotifyOnChange(boolean notifyOnChange) {
+		mNotifyOnChange = notifyOnChange;
+	}
+}
\ No newline at end of file
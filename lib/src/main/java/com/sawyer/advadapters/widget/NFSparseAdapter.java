@@ -83,9 +83,7 @@ public abstract class NFSparseAdapter<T> extends BaseAdapter {
 	 * @param items The SparseArray items to add at the end of the adapter.
 	 */
 	public void appendAll(@NonNull SparseArray<T> items) {
-		for (int index = 0; index < items.size(); ++index) {
-			mObjects.append(items.keyAt(index), items.valueAt(index));
-		}
+		mObjects = SparseArrays.putAll(mObjects, items);
 		if (mNotifyOnChange) notifyDataSetChanged();
 	}
 
@@ -296,14 +294,13 @@ public abstract class NFSparseAdapter<T> extends BaseAdapter {
 
 	/**
 	 * Adds the specified SparseArray to the adapter, replacing any existing mappings from the
-	 * specified keys if there were any.
+	 * specified keys if there were any. The keys of both are merged in a single linear pass, rather
+	 * than putting each item in turn.
 	 *
 	 * @param items The SparseArray items to add to the adapter.
 	 */
 	public void putAll(@NonNull SparseArray<T> items) {
-		for (int index = 0; index < items.size(); ++index) {
-			mObjects.put(items.keyAt(index), items.valueAt(index));
-		}
+		mObjects = SparseArrays.putAll(mObjects, items);
 		if (mNotifyOnChange) notifyDataSetChanged();
 	}
 
@@ -327,14 +324,13 @@ public abstract class NFSparseAdapter<T> extends BaseAdapter {
 	}
 
 	/**
-	 * Removes all items from the adapter that are found within the specified SparseArray.
+	 * Removes all items from the adapter that are found within the specified SparseArray. The keys
+	 * of both are compared in a single linear pass, rather than deleting each key in turn.
 	 *
 	 * @param items The SparseArray items to remove from the adapter.
 	 */
 	public void removeAll(@NonNull SparseArray<T> items) {
-		for (int index = 0; index < items.size(); ++index) {
-			mObjects.delete(items.keyAt(index));
-		}
+		mObjects = SparseArrays.removeAll(mObjects, items, null);
 		if (mNotifyOnChange) notifyDataSetChanged();
 	}
 
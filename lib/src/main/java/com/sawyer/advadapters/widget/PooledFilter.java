@@ -0,0 +1,234 @@
+/*
+ * Copyright 2014 Jay Soyer
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sawyer.advadapters.widget;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.support.annotation.Nullable;
+import android.util.Log;
+import android.widget.Filter;
+
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * <p>A {@link Filter} which can also run on the shared {@link FilterExecutor}, instead of a worker
+ * thread of it's own. Since {@link Filter#filter(CharSequence)} is final, requests only run on the
+ * executor when made through {@link #submit(CharSequence, FilterListener)} or {@link #refilter()}.
+ * Results are published on the main thread, just as with Filter.</p>
+ *
+ * <p>Requests made through Filter's own thread and through the executor form a single sequence.
+ * Runs never overlap, each holds a run lock for it's whole duration. Each run is stamped with a
+ * generation when it starts, and the results of a run are dropped once a later run has started.
+ * Only the results of the newest run are ever published, whichever thread they were posted
+ * from.</p>
+ *
+ * <p>Only one request per filter is ever submitted to the executor at a time. Requests made
+ * while one is running are coalesced, only the latest of them is run once the current one
+ * completes. A {@link #refilter()} request repeats the constraint of the newest request, from
+ * either path, as it stands when the run starts.</p>
+ */
+abstract class PooledFilter extends Filter {
+	private static final String LOG_TAG = "PooledFilter";
+	private static final Handler MAIN_HANDLER = new Handler(Looper.getMainLooper());
+
+	private final Object mRequestLock = new Object();
+	/** Held for each whole run, so runs on Filter's thread and the executor never overlap */
+	private final Object mRunLock = new Object();
+	/** Whether a request is waiting to run. Only the latest one waiting is kept */
+	private boolean mHasPending;
+	/** Whether the request waiting repeats the newest constraint, rather than it's own */
+	private boolean mIsPendingRepeat;
+	private CharSequence mPendingConstraint;
+	private FilterListener mPendingListener;
+	/** Whether this filter is currently submitted to, or running on, the executor */
+	private boolean mIsSubmitted;
+	/** Constraint of the newest request, from either path. Repeated by {@link #refilter()} */
+	private CharSequence mConstraint;
+	/** Generation of the newest run started. The results of any earlier run are dropped */
+	private int mGeneration;
+	private final Runnable mRunner = new Runnable() {
+		@Override
+		public void run() {
+			runPending();
+		}
+	};
+
+	/**
+	 * Filters the items. Invoked on a worker thread, one run at a time. See {@link
+	 * Filter#performFiltering(CharSequence)}.
+	 */
+	protected abstract FilterResults performPooledFiltering(CharSequence constraint);
+
+	@Override
+	protected final FilterResults performFiltering(CharSequence constraint) {
+		synchronized (mRequestLock) {
+			mConstraint = constraint;    //Made through Filter's own thread, the newest request
+		}
+		return run(constraint, false);
+	}
+
+	/**
+	 * Publishes the results of the newest run. Invoked on the main thread. See {@link
+	 * Filter#publishResults(CharSequence, FilterResults)}.
+	 */
+	protected abstract void publishPooledResults(CharSequence constraint, FilterResults results);
+
+	@Override
+	protected final void publishResults(CharSequence constraint, FilterResults results) {
+		if (results instanceof SequencedResults) {
+			SequencedResults sequenced = (SequencedResults) results;
+			synchronized (mRequestLock) {
+				if (sequenced.generation != mGeneration) {
+					return;    //A later run has started, these results are stale
+				}
+			}
+			constraint = sequenced.constraint;
+		}
+		publishPooledResults(constraint, results);
+	}
+
+	/**
+	 * Repeats the constraint of the newest request on the shared executor, replacing any request
+	 * still waiting to run. Safe to call from any thread.
+	 */
+	void refilter() {
+		request(true, null, null);
+	}
+
+	/**
+	 * Sets the constraint {@link #refilter()} repeats, without filtering. The results of any run
+	 * already started are dropped. Used when the filtered items are restored rather than filtered.
+	 */
+	void reset(@Nullable CharSequence constraint) {
+		synchronized (mRequestLock) {
+			mConstraint = (constraint != null) ? constraint.toString() : null;
+			++mGeneration;
+		}
+	}
+
+	private void request(boolean isRepeat, @Nullable CharSequence constraint,
+						 @Nullable FilterListener listener) {
+		synchronized (mRequestLock) {
+			if (!isRepeat) {
+				mConstraint = constraint;
+			}
+			mIsPendingRepeat = isRepeat;
+			mPendingConstraint = constraint;
+			mPendingListener = listener;
+			mHasPending = true;
+			if (mIsSubmitted) {
+				return;    //Picked up once the current request completes
+			}
+			mIsSubmitted = true;
+		}
+		submit();
+	}
+
+	/**
+	 * Runs a single request, stamping it's results with the generation of the run.
+	 */
+	private FilterResults run(@Nullable CharSequence constraint, boolean isRepeat) {
+		synchronized (mRunLock) {
+			int generation;
+			synchronized (mRequestLock) {
+				if (isRepeat) {
+					constraint = mConstraint;
+				}
+				generation = ++mGeneration;
+			}
+
+			FilterResults results;
+			try {
+				results = performPooledFiltering(constraint);
+			} catch (Exception e) {
+				results = new FilterResults();
+				Log.w(LOG_TAG, "An exception occurred during performFiltering()!", e);
+			}
+			SequencedResults sequenced = new SequencedResults(generation, constraint);
+			sequenced.values = results.values;
+			sequenced.count = results.count;
+			return sequenced;
+		}
+	}
+
+	private void runPending() {
+		final boolean isRepeat;
+		final CharSequence constraint;
+		final FilterListener listener;
+		synchronized (mRequestLock) {
+			isRepeat = mIsPendingRepeat;
+			constraint = mPendingConstraint;
+			listener = mPendingListener;
+			mPendingConstraint = null;
+			mPendingListener = null;
+			mHasPending = false;
+		}
+
+		final FilterResults published = run(constraint, isRepeat);
+		MAIN_HANDLER.post(new Runnable() {
+			@Override
+			public void run() {
+				publishResults(null, published);
+				if (listener != null) {
+					listener.onFilterComplete(published.count);
+				}
+			}
+		});
+
+		synchronized (mRequestLock) {
+			if (!mHasPending) {
+				mIsSubmitted = false;
+				return;
+			}
+		}
+		submit();
+	}
+
+	/**
+	 * Starts an asynchronous filtering request on the shared executor, replacing any request
+	 * still waiting to run. Safe to call from any thread.
+	 *
+	 * @param constraint The constraint used to filter the data
+	 * @param listener   Notified once the results are published. May be null.
+	 */
+	void submit(@Nullable CharSequence constraint, @Nullable FilterListener listener) {
+		request(false, (constraint != null) ? constraint.toString() : null, listener);
+	}
+
+	private void submit() {
+		try {
+			FilterExecutor.get().execute(mRunner);
+		} catch (RejectedExecutionException e) {
+			synchronized (mRequestLock) {
+				mIsSubmitted = false;
+			}
+			throw e;
+		}
+	}
+
+	/**
+	 * Results stamped with the run they came from, and the constraint that run used.
+	 */
+	private static final class SequencedResults extends FilterResults {
+		final int generation;
+		final CharSequence constraint;
+
+		SequencedResults(int generation, @Nullable CharSequence constraint) {
+			this.generation = generation;
+			this.constraint = constraint;
+		}
+	}
+}
@@ -0,0 +1,300 @@
+/*
+ * Copyright 2014 Jay Soyer
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sawyer.advadapters.widget;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * <p>An index from the items of a list to their positions within it. Items are matched either by
+ * identity, with equals, or by a key extracted from each item. Finding an item is then a hash
+ * look-up rather than a linear search. Every position of equal items is kept, in ascending
+ * order.</p>
+ *
+ * <p>The index is only built on the first look-up, so a list replaced wholesale any number of
+ * times costs a single rebuild. Once built, appending, replacing or removing items updates it in
+ * place without hashing the other items again. Must be kept in step with the list it indexes by
+ * its owner.</p>
+ */
+final class PositionIndex<T> {
+	private final boolean mIsIdentity;
+	private final AbsArrayAdapter.KeyExtractor<? super T> mExtractor;
+	private final Map<Object, Positions> mPositions;
+	private List<T> mItems;
+	private boolean mIsBuilt;
+
+	PositionIndex(@NonNull List<T> items, boolean isIdentity,
+				  @Nullable AbsArrayAdapter.KeyExtractor<? super T> extractor) {
+		mItems = items;
+		mIsIdentity = isIdentity;
+		mExtractor = extractor;
+		mPositions = isIdentity ? new IdentityHashMap<Object, Positions>() :
+					 new HashMap<Object, Positions>();
+	}
+
+	private void add(@Nullable Object key, int position) {
+		Positions positions = mPositions.get(key);
+		if (positions == null) {
+			positions = new Positions();
+			mPositions.put(key, positions);
+		}
+		positions.add(position);
+	}
+
+	/**
+	 * Records items were appended to the indexed list.
+	 *
+	 * @param items The indexed list, or a copy of it, with the items appended
+	 * @param from  The position of the first item appended
+	 */
+	void append(@NonNull List<T> items, int from) {
+		mItems = items;
+		if (mIsBuilt) {
+			for (int position = from; position < items.size(); ++position) {
+				add(keyOf(items.get(position)), position);
+			}
+		}
+	}
+
+	/**
+	 * Builds the index, unless already built.
+	 */
+	void build() {
+		if (mIsBuilt) {
+			return;
+		}
+		mPositions.clear();
+		for (int position = 0; position < mItems.size(); ++position) {
+			add(keyOf(mItems.get(position)), position);
+		}
+		mIsBuilt = true;
+	}
+
+	/**
+	 * @return The list this is an index of.
+	 */
+	@NonNull
+	List<T> getItems() {
+		return mItems;
+	}
+
+	/**
+	 * @param item    The item to find
+	 * @param skipped Positions to pass over, or null
+	 *
+	 * @return The first position of the item which isn't skipped, or -1 if there is none.
+	 */
+	int indexOf(@Nullable Object item, @Nullable BitSet skipped) {
+		build();
+		Positions positions = mPositions.get(keyOf(item));
+		if (positions == null) {
+			return -1;
+		}
+		for (int index = 0; index < positions.mSize; ++index) {
+			int position = positions.mValues[index];
+			if (skipped == null || !skipped.get(position)) {
+				return position;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * @return Whether the other index matches items the same way as this one.
+	 */
+	boolean isLike(@NonNull PositionIndex<?> other) {
+		return mIsIdentity == other.mIsIdentity && mExtractor == other.mExtractor;
+	}
+
+	@Nullable
+	@SuppressWarnings("unchecked")
+	private Object keyOf(@Nullable Object item) {
+		return (mExtractor != null) ? mExtractor.getKey((T) item) : item;
+	}
+
+	/**
+	 * Marks every position of the item within the given set.
+	 */
+	void markAll(@Nullable Object item, @NonNull BitSet marked) {
+		build();
+		Positions positions = mPositions.get(keyOf(item));
+		if (positions != null) {
+			for (int index = 0; index < positions.mSize; ++index) {
+				marked.set(positions.mValues[index]);
+			}
+		}
+	}
+
+	/**
+	 * Indexes a copy of the indexed list from now on. The items keep their positions, so nothing
+	 * is rebuilt.
+	 */
+	void moveTo(@NonNull List<T> items) {
+		mItems = items;
+	}
+
+	/**
+	 * @return A new index over the given list, matching items the same way as this one. It's built
+	 * on the first look-up.
+	 */
+	@NonNull
+	PositionIndex<T> over(@NonNull List<T> items) {
+		return new PositionIndex<>(items, mIsIdentity, mExtractor);
+	}
+
+	/**
+	 * Records a single item was removed from the indexed list. Every later position is shifted
+	 * down in a single pass, without hashing the items again.
+	 *
+	 * @param items    The indexed list, or a copy of it, with the item removed
+	 * @param position The position the item was removed from
+	 */
+	void remove(@NonNull List<T> items, int position) {
+		mItems = items;
+		if (!mIsBuilt) {
+			return;
+		}
+		Iterator<Positions> iterator = mPositions.values().iterator();
+		while (iterator.hasNext()) {
+			Positions positions = iterator.next();
+			positions.shiftOut(position);
+			if (positions.mSize == 0) {
+				iterator.remove();
+			}
+		}
+	}
+
+	/**
+	 * Records any number of items were removed from the indexed list. Every remaining position is
+	 * mapped to it's new one in a single pass, without hashing the items again.
+	 *
+	 * @param items   The indexed list, or a copy of it, with the items removed
+	 * @param removed The positions the items were removed from
+	 */
+	void removeAll(@NonNull List<T> items, @NonNull BitSet removed) {
+		mItems = items;
+		if (!mIsBuilt) {
+			return;
+		}
+		int[] newPositions = new int[items.size() + removed.cardinality()];
+		int next = 0;
+		for (int position = 0; position < newPositions.length; ++position) {
+			newPositions[position] = removed.get(position) ? -1 : next++;
+		}
+		Iterator<Positions> iterator = mPositions.values().iterator();
+		while (iterator.hasNext()) {
+			Positions positions = iterator.next();
+			positions.map(newPositions);
+			if (positions.mSize == 0) {
+				iterator.remove();
+			}
+		}
+	}
+
+	/**
+	 * Records the item at a position was replaced.
+	 *
+	 * @param items    The indexed list, or a copy of it, with the item replaced
+	 * @param position The position of the item replaced
+	 * @param oldItem  The item which was replaced
+	 */
+	void replace(@NonNull List<T> items, int position, @Nullable T oldItem) {
+		mItems = items;
+		if (!mIsBuilt) {
+			return;
+		}
+		Object oldKey = keyOf(oldItem);
+		Positions positions = mPositions.get(oldKey);
+		if (positions != null && positions.remove(position) && positions.mSize == 0) {
+			mPositions.remove(oldKey);
+		}
+		add(keyOf(items.get(position)), position);
+	}
+
+	/**
+	 * The ascending positions of a single item. Most items are found at one position only.
+	 */
+	private static final class Positions {
+		private int[] mValues = new int[1];
+		private int mSize;
+
+		void add(int position) {
+			int index = mSize;
+			if (mSize > 0 && mValues[mSize - 1] >= position) {    //Not after every other position
+				index = Arrays.binarySearch(mValues, 0, mSize, position);
+				if (index >= 0) {
+					return;
+				}
+				index = ~index;
+			}
+			if (mSize == mValues.length) {
+				mValues = Arrays.copyOf(mValues, mSize * 2);
+			}
+			System.arraycopy(mValues, index, mValues, index + 1, mSize - index);
+			mValues[index] = position;
+			++mSize;
+		}
+
+		/**
+		 * Maps every position to a new one, dropping those mapped to -1. The mapping must keep
+		 * positions in order.
+		 */
+		void map(@NonNull int[] newPositions) {
+			int size = 0;
+			for (int index = 0; index < mSize; ++index) {
+				int position = newPositions[mValues[index]];
+				if (position >= 0) {
+					mValues[size++] = position;
+				}
+			}
+			mSize = size;
+		}
+
+		/**
+		 * @return Whether the given position was held, and so removed.
+		 */
+		boolean remove(int position) {
+			int index = Arrays.binarySearch(mValues, 0, mSize, position);
+			if (index < 0) {
+				return false;
+			}
+			System.arraycopy(mValues, index + 1, mValues, index, --mSize - index);
+			return true;
+		}
+
+		/**
+		 * Removes the given position, if held, and shifts every later one down.
+		 */
+		void shiftOut(int position) {
+			int size = 0;
+			for (int index = 0; index < mSize; ++index) {
+				int current = mValues[index];
+				if (current != position) {
+					mValues[size++] = (current > position) ? current - 1 : current;
+				}
+			}
+			mSize = size;
+		}
+	}
+}
@@ -0,0 +1,176 @@
+/*
+ * Copyright 2014 Jay Soyer
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sawyer.advadapters.widget;
+
+import android.support.annotation.NonNull;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * <p>A read-only view joining one or more lists of an adapter's data, end to end. Nothing is
+ * copied, the view reads straight from the lists it was given.</p>
+ *
+ * <p>The view is fail-fast. It remembers the adapter's modification count when created, and every
+ * access checks it's unchanged before anything else, including the bounds of a position. Once the
+ * adapter is modified, accessing the view throws a {@link ConcurrentModificationException} rather
+ * than an IndexOutOfBoundsException caused by the change. Adapters increment the count before
+ * modifying a list in place, so a read racing a change is caught by the check following it. Any
+ * read which succeeds is therefore consistent with the data as it was when the view was created.
+ * As with {@link java.util.ArrayList}, detection is done on a best effort basis and shouldn't be
+ * relied upon for correctness.</p>
+ */
+final class ReadOnlyListView<E> extends AbstractList<E> {
+	private final AtomicInteger mModCount;
+	private final int mExpectedModCount;
+	/** The non-empty lists joined together */
+	private final List<?>[] mParts;
+	/** Position within the view of the first element of each part */
+	private final int[] mStarts;
+	private final int mSize;
+
+	private ReadOnlyListView(@NonNull AtomicInteger modCount,
+							 @NonNull Collection<? extends List<? extends E>> lists) {
+		mModCount = modCount;
+		mExpectedModCount = modCount.get();
+		List<?>[] parts = new List<?>[lists.size()];
+		int[] starts = new int[parts.length];
+		int count = 0;
+		int size = 0;
+		for (List<? extends E> list : lists) {
+			if (!list.isEmpty()) {
+				parts[count] = list;
+				starts[count++] = size;
+				size += list.size();
+			}
+		}
+		mParts = Arrays.copyOf(parts, count);
+		mStarts = Arrays.copyOf(starts, count);
+		mSize = size;
+	}
+
+	/**
+	 * Creates a view joining the given lists. Must be invoked while holding the lock the adapter
+	 * modifies it's data under.
+	 */
+	@NonNull
+	static <E> ReadOnlyListView<E> join(@NonNull AtomicInteger modCount,
+										@NonNull Collection<? extends List<? extends E>> lists) {
+		return new ReadOnlyListView<>(modCount, lists);
+	}
+
+	/**
+	 * Creates a view of the given list. Must be invoked while holding the lock the adapter modifies
+	 * it's data under.
+	 */
+	@NonNull
+	static <E> ReadOnlyListView<E> of(@NonNull AtomicInteger modCount,
+									  @NonNull List<? extends E> list) {
+		return new ReadOnlyListView<>(modCount, Collections.singletonList(list));
+	}
+
+	private void checkForComodification() {
+		if (mModCount.get() != mExpectedModCount) {
+			throw new ConcurrentModificationException();
+		}
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public E get(int location) {
+		checkForComodification();    //A position past the end may stem from a later change
+		if (location < 0 || location >= mSize) {
+			throw new IndexOutOfBoundsException("Invalid index " + location + ", size is " + mSize);
+		}
+		int part = Arrays.binarySearch(mStarts, location);
+		if (part < 0) {
+			part = -part - 2;    //The part starting before location
+		}
+		return (E) read(mParts[part], location - mStarts[part]);
+	}
+
+	@NonNull
+	@Override
+	public Iterator<E> iterator() {
+		checkForComodification();
+		return new Itr();
+	}
+
+	/**
+	 * Reads from a part, verifying the adapter wasn't modified before or during the read.
+	 */
+	private Object read(@NonNull List<?> part, int index) {
+		checkForComodification();
+		Object item;
+		try {
+			item = part.get(index);
+		} catch (IndexOutOfBoundsException e) {
+			//The part shrank while being read
+			ConcurrentModificationException failure = new ConcurrentModificationException();
+			failure.initCause(e);
+			throw failure;
+		}
+		checkForComodification();
+		return item;
+	}
+
+	@Override
+	public int size() {
+		checkForComodification();
+		return mSize;
+	}
+
+	/**
+	 * Walks each part in turn, rather than searching for the part of every position.
+	 */
+	private final class Itr implements Iterator<E> {
+		private int mPart;
+		private int mIndex;
+
+		@Override
+		public boolean hasNext() {
+			checkForComodification();
+			return mPart < mParts.length;
+		}
+
+		@Override
+		@SuppressWarnings("unchecked")
+		public E next() {
+			if (mPart >= mParts.length) {
+				throw new NoSuchElementException();
+			}
+			E item = (E) read(mParts[mPart], mIndex);
+			int end = (mPart + 1 < mStarts.length) ? mStarts[mPart + 1] : mSize;
+			if (mStarts[mPart] + ++mIndex == end) {
+				++mPart;
+				mIndex = 0;
+			}
+			return item;
+		}
+
+		@Override
+		public void remove() {
+			throw new UnsupportedOperationException();
+		}
+	}
+}
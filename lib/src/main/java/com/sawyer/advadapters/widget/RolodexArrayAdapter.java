@@ -33,6 +33,7 @@ import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * <p>For use with an {@link ExpandableListView}, The rolodex adapters are specifically designed to
@@ -53,6 +54,15 @@ import java.util.TreeMap;
  * internally synchronized. This ensures a thread safe environment for internal write operations. If
  * filtering is not required, it's strongly recommended to use the {@link NFRolodexArrayAdapter}
  * instead.</p>
+ *
+ * <p>Background threads producing many changes should post them instead, through methods such as
+ * {@link #postAdd(Object)} or {@link #postRemove(Object)}. Posting never blocks. Every change
+ * posted before the main thread gets to them is applied at once on the main thread, under a single
+ * lock and notifying only once.</p>
+ *
+ * <p>Threads already holding many changes may instead wrap them within {@link #beginBatch()} and
+ * {@link #commitBatch()}. The last filtering request is then repeated once, the groups rebuilt at
+ * most once and a single notification sent for the whole batch.</p>
  */
 public abstract class RolodexArrayAdapter<G, C> extends PatchedExpandableListAdapter
 		implements Filterable {
@@ -74,6 +84,11 @@ public abstract class RolodexArrayAdapter<G, C> extends PatchedExpandableListAda
 	 * #mObjects} is modified.
 	 */
 	private boolean mNotifyOnChange = true;
+	/**
+	 * Incremented under {@link #mLock} whenever the items are modified. Lets read-only views detect
+	 * they're no longer consistent with the adapter.
+	 */
+	private final AtomicInteger mModCount = new AtomicInteger();
 	/**
 	 * A copy of the original {@link #mObjects} map, is not initialized until a filtering processing
 	 * occurs. Once initialized, it'll track the entire unfiltered data. Once the filter process
@@ -86,6 +101,21 @@ public abstract class RolodexArrayAdapter<G, C> extends PatchedExpandableListAda
 	 * following changes to the array of data
 	 */
 	private CharSequence mLastConstraint;
+	/** Number of batches currently begun and not yet committed. See {@link #beginBatch()} */
+	private int mBatchDepth;
+	/** Whether a change made during the current batch requires the filter to be repeated */
+	private boolean mIsRefilterPending;
+	/** Whether a notification was deferred during the current batch */
+	private boolean mIsNotifyPending;
+	/** Whether {@link #mGroupObjects} must be rebuilt once the current batch commits */
+	private boolean mIsGroupRebuildPending;
+	/** Changes posted from any thread, waiting to be applied on the main thread */
+	private final MutationQueue<C> mPending = new MutationQueue<>(new MutationQueue.Target<C>() {
+		@Override
+		public void apply(@NonNull List<MutationQueue.Mutation<C>> mutations) {
+			applyMutations(mutations);
+		}
+	});
 
 	/**
 	 * Constructor
@@ -157,6 +187,7 @@ public abstract class RolodexArrayAdapter<G, C> extends PatchedExpandableListAda
 	 */
 	public void add(@Nullable C childItem) {
 		synchronized (mLock) {
+			mModCount.incrementAndGet();
 			G group = getGroupFor(childItem);
 			if (mOriginalValues != null) {
 				ArrayList<C> children = mOriginalValues.get(group);
@@ -165,14 +196,14 @@ public abstract class RolodexArrayAdapter<G, C> extends PatchedExpandableListAda
 					mOriginalValues.put(group, children);
 				}
 				children.add(childItem);
-				getFilter().filter(mLastConstraint);
+				refilter();
 			} else {
 				ArrayList<C> children = mObjects.get(group);
 				if (children == null) {
 					children = new ArrayList<>();
 					mObjects.put(group, children);
 					if (areGroupsSorted()) {
-						mGroupObjects = new ArrayList<>(mObjects.keySet());
+						rebuildGroups();
 					} else {
 						mGroupObjects.add(group);
 					}
@@ -193,9 +224,10 @@ public abstract class RolodexArrayAdapter<G, C> extends PatchedExpandableListAda
 	 */
 	public void addAll(@NonNull Collection<? extends C> childItems) {
 		synchronized (mLock) {
+			mModCount.incrementAndGet();
 			if (mOriginalValues != null) {
 				addAllToOriginalValues(childItems);
-				getFilter().filter(mLastConstraint);
+				refilter();
 			} else {
 				addAllToObjects(childItems);
 			}
@@ -214,9 +246,10 @@ public abstract class RolodexArrayAdapter<G, C> extends PatchedExpandableListAda
 	@SafeVarargs
 	public final void addAll(@NonNull C... childItems) {
 		synchronized (mLock) {
+			mModCount.incrementAndGet();
 			if (mOriginalValues != null) {
 				addAllToOriginalValues(Arrays.asList(childItems));
-				getFilter().filter(mLastConstraint);
+				refilter();
 			} else {
 				addAllToObjects(Arrays.asList(childItems));
 			}
@@ -237,7 +270,7 @@ public abstract class RolodexArrayAdapter<G, C> extends PatchedExpandableListAda
 				}
 				children.add(item);
 			}
-			mGroupObjects = new ArrayList<>(mObjects.keySet());
+			rebuildGroups();
 		} else {
 			for (C item : childItems) {
 				G group = getGroupFor(item);
@@ -264,6 +297,58 @@ public abstract class RolodexArrayAdapter<G, C> extends PatchedExpandableListAda
 		}
 	}
 
+	/**
+	 * Applies a batch of posted changes under a single lock, notifying once afterwards.
+	 * Consecutive adds are grouped together into a single add. Positions which are no longer valid
+	 * by the time they're applied are ignored.
+	 */
+	@SuppressWarnings("unchecked")
+	private void applyMutations(@NonNull List<MutationQueue.Mutation<C>> mutations) {
+		boolean isNotifyOnChange = mNotifyOnChange;
+
+		synchronized (mLock) {
+			mNotifyOnChange = false;
+			try {
+				ArrayList<C> added = new ArrayList<>();
+				for (MutationQueue.Mutation<C> mutation : mutations) {
+					if (mutation.op == MutationQueue.Mutation.ADD) {
+						added.add(mutation.item);
+						continue;
+					} else if (!added.isEmpty()) {
+						addAll(added);
+						added.clear();
+					}
+					switch (mutation.op) {
+					case MutationQueue.Mutation.ADD_ALL:
+						addAll((Collection<? extends C>) mutation.items);
+						break;
+					case MutationQueue.Mutation.REMOVE:
+						remove(mutation.item);
+						break;
+					case MutationQueue.Mutation.REMOVE_ALL:
+						removeAll((Collection<? extends C>) mutation.items);
+						break;
+					case MutationQueue.Mutation.UPDATE:
+						if (mutation.position >= 0 && mutation.position < getGroupCount() &&
+							mutation.childPosition >= 0 &&
+							mutation.childPosition < getChildrenCount(mutation.position)) {
+							update(mutation.position, mutation.childPosition, mutation.item);
+						}
+						break;
+					}
+				}
+				if (!added.isEmpty()) {
+					addAll(added);
+				}
+			} finally {
+				mNotifyOnChange = isNotifyOnChange;
+			}
+		}
+		if (isNotifyOnChange) {
+			notifyDataSetChanged();
+		}
+	}
+
 	/**
 	 * @return Whether groups are automatically sorted. Default is true.
 	 */
@@ -271,11 +356,28 @@ public abstract class RolodexArrayAdapter<G, C> extends PatchedExpandableListAda
 		return true;
 	}
 
+	/**
+	 * <p>Begins a batch of changes. Until the matching {@link #commitBatch()}, changes made to the
+	 * adapter neither repeat the last filtering request nor notify. Instead the filter is repeated
+	 * once and a single notification is sent when the batch commits. Rebuilding
+	 * the list of groups is likewise deferred and done once.</p>
+	 *
+	 * <p>Batches may be nested, only committing the outermost batch applies the deferred work.
+	 * Always begin and commit a batch on the same thread, ideally committing within a finally
+	 * block.</p>
+	 */
+	public void beginBatch() {
+		synchronized (mLock) {
+			++mBatchDepth;
+		}
+	}
+
 	/**
 	 * Remove all elements from the adapter.
 	 */
 	public void clear() {
 		synchronized (mLock) {
+			mModCount.incrementAndGet();
 			if (mOriginalValues != null) {
 				mOriginalValues.clear();
 			}
@@ -287,6 +389,39 @@ public abstract class RolodexArrayAdapter<G, C> extends PatchedExpandableListAda
 		}
 	}
 
+	/**
+	 * Commits the batch begun by the matching {@link #beginBatch()}. Once the outermost batch
+	 * commits, the list of groups is rebuilt if any change required it. Then the last filtering
+	 * request is repeated if any change required it and {@link #notifyDataSetChanged()} is invoked
+	 * if any change would have invoked it.
+	 *
+	 * @throws IllegalStateException If no batch has begun
+	 */
+	public void commitBatch() {
+		boolean isNotifyPending;
+
+		synchronized (mLock) {
+			if (mBatchDepth == 0) {
+				throw new IllegalStateException("No batch has begun");
+			} else if (--mBatchDepth > 0) {
+				return;
+			}
+			if (mIsGroupRebuildPending) {
+				mIsGroupRebuildPending = false;
+				mGroupObjects = new ArrayList<>(mObjects.keySet());
+			}
+			if (mIsRefilterPending) {
+				mIsRefilterPending = false;
+				FilterExecutor.refilter(this, mLastConstraint);
+			}
+			isNotifyPending = mIsNotifyPending;
+			mIsNotifyPending = false;
+		}
+		if (isNotifyPending) {
+			notifyDataSetChanged();
+		}
+	}
+
 	/**
 	 * Tests whether this adapter contains the specified child item.
 	 *
@@ -316,6 +451,21 @@ public abstract class RolodexArrayAdapter<G, C> extends PatchedExpandableListAda
 	@NonNull
 	public abstract G createGroupFor(C childItem);
 
+	/**
+	 * Drops the shown groups no longer held by {@link #mObjects}, keeping the order of the others.
+	 * Done right away even within a batch, since every group shown must still hold children. Must
+	 * be invoked while holding {@link #mLock}.
+	 */
+	private void dropRemovedGroups() {
+		ArrayList<G> groups = new ArrayList<>(mGroupObjects.size());
+		for (G group : mGroupObjects) {
+			if (mObjects.containsKey(group)) {
+				groups.add(group);
+			}
+		}
+		mGroupObjects = groups;
+	}
+
 	@Override
 	public C getChild(int groupPosition, int childPosition) {
 		return mObjects.get(mGroupObjects.get(groupPosition)).get(childPosition);
@@ -341,7 +491,8 @@ public abstract class RolodexArrayAdapter<G, C> extends PatchedExpandableListAda
 	}
 
 	/**
-	 * @return The shown filtered list. If no filter is applied, then the original list is returned.
+	 * @return A detached copy of the shown filtered list. If no filter is applied, then the
+	 * original list is returned. See {@link #getFilteredListView()} to read without copying.
 	 */
 	@NonNull
 	public ArrayList<C> getFilteredList() {
@@ -352,6 +503,22 @@ public abstract class RolodexArrayAdapter<G, C> extends PatchedExpandableListAda
 		return objects;
 	}
 
+	/**
+	 * Gets a read-only view joining the children of every shown group, without copying them. The
+	 * view is fail-fast, reading from it throws a {@link java.util.ConcurrentModificationException}
+	 * once the items of the adapter are modified. Any read which succeeds is consistent with the
+	 * items as they were when the view was retrieved.
+	 *
+	 * @return A read-only view of the shown filtered list. If no filter is applied, then of the
+	 * original list.
+	 */
+	@NonNull
+	public List<C> getFilteredListView() {
+		synchronized (mLock) {
+			return ReadOnlyListView.join(mModCount, mObjects.values());
+		}
+	}
+
 	@Override
 	public G getGroup(int groupPosition) {
 		return mGroupObjects.get(groupPosition);
@@ -362,13 +529,31 @@ public abstract class RolodexArrayAdapter<G, C> extends PatchedExpandableListAda
 	 *
 	 * @param groupPosition The position of the group.
 	 *
-	 * @return the ArrayList of children found within the specified group.
+	 * @return A detached copy of the children found within the specified group. See {@link
+	 * #getGroupChildrenView(int)} to read without copying.
 	 */
 	@NonNull
 	public ArrayList<C> getGroupChildren(int groupPosition) {
 		return new ArrayList<>(mObjects.get(mGroupObjects.get(groupPosition)));
 	}
 
+	/**
+	 * Gets a read-only view of the children associated with the given group, without copying
+	 * them. The view is fail-fast, reading from it throws a {@link
+	 * java.util.ConcurrentModificationException} once the items of the adapter are modified.
+	 *
+	 * @param groupPosition The position of the group.
+	 *
+	 * @return A read-only view of the children found within the specified group.
+	 */
+	@NonNull
+	public List<C> getGroupChildrenView(int groupPosition) {
+		synchronized (mLock) {
+			ArrayList<C> children = mObjects.get(mGroupObjects.get(groupPosition));
+			return ReadOnlyListView.of(mModCount, children);
+		}
+	}
+
 	@Override
 	public int getGroupCount() {
 		return mGroupObjects.size();
@@ -432,7 +617,8 @@ public abstract class RolodexArrayAdapter<G, C> extends PatchedExpandableListAda
 	}
 
 	/**
-	 * @return The original (unfiltered) list of items stored within the Adapter
+	 * @return A detached copy of the original (unfiltered) list of items stored within the Adapter.
+	 * See {@link #getListView()} to read without copying.
 	 */
 	@NonNull
 	public ArrayList<C> getList() {
@@ -447,6 +633,22 @@ public abstract class RolodexArrayAdapter<G, C> extends PatchedExpandableListAda
 		return objects;
 	}
 
+	/**
+	 * Gets a read-only view joining the children of every group, without copying them. The view
+	 * is fail-fast, reading from it throws a {@link java.util.ConcurrentModificationException} once
+	 * the items of the adapter are modified. Any read which succeeds is consistent with the items
+	 * as they were when the view was retrieved.
+	 *
+	 * @return A read-only view of the original list of items stored within the Adapter
+	 */
+	@NonNull
+	public List<C> getListView() {
+		synchronized (mLock) {
+			Map<G, ArrayList<C>> map = (mOriginalValues != null) ? mOriginalValues : mObjects;
+			return ReadOnlyListView.join(mModCount, map.values());
+		}
+	}
+
 	/**
 	 * Resets the adapter to store a new list of children items. Convenient way of calling {@link
 	 * #clear()}, then {@link #addAll(Collection)} without having to worry about an extra {@link
@@ -457,10 +659,11 @@ public abstract class RolodexArrayAdapter<G, C> extends PatchedExpandableListAda
 	 */
 	public void setList(@NonNull Collection<? extends C> childItems) {
 		synchronized (mLock) {
+			mModCount.incrementAndGet();
 			if (mOriginalValues != null) {
 				mOriginalValues.clear();
 				addAllToOriginalValues(childItems);
-				getFilter().filter(mLastConstraint);
+				refilter();
 			} else {
 				mObjects.clear();
 				mGroupObjects.clear();
@@ -510,10 +713,104 @@ public abstract class RolodexArrayAdapter<G, C> extends PatchedExpandableListAda
 
 	@Override
 	public void notifyDataSetChanged() {
+		synchronized (mLock) {
+			if (mBatchDepth > 0) {
+				mIsNotifyPending = true;    //Sent once the batch commits
+				return;
+			}
+		}
 		super.notifyDataSetChanged();
 		mNotifyOnChange = true;
 	}
 
+	/**
+	 * Posts the specified child item to be added at the end of the adapter. May be called from any
+	 * thread and never blocks. The item is added on the main thread along with every other posted
+	 * change.
+	 *
+	 * @param childItem The child item to add at the end of the adapter.
+	 */
+	public void postAdd(@Nullable C childItem) {
+		mPending.post(new MutationQueue.Mutation<>(MutationQueue.Mutation.ADD, childItem, null, -1,
+												   -1));
+	}
+
+	/**
+	 * Posts the specified Collection to be added at the end of the adapter. May be called from any
+	 * thread and never blocks. The items are added on the main thread along with every other posted
+	 * change.
+	 *
+	 * @param childItems The Collection of children items to add at the end of the adapter. Copied
+	 *                   before this returns.
+	 */
+	public void postAddAll(@NonNull Collection<? extends C> childItems) {
+		mPending.post(new MutationQueue.Mutation<C>(MutationQueue.Mutation.ADD_ALL, null,
+													new ArrayList<>(childItems), -1, -1));
+	}
+
+	/**
+	 * Posts the first occurrence of the specified child item to be removed from the adapter. May
+	 * be called from any thread and never blocks. The item is removed on the main thread along with
+	 * every other posted change.
+	 *
+	 * @param childItem The child item to remove.
+	 */
+	public void postRemove(@Nullable C childItem) {
+		mPending.post(new MutationQueue.Mutation<>(MutationQueue.Mutation.REMOVE, childItem, null,
+												   -1, -1));
+	}
+
+	/**
+	 * Posts all occurrences of each item in the specified collection to be removed from the
+	 * adapter. May be called from any thread and never blocks. The items are removed on the main
+	 * thread along with every other posted change.
+	 *
+	 * @param childItems The collection of child items to remove. Copied before this returns.
+	 */
+	public void postRemoveAll(@NonNull Collection<? extends C> childItems) {
+		mPending.post(new MutationQueue.Mutation<C>(MutationQueue.Mutation.REMOVE_ALL, null,
+													new ArrayList<>(childItems), -1, -1));
+	}
+
+	/**
+	 * Posts the item at the specified position to be updated with the specified item. May be
+	 * called from any thread and never blocks. The positions are only resolved once applied on the
+	 * main thread, after any change posted before it. They're ignored if no longer valid by then.
+	 *
+	 * @param groupPosition The group location at which to put the specified child
+	 * @param childPosition The child location at which to put the specified item
+	 * @param childItem     The new item to replace with the old
+	 */
+	public void postUpdate(int groupPosition, int childPosition, @Nullable C childItem) {
+		mPending.post(new MutationQueue.Mutation<>(MutationQueue.Mutation.UPDATE, childItem, null,
+												   groupPosition, childPosition));
+	}
+
+	/**
+	 * Rebuilds the shown groups from the keys of {@link #mObjects} once groups are added, or defers
+	 * it until the current batch commits. Groups removed are instead dropped right away, see {@link
+	 * #dropRemovedGroups()}. Must be invoked while holding {@link #mLock}.
+	 */
+	private void rebuildGroups() {
+		if (mBatchDepth > 0) {
+			mIsGroupRebuildPending = true;
+		} else {
+			mGroupObjects = new ArrayList<>(mObjects.keySet());
+		}
+	}
+
+	/**
+	 * Repeats the last filtering request, or defers it until the current batch commits. Must be
+	 * invoked while holding {@link #mLock}.
+	 */
+	private void refilter() {
+		if (mBatchDepth > 0) {
+			mIsRefilterPending = true;
+		} else {
+			FilterExecutor.refilter(this, mLastConstraint);
+		}
+	}
+
 	/**
 	 * Removes the first occurrence of the specified child item from the adapter.
 	 *
@@ -524,6 +821,7 @@ public abstract class RolodexArrayAdapter<G, C> extends PatchedExpandableListAda
 
 		SYNC_BLOCK:
 		synchronized (mLock) {
+			mModCount.incrementAndGet();
 			G group = getGroupFor(childItem);
 			if (mOriginalValues != null) {
 				ArrayList<C> children = mOriginalValues.get(group);
@@ -567,6 +865,7 @@ public abstract class RolodexArrayAdapter<G, C> extends PatchedExpandableListAda
 		boolean isModified = false;
 
 		synchronized (mLock) {
+			mModCount.incrementAndGet();
 			for (C item : childItems) {
 				G group = getGroupFor(item);
 				if (mOriginalValues != null) {
@@ -593,7 +892,7 @@ public abstract class RolodexArrayAdapter<G, C> extends PatchedExpandableListAda
 					mObjects.remove(group);
 				}
 			}
-			mGroupObjects = new ArrayList<>(mObjects.keySet());
+			dropRemovedGroups();
 		}
 		if (isModified && mNotifyOnChange) {
 			notifyDataSetChanged();
@@ -610,6 +909,7 @@ public abstract class RolodexArrayAdapter<G, C> extends PatchedExpandableListAda
 		boolean isModified = false;
 
 		synchronized (mLock) {
+			mModCount.incrementAndGet();
 			if (mOriginalValues != null) {
 				Iterator<Map.Entry<G, ArrayList<C>>> it = mOriginalValues.entrySet().iterator();
 				while (it.hasNext()) {
@@ -632,7 +932,7 @@ public abstract class RolodexArrayAdapter<G, C> extends PatchedExpandableListAda
 				}
 			}
 			if (isModified) {
-				mGroupObjects = new ArrayList<>(mObjects.keySet());
+				dropRemovedGroups();
 			}
 		}
 		if (isModified && mNotifyOnChange) {
@@ -680,6 +980,7 @@ public abstract class RolodexArrayAdapter<G, C> extends PatchedExpandableListAda
 	 */
 	public void sortAllChildren(@Nullable Comparator<? super C> comparator) {
 		synchronized (mLock) {
+			mModCount.incrementAndGet();
 			if (mOriginalValues != null) {
 				for (Map.Entry<G, ArrayList<C>> entry : mOriginalValues.entrySet()) {
 					Collections.sort(entry.getValue(), comparator);
@@ -720,6 +1021,7 @@ public abstract class RolodexArrayAdapter<G, C> extends PatchedExpandableListAda
 	 */
 	public void sortGroup(int groupPosition, @Nullable Comparator<? super C> comparator) {
 		synchronized (mLock) {
+			mModCount.incrementAndGet();
 			G group = mGroupObjects.get(groupPosition);
 			if (mOriginalValues != null) {
 				Collections.sort(mOriginalValues.get(group), comparator);
@@ -743,6 +1045,11 @@ public abstract class RolodexArrayAdapter<G, C> extends PatchedExpandableListAda
 	 */
 	public void update(int groupPosition, int childPosition, @Nullable C childItem) {
 		synchronized (mLock) {
+			mModCount.incrementAndGet();
+			if (mIsGroupRebuildPending) {    //Positions must match the groups as they are now
+				mIsGroupRebuildPending = false;
+				mGroupObjects = new ArrayList<>(mObjects.keySet());
+			}
 			G oldGroup = mGroupObjects.get(groupPosition);
 			G newGroup = createGroupFor(childItem);    //Can't rely on cache.
 
@@ -752,7 +1059,7 @@ public abstract class RolodexArrayAdapter<G, C> extends PatchedExpandableListAda
 					C child = mObjects.get(oldGroup).get(childPosition);
 					ArrayList<C> children = mOriginalValues.get(oldGroup);
 					children.set(children.indexOf(child), childItem);
-					getFilter().filter(mLastConstraint);
+					refilter();
 				} else {
 					mObjects.get(oldGroup).set(childPosition, childItem);
 				}
@@ -775,7 +1082,7 @@ public abstract class RolodexArrayAdapter<G, C> extends PatchedExpandableListAda
 						mOriginalValues.put(newGroup, children);
 					}
 					children.add(childItem);
-					getFilter().filter(mLastConstraint);
+					refilter();
 				} else {
 					//Remove old item
 					ArrayList<C> children = mObjects.get(oldGroup);
@@ -791,7 +1098,7 @@ public abstract class RolodexArrayAdapter<G, C> extends PatchedExpandableListAda
 						children = new ArrayList<>();
 						mObjects.put(newGroup, children);
 						if (areGroupsSorted()) {
-							mGroupObjects = new ArrayList<>(mObjects.keySet());
+							rebuildGroups();
 						} else {
 							mGroupObjects.add(newGroup);
 						}
@@ -805,9 +1112,9 @@ public abstract class RolodexArrayAdapter<G, C> extends PatchedExpandableListAda
 		}
 	}
 
-	private class RolodexFilter extends Filter {
+	private class RolodexFilter extends PooledFilter {
 		@Override
-		protected FilterResults performFiltering(CharSequence constraint) {
+		protected FilterResults performPooledFiltering(CharSequence constraint) {
 			FilterResults results = new FilterResults();
 			Map<G, ArrayList<C>> values;
 			synchronized (mLock) {
@@ -849,7 +1156,7 @@ public abstract class RolodexArrayAdapter<G, C> extends PatchedExpandableListAda
 
 		@SuppressWarnings("unchecked")
 		@Override
-		protected void publishResults(CharSequence constraint, FilterResults results) {
+		protected void publishPooledResults(CharSequence constraint, FilterResults results) {
 			mLastConstraint = constraint;
 			synchronized (mLock) {
 				mObjects = (Map<G, ArrayList<C>>) results.values;
@@ -0,0 +1,306 @@
+/*
+ * Copyright 2014 Jay Soyer
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sawyer.advadapters.widget;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+
+/**
+ * <p>A {@link JSONArrayStore} for arrays of JSONObjects which all share the same set of keys. The
+ * keys are kept once within a shared table, and each object is reduced to an array of it's values
+ * ordered by that table. A JSONObject is only materialized when an element is read as a whole.
+ * Reading a single field through {@link #optField(int, String)} or {@link #optSlot(int, int,
+ * String)} never materializes anything.</p>
+ *
+ * <p>Elements which don't match the shape, including JSONObjects with different keys, are kept as
+ * is. Since JSONObjects are rebuilt on every read, changes made directly to a returned JSONObject
+ * do not persist. Likewise a JSONObject added to the store is copied, so later changes made to it
+ * are not seen by the store.</p>
+ */
+final class ShapeJSONArray extends JSONArrayStore {
+	/** Shared key table. Never modified, so it's shared by every copy of this store. */
+	private final Shape mShape;
+	/**
+	 * Values of each element matching the shape, indexed by slot. Null for elements which don't
+	 * match. A row is never modified once stored, so rows are shared between copies.
+	 */
+	private Object[][] mRows;
+	/** Elements not matching the shape. Null for elements found within {@link #mRows}. */
+	private Object[] mOthers;
+	private int mSize;
+
+	private ShapeJSONArray(@NonNull Shape shape, int capacity) {
+		mShape = shape;
+		capacity = Math.max(capacity, 8);
+		mRows = new Object[capacity][];
+		mOthers = new Object[capacity];
+	}
+
+	/**
+	 * Determines whether every element of the array is a JSONObject with the same set of keys, and
+	 * if so compacts them against a single key table.
+	 *
+	 * @return The compacted store, or null if the array is empty or the elements don't share a
+	 * single shape.
+	 */
+	@Nullable
+	static ShapeJSONArray compact(@NonNull JSONArray array) {
+		int length = array.length();
+		if (length == 0) {
+			return null;
+		}
+		Object first = JSONArrayStore.scan(array, 0);
+		if (!(first instanceof JSONObject)) {
+			return null;
+		}
+		Shape shape = Shape.of((JSONObject) first);
+		ShapeJSONArray store = new ShapeJSONArray(shape, length);
+		for (int i = 0; i < length; ++i) {
+			Object[] row = shape.toRow(JSONArrayStore.scan(array, i));
+			if (row == null) {
+				return null;
+			}
+			store.mRows[i] = row;
+		}
+		store.mSize = length;
+		return store;
+	}
+
+	@Override
+	void append(@Nullable Object value) {
+		if (mSize == mRows.length) {
+			int capacity = mSize + (mSize >> 1);
+			mRows = Arrays.copyOf(mRows, capacity);
+			mOthers = Arrays.copyOf(mOthers, capacity);
+		}
+		store(mSize++, value);
+	}
+
+	@NonNull
+	@Override
+	JSONArrayStore copy() {
+		ShapeJSONArray copy = new ShapeJSONArray(mShape, mSize);
+		System.arraycopy(mRows, 0, copy.mRows, 0, mSize);
+		System.arraycopy(mOthers, 0, copy.mOthers, 0, mSize);
+		copy.mSize = mSize;
+		return copy;
+	}
+
+	/**
+	 * @return True if the element at index is a JSONObject, without materializing it.
+	 */
+	boolean isJSONObject(int index) {
+		return index >= 0 && index < mSize &&
+			   (mRows[index] != null || mOthers[index] instanceof JSONObject);
+	}
+
+	/**
+	 * @return The shared key table, ordered by slot. Must not be modified.
+	 */
+	@NonNull
+	String[] keys() {
+		return mShape.keys;
+	}
+
+	@Override
+	public int length() {
+		return mSize;
+	}
+
+	@Override
+	public Object opt(int index) {
+		if (index < 0 || index >= mSize) {
+			return null;
+		}
+		Object[] row = mRows[index];
+		return (row != null) ? mShape.toJSONObject(row) : mOthers[index];
+	}
+
+	/**
+	 * Reads a single field of the JSONObject at index without materializing it.
+	 *
+	 * @return The field's value, or null if the element is not a JSONObject or has no such field.
+	 */
+	@Nullable
+	Object optField(int index, @NonNull String name) {
+		return optSlot(index, slotOf(name), name);
+	}
+
+	/**
+	 * Reads a single field of the JSONObject at index by it's precomputed slot.
+	 *
+	 * @param slot Slot of the field as returned by {@link #slotOf(String)}
+	 * @param name Name of the field, used for elements which don't match the shape
+	 *
+	 * @return The field's value, or null if the element is not a JSONObject or has no such field.
+	 */
+	@Nullable
+	Object optSlot(int index, int slot, @NonNull String name) {
+		if (index < 0 || index >= mSize) {
+			return null;
+		}
+		Object[] row = mRows[index];
+		if (row != null) {
+			return (slot >= 0) ? row[slot] : null;
+		}
+		Object other = mOthers[index];
+		return (other instanceof JSONObject) ? ((JSONObject) other).opt(name) : null;
+	}
+
+	@Override
+	void removeAt(int index) {
+		int moved = mSize - index - 1;
+		System.arraycopy(mRows, index + 1, mRows, index, moved);
+		System.arraycopy(mOthers, index + 1, mOthers, index, moved);
+		--mSize;
+		mRows[mSize] = null;
+		mOthers[mSize] = null;
+	}
+
+	/**
+	 * Creates a new store sharing this store's shape, holding every element of the given array.
+	 * Elements which don't match the shape are kept as is.
+	 */
+	@NonNull
+	ShapeJSONArray reshape(@NonNull JSONArray array) {
+		int length = array.length();
+		ShapeJSONArray store = new ShapeJSONArray(mShape, length);
+		for (int i = 0; i < length; ++i) {
+			store.append(JSONArrayStore.scan(array, i));
+		}
+		return store;
+	}
+
+	/**
+	 * @return The values of the element at index ordered by slot, or null if the element doesn't
+	 * match the shape. Must not be modified.
+	 */
+	@Nullable
+	Object[] rowAt(int index) {
+		return (index >= 0 && index < mSize) ? mRows[index] : null;
+	}
+
+	@NonNull
+	@Override
+	JSONArrayStore selectPositions(@NonNull int[] positions, int count,
+								   @Nullable JSONArray extra) {
+		ShapeJSONArray selection = new ShapeJSONArray(mShape, count);
+		for (int i = 0; i < count; ++i) {
+			int position = positions[i];
+			if (position >= mSize) {
+				//noinspection ConstantConditions
+				selection.store(i, extra.opt(position - mSize));
+			} else {
+				selection.mRows[i] = mRows[position];
+				selection.mOthers[i] = mOthers[position];
+			}
+		}
+		selection.mSize = count;
+		return selection;
+	}
+
+	@Override
+	void set(int index, @Nullable Object value) {
+		store(index, value);
+	}
+
+	/**
+	 * @return The slot holding the named field within this store's shape, or -1 if the shape has no
+	 * such field.
+	 */
+	int slotOf(@NonNull String name) {
+		Integer slot = mShape.slots.get(name);
+		return (slot != null) ? slot : -1;
+	}
+
+	private void store(int index, @Nullable Object value) {
+		Object[] row = mShape.toRow(value);
+		mRows[index] = row;
+		mOthers[index] = (row != null) ? null : value;
+	}
+
+	/**
+	 * An ordered table of keys along with the slot of each key.
+	 */
+	private static final class Shape {
+		final String[] keys;
+		final HashMap<String, Integer> slots;
+
+		private Shape(@NonNull String[] keys) {
+			this.keys = keys;
+			slots = new HashMap<>(keys.length * 2);
+			for (int i = 0; i < keys.length; ++i) {
+				slots.put(keys[i], i);
+			}
+		}
+
+		@NonNull
+		static Shape of(@NonNull JSONObject object) {
+			String[] keys = new String[object.length()];
+			Iterator<?> iterator = object.keys();
+			for (int i = 0; i < keys.length; ++i) {
+				keys[i] = (String) iterator.next();
+			}
+			return new Shape(keys);
+		}
+
+		@NonNull
+		JSONObject toJSONObject(@NonNull Object[] row) {
+			JSONObject object = new JSONObject();
+			try {
+				for (int i = 0; i < keys.length; ++i) {
+					object.put(keys[i], row[i]);
+				}
+			} catch (JSONException e) {
+				//Can't happen, the values were already accepted by a JSONObject
+				throw new IllegalStateException(e);
+			}
+			return object;
+		}
+
+		/**
+		 * @return The values of the given element ordered by slot, or null if the element isn't a
+		 * JSONObject with exactly this shape's keys.
+		 */
+		@Nullable
+		Object[] toRow(@Nullable Object value) {
+			if (!(value instanceof JSONObject)) {
+				return null;
+			}
+			JSONObject object = (JSONObject) value;
+			if (object.length() != keys.length) {
+				return null;
+			}
+			Object[] row = new Object[keys.length];
+			for (int i = 0; i < keys.length; ++i) {
+				Object field = object.opt(keys[i]);
+				if (field == null) {
+					return null;
+				}
+				row[i] = field;
+			}
+			return row;
+		}
+	}
+}
@@ -20,6 +20,7 @@ import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
 import android.text.TextUtils;
 import android.util.SparseArray;
+import android.util.SparseBooleanArray;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
@@ -27,6 +28,9 @@ import android.widget.BaseAdapter;
 import android.widget.Filter;
 import android.widget.Filterable;
 
+import java.util.Arrays;
+import java.util.Comparator;
+
 /**
  * <p>A custom abstract {@link BaseAdapter} that is backed by a {@link SparseArray} of arbitrary
  * objects.  By default this class delegates view generation and defining the filtering logic to
@@ -41,12 +45,41 @@ import android.widget.Filterable;
  * internally synchronized. This ensures a thread safe environment for internal write operations. If
  * filtering is not required, it's strongly recommended to use the {@link NFSparseAdapter}
  * instead.</p>
+ *
+ * <p>The items are held within an immutable sparse array, published through a single volatile
+ * reference. Writers build a new sparse array and swap it in, so methods reading the items, such
+ * as {@link #getItem(int)} or {@link #getItemWithId(int)}, never lock and always see a consistent
+ * sparse array. Since every change copies the items, prefer the bulk methods such as {@link
+ * #putAll(SparseArray)} over repeated single item changes.</p>
+ *
+ * <p>Filtering never copies the items. Those shown are kept as an immutable selection of indexes
+ * into the sparse array, in the order they are shown. Positions are resolved through the
+ * selection in constant time, without searching the keys.</p>
+ *
+ * <p>Many changes may instead be wrapped within {@link #beginBatch()} and {@link #commitBatch()}.
+ * The items are then copied once for the whole batch, and the changes shown once it commits. The
+ * last filtering request is also repeated once and a single notification sent for the whole
+ * batch.</p>
+ *
+ * <p>Items within a range of keys are found with a binary search, see {@link
+ * #getFilteredSparseArray(int, int)}. The items shown may also be restricted to a range of keys
+ * with {@link #setKeyRange(int, int)}, or to a set of keys with {@link #setIdFilter(int...)}.
+ * Neither evaluates {@link #isFilteredOut} for any item.</p>
+ *
+ * <p>Items are shown in ascending key order by default. Set a comparator with {@link
+ * #setValueOrder(Comparator)} to show them in value order instead, while look-ups by key still
+ * binary search the sorted keys.</p>
+ *
+ * <p>Finding an item's position, through {@link #getPosition(Object)} or {@link
+ * #containsItem(Object)}, is a linear search by default. Enable a reverse index from item to key
+ * with {@link #setValueIndex(ValueIndex)} to make it a hash look-up plus a binary search
+ * instead.</p>
  */
 public abstract class SparseAdapter<T> extends BaseAdapter implements Filterable {
 	/**
 	 * Lock used to modify the content of {@link #mObjects}. Any write operation performed on the
 	 * sparse array should be synchronized on this lock. This lock is also used by the filter (see
-	 * {@link #getFilter()} to make a synchronized copy of the original array of data.
+	 * {@link #getFilter()} to take the sparse array of data along with it's restrictions.
 	 */
 	private final Object mLock = new Object();
 
@@ -55,22 +88,18 @@ public abstract class SparseAdapter<T> extends BaseAdapter implements Filterable
 	/** Activity Context used to construct this adapter * */
 	private Context mContext;
 	/**
-	 * Contains the sparse array of objects that represent the visible data of the adapter. It's
-	 * contents will change as filtering occurs. All methods retrieving data about the adapter will
-	 * always do so from this sparse array.
+	 * Contains the sparse array of every object of the adapter, whether shown or filtered out. It's
+	 * contents never change as filtering occurs, see {@link #mSelection} instead. A sparse array is
+	 * never modified once assigned here. Changes are made to a copy, which then replaces it.
 	 */
-	private SparseArray<T> mObjects;
+	private volatile SparseArray<T> mObjects;
 	/**
 	 * Indicates whether or not {@link #notifyDataSetChanged()} must be called whenever {@link
 	 * #mObjects} is modified.
 	 */
 	private boolean mNotifyOnChange = true;
-	/**
-	 * A copy of the original mObjects sparse array, is not initialized until a filtering processing
-	 * occurs. Once initialized, it'll track the entire unfiltered data. Once the filter process
-	 * completes, it's contents are copied back over to mObjects and is set to null.
-	 */
-	private SparseArray<T> mOriginalValues;
+	/** Whether the items shown are filtered. Only accessed while holding {@link #mLock} */
+	private boolean mIsFiltered;
 	private SparseArrayFilter mFilter;
 
 	/**
@@ -78,6 +107,41 @@ public abstract class SparseAdapter<T> extends BaseAdapter implements Filterable
 	 * array following changes to the data
 	 */
 	private CharSequence mLastConstraint;
+	/** Number of batches currently begun and not yet committed. See {@link #beginBatch()} */
+	private int mBatchDepth;
+	/** Whether a change made during the current batch requires the filter to be repeated */
+	private boolean mIsRefilterPending;
+	/** Whether a notification was deferred during the current batch */
+	private boolean mIsNotifyPending;
+	private ValueIndex mValueIndexType = ValueIndex.NONE;
+	/**
+	 * Reverse index over the values of {@link #mObjects}, or null if not enabled. Only accessed
+	 * while holding {@link #mLock}.
+	 */
+	private SparseValueIndex mValueIndex;
+	/** Whether the items shown are restricted to a range of keys. See {@link #setKeyRange} */
+	private boolean mHasKeyRange;
+	private int mFromKeyId;
+	private int mToKeyId;
+	/**
+	 * The keys the items shown are restricted to in ascending order, or null if not restricted.
+	 * See {@link #setIdFilter(int...)}
+	 */
+	private int[] mIdFilter;
+	/** Comparator the items are shown in order of, or null for key order */
+	private Comparator<? super T> mValueComparator;
+	/**
+	 * The items shown, as a selection of {@link #mObjects} ordered by {@link #mValueComparator}.
+	 * Null while every item is shown in key order. Holds the exact sparse array it selects from, so
+	 * readers see a consistent pair. While filtered, it lags behind mObjects until the filter
+	 * repeated for a change is published.
+	 */
+	private volatile SparseSelection<T> mSelection;
+	/**
+	 * The current batch's private copy of {@link #mObjects}, changed in place and only shown once
+	 * the outermost batch commits. Null until first changed within a batch.
+	 */
+	private SparseArray<T> mBatchObjects;
 
 	/**
 	 * Constructor
@@ -108,16 +172,7 @@ public abstract class SparseAdapter<T> extends BaseAdapter implements Filterable
 	 */
 	public void appendAll(@NonNull SparseArray<T> items) {
 		synchronized (mLock) {
-			if (mOriginalValues != null) {
-				for (int index = 0; index < items.size(); ++index) {
-					mOriginalValues.append(items.keyAt(index), items.valueAt(index));
-				}
-				getFilter().filter(mLastConstraint);
-			} else {
-				for (int index = 0; index < items.size(); ++index) {
-					mObjects.append(items.keyAt(index), items.valueAt(index));
-				}
-			}
+			publishObjects(SparseArrays.merge(getNewestObjects(), items, mValueIndex));
 		}
 		if (mNotifyOnChange) {
 			notifyDataSetChanged();
@@ -134,33 +189,137 @@ public abstract class SparseAdapter<T> extends BaseAdapter implements Filterable
 	 */
 	public void appendWithId(int keyId, @Nullable T item) {
 		synchronized (mLock) {
-			if (mOriginalValues != null) {
-				mOriginalValues.append(keyId, item);
-				getFilter().filter(mLastConstraint);
-			} else {
-				mObjects.append(keyId, item);
+			SparseArray<T> objects = editObjects();
+			if (mValueIndex != null) {
+				mValueIndex.put(objects, keyId, item);
 			}
+			objects.append(keyId, item);
+			publishPut(objects, keyId);
 		}
 		if (mNotifyOnChange) {
 			notifyDataSetChanged();
 		}
 	}
 
+	/**
+	 * <p>Begins a batch of changes. Until the matching {@link #commitBatch()}, changes made to the
+	 * adapter neither repeat the last filtering request nor notify. Instead the filter is repeated
+	 * once and a single notification is sent when the batch commits.</p>
+	 *
+	 * <p>Changes are made to a single private copy of the items, which is only shown once the batch
+	 * commits. Until then, the adapter keeps showing the items as they were. Positions given within
+	 * a batch, such as to {@link #put(int, Object)}, are of the items shown.</p>
+	 *
+	 * <p>Batches may be nested, only committing the outermost batch applies the deferred work.
+	 * Always begin and commit a batch on the same thread, ideally committing within a finally
+	 * block.</p>
+	 */
+	public void beginBatch() {
+		synchronized (mLock) {
+			++mBatchDepth;
+		}
+	}
+
 	/**
 	 * Removes all items from the adapter.
 	 */
 	public void clear() {
 		synchronized (mLock) {
-			if (mOriginalValues != null) {
-				mOriginalValues.clear();
+			if (mValueIndex != null) {
+				mValueIndex.clear();
+			}
+			if (mBatchDepth > 0) {
+				mBatchObjects = new SparseArray<>();
+			} else {
+				mObjects = new SparseArray<>();
+				mSelection = (mIsFiltered || mValueComparator != null) ?
+							 SparseSelection.sort(mObjects, mValueComparator) : null;
 			}
-			mObjects.clear();
 		}
 		if (mNotifyOnChange) {
 			notifyDataSetChanged();
 		}
 	}
 
+	/**
+	 * Stops restricting the items shown to a set of keys. See {@link #setIdFilter(int...)}. Will
+	 * repeat the last filtering request if a set of keys was given.
+	 */
+	public void clearIdFilter() {
+		synchronized (mLock) {
+			if (mIdFilter == null) {
+				return;
+			}
+			mIdFilter = null;
+			refilter();
+		}
+	}
+
+	/**
+	 * Stops restricting the items shown to a range of keys. See {@link #setKeyRange(int, int)}.
+	 * Will repeat the last filtering request if a range was set.
+	 */
+	public void clearKeyRange() {
+		synchronized (mLock) {
+			if (!mHasKeyRange) {
+				return;
+			}
+			mHasKeyRange = false;
+			refilter();
+		}
+	}
+
+	/**
+	 * Commits the batch begun by the matching {@link #beginBatch()}. Once the outermost batch
+	 * commits, the changes made within it are shown. The last filtering request is then repeated
+	 * if any change required it and {@link #notifyDataSetChanged()} is invoked if any change
+	 * would have invoked it.
+	 *
+	 * @throws IllegalStateException If no batch has begun
+	 */
+	public void commitBatch() {
+		boolean isNotifyPending;
+
+		synchronized (mLock) {
+			if (mBatchDepth == 0) {
+				throw new IllegalStateException("No batch has begun");
+			} else if (--mBatchDepth > 0) {
+				return;
+			}
+			if (mBatchObjects != null) {
+				mObjects = compact(mBatchObjects);
+				mBatchObjects = null;
+				if (mIsFiltered) {
+					mIsRefilterPending = true;
+				} else {
+					reselect();
+				}
+			}
+			if (mIsRefilterPending) {
+				mIsRefilterPending = false;
+				FilterExecutor.refilter(this, mLastConstraint);
+			}
+			isNotifyPending = mIsNotifyPending;
+			mIsNotifyPending = false;
+		}
+		if (isNotifyPending) {
+			notifyDataSetChanged();
+		}
+	}
+
+	/**
+	 * SparseArray only marks the keys removed, then compacts it's arrays in place on the next
+	 * read. Compacts a sparse array about to be published, since it's read without the lock once
+	 * published.
+	 *
+	 * @return The sparse array given.
+	 */
+	@NonNull
+	private static <T> SparseArray<T> compact(@NonNull SparseArray<T> objects) {
+		objects.size();
+		return objects;
+	}
+
 	/**
 	 * Determines if the specified keyId exists within the adapter.
 	 *
@@ -169,23 +328,56 @@ public abstract class SparseAdapter<T> extends BaseAdapter implements Filterable
 	 * @return {@code true} if the keyId is found within the adapter. {@code false} otherwise.
 	 */
 	public boolean containsId(int keyId) {
-		return mObjects.indexOfKey(keyId) >= 0;
+		return getPosition(keyId) >= 0;
 	}
 
 	/**
 	 * <p>Determines if the specified item exists within the adapter. Be aware that this is a linear
-	 * search, unlike look-ups by key, and that multiple keys can map to the same value and this
-	 * will find only one of them.</p>
+	 * search, unlike look-ups by key, unless a value index is enabled. See {@link
+	 * #setValueIndex(ValueIndex)}.</p>
 	 *
 	 * <p>Note also that unlike most collections this method compares values using == rather than
-	 * equals...a result of how SparseArrays are implemented.</p>
+	 * equals...a result of how SparseArrays are implemented. Unless {@link ValueIndex#EQUALITY} is
+	 * enabled.</p>
 	 *
 	 * @param item The item to search for
 	 *
 	 * @return {@code true} if the item is an element of this adapter. {@code false} otherwise
 	 */
 	public boolean containsItem(@Nullable T item) {
-		return mObjects.indexOfValue(item) >= 0;
+		return getPosition(item) >= 0;
+	}
+
+	/**
+	 * Copies the items selected between the start and end indexes of the sparse array the
+	 * selection was built for, in key order. Nothing outside the indexes is read.
+	 */
+	@NonNull
+	private static <T> SparseArray<T> copySelected(@NonNull SparseSelection<T> selection, int start,
+												   int end) {
+		SparseArray<T> objects = selection.getObjects();
+		SparseArray<T> selected = new SparseArray<>(Math.min(end - start, selection.size()));
+		for (int index = start; index < end; ++index) {
+			if (selection.positionOf(index) >= 0) {
+				selected.append(objects.keyAt(index), objects.valueAt(index));
+			}
+		}
+		return selected;
+	}
+
+	/**
+	 * Gets the items to change, then handed to one of the publish methods. Outside a batch, that's
+	 * a new copy of {@link #mObjects}. Within a batch, that's the batch's private copy, only made
+	 * on it's first change. Must be invoked while holding {@link #mLock}.
+	 */
+	@NonNull
+	private SparseArray<T> editObjects() {
+		if (mBatchDepth == 0) {
+			return mObjects.clone();
+		} else if (mBatchObjects == null) {
+			mBatchObjects = mObjects.clone();
+		}
+		return mBatchObjects;
 	}
 
 	/**
@@ -198,7 +390,8 @@ public abstract class SparseAdapter<T> extends BaseAdapter implements Filterable
 
 	@Override
 	public int getCount() {
-		return mObjects.size();
+		SparseSelection<T> selection = mSelection;
+		return (selection != null) ? selection.size() : mObjects.size();
 	}
 
 	/**
@@ -226,6 +419,23 @@ public abstract class SparseAdapter<T> extends BaseAdapter implements Filterable
 		return getDropDownView(mInflater, position, convertView, parent);
 	}
 
+	/**
+	 * Finds where the shown items with keys up to the given key end. Together with {@link
+	 * #getStartPosition(int)}, gives the positions of a range of keys. Performs a binary search.
+	 *
+	 * @param toKeyId The highest key of the range, inclusive
+	 *
+	 * @return The position following the last item with a key less than or equal to toKeyId.
+	 */
+	public int getEndPosition(int toKeyId) {
+		SparseSelection<T> selection = mSelection;
+		if (selection != null) {
+			return selection.ceilingPosition(
+					SparseArrays.higherIndex(selection.getObjects(), toKeyId));
+		}
+		return SparseArrays.higherIndex(mObjects, toKeyId);
+	}
+
 	@Override
 	@NonNull
 	public Filter getFilter() {
@@ -241,20 +451,49 @@ public abstract class SparseAdapter<T> extends BaseAdapter implements Filterable
 	 */
 	@NonNull
 	public SparseArray<T> getFilteredSparseArray() {
-		SparseArray<T> objects;
-		synchronized (mLock) {
-			objects = mObjects.clone();
+		SparseSelection<T> selection = mSelection;
+		if (selection != null) {
+			return copySelected(selection, 0, selection.getObjects().size());
 		}
-		return objects;
+		return mObjects.clone();
+	}
+
+	/**
+	 * Gets the shown items whose keys fall within the given range. The range is found with a binary
+	 * search, so only the items within it are read.
+	 *
+	 * @param fromKeyId The lowest key of the range, inclusive
+	 * @param toKeyId   The highest key of the range, inclusive
+	 *
+	 * @return A new SparseArray holding the shown items within the range.
+	 */
+	@NonNull
+	public SparseArray<T> getFilteredSparseArray(int fromKeyId, int toKeyId) {
+		SparseSelection<T> selection = mSelection;
+		SparseArray<T> objects = (selection != null) ? selection.getObjects() : mObjects;
+		int start = SparseArrays.ceilingIndex(objects, fromKeyId);
+		int end = SparseArrays.higherIndex(objects, toKeyId);
+		if (selection != null) {
+			return copySelected(selection, start, end);
+		}
+		return SparseArrays.copyRange(objects, start, end);
 	}
 
 	@Override
 	public T getItem(int position) {
+		SparseSelection<T> selection = mSelection;
+		if (selection != null) {
+			return selection.getObjects().valueAt(selection.indexAt(position));
+		}
 		return mObjects.valueAt(position);
 	}
 
 	@Override
 	public long getItemId(int position) {
+		SparseSelection<T> selection = mSelection;
+		if (selection != null) {
+			return selection.getObjects().keyAt(selection.indexAt(position));
+		}
 		return mObjects.keyAt(position);
 	}
 
@@ -263,23 +502,56 @@ public abstract class SparseAdapter<T> extends BaseAdapter implements Filterable
 	 */
 	@Nullable
 	public T getItemWithId(int keyId) {
-		return mObjects.get(keyId);
+		SparseSelection<T> selection = mSelection;
+		if (selection == null) {
+			return mObjects.get(keyId);
+		}
+		SparseArray<T> objects = selection.getObjects();
+		int index = objects.indexOfKey(keyId);
+		return (selection.positionOf(index) >= 0) ? objects.valueAt(index) : null;
+	}
+
+	/**
+	 * @return Every item including any change made within the current batch. Must be invoked while
+	 * holding {@link #mLock}.
+	 */
+	@NonNull
+	private SparseArray<T> getNewestObjects() {
+		return (mBatchObjects != null) ? mBatchObjects : mObjects;
 	}
 
 	/**
 	 * <p>Returns the position of the specified item in the sparse array. Be aware that this is a
-	 * linear search, unlike look-ups by key,and that multiple keys can map to the same value and
-	 * this will find only one of them.</p>
+	 * linear search, unlike look-ups by key, unless a value index is enabled. See {@link
+	 * #setValueIndex(ValueIndex)}. Multiple keys can map to the same value and this will find only
+	 * one of them.</p>
 	 *
 	 * <p>Note also that unlike most collections, this method compares values using == rather than
-	 * equals.</p>
+	 * equals. Unless {@link ValueIndex#EQUALITY} is enabled.</p>
 	 *
 	 * @param item The item to retrieve the position of.
 	 *
 	 * @return The position of the specified item, or a negative number if not found.
 	 */
 	public int getPosition(@Nullable T item) {
-		return mObjects.indexOfValue(item);
+		synchronized (mLock) {
+			if (mValueIndex != null && mBatchObjects == null) {    //Else ahead of the items shown
+				SparseSelection<T> selection = mSelection;
+				return (selection != null) ? mValueIndex.positionOfValue(selection, item) :
+					   mValueIndex.indexOfValue(mObjects, item);
+			}
+		}
+		SparseSelection<T> selection = mSelection;
+		if (selection == null) {
+			return mObjects.indexOfValue(item);
+		}
+		SparseArray<T> objects = selection.getObjects();
+		for (int position = 0; position < selection.size(); ++position) {
+			if (objects.valueAt(selection.indexAt(position)) == item) {
+				return position;
+			}
+		}
+		return -1;
 	}
 
 	/**
@@ -288,7 +560,10 @@ public abstract class SparseAdapter<T> extends BaseAdapter implements Filterable
 	 * @return the position for which a keyId is found, or a negative number if not found.
 	 */
 	public int getPosition(int keyId) {
-
+		SparseSelection<T> selection = mSelection;
+		if (selection != null) {
+			return selection.positionOf(selection.getObjects().indexOfKey(keyId));
+		}
 		return mObjects.indexOfKey(keyId);
 	}
 
@@ -297,15 +572,37 @@ public abstract class SparseAdapter<T> extends BaseAdapter implements Filterable
 	 */
 	@NonNull
 	public SparseArray<T> getSparseArray() {
-		SparseArray<T> objects;
+		return mObjects.clone();
+	}
+
+	/**
+	 * Finds where the shown items with keys from the given key onward start. The positions of the
+	 * items with keys from A to B, inclusive, run from {@code getStartPosition(A)} up to but not
+	 * including {@code getEndPosition(B)}. Performs a binary search.
+	 *
+	 * @param fromKeyId The lowest key of the range, inclusive
+	 *
+	 * @return The position of the first item with a key greater than or equal to fromKeyId, or
+	 * {@link #getCount()} if there is none.
+	 */
+	public int getStartPosition(int fromKeyId) {
+		SparseSelection<T> selection = mSelection;
+		if (selection != null) {
+			return selection.ceilingPosition(
+					SparseArrays.ceilingIndex(selection.getObjects(), fromKeyId));
+		}
+		return SparseArrays.ceilingIndex(mObjects, fromKeyId);
+	}
+
+	/**
+	 * @return How items are indexed for {@link #getPosition(Object)} and {@link
+	 * #containsItem(Object)}. See {@link #setValueIndex(ValueIndex)}.
+	 */
+	@NonNull
+	public ValueIndex getValueIndex() {
 		synchronized (mLock) {
-			if (mOriginalValues != null) {
-				objects = mOriginalValues.clone();
-			} else {
-				objects = mObjects.clone();
-			}
+			return mValueIndexType;
 		}
-		return objects;
 	}
 
 	/**
@@ -319,14 +616,8 @@ public abstract class SparseAdapter<T> extends BaseAdapter implements Filterable
 	 */
 	public void setSparseArray(@NonNull SparseArray<T> items) {
 		synchronized (mLock) {
-			if (mOriginalValues != null) {
-				mOriginalValues.clear();
-				mOriginalValues = items.clone();
-				getFilter().filter(mLastConstraint);
-			} else {
-				mObjects.clear();
-				mObjects = items.clone();
-			}
+			publishObjects(compact(items.clone()));
+			reindexValues();
 		}
 		if (mNotifyOnChange) {
 			notifyDataSetChanged();
@@ -366,7 +657,7 @@ public abstract class SparseAdapter<T> extends BaseAdapter implements Filterable
 		if (objects == null) {
 			mObjects = new SparseArray<>();
 		} else {
-			mObjects = objects.clone();
+			mObjects = compact(objects.clone());
 		}
 	}
 
@@ -386,27 +677,36 @@ public abstract class SparseAdapter<T> extends BaseAdapter implements Filterable
 
 	@Override
 	public void notifyDataSetChanged() {
+		synchronized (mLock) {
+			if (mBatchDepth > 0) {
+				mIsNotifyPending = true;    //Sent once the batch commits
+				return;
+			}
+		}
 		super.notifyDataSetChanged();
 		mNotifyOnChange = true;
 	}
 
 	/**
 	 * Given a position in the range of 0...{@link #getCount()} - 1, sets a new value for the
-	 * key-value stored at that position. Be aware this method is only a constant amortised time
-	 * operation when the adapter is not filtered. Otherwise, the position must be converted to a
-	 * unfiltered position; which requires a binary search on the original unfiltered data.
+	 * key-value stored at that position. The position is resolved through the items shown in
+	 * constant time, filtered or not, without a binary search. Will repeat the last filtering
+	 * request if invoked while filtered results are being displayed.
 	 *
 	 * @param position The position of the item to update
 	 * @param item     The item to update with
 	 */
 	public void put(int position, @Nullable T item) {
 		synchronized (mLock) {
-			if (mOriginalValues != null) {
-				int newPosition = mOriginalValues.indexOfKey(mObjects.keyAt(position));
-				mOriginalValues.setValueAt(newPosition, item);
-				getFilter().filter(mLastConstraint);
-			} else {
-				mObjects.setValueAt(position, item);
+			int index = toNewestIndex(toIndex(position));
+			if (index >= 0) {
+				SparseArray<T> objects = editObjects();
+				int keyId = objects.keyAt(index);
+				if (mValueIndex != null) {
+					mValueIndex.put(objects, keyId, item);
+				}
+				objects.setValueAt(index, item);
+				publishPut(objects, keyId);
 			}
 		}
 		if (mNotifyOnChange) {
@@ -417,22 +717,14 @@ public abstract class SparseAdapter<T> extends BaseAdapter implements Filterable
 	/**
 	 * Adds the specified SparseArray to the adapter, replacing any existing mappings from the
 	 * specified keys if there were any.  Will repeat the last filtering request if invoked while
-	 * filtered results are being displayed.
+	 * filtered results are being displayed. The keys of both are merged in a single linear pass,
+	 * rather than putting each item in turn.
 	 *
 	 * @param items The SparseArray items to add to the adapter.
 	 */
 	public void putAll(@NonNull SparseArray<T> items) {
 		synchronized (mLock) {
-			if (mOriginalValues != null) {
-				for (int index = 0; index < items.size(); ++index) {
-					mOriginalValues.put(items.keyAt(index), items.valueAt(index));
-				}
-				getFilter().filter(mLastConstraint);
-			} else {
-				for (int index = 0; index < items.size(); ++index) {
-					mObjects.put(items.keyAt(index), items.valueAt(index));
-				}
-			}
+			publishObjects(SparseArrays.merge(getNewestObjects(), items, mValueIndex));
 		}
 		if (mNotifyOnChange) {
 			notifyDataSetChanged();
@@ -446,12 +738,12 @@ public abstract class SparseAdapter<T> extends BaseAdapter implements Filterable
 	 */
 	public void putWithId(int keyId, @Nullable T item) {
 		synchronized (mLock) {
-			if (mOriginalValues != null) {
-				mOriginalValues.put(keyId, item);
-				getFilter().filter(mLastConstraint);
-			} else {
-				mObjects.put(keyId, item);
+			SparseArray<T> objects = editObjects();
+			if (mValueIndex != null) {
+				mValueIndex.put(objects, keyId, item);
 			}
+			objects.put(keyId, item);
+			publishPut(objects, keyId);
 		}
 		if (mNotifyOnChange) {
 			notifyDataSetChanged();
@@ -459,20 +751,107 @@ public abstract class SparseAdapter<T> extends BaseAdapter implements Filterable
 	}
 
 	/**
-	 * Removes the mapping at the specified position in the adapter.  Be aware this method is only a
-	 * constant amortised time operation when the adapter is not filtered. Otherwise, the position
-	 * must be converted to a unfiltered position; which requires a binary search on the original
-	 * unfiltered sparse array.
+	 * Replaces {@link #mObjects} after a bulk change, then selects the items shown again. Within a
+	 * batch, holds them as the batch's private copy instead. Must be invoked while holding {@link
+	 * #mLock}.
+	 */
+	private void publishObjects(@NonNull SparseArray<T> objects) {
+		if (mBatchDepth > 0) {
+			mBatchObjects = objects;
+		} else {
+			mObjects = objects;
+			reselect();
+		}
+	}
+
+	/**
+	 * Replaces {@link #mObjects} with a copy of it holding a single key put into it. Repeats the
+	 * last filtering request if filtered, otherwise places the key within the value order, if set.
+	 * Within a batch, holds it as the batch's private copy instead. Must be invoked while holding
+	 * {@link #mLock}.
+	 */
+	private void publishPut(@NonNull SparseArray<T> objects, int keyId) {
+		if (mBatchDepth > 0) {
+			mBatchObjects = objects;
+			return;
+		}
+		mObjects = objects;
+		if (mIsFiltered) {
+			refilter();
+		} else if (mSelection != null) {    //Always selects the previous mObjects when not filtered
+			mSelection = mSelection.put(objects, keyId);
+		}
+	}
+
+	/**
+	 * Replaces {@link #mObjects} with a copy of it with keys removed. The items shown are kept in
+	 * step without filtering again, unless they lag behind a filter being repeated. Within a batch,
+	 * holds it as the batch's private copy instead. Must be invoked while holding {@link #mLock}.
+	 */
+	private void publishRemoval(@NonNull SparseArray<T> objects) {
+		if (mBatchDepth > 0) {
+			mBatchObjects = objects;
+			return;
+		}
+		SparseArray<T> previous = mObjects;
+		SparseSelection<T> selection = mSelection;
+		mObjects = compact(objects);
+		if (selection != null && selection.getObjects() == previous) {
+			mSelection = selection.retain(objects);
+		} else if (mIsFiltered) {
+			refilter();
+		}
+	}
+
+	/**
+	 * Repeats the last filtering request, or defers it until the current batch commits. Must be
+	 * invoked while holding {@link #mLock}.
+	 */
+	private void refilter() {
+		if (mBatchDepth > 0) {
+			mIsRefilterPending = true;
+		} else {
+			FilterExecutor.refilter(this, mLastConstraint);
+		}
+	}
+
+	/**
+	 * Rebuilds the value index, if enabled, from every item. Must be invoked while holding {@link
+	 * #mLock}.
+	 */
+	private void reindexValues() {
+		if (mValueIndex != null) {
+			mValueIndex.clear();
+			mValueIndex.addAll(getNewestObjects());
+		}
+	}
+
+	/**
+	 * Selects the items shown again after {@link #mObjects} is replaced by a bulk change. Repeats
+	 * the last filtering request if filtered, otherwise orders every item from scratch by the value
+	 * comparator, if set. Must be invoked while holding {@link #mLock}.
+	 */
+	private void reselect() {
+		if (mIsFiltered) {
+			refilter();
+		} else {
+			mSelection = (mValueComparator != null) ?
+						 SparseSelection.sort(mObjects, mValueComparator) : null;
+		}
+	}
+
+	/**
+	 * Removes the mapping at the specified position in the adapter. The position is resolved
+	 * through the items shown in constant time, filtered or not, without a binary search.
 	 *
 	 * @param position The position of the item to remove
 	 */
 	public void remove(int position) {
 		synchronized (mLock) {
-			if (mOriginalValues != null) {
-				int newPosition = mOriginalValues.indexOfKey(mObjects.keyAt(position));
-				mOriginalValues.removeAt(newPosition);
+			int index = toNewestIndex(toIndex(position));
+			if (index >= 0) {
+				removeIndex(index);
 			}
-			mObjects.removeAt(position);
 		}
 		if (mNotifyOnChange) {
 			notifyDataSetChanged();
@@ -480,19 +859,17 @@ public abstract class SparseAdapter<T> extends BaseAdapter implements Filterable
 	}
 
 	/**
-	 * Removes all items from the adapter that are found within the specified SparseArray.
+	 * Removes all items from the adapter that are found within the specified SparseArray. The keys
+	 * of both are compared in a single linear pass, rather than deleting each key in turn.
 	 *
 	 * @param items The SparseArray items to remove from the adapter.
 	 */
 	public void removeAll(@NonNull SparseArray<T> items) {
 		synchronized (mLock) {
-			if (mOriginalValues != null) {
-				for (int index = 0; index < items.size(); ++index) {
-					mOriginalValues.delete(items.keyAt(index));
-				}
-			}
-			for (int index = 0; index < items.size(); ++index) {
-				mObjects.delete(items.keyAt(index));
+			SparseArray<T> newest = getNewestObjects();
+			SparseArray<T> objects = SparseArrays.removeAll(newest, items, mValueIndex);
+			if (objects != newest) {
+				publishRemoval(objects);
 			}
 		}
 		if (mNotifyOnChange) {
@@ -500,6 +877,19 @@ public abstract class SparseAdapter<T> extends BaseAdapter implements Filterable
 		}
 	}
 
+	/**
+	 * Removes the mapping at the index within {@link #getNewestObjects()}. Must be invoked while
+	 * holding {@link #mLock}.
+	 */
+	private void removeIndex(int index) {
+		SparseArray<T> objects = editObjects();
+		if (mValueIndex != null) {
+			mValueIndex.remove(objects.valueAt(index), objects.keyAt(index));
+		}
+		objects.removeAt(index);
+		publishRemoval(objects);
+	}
+
 	/**
 	 * Removes the mapping with the specified keyId from the adapter.
 	 *
@@ -507,16 +897,85 @@ public abstract class SparseAdapter<T> extends BaseAdapter implements Filterable
 	 */
 	public void removeWithId(int keyId) {
 		synchronized (mLock) {
-			if (mOriginalValues != null) {
-				mOriginalValues.delete(keyId);
+			int index = getNewestObjects().indexOfKey(keyId);
+			if (index >= 0) {
+				removeIndex(index);
 			}
-			mObjects.delete(keyId);
 		}
 		if (mNotifyOnChange) {
 			notifyDataSetChanged();
 		}
 	}
 
+	/**
+	 * Restricts the items shown to those with the given keys. The keys are intersected with the
+	 * adapter's own sorted keys in a single pass, or with a binary search per key when there are
+	 * few of them. No {@link #isFilteredOut} predicate is evaluated for it. Combines with a key
+	 * range and a filtering constraint, only items passing all of them are shown. The keys are kept
+	 * through changes to the adapter until {@link #clearIdFilter()}. Repeats the last filtering
+	 * request.
+	 *
+	 * @param keyIds The keys of the items to show. Sorted into ascending order if they aren't
+	 *               already.
+	 */
+	public void setIdFilter(@NonNull int... keyIds) {
+		int[] ids = keyIds.clone();
+		for (int index = 1; index < ids.length; ++index) {
+			if (ids[index - 1] > ids[index]) {
+				Arrays.sort(ids);
+				break;
+			}
+		}
+		synchronized (mLock) {
+			mIdFilter = ids;
+			refilter();
+		}
+	}
+
+	/**
+	 * Restricts the items shown to those whose keys map to true within the given array. See {@link
+	 * #setIdFilter(int...)}.
+	 *
+	 * @param keyIds The keys of the items to show, mapped to true
+	 */
+	public void setIdFilter(@NonNull SparseBooleanArray keyIds) {
+		int[] ids = new int[keyIds.size()];
+		int count = 0;
+		for (int index = 0; index < keyIds.size(); ++index) {
+			if (keyIds.valueAt(index)) {
+				ids[count++] = keyIds.keyAt(index);
+			}
+		}
+		synchronized (mLock) {
+			mIdFilter = Arrays.copyOf(ids, count);
+			refilter();
+		}
+	}
+
+	/**
+	 * Restricts the items shown to those with keys within the given range. The range is found with
+	 * a binary search and no {@link #isFilteredOut} predicate is evaluated for it. If a filtering
+	 * constraint or a set of keys is also applied, only the items within the range are passed on to
+	 * them. The range is kept through changes to the adapter until {@link
+	 * #clearKeyRange()}. Repeats the last filtering request.
+	 *
+	 * @param fromKeyId The lowest key of the range, inclusive
+	 * @param toKeyId   The highest key of the range, inclusive
+	 *
+	 * @throws IllegalArgumentException If fromKeyId is greater than toKeyId
+	 */
+	public void setKeyRange(int fromKeyId, int toKeyId) {
+		if (fromKeyId > toKeyId) {
+			throw new IllegalArgumentException("fromKeyId " + fromKeyId + " > toKeyId " + toKeyId);
+		}
+		synchronized (mLock) {
+			mHasKeyRange = true;
+			mFromKeyId = fromKeyId;
+			mToKeyId = toKeyId;
+			refilter();
+		}
+	}
+
 	/**
 	 * <p>Controls whether methods that change the list ({@link #appendWithId}, {@link #putWithId},
 	 * {@link #remove}, {@link #clear}) automatically call {@link #notifyDataSetChanged}.  If set to
@@ -532,52 +991,177 @@ public abstract class SparseAdapter<T> extends BaseAdapter implements Filterable
 		mNotifyOnChange = notifyOnChange;
 	}
 
+	/**
+	 * <p>Sets how items are indexed for {@link #getPosition(Object)} and {@link
+	 * #containsItem(Object)}. By default nothing is indexed and both perform a linear search.</p>
+	 *
+	 * <p>Once enabled, a reverse index from every item to it's keys is kept in step with every
+	 * change, filtering leaves it untouched. Both methods then become a hash look-up plus a binary
+	 * search. With {@link ValueIndex#EQUALITY}, items are matched using equals and hashCode, which
+	 * must not change while the item is held by the adapter. The index costs memory in proportion
+	 * to the number of items, and every change pays to update it.</p>
+	 *
+	 * @param type How to index the items. {@link ValueIndex#NONE} drops the index.
+	 */
+	public void setValueIndex(@NonNull ValueIndex type) {
+		synchronized (mLock) {
+			if (type == mValueIndexType) {
+				return;
+			}
+			mValueIndexType = type;
+			mValueIndex = (type != ValueIndex.NONE) ?
+						  new SparseValueIndex(type == ValueIndex.IDENTITY) : null;
+			reindexValues();
+		}
+	}
+
+	/**
+	 * <p>Shows the items in order of the given comparator, rather than in ascending key order.
+	 * Items the comparator considers equal are shown in key order. Look-ups by key, such as {@link
+	 * #getItemWithId(int)}, still binary search the sorted keys.</p>
+	 *
+	 * <p>The order is kept within the selection of the items shown. Changing a single item updates
+	 * it in linear time without sorting again. Bulk changes and filtering sort the items
+	 * again, filtering does so on the background thread. Positions returned by {@link
+	 * #getStartPosition(int)} and {@link #getEndPosition(int)} are in key order, so are only
+	 * meaningful without a value order.</p>
+	 *
+	 * @param comparator The comparator to order items by, or null to return to key order
+	 */
+	public void setValueOrder(@Nullable Comparator<? super T> comparator) {
+		synchronized (mLock) {
+			mValueComparator = comparator;
+			if (!mIsFiltered) {
+				reselect();
+			} else if (mSelection != null) {
+				mSelection = mSelection.orderBy(comparator);
+			}
+		}
+		if (mNotifyOnChange) {
+			notifyDataSetChanged();
+		}
+	}
+
+	/**
+	 * How items are indexed for {@link #getPosition(Object)} and {@link #containsItem(Object)}.
+	 * See {@link #setValueIndex(ValueIndex)}.
+	 */
+	public enum ValueIndex {
+		/** Items aren't indexed. Look-ups by item are a linear search comparing with == */
+		NONE,
+		/** Items are indexed by identity. Look-ups by item compare with == */
+		IDENTITY,
+		/** Items are indexed by equality. Look-ups by item compare with equals */
+		EQUALITY
+	}
+
+	/**
+	 * Converts a position shown into an index within {@link #mObjects}, through the selection of
+	 * the items shown. Only requires a binary search while the selection lags behind mObjects. Must
+	 * be invoked while holding {@link #mLock}.
+	 *
+	 * @return The index, or a negative number if the item shown has since been removed.
+	 */
+	private int toIndex(int position) {
+		SparseSelection<T> selection = mSelection;
+		if (selection == null) {
+			return position;
+		}
+		SparseArray<T> objects = selection.getObjects();
+		int index = selection.indexAt(position);
+		return (objects == mObjects) ? index : mObjects.indexOfKey(objects.keyAt(index));
+	}
+
+	/**
+	 * Converts an index within {@link #mObjects} into one within {@link #getNewestObjects()}. Only
+	 * requires a binary search once changed within the current batch. Must be invoked while holding
+	 * {@link #mLock}.
+	 *
+	 * @return The index, or a negative number if the item has since been removed.
+	 */
+	private int toNewestIndex(int index) {
+		if (mBatchObjects == null || index < 0) {
+			return index;
+		}
+		return mBatchObjects.indexOfKey(mObjects.keyAt(index));
+	}
+
 	/**
 	 * A SparseArray filter constrains the content of the adapter. Whether an item is constrained or
 	 * not is delegated to subclasses through {@link SparseAdapter#isFilteredOut}
 	 */
-	private class SparseArrayFilter extends Filter {
+	private class SparseArrayFilter extends PooledFilter {
 		@Override
-		protected FilterResults performFiltering(CharSequence constraint) {
+		protected FilterResults performPooledFiltering(CharSequence constraint) {
 			FilterResults results = new FilterResults();
 			final SparseArray<T> values;
+			final Comparator<? super T> comparator;
+			final int[] keyIds;
+			int start = 0;
+			int end;
 
 			synchronized (mLock) {
-				if (TextUtils.isEmpty(constraint)) {    //Clearing out filtered results
-					if (mOriginalValues != null) {
-						mObjects = mOriginalValues.clone();
-						mOriginalValues = null;
+				if (TextUtils.isEmpty(constraint) && !mHasKeyRange && mIdFilter == null) {
+					if (mIsFiltered) {
+						mIsFiltered = false;
+						reselect();
 					}
-					results.values = mObjects;
-					results.count = mObjects.size();
+					results.count = getCount();
 					return results;
 				} else {    //Ready for filtering
-					if (mOriginalValues == null) {
-						mOriginalValues = mObjects.clone();
+					mIsFiltered = true;
+					values = mObjects;
+					comparator = mValueComparator;
+					keyIds = mIdFilter;
+					end = values.size();
+					if (mHasKeyRange) {    //Nothing outside the range is read
+						start = SparseArrays.ceilingIndex(values, mFromKeyId);
+						end = SparseArrays.higherIndex(values, mToKeyId);
 					}
-					values = mOriginalValues.clone();
 				}
 			}
 
-			final SparseArray<T> newValues = new SparseArray<>();
-			for (int index = 0; index < values.size(); ++index) {
-				if (!isFilteredOut(values.keyAt(index), values.valueAt(index), constraint)) {
-					newValues.put(values.keyAt(index), values.valueAt(index));
+			int[] indexes;
+			if (keyIds != null) {
+				indexes = SparseArrays.intersect(values, start, end, keyIds);
+			} else {
+				indexes = new int[end - start];
+				for (int index = start; index < end; ++index) {
+					indexes[index - start] = index;
+				}
+			}
+			int count = indexes.length;
+			if (!TextUtils.isEmpty(constraint)) {    //Otherwise restricted by keys alone
+				count = 0;
+				for (int index : indexes) {
+					if (!isFilteredOut(values.keyAt(index), values.valueAt(index), constraint)) {
+						indexes[count++] = index;
+					}
 				}
 			}
 
-			results.values = newValues;
-			results.count = newValues.size();
+			//Ordered here rather than on the main thread once published
+			results.values = SparseSelection.of(values, indexes, count, comparator);
+			results.count = count;
 
 			return results;
 		}
 
 		@SuppressWarnings("unchecked")
 		@Override
-		protected void publishResults(CharSequence constraint, FilterResults results) {
+		protected void publishPooledResults(CharSequence constraint, FilterResults results) {
 			mLastConstraint = constraint;
 			synchronized (mLock) {
-				mObjects = (SparseArray<T>) results.values;
+				if (mIsFiltered && results.values instanceof SparseSelection) {
+					SparseSelection<T> selection = (SparseSelection<T>) results.values;
+					if (selection.getComparator() != mValueComparator) {    //Changed meanwhile
+						selection = selection.orderBy(mValueComparator);
+					}
+					mSelection = selection;
+					if (selection.getObjects() != mObjects) {
+						refilter();    //The items changed while filtering
+					}
+				}
 			}
 			if (results.count > 0) {
 				notifyDataSetChanged();
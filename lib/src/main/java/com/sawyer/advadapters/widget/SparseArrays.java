@@ -0,0 +1,251 @@
+/*
+ * Copyright 2014 Jay Soyer
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sawyer.advadapters.widget;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.util.SparseArray;
+
+import java.util.Arrays;
+
+/**
+ * <p>Bulk operations over SparseArrays which make use of their keys being sorted. Putting or
+ * deleting keys one at a time shifts the arrays backing a SparseArray for every key, which is
+ * quadratic for large inputs. Instead both sorted key arrays are walked together once, appending
+ * each surviving mapping to a new SparseArray in key order. Appending in key order never shifts,
+ * so the whole operation is linear.</p>
+ *
+ * <p>Each operation may update a {@link SparseValueIndex} kept over the values given, as it
+ * goes. Key ranges are found with a binary search over the sorted keys, and sets of keys are
+ * intersected in a single pass into the indexes of the mappings found.</p>
+ */
+final class SparseArrays {
+	private SparseArrays() {
+	}
+
+	/**
+	 * @return The index of the first key of values greater than or equal to the given key, or the
+	 * size of values if there is none.
+	 */
+	static int ceilingIndex(@NonNull SparseArray<?> values, int key) {
+		return ceilingIndex(values, 0, values.size(), key);
+	}
+
+	/**
+	 * @return The index of the first key of values between start, inclusive, and end, exclusive,
+	 * which is greater than or equal to the given key. Or end if there is none.
+	 */
+	private static int ceilingIndex(@NonNull SparseArray<?> values, int start, int end, int key) {
+		int low = start;
+		int high = end;
+		while (low < high) {
+			int middle = (low + high) >>> 1;
+			if (values.keyAt(middle) < key) {
+				low = middle + 1;
+			} else {
+				high = middle;
+			}
+		}
+		return low;
+	}
+
+	/**
+	 * @return A new SparseArray holding the mappings of values from the start index, inclusive, to
+	 * the end index, exclusive.
+	 */
+	@NonNull
+	static <T> SparseArray<T> copyRange(@NonNull SparseArray<T> values, int start, int end) {
+		SparseArray<T> range = new SparseArray<>(end - start);
+		for (int index = start; index < end; ++index) {
+			range.append(values.keyAt(index), values.valueAt(index));
+		}
+		return range;
+	}
+
+	/**
+	 * @return The index of the first key of values greater than the given key, or the size of
+	 * values if there is none.
+	 */
+	static int higherIndex(@NonNull SparseArray<?> values, int key) {
+		return (key == Integer.MAX_VALUE) ? values.size() : ceilingIndex(values, key + 1);
+	}
+
+	/**
+	 * Finds the mappings of values, between the start and end indexes, whose keys are found within
+	 * the given keys. When there are few keys compared to values, each key is found with a binary
+	 * search. Otherwise both sorted key arrays are walked together once.
+	 *
+	 * @param values The mappings to intersect
+	 * @param start  The index of values to start from, inclusive
+	 * @param end    The index of values to end at, exclusive
+	 * @param keys   The keys to keep, in ascending order
+	 *
+	 * @return The ascending indexes within values of the mappings whose keys are found within keys.
+	 */
+	@NonNull
+	static int[] intersect(@NonNull SparseArray<?> values, int start, int end,
+						   @NonNull int[] keys) {
+		int count = end - start;
+		int[] intersection = new int[Math.min(count, keys.length)];
+		int size = 0;
+		int searchCost = 32 - Integer.numberOfLeadingZeros(count);
+		if ((long) keys.length * searchCost < count) {
+			int from = start;
+			for (int keyIndex = 0; keyIndex < keys.length && from < end; ++keyIndex) {
+				int index = ceilingIndex(values, from, end, keys[keyIndex]);
+				if (index < end && values.keyAt(index) == keys[keyIndex]) {
+					intersection[size++] = index++;
+				}
+				from = index;
+			}
+		} else {
+			int keyIndex = 0;
+			for (int index = start; index < end && keyIndex < keys.length; ++index) {
+				int key = values.keyAt(index);
+				while (keyIndex < keys.length && keys[keyIndex] < key) {
+					++keyIndex;
+				}
+				if (keyIndex < keys.length && keys[keyIndex] == key) {
+					intersection[size++] = index;
+				}
+			}
+		}
+		return Arrays.copyOf(intersection, size);
+	}
+
+	/**
+	 * @return Whether every key of items is greater than every key of values.
+	 */
+	private static boolean isAfter(@NonNull SparseArray<?> values, @NonNull SparseArray<?> items) {
+		return values.size() == 0 || items.keyAt(0) > values.keyAt(values.size() - 1);
+	}
+
+	/**
+	 * Merges items into values, in one pass over both. Items replace any mappings of values with
+	 * the same keys. Values is left untouched.
+	 *
+	 * @param values The mappings to merge into
+	 * @param items  The mappings to merge
+	 * @param index  Index kept over values, updated to match the merged mappings. May be null.
+	 *
+	 * @return A new SparseArray holding the merged mappings, or values itself if items is empty.
+	 */
+	@NonNull
+	static <T> SparseArray<T> merge(@NonNull SparseArray<T> values,
+									@NonNull SparseArray<? extends T> items,
+									@Nullable SparseValueIndex index) {
+		if (items.size() == 0) {
+			return values;
+		}
+		SparseArray<T> merged = new SparseArray<>(values.size() + items.size());
+		int valuesIndex = 0;
+		int itemsIndex = 0;
+		while (valuesIndex < values.size() && itemsIndex < items.size()) {
+			int key = values.keyAt(valuesIndex);
+			int itemKey = items.keyAt(itemsIndex);
+			if (key < itemKey) {
+				merged.append(key, values.valueAt(valuesIndex++));
+				continue;
+			} else if (key == itemKey) {    //Replaced by the item
+				if (index != null) {
+					index.remove(values.valueAt(valuesIndex), key);
+				}
+				++valuesIndex;
+			}
+			T item = items.valueAt(itemsIndex++);
+			if (index != null) {
+				index.add(item, itemKey);
+			}
+			merged.append(itemKey, item);
+		}
+		for (; valuesIndex < values.size(); ++valuesIndex) {
+			merged.append(values.keyAt(valuesIndex), values.valueAt(valuesIndex));
+		}
+		for (; itemsIndex < items.size(); ++itemsIndex) {
+			T item = items.valueAt(itemsIndex);
+			if (index != null) {
+				index.add(item, items.keyAt(itemsIndex));
+			}
+			merged.append(items.keyAt(itemsIndex), item);
+		}
+		return merged;
+	}
+
+	/**
+	 * Puts items into values. When every key of items comes after those of values, the items are
+	 * appended to values in place. Otherwise both are merged in one pass, see {@link
+	 * #merge(SparseArray, SparseArray, SparseValueIndex)}. Only use on a SparseArray which may be
+	 * modified.
+	 *
+	 * @param values The mappings to put into
+	 * @param items  The mappings to put
+	 *
+	 * @return The SparseArray holding the result. Either values or a new SparseArray.
+	 */
+	@NonNull
+	static <T> SparseArray<T> putAll(@NonNull SparseArray<T> values,
+									 @NonNull SparseArray<? extends T> items) {
+		if (items.size() == 0 || !isAfter(values, items)) {
+			return merge(values, items, null);
+		}
+		for (int index = 0; index < items.size(); ++index) {
+			values.append(items.keyAt(index), items.valueAt(index));
+		}
+		return values;
+	}
+
+	/**
+	 * Removes the mappings of values whose keys are found within items, in one pass over both.
+	 * Values is left untouched.
+	 *
+	 * @param values The mappings to remove from
+	 * @param items  The mappings whose keys are removed. Their values are ignored.
+	 * @param index  Index kept over values, updated to match the remaining mappings. May be null.
+	 *
+	 * @return A new SparseArray holding the remaining mappings, or values itself if no key was
+	 * found.
+	 */
+	@NonNull
+	static <T> SparseArray<T> removeAll(@NonNull SparseArray<T> values,
+										@NonNull SparseArray<?> items,
+										@Nullable SparseValueIndex index) {
+		if (items.size() == 0 || isAfter(values, items) || isAfter(items, values)) {
+			return values;
+		}
+		SparseArray<T> remaining = null;
+		int itemsIndex = 0;
+		for (int valuesIndex = 0; valuesIndex < values.size(); ++valuesIndex) {
+			int key = values.keyAt(valuesIndex);
+			while (itemsIndex < items.size() && items.keyAt(itemsIndex) < key) {
+				++itemsIndex;
+			}
+			if (itemsIndex < items.size() && items.keyAt(itemsIndex) == key) {
+				if (remaining == null) {    //First key found, copy the mappings before it
+					remaining = new SparseArray<>(values.size());
+					for (int before = 0; before < valuesIndex; ++before) {
+						remaining.append(values.keyAt(before), values.valueAt(before));
+					}
+				}
+				if (index != null) {
+					index.remove(values.valueAt(valuesIndex), key);
+				}
+			} else if (remaining != null) {
+				remaining.append(key, values.valueAt(valuesIndex));
+			}
+		}
+		return (remaining != null) ? remaining : values;
+	}
+}
@@ -0,0 +1,180 @@
+/*
+ * Copyright 2014 Jay Soyer
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sawyer.advadapters.widget;
+
+import android.support.annotation.NonNull;
+import android.util.SparseBooleanArray;
+
+import java.util.Arrays;
+
+/**
+ * Maps ints to booleans within a sorted int[] of keys and a boolean[] of values. Mirrors {@link
+ * android.util.SparseBooleanArray}, adding the bulk operations and the {@link #removeAt(int)} and
+ * {@link #setValueAt(int, boolean)} only added to the platform class in API 29. Backs the {@link
+ * SparseBooleanAdapter}. Not synchronized. Everything not reading or writing a value is implemented
+ * by the {@link AbsSparseStore}.
+ */
+final class SparseBooleanStore extends AbsSparseStore<SparseBooleanStore> {
+	private static final boolean[] EMPTY_VALUES = new boolean[0];
+
+	private boolean[] mValues;
+
+	/**
+	 * Creates a new SparseBooleanStore containing no mappings.
+	 */
+	SparseBooleanStore() {
+		this(0);
+	}
+
+	/**
+	 * Creates a new SparseBooleanStore containing no mappings that will not require any additional
+	 * memory allocation to store the specified number of mappings.
+	 */
+	SparseBooleanStore(int initialCapacity) {
+		super(initialCapacity);
+		mValues = (initialCapacity > 0) ? new boolean[initialCapacity] : EMPTY_VALUES;
+	}
+
+	/**
+	 * Puts a key/value pair into the array, optimizing for the case where the key is greater than
+	 * all existing keys in the array.
+	 */
+	void append(int key, boolean value) {
+		if (mSize != 0 && key <= mKeys[mSize - 1]) {
+			put(key, value);
+			return;
+		}
+		ensureCapacity(mSize + 1);
+		mKeys[mSize] = key;
+		mValues[mSize] = value;
+		++mSize;
+	}
+
+	@Override
+	@NonNull
+	SparseBooleanStore create(int initialCapacity) {
+		return new SparseBooleanStore(initialCapacity);
+	}
+
+	/**
+	 * @return A new SparseBooleanStore holding a copy of the mappings of the items.
+	 */
+	@NonNull
+	static SparseBooleanStore from(@NonNull SparseBooleanArray items) {
+		int size = items.size();
+		SparseBooleanStore values = new SparseBooleanStore(size);
+		for (int index = 0; index < size; ++index) {
+			values.append(items.keyAt(index), items.valueAt(index));
+		}
+		return values;
+	}
+
+	/**
+	 * Gets the boolean mapped from the specified key, or {@code false} if no such mapping has been
+	 * made.
+	 */
+	boolean get(int key) {
+		return get(key, false);
+	}
+
+	/**
+	 * Gets the boolean mapped from the specified key, or the specified value if no such mapping has
+	 * been made.
+	 */
+	boolean get(int key, boolean valueIfKeyNotFound) {
+		int index = indexOfKey(key);
+		return (index >= 0) ? mValues[index] : valueIfKeyNotFound;
+	}
+
+	@Override
+	@NonNull
+	Object getValues() {
+		return mValues;
+	}
+
+	/**
+	 * Returns an index for which {@link #valueAt} would return the specified value, or a negative
+	 * number if no keys map to the specified value. Beware that this is a linear search, unlike
+	 * lookups by key, and that multiple keys can map to the same value and this will find only one
+	 * of them.
+	 */
+	int indexOfValue(boolean value) {
+		for (int index = 0; index < mSize; ++index) {
+			if (mValues[index] == value) {
+				return index;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * @return A new SparseBooleanStore holding only the specified mapping.
+	 */
+	@NonNull
+	static SparseBooleanStore of(int key, boolean value) {
+		SparseBooleanStore entry = new SparseBooleanStore(1);
+		entry.append(key, value);
+		return entry;
+	}
+
+	/**
+	 * Adds a mapping from the specified key to the specified value, replacing the previous mapping
+	 * from the specified key if there was one.
+	 */
+	void put(int key, boolean value) {
+		int index = indexOfKey(key);
+		if (index < 0) {
+			index = ~index;
+			insertKeyAt(index, key);
+		}
+		mValues[index] = value;
+	}
+
+	@Override
+	void resizeValues(int length) {
+		mValues = Arrays.copyOf(mValues, length);
+	}
+
+	/**
+	 * Given an index in the range 0...{@link #size()}-1, sets a new value for the index-th
+	 * key-value mapping that this SparseBooleanStore stores.
+	 */
+	void setValueAt(int index, boolean value) {
+		checkIndex(index);
+		mValues[index] = value;
+	}
+
+	/**
+	 * @return A new SparseBooleanArray holding a copy of the mappings.
+	 */
+	@NonNull
+	SparseBooleanArray toSparseBooleanArray() {
+		SparseBooleanArray items = new SparseBooleanArray(mSize);
+		for (int index = 0; index < mSize; ++index) {
+			items.append(mKeys[index], mValues[index]);
+		}
+		return items;
+	}
+
+	/**
+	 * Given an index in the range 0...{@link #size()}-1, returns the value from the index-th
+	 * key-value mapping that this SparseBooleanStore stores.
+	 */
+	boolean valueAt(int index) {
+		checkIndex(index);
+		return mValues[index];
+	}
+}
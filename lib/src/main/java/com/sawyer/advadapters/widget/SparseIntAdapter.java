@@ -0,0 +1,254 @@
+/*
+ * Copyright 2014 Jay Soyer
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sawyer.advadapters.widget;
+
+import android.content.Context;
+import android.support.annotation.NonNull;
+import android.util.SparseIntArray;
+import android.widget.BaseAdapter;
+
+/**
+ * <p>A custom abstract {@link BaseAdapter} that maps int keys to int values, such as counters. By
+ * default this class delegates view generation and defining the filtering logic to
+ * subclasses.</p>
+ *
+ * <p>Mirrors the {@link SparseAdapter}, but without boxing any value. Mappings are exchanged as a
+ * {@link SparseIntArray} and held within sorted int[] keys alongside a int[] of values. Use {@link
+ * #getItemInt(int)} or {@link #getItemIntWithId(int)} to read a value without boxing it.
+ * Filtering passes each value to {@link #isFilteredOut(int, int, CharSequence)} without boxing it
+ * either. An adapter's row ID maps to the key and vice versa. Any method requiring a key will have
+ * <i>"withId"</i> in the name.</p>
+ *
+ * <p>Because of the background filtering process, all methods which mutates the underlying data are
+ * internally synchronized. This ensures a thread safe environment for internal write
+ * operations.</p>
+ *
+ * <p>The values shown are held within an immutable sparse array, published through a single
+ * volatile reference. Writers build a new sparse array and swap it in, so methods reading the shown
+ * values never lock. Since every change copies the shown values, prefer the bulk methods such as
+ * {@link #putAll(SparseIntArray)}, or wrap many changes within {@link #beginBatch()} and {@link
+ * #commitBatch()}.</p>
+ */
+public abstract class SparseIntAdapter
+		extends AbsSparseStoreAdapter<SparseIntStore, SparseIntArray> {
+	/**
+	 * Constructor
+	 *
+	 * @param activity Context used for inflating views
+	 */
+	public SparseIntAdapter(@NonNull Context activity) {
+		super(activity, new SparseIntStore());
+	}
+
+	/**
+	 * Constructor
+	 *
+	 * @param activity Context used for inflating views
+	 * @param items    The items to represent within the adapter.
+	 */
+	public SparseIntAdapter(@NonNull Context activity, @NonNull SparseIntArray items) {
+		super(activity, SparseIntStore.from(items));
+	}
+
+	/**
+	 * Appends the specified SparseIntArray at the end of the adapter, optimizing for the case where
+	 * all the keys are greater then all existing keys in the adapter. Will repeat the last
+	 * filtering request if invoked while filtered results are being displayed.
+	 *
+	 * @param items The SparseIntArray items to add at the end of the adapter.
+	 */
+	public void appendAll(@NonNull SparseIntArray items) {
+		putAll(items);
+	}
+
+	/**
+	 * Appends the specified key and value pair to the end of the adapter, optimizing for the case
+	 * where the key is greater then all existing keys in the adapter. Will repeat the last
+	 * filtering request if invoked while filtered results are being displayed.
+	 *
+	 * @param keyId The keyId to append with
+	 * @param item  The value to append with
+	 */
+	public void appendWithId(int keyId, int item) {
+		appendEntry(SparseIntStore.of(keyId, item));
+	}
+
+	/**
+	 * Determines if the specified value exists within the adapter. Be aware that this is a linear
+	 * search, unlike look-ups by key.
+	 *
+	 * @param item The value to search for
+	 *
+	 * @return {@code true} if the value is found within the adapter. {@code false} otherwise
+	 */
+	public boolean containsValue(int item) {
+		return getShownValues().indexOfValue(item) >= 0;
+	}
+
+	/**
+	 * @return The shown filtered data as a SparseIntArray. If no filter is applied, then the
+	 * original (unfiltered) data is returned instead.
+	 */
+	@NonNull
+	public SparseIntArray getFilteredSparseIntArray() {
+		return getFilteredItems();
+	}
+
+	/**
+	 * Boxes the value at the specified position. Prefer {@link #getItemInt(int)}, which doesn't.
+	 */
+	@Override
+	public Integer getItem(int position) {
+		return getShownValues().valueAt(position);
+	}
+
+	/**
+	 * Gets the value at the specified position, without boxing it.
+	 *
+	 * @param position Position of the item whose data we want within the adapter's data set.
+	 *
+	 * @return The value at the specified position.
+	 */
+	public int getItemInt(int position) {
+		return getShownValues().valueAt(position);
+	}
+
+	/**
+	 * @return The value mapped by the keyId or {@code 0} if no such mapping has been made
+	 */
+	public int getItemIntWithId(int keyId) {
+		return getShownValues().get(keyId);
+	}
+
+	/**
+	 * @return The value mapped by the keyId or valueIfKeyNotFound if no such mapping has been made
+	 */
+	public int getItemIntWithId(int keyId, int valueIfKeyNotFound) {
+		return getShownValues().get(keyId, valueIfKeyNotFound);
+	}
+
+	/**
+	 * Returns the position of the specified value. Be aware that this is a linear search, unlike
+	 * look-ups by key, and that multiple keys can map to the same value and this will find only
+	 * one of them.
+	 *
+	 * @param item The value to retrieve the position of.
+	 *
+	 * @return The position of the specified value, or a negative number if not found.
+	 */
+	public int getPositionOfValue(int item) {
+		return getShownValues().indexOfValue(item);
+	}
+
+	/**
+	 * @return The original (unfiltered) SparseIntArray of items stored within the adapter.
+	 */
+	@NonNull
+	public SparseIntArray getSparseIntArray() {
+		return getItems();
+	}
+
+	/**
+	 * Resets the adapter to store a new SparseIntArray of items. Though equivalent to calling
+	 * {@link #clear()}, followed by {@link #putAll}; this method is more efficient. It performs a
+	 * straight copy of the items instead of having to perform a binary search before putting each
+	 * item within the adapter. Will repeat the last filtering request if invoked while filtered
+	 * results are being displayed.
+	 *
+	 * @param items New SparseIntArray of items to store within the adapter.
+	 */
+	public void setSparseIntArray(@NonNull SparseIntArray items) {
+		setItems(items);
+	}
+
+	/**
+	 * Determines whether the provided constraint filters out the given value. Allows easy,
+	 * customized filtering for subclasses. It's incorrect to modify the adapter within this
+	 * method. Any alterations will lead to undefined behavior or crashes. Internally, this method
+	 * is only ever invoked from a background thread.
+	 *
+	 * @param keyId      The key of the value
+	 * @param item       The value to compare against the constraint
+	 * @param constraint The constraint used to filter the value
+	 *
+	 * @return True if the value is filtered out by the given constraint. False if the value will
+	 * continue to display in the adapter.
+	 */
+	protected abstract boolean isFilteredOut(int keyId, int item,
+											 @NonNull CharSequence constraint);
+
+	@Override
+	final boolean isFilteredOutAt(@NonNull SparseIntStore values, int index,
+								   @NonNull CharSequence constraint) {
+		return isFilteredOut(values.keyAt(index), values.valueAt(index), constraint);
+	}
+
+	/**
+	 * Given a position in the range of 0...{@link #getCount()} - 1, sets a new value for the
+	 * key-value stored at that position. Be aware this method is only a constant amortised time
+	 * operation when the adapter is not filtered. Otherwise, the position must be converted to a
+	 * unfiltered position; which requires a binary search on the original unfiltered data.
+	 *
+	 * @param position The position of the value to update
+	 * @param item     The value to update with
+	 */
+	public void put(int position, int item) {
+		putValueAt(position, SparseIntStore.of(0, item));
+	}
+
+	/**
+	 * Adds the specified SparseIntArray to the adapter, replacing any existing mappings from the
+	 * specified keys if there were any.  Will repeat the last filtering request if invoked while
+	 * filtered results are being displayed. The keys of both are merged in a single linear pass,
+	 * rather than putting each value in turn.
+	 *
+	 * @param items The SparseIntArray items to add to the adapter.
+	 */
+	public void putAll(@NonNull SparseIntArray items) {
+		putItems(items);
+	}
+
+	/**
+	 * Adds the specified key and value to the adapter, replacing the previous mapping from the
+	 * specified key if there was one. Will repeat the last filtering request if invoked while
+	 * filtered results are being displayed.
+	 */
+	public void putWithId(int keyId, int item) {
+		putEntry(SparseIntStore.of(keyId, item));
+	}
+
+	/**
+	 * Removes all values from the adapter whose keys are found within the specified SparseIntArray.
+	 * The keys of both are compared in a single linear pass, rather than deleting each key in turn.
+	 *
+	 * @param items The SparseIntArray items to remove from the adapter.
+	 */
+	public void removeAll(@NonNull SparseIntArray items) {
+		removeItems(items);
+	}
+
+	@Override
+	@NonNull
+	SparseIntArray toPublic(@NonNull SparseIntStore values) {
+		return values.toSparseIntArray();
+	}
+
+	@Override
+	@NonNull
+	SparseIntStore toStore(@NonNull SparseIntArray items) {
+		return SparseIntStore.from(items);
+	}
+}
@@ -0,0 +1,179 @@
+/*
+ * Copyright 2014 Jay Soyer
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sawyer.advadapters.widget;
+
+import android.support.annotation.NonNull;
+import android.util.SparseIntArray;
+
+import java.util.Arrays;
+
+/**
+ * Maps ints to ints within a sorted int[] of keys and an int[] of values. Mirrors {@link
+ * android.util.SparseIntArray}, adding the bulk operations and {@link #setValueAt(int, int)} the
+ * {@link SparseIntAdapter} relies upon. Not synchronized. Everything not reading or writing a value
+ * is implemented by the {@link AbsSparseStore}.
+ */
+final class SparseIntStore extends AbsSparseStore<SparseIntStore> {
+	private static final int[] EMPTY_VALUES = new int[0];
+
+	private int[] mValues;
+
+	/**
+	 * Creates a new SparseIntStore containing no mappings.
+	 */
+	SparseIntStore() {
+		this(0);
+	}
+
+	/**
+	 * Creates a new SparseIntStore containing no mappings that will not require any additional
+	 * memory allocation to store the specified number of mappings.
+	 */
+	SparseIntStore(int initialCapacity) {
+		super(initialCapacity);
+		mValues = (initialCapacity > 0) ? new int[initialCapacity] : EMPTY_VALUES;
+	}
+
+	/**
+	 * Puts a key/value pair into the array, optimizing for the case where the key is greater than
+	 * all existing keys in the array.
+	 */
+	void append(int key, int value) {
+		if (mSize != 0 && key <= mKeys[mSize - 1]) {
+			put(key, value);
+			return;
+		}
+		ensureCapacity(mSize + 1);
+		mKeys[mSize] = key;
+		mValues[mSize] = value;
+		++mSize;
+	}
+
+	@Override
+	@NonNull
+	SparseIntStore create(int initialCapacity) {
+		return new SparseIntStore(initialCapacity);
+	}
+
+	/**
+	 * @return A new SparseIntStore holding a copy of the mappings of the items.
+	 */
+	@NonNull
+	static SparseIntStore from(@NonNull SparseIntArray items) {
+		int size = items.size();
+		SparseIntStore values = new SparseIntStore(size);
+		for (int index = 0; index < size; ++index) {
+			values.append(items.keyAt(index), items.valueAt(index));
+		}
+		return values;
+	}
+
+	/**
+	 * Gets the int mapped from the specified key, or {@code 0} if no such mapping has been
+	 * made.
+	 */
+	int get(int key) {
+		return get(key, 0);
+	}
+
+	/**
+	 * Gets the int mapped from the specified key, or the specified value if no such mapping has
+	 * been made.
+	 */
+	int get(int key, int valueIfKeyNotFound) {
+		int index = indexOfKey(key);
+		return (index >= 0) ? mValues[index] : valueIfKeyNotFound;
+	}
+
+	@Override
+	@NonNull
+	Object getValues() {
+		return mValues;
+	}
+
+	/**
+	 * Returns an index for which {@link #valueAt} would return the specified value, or a negative
+	 * number if no keys map to the specified value. Beware that this is a linear search, unlike
+	 * lookups by key, and that multiple keys can map to the same value and this will find only one
+	 * of them.
+	 */
+	int indexOfValue(int value) {
+		for (int index = 0; index < mSize; ++index) {
+			if (mValues[index] == value) {
+				return index;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * @return A new SparseIntStore holding only the specified mapping.
+	 */
+	@NonNull
+	static SparseIntStore of(int key, int value) {
+		SparseIntStore entry = new SparseIntStore(1);
+		entry.append(key, value);
+		return entry;
+	}
+
+	/**
+	 * Adds a mapping from the specified key to the specified value, replacing the previous mapping
+	 * from the specified key if there was one.
+	 */
+	void put(int key, int value) {
+		int index = indexOfKey(key);
+		if (index < 0) {
+			index = ~index;
+			insertKeyAt(index, key);
+		}
+		mValues[index] = value;
+	}
+
+	@Override
+	void resizeValues(int length) {
+		mValues = Arrays.copyOf(mValues, length);
+	}
+
+	/**
+	 * Given an index in the range 0...{@link #size()}-1, sets a new value for the index-th
+	 * key-value mapping that this SparseIntStore stores.
+	 */
+	void setValueAt(int index, int value) {
+		checkIndex(index);
+		mValues[index] = value;
+	}
+
+	/**
+	 * @return A new SparseIntArray holding a copy of the mappings.
+	 */
+	@NonNull
+	SparseIntArray toSparseIntArray() {
+		SparseIntArray items = new SparseIntArray(mSize);
+		for (int index = 0; index < mSize; ++index) {
+			items.append(mKeys[index], mValues[index]);
+		}
+		return items;
+	}
+
+	/**
+	 * Given an index in the range 0...{@link #size()}-1, returns the value from the index-th
+	 * key-value mapping that this SparseIntStore stores.
+	 */
+	int valueAt(int index) {
+		checkIndex(index);
+		return mValues[index];
+	}
+}
@@ -0,0 +1,154 @@
+/*
+ * Copyright 2014 Jay Soyer
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sawyer.advadapters.widget;
+
+import android.support.annotation.NonNull;
+
+import java.util.Arrays;
+
+/**
+ * Maps ints to longs within a sorted int[] of keys and a long[] of values. Mirrors {@link
+ * android.util.SparseLongArray}, which is only available from API 18, adding {@link
+ * #setValueAt(int, long)}. The {@link SparseLongAdapter} exchanges it's mappings as this store, so
+ * the adapter works on every API level the library supports. Not synchronized. Everything not
+ * reading or writing a value is implemented by the {@link AbsSparseStore}.
+ */
+public final class SparseLongStore extends AbsSparseStore<SparseLongStore> {
+	private static final long[] EMPTY_VALUES = new long[0];
+
+	private long[] mValues;
+
+	/**
+	 * Creates a new SparseLongStore containing no mappings.
+	 */
+	public SparseLongStore() {
+		this(0);
+	}
+
+	/**
+	 * Creates a new SparseLongStore containing no mappings that will not require any additional
+	 * memory allocation to store the specified number of mappings.
+	 */
+	public SparseLongStore(int initialCapacity) {
+		super(initialCapacity);
+		mValues = (initialCapacity > 0) ? new long[initialCapacity] : EMPTY_VALUES;
+	}
+
+	/**
+	 * Puts a key/value pair into the array, optimizing for the case where the key is greater than
+	 * all existing keys in the array.
+	 */
+	public void append(int key, long value) {
+		if (mSize != 0 && key <= mKeys[mSize - 1]) {
+			put(key, value);
+			return;
+		}
+		ensureCapacity(mSize + 1);
+		mKeys[mSize] = key;
+		mValues[mSize] = value;
+		++mSize;
+	}
+
+	@Override
+	@NonNull
+	SparseLongStore create(int initialCapacity) {
+		return new SparseLongStore(initialCapacity);
+	}
+
+	/**
+	 * Gets the long mapped from the specified key, or {@code 0} if no such mapping has been
+	 * made.
+	 */
+	public long get(int key) {
+		return get(key, 0);
+	}
+
+	/**
+	 * Gets the long mapped from the specified key, or the specified value if no such mapping has
+	 * been made.
+	 */
+	public long get(int key, long valueIfKeyNotFound) {
+		int index = indexOfKey(key);
+		return (index >= 0) ? mValues[index] : valueIfKeyNotFound;
+	}
+
+	@Override
+	@NonNull
+	Object getValues() {
+		return mValues;
+	}
+
+	/**
+	 * Returns an index for which {@link #valueAt} would return the specified value, or a negative
+	 * number if no keys map to the specified value. Beware that this is a linear search, unlike
+	 * lookups by key, and that multiple keys can map to the same value and this will find only one
+	 * of them.
+	 */
+	public int indexOfValue(long value) {
+		for (int index = 0; index < mSize; ++index) {
+			if (mValues[index] == value) {
+				return index;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * @return A new SparseLongStore holding only the specified mapping.
+	 */
+	@NonNull
+	static SparseLongStore of(int key, long value) {
+		SparseLongStore entry = new SparseLongStore(1);
+		entry.append(key, value);
+		return entry;
+	}
+
+	/**
+	 * Adds a mapping from the specified key to the specified value, replacing the previous mapping
+	 * from the specified key if there was one.
+	 */
+	public void put(int key, long value) {
+		int index = indexOfKey(key);
+		if (index < 0) {
+			index = ~index;
+			insertKeyAt(index, key);
+		}
+		mValues[index] = value;
+	}
+
+	@Override
+	void resizeValues(int length) {
+		mValues = Arrays.copyOf(mValues, length);
+	}
+
+	/**
+	 * Given an index in the range 0...{@link #size()}-1, sets a new value for the index-th
+	 * key-value mapping that this SparseLongStore stores.
+	 */
+	public void setValueAt(int index, long value) {
+		checkIndex(index);
+		mValues[index] = value;
+	}
+
+	/**
+	 * Given an index in the range 0...{@link #size()}-1, returns the value from the index-th
+	 * key-value mapping that this SparseLongStore stores.
+	 */
+	public long valueAt(int index) {
+		checkIndex(index);
+		return mValues[index];
+	}
+}
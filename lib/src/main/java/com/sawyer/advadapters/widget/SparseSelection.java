@@ -0,0 +1,261 @@
+/*
+ * Copyright 2014 Jay Soyer
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sawyer.advadapters.widget;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.util.SparseArray;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * <p>An immutable selection of a SparseArray's mappings, in the order they are shown. Holds the
+ * indexes of the selected mappings within the SparseArray, along with their inverse. Nothing is
+ * copied out of the SparseArray, items are found by position in constant time through it's
+ * indexes, while look-ups by key still binary search the SparseArray's sorted keys.</p>
+ *
+ * <p>Mappings are either selected in key order, or ordered by a comparator. Values the comparator
+ * considers equal are ordered by key, so every mapping has exactly one place within the
+ * order.</p>
+ *
+ * <p>A selection is only valid for the exact SparseArray it was built for, which it holds on to.
+ * Changing a single key produces a new selection in linear time, without sorting again.</p>
+ */
+final class SparseSelection<T> {
+	private final SparseArray<T> mObjects;
+	private final Comparator<? super T> mComparator;
+	/** Index within mObjects of the mapping at each position */
+	private final int[] mIndexes;
+	/** Position of the mapping at each index within mObjects, or -1 if it isn't selected */
+	private final int[] mPositions;
+
+	private SparseSelection(@NonNull SparseArray<T> objects,
+							@Nullable Comparator<? super T> comparator, @NonNull int[] indexes) {
+		mObjects = objects;
+		mComparator = comparator;
+		mIndexes = indexes;
+		mPositions = new int[objects.size()];
+		Arrays.fill(mPositions, -1);
+		for (int position = 0; position < indexes.length; ++position) {
+			mPositions[indexes[position]] = position;
+		}
+	}
+
+	/**
+	 * Selects some of the mappings of objects.
+	 *
+	 * @param objects    The SparseArray to select from
+	 * @param indexes    The indexes within objects to select, in ascending order. Taken over.
+	 * @param count      The number of indexes to select
+	 * @param comparator The comparator to order the mappings by, or null for key order
+	 */
+	@NonNull
+	static <T> SparseSelection<T> of(@NonNull SparseArray<T> objects, @NonNull int[] indexes,
+									 int count, @Nullable Comparator<? super T> comparator) {
+		int[] selected = (count == indexes.length) ? indexes : Arrays.copyOf(indexes, count);
+		if (comparator != null) {
+			mergeSort(objects, comparator, selected, new int[count], 0, count);
+		}
+		return new SparseSelection<>(objects, comparator, selected);
+	}
+
+	/**
+	 * Selects every mapping of objects, ordering them from scratch.
+	 */
+	@NonNull
+	static <T> SparseSelection<T> sort(@NonNull SparseArray<T> objects,
+									   @Nullable Comparator<? super T> comparator) {
+		int[] indexes = new int[objects.size()];
+		for (int index = 0; index < indexes.length; ++index) {
+			indexes[index] = index;
+		}
+		return of(objects, indexes, indexes.length, comparator);
+	}
+
+	/**
+	 * @return The position the given index within {@link #getObjects()} would be selected at, that
+	 * is the number of selected indexes before it. Performs a binary search, so is only meaningful
+	 * when selected in key order.
+	 */
+	int ceilingPosition(int index) {
+		int position = Arrays.binarySearch(mIndexes, index);
+		return (position >= 0) ? position : ~position;
+	}
+
+	/**
+	 * Compares two mappings by value, then by key. Keys ascend along with indexes, so comparing
+	 * indexes is the same as comparing keys.
+	 */
+	private static <T> int compare(@NonNull SparseArray<T> objects,
+								   @Nullable Comparator<? super T> comparator, int index,
+								   int otherIndex) {
+		int result = (comparator != null) ?
+					 comparator.compare(objects.valueAt(index), objects.valueAt(otherIndex)) : 0;
+		return (result != 0) ? result : (index < otherIndex ? -1 : (index == otherIndex ? 0 : 1));
+	}
+
+	private static <T> void mergeSort(@NonNull SparseArray<T> objects,
+									  @NonNull Comparator<? super T> comparator,
+									  @NonNull int[] indexes, @NonNull int[] buffer, int start,
+									  int end) {
+		if (end - start < 2) {
+			return;
+		}
+		int middle = (start + end) >>> 1;
+		mergeSort(objects, comparator, indexes, buffer, start, middle);
+		mergeSort(objects, comparator, indexes, buffer, middle, end);
+		if (compare(objects, comparator, indexes[middle - 1], indexes[middle]) <= 0) {
+			return;    //Already in order
+		}
+		System.arraycopy(indexes, start, buffer, start, end - start);
+		int left = start;
+		int right = middle;
+		for (int position = start; position < end; ++position) {
+			if (right >= end || (left < middle &&
+								 compare(objects, comparator, buffer[left], buffer[right]) <= 0)) {
+				indexes[position] = buffer[left++];
+			} else {
+				indexes[position] = buffer[right++];
+			}
+		}
+	}
+
+	/**
+	 * @return The comparator the mappings are ordered by, or null if in key order.
+	 */
+	@Nullable
+	Comparator<? super T> getComparator() {
+		return mComparator;
+	}
+
+	/**
+	 * @return The SparseArray this is a selection of.
+	 */
+	@NonNull
+	SparseArray<T> getObjects() {
+		return mObjects;
+	}
+
+	/**
+	 * @return The index within {@link #getObjects()} of the mapping at the position.
+	 */
+	int indexAt(int position) {
+		return mIndexes[position];
+	}
+
+	/**
+	 * Orders the same mappings by another comparator.
+	 *
+	 * @param comparator The comparator to order the mappings by, or null for key order
+	 *
+	 * @return A new selection of the same mappings.
+	 */
+	@NonNull
+	SparseSelection<T> orderBy(@Nullable Comparator<? super T> comparator) {
+		int[] indexes = mIndexes.clone();
+		if (comparator != null) {
+			mergeSort(mObjects, comparator, indexes, new int[indexes.length], 0, indexes.length);
+		} else {
+			Arrays.sort(indexes);
+		}
+		return new SparseSelection<>(mObjects, comparator, indexes);
+	}
+
+	/**
+	 * @return The position of the mapping at the index within {@link #getObjects()}, -1 if it isn't
+	 * selected, or the given index itself if negative.
+	 */
+	int positionOf(int index) {
+		return (index >= 0) ? mPositions[index] : index;
+	}
+
+	/**
+	 * Selects objects after a single key was put into the SparseArray this is a selection of. Only
+	 * valid for a selection of every mapping, the key put is selected as well.
+	 *
+	 * @param objects The SparseArray this is a selection of, with the key put into it
+	 * @param key     The key which was put
+	 *
+	 * @return A new selection of objects.
+	 */
+	@NonNull
+	SparseSelection<T> put(@NonNull SparseArray<T> objects, int key) {
+		int oldIndex = mObjects.indexOfKey(key);
+		int index = objects.indexOfKey(key);
+		int[] indexes = new int[objects.size()];
+		int size = 0;
+		for (int position = 0; position < mIndexes.length; ++position) {
+			int current = mIndexes[position];
+			if (current == oldIndex) {
+				continue;    //Replaced, placed again below
+			}
+			indexes[size++] = (oldIndex < 0 && current >= index) ? current + 1 : current;
+		}
+
+		int low = 0;
+		int high = size;
+		while (low < high) {
+			int middle = (low + high) >>> 1;
+			if (compare(objects, mComparator, indexes[middle], index) < 0) {
+				low = middle + 1;
+			} else {
+				high = middle;
+			}
+		}
+		System.arraycopy(indexes, low, indexes, low + 1, size - low);
+		indexes[low] = index;
+		return new SparseSelection<>(objects, mComparator, indexes);
+	}
+
+	/**
+	 * Selects objects after any number of keys were removed from the SparseArray this is a
+	 * selection of. Both sorted key arrays are walked together once to map the old indexes to the
+	 * new ones, so the selection is kept in linear time without sorting again.
+	 *
+	 * @param objects The SparseArray this is a selection of, with some of it's keys removed
+	 *
+	 * @return A new selection of objects.
+	 */
+	@NonNull
+	SparseSelection<T> retain(@NonNull SparseArray<T> objects) {
+		int[] newIndexes = new int[mObjects.size()];
+		int newIndex = 0;
+		for (int index = 0; index < newIndexes.length; ++index) {
+			if (newIndex < objects.size() && objects.keyAt(newIndex) == mObjects.keyAt(index)) {
+				newIndexes[index] = newIndex++;
+			} else {
+				newIndexes[index] = -1;    //Removed
+			}
+		}
+		int[] indexes = new int[mIndexes.length];
+		int size = 0;
+		for (int position = 0; position < mIndexes.length; ++position) {
+			int current = newIndexes[mIndexes[position]];
+			if (current >= 0) {
+				indexes[size++] = current;
+			}
+		}
+		return new SparseSelection<>(objects, mComparator, Arrays.copyOf(indexes, size));
+	}
+
+	/**
+	 * @return The number of mappings selected.
+	 */
+	int size() {
+		return mIndexes.length;
+	}
+}
@@ -0,0 +1,153 @@
+/*
+ * Copyright 2014 Jay Soyer
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.sawyer.advadapters.widget;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.util.SparseArray;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * A reverse index over the values of a SparseArray. Maps each value to the ascending keys holding
+ * it, so a value's position is found with a hash look-up and a binary search rather than a linear
+ * scan. Values are matched either by identity, as SparseArray does, or with equals. Must be kept in
+ * step with the sparse array it indexes by its owner.
+ */
+final class SparseValueIndex {
+	private final Map<Object, Keys> mKeys;
+
+	SparseValueIndex(boolean isIdentity) {
+		mKeys = isIdentity ? new IdentityHashMap<Object, Keys>() : new HashMap<Object, Keys>();
+	}
+
+	/**
+	 * Records the key as holding the value.
+	 */
+	void add(@Nullable Object value, int key) {
+		Keys keys = mKeys.get(value);
+		if (keys == null) {
+			keys = new Keys();
+			mKeys.put(value, keys);
+		}
+		keys.add(key);
+	}
+
+	/**
+	 * Records every mapping of the given sparse array.
+	 */
+	void addAll(@NonNull SparseArray<?> items) {
+		for (int index = 0; index < items.size(); ++index) {
+			add(items.valueAt(index), items.keyAt(index));
+		}
+	}
+
+	void clear() {
+		mKeys.clear();
+	}
+
+	/**
+	 * @return The position within items of the first key holding the value, or a negative number
+	 * if no key holds it. Items must be the sparse array this index is kept in step with.
+	 */
+	int indexOfValue(@NonNull SparseArray<?> items, @Nullable Object value) {
+		Keys keys = mKeys.get(value);
+		return (keys != null) ? items.indexOfKey(keys.mValues[0]) : -1;
+	}
+
+	/**
+	 * @return The position within the selection of the first key holding the value which is
+	 * selected, or a negative number if none is. Keys are found within the sparse array the
+	 * selection was built for, which need not be the one this index is kept in step with.
+	 */
+	int positionOfValue(@NonNull SparseSelection<?> selection, @Nullable Object value) {
+		Keys keys = mKeys.get(value);
+		if (keys == null) {
+			return -1;
+		}
+		SparseArray<?> items = selection.getObjects();
+		for (int index = 0; index < keys.mSize; ++index) {
+			int position = selection.positionOf(items.indexOfKey(keys.mValues[index]));
+			if (position >= 0) {
+				return position;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Records the value held by the key is being replaced. Must be invoked before items is changed.
+	 */
+	void put(@NonNull SparseArray<?> items, int key, @Nullable Object value) {
+		remove(items, key);
+		add(value, key);
+	}
+
+	/**
+	 * Forgets the key's current value, if the key is found within items. Must be invoked before
+	 * items is changed.
+	 */
+	void remove(@NonNull SparseArray<?> items, int key) {
+		int index = items.indexOfKey(key);
+		if (index >= 0) {
+			remove(items.valueAt(index), key);
+		}
+	}
+
+	/**
+	 * Forgets the key as holding the value.
+	 */
+	void remove(@Nullable Object value, int key) {
+		Keys keys = mKeys.get(value);
+		if (keys != null && keys.remove(key) && keys.mSize == 0) {
+			mKeys.remove(value);
+		}
+	}
+
+	/**
+	 * The ascending keys holding a single value. Most values are held by one key only.
+	 */
+	private static final class Keys {
+		private int[] mValues = new int[1];
+		private int mSize;
+
+		void add(int key) {
+			int index = Arrays.binarySearch(mValues, 0, mSize, key);
+			if (index >= 0) {
+				return;
+			}
+			index = ~index;
+			if (mSize == mValues.length) {
+				mValues = Arrays.copyOf(mValues, mSize * 2);
+			}
+			System.arraycopy(mValues, index, mValues, index + 1, mSize - index);
+			mValues[index] = key;
+			++mSize;
+		}
+
+		boolean remove(int key) {
+			int index = Arrays.binarySearch(mValues, 0, mSize, key);
+			if (index < 0) {
+				return false;
+			}
+			System.arraycopy(mValues, index + 1, mValues, index, --mSize - index);
+			return true;
+		}
+	}
+}